@@ -1,15 +1,60 @@
 package com.mycompany.oficina.agendamento;
 
 import com.google.gson.reflect.TypeToken;
+import com.mycompany.oficina.entidades.Elevador;
 import com.mycompany.oficina.persistencia.PersistenciaJson;
 
+import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Gerencia a coleção completa de agendamentos da oficina, agora com
  * persistência de dados integrada.
+ * <p>
+ * A agenda pode ser acessada por vários atendentes ao mesmo tempo. Cada dia é
+ * uma célula de um mapa concorrente ordenado por data e o vetor de horários do dia nunca é alterado
+ * depois de publicado: toda reserva ou cancelamento cria uma cópia do vetor e a
+ * troca atomicamente (compare-and-set) no mapa. Assim, dois atendentes que
+ * disputam o mesmo horário nunca conseguem reservá-lo ao mesmo tempo, e
+ * reservas em dias diferentes não competem entre si.
+ * <p>
+ * A persistência é particionada por mês (data/agenda/AAAA-MM.json): cada
+ * alteração regrava somente o mês afetado. Na inicialização apenas o mês atual
+ * e os futuros são carregados; meses anteriores são lidos sob demanda, na
+ * primeira vez em que algum dia deles for consultado.
+ * <p>
+ * Como os dias ficam ordenados, consultas por período ({@link #listarEntre},
+ * {@link #listarSemana}, {@link #listarMes}) percorrem apenas os dias da janela
+ * pedida e devolvem os agendamentos em ordem cronológica.
+ * <p>
+ * Meses antigos podem ser movidos para o arquivo histórico compactado com
+ * {@link #arquivarMesesAnterioresA}; eles deixam a agenda em memória e ficam
+ * somente leitura. As consultas continuam vendo esses meses: os horários do
+ * dia e as listagens por período leem o arquivo dos meses arquivados da janela
+ * pedida, e as listagens completas leem o arquivo inteiro.
+ * <p>
+ * Além do índice por data, a agenda mantém índices por CPF do cliente, CPF do
+ * mecânico, tipo de serviço e elevador, atualizados a cada reserva, cancelamento,
+ * carga ou arquivamento. Antes da primeira busca por eles, os meses históricos
+ * ainda não lidos e os meses arquivados são carregados nos índices, para que
+ * cubram toda a agenda; depois respondem em tempo proporcional ao tamanho do
+ * resultado.
  */
 public final class AgendaOficina {
 
@@ -19,16 +64,52 @@ public final class AgendaOficina {
     private final int horaFimTarde = 18;
     private final int totalDeHorarios;
 
-    // A estrutura de dados principal
-    private Map<LocalDate, Agendamento[]> agenda;
+    // A estrutura de dados principal (thread-safe, ordenada por data, com vetores copy-on-write por dia)
+    private final ConcurrentNavigableMap<LocalDate, Agendamento[]> agenda;
 
     // --- ATRIBUTOS PARA PERSISTÊNCIA ---
     private final PersistenciaJson persistencia;
     private final String CHAVE_ARQUIVO = "agenda";
+    private final TypeToken<HashMap<LocalDate, Agendamento[]>> tipoParticao = new TypeToken<HashMap<LocalDate, Agendamento[]>>() {};
+
+    // Meses cujas partições já estão em memória
+    private final Set<YearMonth> mesesCarregados = ConcurrentHashMap.newKeySet();
+    // Meses que possuem partição salva em disco
+    private final NavigableSet<YearMonth> mesesPersistidos = new ConcurrentSkipListSet<>();
+    // Meses movidos para o arquivo histórico (somente leitura)
+    private final NavigableSet<YearMonth> mesesArquivados = new ConcurrentSkipListSet<>();
+    // Uma trava por mês, para que duas gravações do mesmo mês não se sobreponham
+    private final ConcurrentMap<YearMonth, Object> travasPorMes = new ConcurrentHashMap<>();
+    // Uma trava de leitura/escrita por mês: reservas e cancelamentos usam a de leitura
+    // (não bloqueiam uns aos outros) e o arquivamento do mês usa a de escrita
+    private final ConcurrentMap<YearMonth, ReadWriteLock> travasDeArquivamento = new ConcurrentHashMap<>();
+
+    // Indica que todas as partições em disco já foram lidas (meses novos nascem em memória)
+    private volatile boolean historicoCompletoCarregado;
+    // Indica que os meses arquivados já estão nos índices secundários
+    private volatile boolean arquivoIndexado;
+    // Protege a entrada dos meses arquivados nos índices (carga do arquivo e arquivamento de um mês)
+    private final Object travaDoArquivoIndexado = new Object();
+
+    // Interessados nas mudanças da agenda (padrão Observer)
+    private final List<ObservadorAgenda> observadores = new CopyOnWriteArrayList<>();
+
+    // --- ÍNDICES SECUNDÁRIOS ---
+    private final IndiceAgenda<String> indicePorCliente =
+            new IndiceAgenda<>(ag -> ag.getCliente() != null ? ag.getCliente().getCpf() : null);
+    private final IndiceAgenda<String> indicePorMecanico =
+            new IndiceAgenda<>(ag -> ag.getMecanico() != null ? ag.getMecanico().getCpf() : null);
+    private final IndiceAgenda<String> indicePorNomeMecanico =
+            new IndiceAgenda<>(ag -> ag.getMecanico() != null ? normalizarNome(ag.getMecanico().getNome()) : null);
+    private final IndiceAgenda<TipoServico> indicePorTipoServico =
+            new IndiceAgenda<>(Agendamento::getTipoServico);
+    private final IndiceAgenda<Integer> indicePorElevador =
+            new IndiceAgenda<>(ag -> ag.getElevador() != null ? ag.getElevador().getId() : null);
 
     /**
-     * Construtor que agora recebe a instância de persistência e carrega os dados
-     * do arquivo agenda.json na inicialização.
+     * Construtor que recebe a instância de persistência e carrega as partições
+     * do mês atual e dos meses futuros. Se ainda existir o arquivo único
+     * agenda.json (formato antigo), ele é convertido em partições mensais.
      */
     public AgendaOficina(PersistenciaJson persistencia) {
         this.persistencia = persistencia;
@@ -37,108 +118,466 @@ public final class AgendaOficina {
         int slotsTarde = horaFimTarde - horaInicioTarde;
         this.totalDeHorarios = slotsManha + slotsTarde;
 
-        // Carrega o mapa do arquivo JSON. Se não existir ou estiver vazio, cria um novo.
-        this.agenda = this.persistencia.carregarMapa(CHAVE_ARQUIVO, new TypeToken<HashMap<LocalDate, Agendamento[]>>() {});
-        if (this.agenda == null) {
-            this.agenda = new HashMap<>();
+        this.agenda = new ConcurrentSkipListMap<>();
+
+        migrarArquivoUnico();
+
+        for (String particao : this.persistencia.listarParticoes(CHAVE_ARQUIVO)) {
+            mesesPersistidos.add(YearMonth.parse(particao));
+        }
+        for (String particao : this.persistencia.listarArquivosHistoricos(CHAVE_ARQUIVO)) {
+            mesesArquivados.add(YearMonth.parse(particao));
+        }
+
+        // Carrega somente a janela atual: o mês corrente e os meses futuros
+        for (YearMonth mes : mesesPersistidos.tailSet(YearMonth.now(), true)) {
+            garantirMesCarregado(mes);
         }
     }
 
     /**
-     * Método privado que centraliza a lógica de salvamento.
+     * Converte o antigo arquivo agenda.json (todos os dias em um único arquivo)
+     * para partições mensais. O arquivo original é mantido como "agenda.json.migrado".
      */
-    private void salvarAgenda() {
-        this.persistencia.salvarMapa(CHAVE_ARQUIVO, this.agenda);
+    private void migrarArquivoUnico() {
+        if (!this.persistencia.existeArquivo(CHAVE_ARQUIVO)) {
+            return;
+        }
+        Map<LocalDate, Agendamento[]> antiga = this.persistencia.carregarMapa(CHAVE_ARQUIVO, tipoParticao);
+        Map<YearMonth, Map<LocalDate, Agendamento[]>> porMes = new HashMap<>();
+        for (Map.Entry<LocalDate, Agendamento[]> dia : antiga.entrySet()) {
+            porMes.computeIfAbsent(YearMonth.from(dia.getKey()), m -> new HashMap<>()).put(dia.getKey(), dia.getValue());
+        }
+        for (Map.Entry<YearMonth, Map<LocalDate, Agendamento[]>> mes : porMes.entrySet()) {
+            this.persistencia.salvarMapaParticao(CHAVE_ARQUIVO, mes.getKey().toString(), mes.getValue());
+        }
+        this.persistencia.marcarArquivoComoMigrado(CHAVE_ARQUIVO);
+        System.out.println("[Agenda] agenda.json convertido em " + porMes.size() + " partição(ões) mensal(is).");
     }
 
     /**
-     * Agenda um novo serviço e salva o estado atual no JSON.
+     * Garante que a partição do mês informado esteja em memória, lendo-a do
+     * disco na primeira vez em que for necessária.
+     *
+     * @param mes mês a ser carregado
      */
-    public boolean agendar(Agendamento agendamento) {
-        LocalDateTime dataHora = agendamento.getDataHora();
-        int indice = converterHoraParaIndice(dataHora);
+    private void garantirMesCarregado(YearMonth mes) {
+        if (mesesCarregados.contains(mes)) {
+            return;
+        }
+        synchronized (travaDoMes(mes)) {
+            if (mesesCarregados.contains(mes)) {
+                return;
+            }
+            if (mesesPersistidos.contains(mes)) {
+                Map<LocalDate, Agendamento[]> dias = this.persistencia.carregarMapaParticao(CHAVE_ARQUIVO, mes.toString(), tipoParticao);
+                // putIfAbsent preserva qualquer reserva feita antes da leitura terminar
+                for (Map.Entry<LocalDate, Agendamento[]> dia : dias.entrySet()) {
+                    if (this.agenda.putIfAbsent(dia.getKey(), dia.getValue()) == null) {
+                        indexarDia(dia.getValue());
+                    }
+                }
+                if (!dias.isEmpty()) {
+                    notificarRecarga();
+                }
+            }
+            mesesCarregados.add(mes);
+        }
+    }
 
-        if (indice == -1) {
-            return false;
+    private Object travaDoMes(YearMonth mes) {
+        return travasPorMes.computeIfAbsent(mes, m -> new Object());
+    }
+
+    private ReadWriteLock travaDeArquivamento(YearMonth mes) {
+        return travasDeArquivamento.computeIfAbsent(mes, m -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Salva somente a partição do mês que contém a data alterada.
+     * A trava do mês evita que duas gravações do mesmo arquivo se intercalem;
+     * as reservas em si não dependem deste bloqueio. Se o mês foi arquivado
+     * depois da alteração (que já foi levada para o arquivo), nada é gravado.
+     *
+     * @param data dia que foi alterado
+     */
+    private void salvarAgenda(LocalDate data) {
+        YearMonth mes = YearMonth.from(data);
+        synchronized (travaDoMes(mes)) {
+            if (mesesArquivados.contains(mes)) {
+                return;
+            }
+            Map<LocalDate, Agendamento[]> dias = new HashMap<>(agenda.subMap(mes.atDay(1), true, mes.atEndOfMonth(), true));
+            this.persistencia.salvarMapaParticao(CHAVE_ARQUIVO, mes.toString(), dias);
+            mesesPersistidos.add(mes);
         }
+    }
 
-        LocalDate data = dataHora.toLocalDate();
-        // getOrDefault garante que um novo array seja criado se for o primeiro agendamento do dia
-        Agendamento[] horariosDoDia = agenda.getOrDefault(data, new Agendamento[this.totalDeHorarios]);
+    /**
+     * Garante que todas as partições persistidas entre dois meses estejam em memória.
+     *
+     * @param de primeiro mês (inclusive)
+     * @param ate último mês (inclusive)
+     */
+    private void garantirMesesCarregados(YearMonth de, YearMonth ate) {
+        for (YearMonth mes : mesesPersistidos.subSet(de, true, ate, true)) {
+            garantirMesCarregado(mes);
+        }
+    }
 
-        if (horariosDoDia[indice] != null) {
-            return false;
+    /**
+     * Move para o arquivo histórico compactado todos os meses inteiramente
+     * anteriores à data limite. Cada mês arquivado sai da memória e do
+     * diretório de partições, de modo que inicialização e gravações não
+     * dependem mais do tamanho do histórico. Enquanto um mês é arquivado,
+     * reservas e cancelamentos nele esperam; depois disso são recusados.
+     *
+     * @param limite dias anteriores a esta data podem ser arquivados
+     * @return quantidade de meses arquivados
+     */
+    public int arquivarMesesAnterioresA(LocalDate limite) {
+        YearMonth primeiroMesMantido = YearMonth.from(limite);
+        int arquivados = 0;
+        for (YearMonth mes : new ArrayList<>(mesesPersistidos.headSet(primeiroMesMantido, false))) {
+            if (arquivarMes(mes)) {
+                arquivados++;
+            }
         }
+        return arquivados;
+    }
 
-        horariosDoDia[indice] = agendamento;
-        agenda.put(data, horariosDoDia); // Garante que o mapa seja atualizado
+    // Arquiva um mês com a trava de escrita: nenhuma reserva ou cancelamento do mês fica de fora do arquivo
+    private boolean arquivarMes(YearMonth mes) {
+        Lock escrita = travaDeArquivamento(mes).writeLock();
+        escrita.lock();
+        try {
+            synchronized (travaDoMes(mes)) {
+                if (mesesArquivados.contains(mes)) {
+                    return false;
+                }
+                Map<LocalDate, Agendamento[]> dias = this.persistencia.carregarMapaParticao(CHAVE_ARQUIVO, mes.toString(), tipoParticao);
+                // Dias já em memória podem ter alterações mais recentes que o arquivo
+                dias.putAll(agenda.subMap(mes.atDay(1), true, mes.atEndOfMonth(), true));
+                if (!this.persistencia.salvarArquivoHistorico(CHAVE_ARQUIVO, mes.toString(), dias)) {
+                    return false; // Mantém a partição se o arquivo histórico não pôde ser gravado
+                }
+                NavigableMap<LocalDate, Agendamento[]> diasDoMes = agenda.subMap(mes.atDay(1), true, mes.atEndOfMonth(), true);
+                synchronized (travaDoArquivoIndexado) {
+                    mesesArquivados.add(mes);
+                    for (Agendamento[] horariosDoDia : diasDoMes.values()) {
+                        for (Agendamento agendamento : horariosDoDia) {
+                            desindexar(agendamento);
+                        }
+                    }
+                    // Se o arquivo já está nos índices, o mês continua neles como foi arquivado
+                    if (arquivoIndexado) {
+                        dias.values().forEach(this::indexarDia);
+                    }
+                }
+                this.persistencia.removerParticao(CHAVE_ARQUIVO, mes.toString());
+                mesesPersistidos.remove(mes);
+                diasDoMes.clear();
+                notificarRecarga();
+                mesesCarregados.remove(mes);
+                return true;
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
 
-        // --- SALVAMENTO ADICIONADO ---
-        salvarAgenda();
-        System.out.println("SUCESSO: Agendamento realizado e salvo para " + data);
-        return true;
+    /**
+     * Consulta no arquivo histórico os horários de um dia já arquivado.
+     *
+     * @param data dia desejado
+     * @return cópia dos horários do dia (posições vazias para horários livres)
+     */
+    public Agendamento[] buscarNoArquivo(LocalDate data) {
+        Agendamento[] horarios = carregarMesArquivado(YearMonth.from(data)).get(data);
+        return horarios == null ? new Agendamento[this.totalDeHorarios] : horarios;
     }
 
     /**
-     * Cancela um agendamento e salva a alteração no JSON.
+     * Lista, em ordem cronológica, os agendamentos arquivados entre duas datas.
+     *
+     * @param inicio primeira data da janela
+     * @param fim última data da janela
+     * @return agendamentos arquivados no período
      */
-    public boolean cancelarAgendamento(Agendamento agendamento) {
+    public List<Agendamento> listarArquivadosEntre(LocalDate inicio, LocalDate fim) {
+        List<Agendamento> resultado = new ArrayList<>();
+        if (fim.isBefore(inicio)) {
+            return resultado;
+        }
+        for (YearMonth mes : mesesArquivados.subSet(YearMonth.from(inicio), true, YearMonth.from(fim), true)) {
+            NavigableMap<LocalDate, Agendamento[]> dias = new TreeMap<>(carregarMesArquivado(mes));
+            for (Agendamento[] horariosDoDia : dias.subMap(inicio, true, fim, true).values()) {
+                adicionarOcupados(horariosDoDia, resultado);
+            }
+        }
+        return resultado;
+    }
+
+    // Lê do arquivo histórico um mês arquivado (mapa vazio se não houver)
+    private Map<LocalDate, Agendamento[]> carregarMesArquivado(YearMonth mes) {
+        if (!mesesArquivados.contains(mes)) {
+            return Collections.emptyMap();
+        }
+        Map<LocalDate, Agendamento[]> dias = this.persistencia.carregarArquivoHistorico(CHAVE_ARQUIVO, mes.toString(), tipoParticao.getType());
+        return dias != null ? dias : Collections.emptyMap();
+    }
+
+    /**
+     * Visita, em ordem cronológica e sob demanda, os dias entre duas datas:
+     * os dos meses arquivados vêm do arquivo histórico (lido só quando o fluxo
+     * chega ao mês) e os demais da agenda em memória.
+     */
+    private Stream<Agendamento[]> diasComArquivoEntre(LocalDate inicio, LocalDate fim) {
+        List<Supplier<Collection<Agendamento[]>>> trechos = new ArrayList<>();
+        LocalDate cursor = inicio;
+        for (YearMonth mes : mesesArquivados.subSet(YearMonth.from(inicio), true, YearMonth.from(fim), true)) {
+            LocalDate deMemoria = cursor;
+            LocalDate ateMemoria = mes.atDay(1).minusDays(1);
+            if (!ateMemoria.isBefore(deMemoria)) {
+                trechos.add(() -> diasEntre(deMemoria, ateMemoria).values());
+            }
+            LocalDate doArquivo = deMemoria.isAfter(mes.atDay(1)) ? deMemoria : mes.atDay(1);
+            LocalDate ateArquivo = fim.isBefore(mes.atEndOfMonth()) ? fim : mes.atEndOfMonth();
+            trechos.add(() -> new TreeMap<>(carregarMesArquivado(mes)).subMap(doArquivo, true, ateArquivo, true).values());
+            cursor = mes.atEndOfMonth().plusDays(1);
+        }
+        if (!cursor.isAfter(fim)) {
+            LocalDate deMemoria = cursor;
+            trechos.add(() -> diasEntre(deMemoria, fim).values());
+        }
+        return trechos.stream().flatMap(trecho -> trecho.get().stream());
+    }
+
+    /**
+     * Carrega nos índices secundários, uma única vez, os agendamentos de todos
+     * os meses arquivados. Depois disso, cada mês arquivado entra nos índices
+     * no próprio arquivamento.
+     */
+    private void indexarArquivo() {
+        if (arquivoIndexado) {
+            return;
+        }
+        synchronized (travaDoArquivoIndexado) {
+            if (arquivoIndexado) {
+                return;
+            }
+            for (YearMonth mes : mesesArquivados) {
+                carregarMesArquivado(mes).values().forEach(this::indexarDia);
+            }
+            arquivoIndexado = true;
+        }
+    }
+
+    /**
+     * Carrega em memória todas as partições históricas ainda não lidas.
+     * Usado pelas operações que precisam percorrer a agenda inteira.
+     */
+    public void carregarHistoricoCompleto() {
+        if (historicoCompletoCarregado) {
+            return;
+        }
+        for (YearMonth mes : mesesPersistidos) {
+            garantirMesCarregado(mes);
+        }
+        historicoCompletoCarregado = true;
+    }
+
+    /**
+     * Troca atomicamente o conteúdo de um horário do dia.
+     * <p>
+     * A função passada ao {@code compute} não tem efeitos colaterais além de
+     * marcar {@code sucesso}, que é reiniciado a cada execução; por isso ela pode
+     * ser reexecutada com segurança caso o mapa precise repetir a operação.
+     *
+     * @param data dia do horário
+     * @param indice posição do horário no vetor do dia
+     * @param esperado valor que deve estar no horário (null para horário vago)
+     * @param novo valor que será colocado no horário (null para liberar)
+     * @return true se o horário continha {@code esperado} e foi trocado
+     */
+    private boolean trocarHorario(LocalDate data, int indice, Agendamento esperado, Agendamento novo) {
+        boolean[] sucesso = new boolean[1];
+        agenda.compute(data, (dia, horariosAtuais) -> {
+            sucesso[0] = false;
+            Agendamento atual = horariosAtuais == null ? null : horariosAtuais[indice];
+            if (atual != esperado) {
+                return horariosAtuais;
+            }
+            Agendamento[] copia = horariosAtuais == null
+                    ? new Agendamento[this.totalDeHorarios]
+                    : Arrays.copyOf(horariosAtuais, horariosAtuais.length);
+            copia[indice] = novo;
+            sucesso[0] = true;
+            return copia;
+        });
+        return sucesso[0];
+    }
+
+    /**
+     * Registra um observador das mudanças da agenda.
+     */
+    public void adicionarObservador(ObservadorAgenda observador) {
+        observadores.add(observador);
+    }
+
+    /**
+     * Remove um observador das mudanças da agenda.
+     */
+    public void removerObservador(ObservadorAgenda observador) {
+        observadores.remove(observador);
+    }
+
+    private void notificarAlteracao(Agendamento agendamento) {
+        observadores.forEach(obs -> obs.horarioAlterado(agendamento));
+    }
+
+    private void notificarRecarga() {
+        observadores.forEach(ObservadorAgenda::agendaRecarregada);
+    }
+
+    // Inclui o agendamento em todos os índices secundários
+    private void indexar(Agendamento agendamento) {
+        indicePorCliente.adicionar(agendamento);
+        indicePorMecanico.adicionar(agendamento);
+        indicePorNomeMecanico.adicionar(agendamento);
+        indicePorTipoServico.adicionar(agendamento);
+        indicePorElevador.adicionar(agendamento);
+    }
+
+    // Retira o agendamento de todos os índices secundários
+    private void desindexar(Agendamento agendamento) {
         if (agendamento == null) {
-            return false;
+            return;
         }
+        indicePorCliente.remover(agendamento);
+        indicePorMecanico.remover(agendamento);
+        indicePorNomeMecanico.remover(agendamento);
+        indicePorTipoServico.remover(agendamento);
+        indicePorElevador.remover(agendamento);
+    }
 
-        LocalDateTime dataHora = agendamento.getDataHora();
-        LocalDate data = dataHora.toLocalDate();
+    // Chave do índice por nome: sem espaços nas pontas e sem diferença de maiúsculas
+    private static String normalizarNome(String nome) {
+        return nome == null ? null : nome.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Inclui nos índices um agendamento que acabou de ocupar o horário.
+     * <p>
+     * Um cancelamento simultâneo pode liberar o horário e tirar o agendamento
+     * dos índices antes desta inclusão; por isso, depois de incluir, o horário
+     * é lido de novo e, se já não contém o agendamento, a inclusão é desfeita.
+     * Qualquer que seja a ordem entre as duas threads, os índices terminam
+     * iguais ao conteúdo dos horários, e cada uma notifica os observadores só
+     * depois de atualizar os índices.
+     */
+    private void indexarReservado(LocalDate data, int indice, Agendamento agendamento) {
+        indexar(agendamento);
         Agendamento[] horariosDoDia = agenda.get(data);
+        if (horariosDoDia == null || horariosDoDia[indice] != agendamento) {
+            desindexar(agendamento);
+        }
+    }
 
-        if (horariosDoDia == null) {
-            return false;
+    private void indexarDia(Agendamento[] horariosDoDia) {
+        for (Agendamento agendamento : horariosDoDia) {
+            if (agendamento != null) {
+                indexar(agendamento);
+            }
         }
+    }
 
+    /**
+     * Agenda um novo serviço e salva o estado atual no JSON.
+     */
+    public boolean agendar(Agendamento agendamento) {
+        LocalDateTime dataHora = agendamento.getDataHora();
         int indice = converterHoraParaIndice(dataHora);
-        if (indice == -1 || horariosDoDia[indice] == null) {
+
+        if (indice == -1) {
             return false;
         }
 
-        if (horariosDoDia[indice].equals(agendamento)) {
-            horariosDoDia[indice] = null;
-            // --- SALVAMENTO ADICIONADO ---
-            salvarAgenda();
-            return true;
+        LocalDate data = dataHora.toLocalDate();
+        YearMonth mes = YearMonth.from(data);
+        Lock leitura = travaDeArquivamento(mes).readLock();
+        leitura.lock();
+        try {
+            if (mesesArquivados.contains(mes)) {
+                return false; // Meses arquivados são somente leitura
+            }
+            garantirMesCarregado(mes);
+            // Reserva o horário somente se ele ainda estiver vago (operação atômica)
+            if (!trocarHorario(data, indice, null, agendamento)) {
+                return false;
+            }
+            indexarReservado(data, indice, agendamento);
+        } finally {
+            leitura.unlock();
         }
+        notificarAlteracao(agendamento);
+
+        // --- SALVAMENTO ADICIONADO ---
+        salvarAgenda(data);
+        System.out.println("SUCESSO: Agendamento realizado e salvo para " + data);
+        return true;
+    }
 
-        return false;
+    /**
+     * Cancela um agendamento e salva a alteração no JSON.
+     */
+    public boolean cancelarAgendamento(Agendamento agendamento) {
+        return liberarHorario(agendamento);
     }
+
     public boolean removerAgendamento(Agendamento agendamento) {
+        return liberarHorario(agendamento);
+    }
+
+    // Libera o horário somente se ele ainda contém exatamente este agendamento
+    private boolean liberarHorario(Agendamento agendamento) {
         if (agendamento == null) {
             return false;
         }
 
         LocalDateTime dataHora = agendamento.getDataHora();
         LocalDate data = dataHora.toLocalDate();
-        Agendamento[] horariosDoDia = agenda.get(data);
-
-        if (horariosDoDia == null) {
-            return false; // Não há agendamentos para este dia.
-        }
-
         int indice = converterHoraParaIndice(dataHora);
-        if (indice == -1 || horariosDoDia[indice] == null) {
-            return false; // Horário inválido ou já está vago.
+        if (indice == -1) {
+            return false; // Horário inválido
         }
 
-        // Verifica se o agendamento na posição é exatamente o que queremos remover
-        if (horariosDoDia[indice].equals(agendamento)) {
-            horariosDoDia[indice] = null; // Remove o agendamento
-            salvarAgenda(); // Salva a alteração no arquivo JSON
-            return true;
+        YearMonth mes = YearMonth.from(data);
+        Lock leitura = travaDeArquivamento(mes).readLock();
+        leitura.lock();
+        try {
+            if (mesesArquivados.contains(mes)) {
+                return false; // Meses arquivados são somente leitura
+            }
+            garantirMesCarregado(mes);
+            if (!trocarHorario(data, indice, agendamento, null)) {
+                return false; // Não há agendamentos no dia, o horário está vago ou é de outro agendamento
+            }
+            desindexar(agendamento);
+        } finally {
+            leitura.unlock();
         }
-
-        return false;
+        notificarAlteracao(agendamento);
+        salvarAgenda(data); // Salva a alteração na partição do mês
+        return true;
     }
 
     // ... O restante da sua classe (getHorariosDoDia, listarTodos, etc.) permanece o mesmo ...
     public Agendamento[] getHorariosDoDia(LocalDate data) {
+        if (mesesArquivados.contains(YearMonth.from(data))) {
+            return buscarNoArquivo(data);
+        }
+        garantirMesCarregado(YearMonth.from(data));
         Agendamento[] horariosOriginais = agenda.get(data);
         if (horariosOriginais == null) {
             return new Agendamento[this.totalDeHorarios];
@@ -146,6 +585,17 @@ public final class AgendaOficina {
         return Arrays.copyOf(horariosOriginais, horariosOriginais.length);
     }
 
+    /**
+     * Retorna a quantidade de horários disponíveis em cada dia.
+     */
+    public int getTotalDeHorarios() {
+        return totalDeHorarios;
+    }
+
+    /**
+     * Retorna as datas com agendamentos que estão em memória (mês atual, meses
+     * futuros e meses históricos já consultados).
+     */
     public Set<LocalDate> getDatasAgendadas() {
         return Collections.unmodifiableSet(agenda.keySet());
     }
@@ -165,15 +615,214 @@ public final class AgendaOficina {
         return -1;
     }
 
+    /**
+     * Lista todos os agendamentos, de todo o histórico (inclusive os meses
+     * arquivados), em ordem cronológica.
+     * Para telas e relatórios prefira {@link #listarEntre}, que só percorre a janela pedida.
+     *
+     * @return lista com todos os agendamentos
+     */
     public List<Agendamento> listarTodosAgendamentos() {
         List<Agendamento> todos = new ArrayList<>();
-        for (Agendamento[] horariosDoDia : agenda.values()) {
-            for (Agendamento agendamento : horariosDoDia) {
-                if (agendamento != null) {
-                    todos.add(agendamento);
-                }
+        streamTodosAgendamentos().forEach(todos::add);
+        return todos;
+    }
+
+    /**
+     * Percorre sob demanda, em ordem cronológica, todos os agendamentos (os
+     * meses históricos ainda não lidos são carregados antes; os arquivados são
+     * lidos do arquivo quando o fluxo chega a eles). Nada é copiado: uma
+     * operação como {@code limit} encerra a leitura cedo.
+     *
+     * @return fluxo de todos os agendamentos
+     */
+    public Stream<Agendamento> streamTodosAgendamentos() {
+        carregarHistoricoCompleto();
+        return diasComArquivoEntre(LocalDate.MIN, LocalDate.MAX)
+                .flatMap(Arrays::stream)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos entre duas datas (inclusive),
+     * lendo do arquivo histórico os meses arquivados da janela.
+     * O custo é proporcional ao número de dias da janela, não ao histórico inteiro.
+     *
+     * @param inicio primeira data da janela
+     * @param fim última data da janela
+     * @return agendamentos do período, do mais antigo ao mais recente
+     */
+    public List<Agendamento> listarEntre(LocalDate inicio, LocalDate fim) {
+        List<Agendamento> resultado = new ArrayList<>();
+        if (fim.isBefore(inicio)) {
+            return resultado;
+        }
+        diasComArquivoEntre(inicio, fim).forEach(horariosDoDia -> adicionarOcupados(horariosDoDia, resultado));
+        return resultado;
+    }
+
+    /**
+     * Lista os agendamentos da semana (segunda a domingo) que contém a data informada.
+     *
+     * @param diaDaSemana qualquer dia da semana desejada
+     * @return agendamentos da semana em ordem cronológica
+     */
+    public List<Agendamento> listarSemana(LocalDate diaDaSemana) {
+        LocalDate segunda = diaDaSemana.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return listarEntre(segunda, segunda.plusDays(6));
+    }
+
+    /**
+     * Lista os agendamentos de um mês.
+     *
+     * @param mes mês desejado
+     * @return agendamentos do mês em ordem cronológica
+     */
+    public List<Agendamento> listarMes(YearMonth mes) {
+        return listarEntre(mes.atDay(1), mes.atEndOfMonth());
+    }
+
+    /**
+     * Percorre de forma preguiçosa, em ordem cronológica, os agendamentos entre
+     * duas datas. Os dias só são visitados à medida que o stream é consumido,
+     * então operações como {@code limit} encerram a leitura mais cedo.
+     *
+     * @param inicio primeira data da janela
+     * @param fim última data da janela
+     * @return stream dos agendamentos do período
+     */
+    public Stream<Agendamento> streamEntre(LocalDate inicio, LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            return Stream.empty();
+        }
+        return diasComArquivoEntre(inicio, fim)
+                .flatMap(Arrays::stream)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos de um cliente.
+     *
+     * @param cpf CPF do cliente
+     * @return agendamentos do cliente
+     */
+    public List<Agendamento> buscarPorCliente(String cpf) {
+        carregarIndicesCompletos();
+        return indicePorCliente.buscar(cpf);
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos de um mecânico.
+     *
+     * @param cpf CPF do mecânico
+     * @return agendamentos do mecânico
+     */
+    public List<Agendamento> buscarPorMecanico(String cpf) {
+        carregarIndicesCompletos();
+        return indicePorMecanico.buscar(cpf);
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos dos mecânicos com o nome
+     * informado (sem diferenciar maiúsculas de minúsculas).
+     *
+     * @param nome nome do mecânico
+     * @return agendamentos do mecânico
+     */
+    public List<Agendamento> buscarPorNomeMecanico(String nome) {
+        carregarIndicesCompletos();
+        return indicePorNomeMecanico.buscar(normalizarNome(nome));
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos de um tipo de serviço.
+     *
+     * @param tipo tipo de serviço
+     * @return agendamentos do tipo
+     */
+    public List<Agendamento> buscarPorTipoServico(TipoServico tipo) {
+        carregarIndicesCompletos();
+        return indicePorTipoServico.buscar(tipo);
+    }
+
+    /**
+     * Lista, em ordem cronológica, os agendamentos que usam um elevador.
+     *
+     * @param idElevador identificador do elevador (ver {@link Elevador#getId()})
+     * @return agendamentos do elevador
+     */
+    public List<Agendamento> buscarPorElevador(int idElevador) {
+        carregarIndicesCompletos();
+        return indicePorElevador.buscar(idElevador);
+    }
+
+    /** Quantidade de agendamentos do cliente. */
+    public int contarPorCliente(String cpf) {
+        carregarIndicesCompletos();
+        return indicePorCliente.contar(cpf);
+    }
+
+    /** Quantidade de agendamentos do mecânico. */
+    public int contarPorMecanico(String cpf) {
+        carregarIndicesCompletos();
+        return indicePorMecanico.contar(cpf);
+    }
+
+    /** Quantidade de agendamentos dos mecânicos com o nome informado. */
+    public int contarPorNomeMecanico(String nome) {
+        carregarIndicesCompletos();
+        return indicePorNomeMecanico.contar(normalizarNome(nome));
+    }
+
+    /** Quantidade de agendamentos do tipo de serviço. */
+    public int contarPorTipoServico(TipoServico tipo) {
+        carregarIndicesCompletos();
+        return indicePorTipoServico.contar(tipo);
+    }
+
+    /** Quantidade de agendamentos do elevador. */
+    public int contarPorElevador(int idElevador) {
+        carregarIndicesCompletos();
+        return indicePorElevador.contar(idElevador);
+    }
+
+    // Os índices cobrem toda a agenda: partições ainda não lidas e meses arquivados
+    private void carregarIndicesCompletos() {
+        carregarHistoricoCompleto();
+        indexarArquivo();
+    }
+
+    /**
+     * Estimativa de quantos horários uma consulta por período percorre:
+     * os dias com agendamento em memória dentro da janela, vezes os horários do dia.
+     *
+     * @param inicio primeira data da janela
+     * @param fim última data da janela
+     * @return número de horários examinados
+     */
+    public long estimarHorariosEntre(LocalDate inicio, LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            return 0;
+        }
+        long dias = Math.min(agenda.size(), ChronoUnit.DAYS.between(inicio, fim) + 1);
+        return dias * totalDeHorarios;
+    }
+
+    /**
+     * Visão ordenada dos dias entre duas datas, carregando antes as partições
+     * históricas da janela que ainda não estejam em memória.
+     */
+    private NavigableMap<LocalDate, Agendamento[]> diasEntre(LocalDate inicio, LocalDate fim) {
+        garantirMesesCarregados(YearMonth.from(inicio), YearMonth.from(fim));
+        return agenda.subMap(inicio, true, fim, true);
+    }
+
+    // Copia para o destino os horários ocupados do dia, na ordem dos horários
+    private void adicionarOcupados(Agendamento[] horariosDoDia, List<Agendamento> destino) {
+        for (Agendamento agendamento : horariosDoDia) {
+            if (agendamento != null) {
+                destino.add(agendamento);
             }
         }
-        return todos;
     }
 }
\ No newline at end of file
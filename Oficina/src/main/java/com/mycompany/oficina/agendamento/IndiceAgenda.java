@@ -0,0 +1,75 @@
+package com.mycompany.oficina.agendamento;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Índice secundário da agenda: associa uma chave (CPF do cliente, CPF do
+ * mecânico, tipo de serviço, elevador...) aos agendamentos que a possuem.
+ * <p>
+ * Cada chave guarda um conjunto concorrente comparado por identidade, então
+ * incluir um agendamento e retirar outro do mesmo horário ao mesmo tempo não
+ * interferem entre si. As consultas devolvem os agendamentos em ordem
+ * cronológica, com custo proporcional ao tamanho do resultado.
+ *
+ * @param <K> tipo da chave indexada
+ */
+final class IndiceAgenda<K> {
+
+    // Ordem cronológica usada nas respostas do índice
+    static final Comparator<Agendamento> POR_DATA_HORA = Comparator.comparing(Agendamento::getDataHora);
+
+    // Extrai a chave de um agendamento (null quando o agendamento não tem a informação)
+    private final Function<Agendamento, K> extratorDeChave;
+
+    private final ConcurrentMap<K, Set<Agendamento>> entradas = new ConcurrentHashMap<>();
+
+    /**
+     * @param extratorDeChave função que obtém a chave de um agendamento
+     */
+    IndiceAgenda(Function<Agendamento, K> extratorDeChave) {
+        this.extratorDeChave = extratorDeChave;
+    }
+
+    // Inclui o agendamento sob a sua chave
+    void adicionar(Agendamento agendamento) {
+        K chave = extratorDeChave.apply(agendamento);
+        if (chave != null) {
+            entradas.computeIfAbsent(chave, k -> ConcurrentHashMap.newKeySet()).add(agendamento);
+        }
+    }
+
+    // Retira o agendamento da sua chave
+    void remover(Agendamento agendamento) {
+        K chave = extratorDeChave.apply(agendamento);
+        if (chave != null) {
+            Set<Agendamento> conjunto = entradas.get(chave);
+            if (conjunto != null) {
+                conjunto.remove(agendamento);
+            }
+        }
+    }
+
+    // Agendamentos com a chave informada, em ordem cronológica
+    List<Agendamento> buscar(K chave) {
+        Set<Agendamento> conjunto = chave == null ? null : entradas.get(chave);
+        if (conjunto == null) {
+            return Collections.emptyList();
+        }
+        List<Agendamento> resultado = new ArrayList<>(conjunto);
+        resultado.sort(POR_DATA_HORA);
+        return resultado;
+    }
+
+    // Quantidade de agendamentos com a chave informada
+    int contar(K chave) {
+        Set<Agendamento> conjunto = chave == null ? null : entradas.get(chave);
+        return conjunto == null ? 0 : conjunto.size();
+    }
+}
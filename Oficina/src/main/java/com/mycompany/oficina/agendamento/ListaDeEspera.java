@@ -0,0 +1,219 @@
+package com.mycompany.oficina.agendamento;
+
+import com.google.gson.reflect.TypeToken;
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Lista de espera para horários liberados por cancelamento.
+ * <p>
+ * Cada pedido é indexado em uma fila de prioridade para cada dia da sua janela
+ * de datas, separada por tipo de serviço. Quando um horário é cancelado, basta
+ * consultar a fila daquele dia e do serviço do horário (o mecânico e o
+ * elevador da vaga são os daquele serviço) para achar o melhor pedido
+ * compatível, sem percorrer a lista inteira; por isso o encaixe pode ser feito
+ * no próprio cancelamento, mesmo com milhares de pedidos aguardando. Pedidos
+ * que não aceitam a hora da vaga são pulados e continuam na fila.
+ * <p>
+ * Pedidos atendidos não são retirados das filas dos outros dias na hora: eles
+ * ficam marcados como encerrados e são descartados quando chegam ao topo. As
+ * filas de dias que já passaram e os pedidos vencidos são descartados uma vez
+ * por dia, na primeira operação do dia.
+ */
+public final class ListaDeEspera {
+
+    // Maior janela de datas aceita para um pedido, para limitar o tamanho do índice
+    public static final int MAX_DIAS_JANELA = 60;
+
+    private final PersistenciaJson persistencia;
+    private final AgendaOficina agenda;
+    private final String CHAVE_ARQUIVO = "lista_espera";
+
+    // Pedidos ativos, na ordem em que foram registrados (é o que vai para o JSON)
+    private final List<SolicitacaoEspera> solicitacoes;
+
+    // Índice: dia -> serviço -> pedidos que aceitam aquele dia, do melhor para o pior (ordenado por dia)
+    private final NavigableMap<LocalDate, Map<TipoServico, PriorityQueue<SolicitacaoEspera>>> filasPorDia = new TreeMap<>();
+
+    // Dia da última limpeza de filas passadas e pedidos vencidos
+    private LocalDate ultimoDescarte;
+
+    // Maior prioridade primeiro; empate resolvido por ordem de chegada
+    private static final Comparator<SolicitacaoEspera> ORDEM_DE_ATENDIMENTO =
+            Comparator.comparingInt(SolicitacaoEspera::getPrioridade).reversed()
+                    .thenComparing(SolicitacaoEspera::getDataRegistro);
+
+    /**
+     * Carrega os pedidos salvos, descartando os que já expiraram, e monta o índice por dia.
+     *
+     * @param persistencia instância de persistência
+     * @param agenda agenda onde os pedidos serão encaixados
+     */
+    public ListaDeEspera(PersistenciaJson persistencia, AgendaOficina agenda) {
+        this.persistencia = persistencia;
+        this.agenda = agenda;
+        this.solicitacoes = this.persistencia.carregarLista(CHAVE_ARQUIVO, new TypeToken<ArrayList<SolicitacaoEspera>>() {});
+
+        LocalDate hoje = LocalDate.now();
+        boolean removeuExpiradas = this.solicitacoes.removeIf(s -> s.getDataFim().isBefore(hoje));
+        this.ultimoDescarte = hoje;
+        for (SolicitacaoEspera solicitacao : this.solicitacoes) {
+            indexar(solicitacao);
+        }
+        if (removeuExpiradas) {
+            salvar();
+        }
+    }
+
+    private void salvar() {
+        this.persistencia.salvarLista(CHAVE_ARQUIVO, this.solicitacoes);
+    }
+
+    // Uma vez por dia, descarta as filas dos dias anteriores a hoje e os pedidos cuja janela já terminou
+    private void descartarDiasPassados() {
+        LocalDate hoje = LocalDate.now();
+        if (hoje.equals(ultimoDescarte)) {
+            return;
+        }
+        ultimoDescarte = hoje;
+        filasPorDia.headMap(hoje, false).clear();
+        boolean removeuVencidas = solicitacoes.removeIf(s -> {
+            if (s.getDataFim().isBefore(hoje)) {
+                s.encerrar();
+                return true;
+            }
+            return false;
+        });
+        if (removeuVencidas) {
+            salvar();
+        }
+    }
+
+    // Coloca o pedido na fila de cada dia da sua janela que ainda não passou
+    private void indexar(SolicitacaoEspera solicitacao) {
+        LocalDate dia = solicitacao.getDataInicio().isBefore(LocalDate.now()) ? LocalDate.now() : solicitacao.getDataInicio();
+        for (; !dia.isAfter(solicitacao.getDataFim()); dia = dia.plusDays(1)) {
+            filasPorDia.computeIfAbsent(dia, d -> new EnumMap<>(TipoServico.class))
+                    .computeIfAbsent(solicitacao.getTipoServico(), t -> new PriorityQueue<>(ORDEM_DE_ATENDIMENTO))
+                    .add(solicitacao);
+        }
+    }
+
+    /**
+     * Registra um novo pedido na lista de espera.
+     *
+     * @param solicitacao pedido do cliente
+     * @return true se registrado; false se os dados forem inválidos, a janela já
+     *         tiver passado ou for maior que {@link #MAX_DIAS_JANELA} dias, ou a
+     *         faixa de horas for inválida
+     */
+    public synchronized boolean registrar(SolicitacaoEspera solicitacao) {
+        if (solicitacao == null || solicitacao.getCliente() == null || solicitacao.getCarro() == null
+                || solicitacao.getTipoServico() == null || solicitacao.getDataInicio() == null || solicitacao.getDataFim() == null) {
+            return false;
+        }
+        if (solicitacao.getDataFim().isBefore(solicitacao.getDataInicio()) || solicitacao.getDataFim().isBefore(LocalDate.now())) {
+            return false;
+        }
+        if (ChronoUnit.DAYS.between(solicitacao.getDataInicio(), solicitacao.getDataFim()) >= MAX_DIAS_JANELA) {
+            return false;
+        }
+        Integer horaMinima = solicitacao.getHoraMinima();
+        Integer horaMaxima = solicitacao.getHoraMaxima();
+        if ((horaMinima != null && (horaMinima < 0 || horaMinima > 23)) || (horaMaxima != null && (horaMaxima < 0 || horaMaxima > 23))
+                || (horaMinima != null && horaMaxima != null && horaMinima > horaMaxima)) {
+            return false;
+        }
+        descartarDiasPassados();
+        solicitacoes.add(solicitacao);
+        indexar(solicitacao);
+        salvar();
+        return true;
+    }
+
+    /**
+     * Retira um pedido da lista de espera.
+     *
+     * @param solicitacao pedido a remover
+     * @return true se o pedido estava na lista
+     */
+    public synchronized boolean remover(SolicitacaoEspera solicitacao) {
+        if (!solicitacoes.remove(solicitacao)) {
+            return false;
+        }
+        solicitacao.encerrar(); // As filas descartam o pedido quando ele chegar ao topo
+        salvar();
+        return true;
+    }
+
+    /**
+     * Tenta encaixar na vaga liberada o melhor pedido do mesmo tipo de serviço
+     * que aceita aquele dia e aquela hora. O novo agendamento mantém o
+     * mecânico, o elevador e o horário da vaga.
+     *
+     * @param cancelado agendamento que acabou de ser cancelado
+     * @return o agendamento criado para o cliente da lista de espera, ou null
+     *         se nenhum pedido compatível foi encontrado
+     */
+    public synchronized Agendamento preencherVaga(Agendamento cancelado) {
+        if (cancelado == null || !cancelado.getDataHora().isAfter(LocalDateTime.now())) {
+            return null; // Horários que já passaram não são reaproveitados
+        }
+        descartarDiasPassados();
+        LocalDate dia = cancelado.getDataHora().toLocalDate();
+        Map<TipoServico, PriorityQueue<SolicitacaoEspera>> filasDoDia = filasPorDia.get(dia);
+        PriorityQueue<SolicitacaoEspera> fila = filasDoDia == null || cancelado.getTipoServico() == null
+                ? null : filasDoDia.get(cancelado.getTipoServico());
+        if (fila == null) {
+            return null;
+        }
+
+        // Pedidos que não aceitam a hora da vaga saem da fila só durante a busca
+        List<SolicitacaoEspera> pulados = new ArrayList<>();
+        try {
+            while (!fila.isEmpty()) {
+                SolicitacaoEspera melhor = fila.poll();
+                if (melhor.isEncerrada()) {
+                    continue; // Pedido já atendido em outro dia ou removido
+                }
+                if (!melhor.aceitaHorario(cancelado.getDataHora())) {
+                    pulados.add(melhor);
+                    continue;
+                }
+                Agendamento encaixe = new Agendamento(melhor.getCliente(), melhor.getCarro(), cancelado.getMecanico(),
+                        melhor.getTipoServico(), cancelado.getElevador(), cancelado.getDataHora());
+                if (!agenda.agendar(encaixe)) {
+                    pulados.add(melhor);
+                    return null; // A vaga já foi ocupada por outro atendente; o pedido continua na fila
+                }
+                melhor.encerrar();
+                solicitacoes.remove(melhor);
+                salvar();
+                System.out.println("[Lista de Espera] " + melhor.getCliente().getNome() + " encaixado(a) em " + cancelado.getDataHora());
+                return encaixe;
+            }
+            return null;
+        } finally {
+            fila.addAll(pulados);
+            if (fila.isEmpty()) {
+                filasDoDia.remove(cancelado.getTipoServico());
+                if (filasDoDia.isEmpty()) {
+                    filasPorDia.remove(dia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna os pedidos ativos na ordem em que foram registrados.
+     *
+     * @return lista não modificável dos pedidos
+     */
+    public synchronized List<SolicitacaoEspera> listarSolicitacoes() {
+        return Collections.unmodifiableList(new ArrayList<>(solicitacoes));
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.oficina.agendamento;
+
+/**
+ * Interface para objetos que desejam ser notificados sobre mudanças na agenda
+ * (padrão Observer, como {@code Observador} faz para as ordens de serviço).
+ */
+public interface ObservadorAgenda {
+
+    /**
+     * Chamado depois que um agendamento entrou ou saiu da agenda (reserva,
+     * cancelamento ou remoção).
+     *
+     * @param agendamento agendamento incluído ou retirado
+     */
+    void horarioAlterado(Agendamento agendamento);
+
+    /**
+     * Chamado quando muitos agendamentos entram ou saem da memória de uma vez
+     * (carga de um mês do disco ou arquivamento).
+     */
+    void agendaRecarregada();
+}
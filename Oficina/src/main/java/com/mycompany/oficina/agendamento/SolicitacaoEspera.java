@@ -0,0 +1,161 @@
+package com.mycompany.oficina.agendamento;
+
+import com.mycompany.oficina.entidades.Carro;
+import com.mycompany.oficina.entidades.Cliente;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Representa o pedido de um cliente para ser encaixado na agenda quando algum
+ * horário for liberado por cancelamento.
+ * <p>
+ * O cliente informa o serviço desejado, a janela de datas em que aceita ser
+ * atendido, opcionalmente a faixa de horas do dia que aceita, e uma prioridade. Quanto maior a prioridade, antes o pedido é
+ * atendido; entre prioridades iguais, vale a ordem de chegada.
+ */
+public final class SolicitacaoEspera {
+
+    // Cliente que aguarda uma vaga
+    private final Cliente cliente;
+
+    // Carro que será atendido
+    private final Carro carro;
+
+    // Serviço desejado pelo cliente
+    private final TipoServico tipoServico;
+
+    // Primeiro dia em que o cliente aceita ser atendido
+    private final LocalDate dataInicio;
+
+    // Último dia em que o cliente aceita ser atendido
+    private final LocalDate dataFim;
+
+    // Prioridade do pedido (maior valor é atendido primeiro)
+    private final int prioridade;
+
+    // Primeira e última hora do dia aceitas (nulas: qualquer horário)
+    private final Integer horaMinima;
+    private final Integer horaMaxima;
+
+    // Momento em que o pedido entrou na lista (desempate por ordem de chegada)
+    private final LocalDateTime dataRegistro;
+
+    // Indica que o pedido já foi encaixado ou removido; não é salvo no JSON
+    private transient boolean encerrada;
+
+    /**
+     * Cria um novo pedido de espera registrado no momento atual.
+     *
+     * @param cliente Cliente que aguarda a vaga
+     * @param carro Carro que será atendido
+     * @param tipoServico Serviço desejado
+     * @param dataInicio Primeiro dia aceito
+     * @param dataFim Último dia aceito
+     * @param prioridade Prioridade do pedido
+     */
+    public SolicitacaoEspera(Cliente cliente, Carro carro, TipoServico tipoServico, LocalDate dataInicio, LocalDate dataFim, int prioridade) {
+        this(cliente, carro, tipoServico, dataInicio, dataFim, prioridade, null, null);
+    }
+
+    /**
+     * Cria um novo pedido de espera que só aceita horários dentro de uma faixa
+     * de horas do dia.
+     *
+     * @param cliente Cliente que aguarda a vaga
+     * @param carro Carro que será atendido
+     * @param tipoServico Serviço desejado
+     * @param dataInicio Primeiro dia aceito
+     * @param dataFim Último dia aceito
+     * @param prioridade Prioridade do pedido
+     * @param horaMinima Primeira hora aceita (null para qualquer)
+     * @param horaMaxima Última hora aceita, inclusive (null para qualquer)
+     */
+    public SolicitacaoEspera(Cliente cliente, Carro carro, TipoServico tipoServico, LocalDate dataInicio, LocalDate dataFim, int prioridade,
+                             Integer horaMinima, Integer horaMaxima) {
+        this.cliente = cliente;
+        this.carro = carro;
+        this.tipoServico = tipoServico;
+        this.dataInicio = dataInicio;
+        this.dataFim = dataFim;
+        this.prioridade = prioridade;
+        this.horaMinima = horaMinima;
+        this.horaMaxima = horaMaxima;
+        this.dataRegistro = LocalDateTime.now();
+    }
+
+    // Retorna o cliente que aguarda a vaga
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    // Retorna o carro que será atendido
+    public Carro getCarro() {
+        return carro;
+    }
+
+    // Retorna o serviço desejado
+    public TipoServico getTipoServico() {
+        return tipoServico;
+    }
+
+    // Retorna o primeiro dia aceito
+    public LocalDate getDataInicio() {
+        return dataInicio;
+    }
+
+    // Retorna o último dia aceito
+    public LocalDate getDataFim() {
+        return dataFim;
+    }
+
+    // Retorna a prioridade do pedido
+    public int getPrioridade() {
+        return prioridade;
+    }
+
+    // Retorna o momento em que o pedido entrou na lista
+    public LocalDateTime getDataRegistro() {
+        return dataRegistro;
+    }
+
+    // Retorna a primeira hora aceita (null para qualquer)
+    public Integer getHoraMinima() {
+        return horaMinima;
+    }
+
+    // Retorna a última hora aceita (null para qualquer)
+    public Integer getHoraMaxima() {
+        return horaMaxima;
+    }
+
+    // Indica se o horário está dentro da faixa de horas aceita pelo cliente
+    boolean aceitaHorario(LocalDateTime dataHora) {
+        int hora = dataHora.getHour();
+        return (horaMinima == null || hora >= horaMinima) && (horaMaxima == null || hora <= horaMaxima);
+    }
+
+    // Indica se o pedido já foi atendido ou retirado da lista
+    boolean isEncerrada() {
+        return encerrada;
+    }
+
+    // Marca o pedido como atendido ou retirado da lista
+    void encerrar() {
+        this.encerrada = true;
+    }
+
+    /**
+     * Retorna uma representação em texto do pedido de espera.
+     */
+    @Override
+    public String toString() {
+        return "SolicitacaoEspera{" +
+                "cliente=" + (cliente != null ? cliente.getNome() : null) +
+                ", tipoServico=" + tipoServico +
+                ", dataInicio=" + dataInicio +
+                ", dataFim=" + dataFim +
+                ", prioridade=" + prioridade +
+                '}';
+    }
+}
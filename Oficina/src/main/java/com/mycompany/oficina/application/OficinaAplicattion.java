@@ -3,15 +3,34 @@ package com.mycompany.oficina.application;
 import com.mycompany.oficina.entidades.Funcionario;
 import com.mycompany.oficina.financeiro.GerenciadorFinanceiro;
 import com.mycompany.oficina.agendamento.AgendaOficina;
+import com.mycompany.oficina.agendamento.ListaDeEspera;
 import com.mycompany.oficina.controlador.GerenciadorCarros;
 import com.mycompany.oficina.controlador.GerenciadorCliente;
 import com.mycompany.oficina.controlador.GerenciadorFuncionario;
+import com.mycompany.oficina.interpreter.CacheDeBusca;
+import com.mycompany.oficina.interpreter.CompiladorDeBusca;
 import com.mycompany.oficina.loja.Estoque;
+import com.mycompany.oficina.loja.RecebimentoDePedidos;
+import com.mycompany.oficina.loja.ReservasDeEstoque;
+import com.mycompany.oficina.notificacao.CanalArquivo;
+import com.mycompany.oficina.notificacao.CanalConsole;
+import com.mycompany.oficina.notificacao.CanalDeEnvio;
+import com.mycompany.oficina.notificacao.DespachanteDeNotificacoes;
+import com.mycompany.oficina.ordemservico.AnaliseDeConsumoDePecas;
 import com.mycompany.oficina.ordemservico.GerenciadorOrdemDeServico;
+import com.mycompany.oficina.ordemservico.ObserverOS.NotificadorOs;
+import com.mycompany.oficina.ordemservico.ObserverOS.ReservaDePecasOS;
 import com.mycompany.oficina.persistencia.PersistenciaJson;
 import com.mycompany.oficina.seguranca.ServicoAutenticacao;
 import com.mycompany.oficina.sistemaponto.GerenciadorPonto;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Classe principal que centraliza o acesso aos gerenciadores e serviços da
  * aplicação da oficina.
@@ -22,16 +41,32 @@ import com.mycompany.oficina.sistemaponto.GerenciadorPonto;
 public class OficinaAplicattion {
 
     private static OficinaAplicattion instance; // Instância única da aplicação (Singleton)
+    // Idade (em dias) a partir da qual agendamentos e OS encerradas vão para o arquivo histórico.
+    // Pode ser alterada com -Doficina.retencao.dias=N; zero ou negativo desativa o arquivamento.
+    // As listagens e buscas da agenda e das OS continuam vendo os registros arquivados.
+    private static final int DIAS_RETENCAO_PADRAO = 180;
+    // Tempo máximo de espera pela entrega das notificações pendentes ao encerrar o sistema
+    private static final long ESPERA_ENCERRAMENTO_NOTIFICACOES_MS = 5000;
+    // Quem recebe os alertas de estoque baixo (-Doficina.alertas.estoque.destinatario=...)
+    private static final String DESTINATARIO_ALERTAS_ESTOQUE_PADRAO = "Gerência";
+    // Hora do dia em que a análise de consumo de peças roda (-Doficina.analise.consumo.hora=N; negativo desativa)
+    private static final int HORA_ANALISE_CONSUMO_PADRAO = 3;
     private final GerenciadorFuncionario gerenciadorFuncionario; // Gerencia os funcionários da oficina
     private final GerenciadorCliente gerenciadorCliente;  // Gerencia os clientes da oficina
     private final GerenciadorCarros gerenciadorCarros; // Gerencia os carros cadastrados
     private final GerenciadorOrdemDeServico gerenciadorOS; // Gerencia as ordens de serviço
     private final GerenciadorPonto gerenciadorPonto; // Gerencia os registros de ponto dos funcionários
     private final AgendaOficina agenda; // Controla os agendamentos de serviços
+    private final ListaDeEspera listaDeEspera; // Clientes aguardando vagas liberadas por cancelamento
+    private final CompiladorDeBusca compiladorDeBusca; // Compila e guarda em cache as buscas textuais da agenda
+    private final CacheDeBusca cacheDeBusca; // Guarda os resultados das buscas da agenda até que ela mude
+    private final DespachanteDeNotificacoes despachanteDeNotificacoes; // Envia as notificações aos clientes em segundo plano
     private final Estoque estoque;  // Gerencia o estoque de produtos da oficina
+    private final RecebimentoDePedidos recebimentoDePedidos; // Recebe pedidos de compra (estoque e despesa juntos)
     private final GerenciadorFinanceiro gerenciadorFinanceiro; // Responsável pelo controle financeiro (receitas e despesas)
     private final ServicoAutenticacao servicoAutenticacao;  // Responsável pela autenticação de usuários (login)
     private final PersistenciaJson persistencia;  // Responsável pela leitura e gravação de dados em arquivos JSON
+    private volatile AnaliseDeConsumoDePecas.RelatorioDeConsumo ultimaAnaliseDeConsumo; // Resultado da última análise de consumo
 
     /**
      * Construtor privado da aplicação. Inicializa todos os componentes do
@@ -43,11 +78,116 @@ public class OficinaAplicattion {
         this.gerenciadorCliente = new GerenciadorCliente(persistencia);
         this.gerenciadorCarros = new GerenciadorCarros(persistencia);
         this.gerenciadorOS = new GerenciadorOrdemDeServico(persistencia);
+        this.despachanteDeNotificacoes = criarDespachanteDeNotificacoes();
+        this.gerenciadorOS.adicionarObservadorDasOS(new NotificadorOs(despachanteDeNotificacoes));
         this.gerenciadorPonto = new GerenciadorPonto(persistencia);
         this.gerenciadorFinanceiro = GerenciadorFinanceiro.getInstance(persistencia);
         this.agenda = new AgendaOficina(persistencia);
+        this.listaDeEspera = new ListaDeEspera(persistencia, agenda);
+        this.compiladorDeBusca = new CompiladorDeBusca();
+        this.cacheDeBusca = new CacheDeBusca();
+        this.agenda.adicionarObservador(cacheDeBusca);
         this.estoque = new Estoque(persistencia);
+        this.estoque.getMonitorDeEstoqueBaixo().setDestinoDosAlertas(despachanteDeNotificacoes,
+                System.getProperty("oficina.alertas.estoque.destinatario", DESTINATARIO_ALERTAS_ESTOQUE_PADRAO));
+        ReservasDeEstoque.getInstance().setLivroDeMovimentos(estoque.getLivroDeMovimentos());
+        // Saídas e devoluções ainda na fila do livro são gravadas ao encerrar a JVM
+        Runtime.getRuntime().addShutdownHook(new Thread(estoque.getLivroDeMovimentos()::descarregar));
+        this.recebimentoDePedidos = new RecebimentoDePedidos(persistencia, estoque, gerenciadorFinanceiro);
+        ReservaDePecasOS reservaDePecas = new ReservaDePecasOS(ReservasDeEstoque.getInstance(), estoque);
+        reservaDePecas.restaurar(gerenciadorOS.listarTodos());
+        this.gerenciadorOS.adicionarObservadorDasOS(reservaDePecas);
         this.servicoAutenticacao = new ServicoAutenticacao(gerenciadorFuncionario);
+
+        executarArquivamento(Integer.getInteger("oficina.retencao.dias", DIAS_RETENCAO_PADRAO));
+        agendarAnaliseDeConsumo(Integer.getInteger("oficina.analise.consumo.hora", HORA_ANALISE_CONSUMO_PADRAO));
+    }
+
+    /**
+     * Agenda a análise de consumo de peças para rodar uma vez por dia, na hora
+     * indicada, em uma thread de fundo.
+     *
+     * @param hora hora do dia (0 a 23); fora desse intervalo a análise não é agendada
+     */
+    private void agendarAnaliseDeConsumo(int hora) {
+        if (hora < 0 || hora > 23) {
+            return;
+        }
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "analise-consumo-pecas");
+            thread.setDaemon(true);
+            return thread;
+        });
+        LocalDateTime agora = LocalDateTime.now();
+        LocalDateTime proxima = agora.toLocalDate().atTime(hora, 0);
+        if (!proxima.isAfter(agora)) {
+            proxima = proxima.plusDays(1);
+        }
+        agendador.scheduleAtFixedRate(this::executarAnaliseDeConsumo,
+                Duration.between(agora, proxima).toMillis(), TimeUnit.DAYS.toMillis(1), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Analisa todo o histórico de OS (ativas e arquivadas) e calcula o consumo
+     * de peças e as sugestões de compra. O resultado fica guardado para consulta.
+     *
+     * @return resultado da análise, ou null se ela falhou
+     */
+    public AnaliseDeConsumoDePecas.RelatorioDeConsumo executarAnaliseDeConsumo() {
+        try {
+            long inicio = System.nanoTime();
+            AnaliseDeConsumoDePecas.RelatorioDeConsumo relatorio = new AnaliseDeConsumoDePecas()
+                    .executar(gerenciadorOS.streamHistorico(), estoque.listarProdutos(), LocalDate.now());
+            ultimaAnaliseDeConsumo = relatorio;
+            System.out.println("[Sistema] Análise de consumo de peças concluída em "
+                    + (System.nanoTime() - inicio) / 1_000_000 + " ms: "
+                    + relatorio.getSugestoes().size() + " sugestão(ões) de compra.");
+            return relatorio;
+        } catch (RuntimeException e) {
+            // Uma falha não pode cancelar as execuções dos próximos dias
+            System.err.println("Erro na análise de consumo de peças: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Retorna o resultado da última análise de consumo (null se ainda não rodou).
+     */
+    public AnaliseDeConsumoDePecas.RelatorioDeConsumo getUltimaAnaliseDeConsumo() {
+        return ultimaAnaliseDeConsumo;
+    }
+
+    /**
+     * Cria e inicia o despachante de notificações. Por padrão as mensagens vão
+     * para o console; com -Doficina.notificacoes.arquivo=caminho, são gravadas
+     * no arquivo indicado. A caixa de saída é salva ao encerrar a JVM.
+     */
+    private DespachanteDeNotificacoes criarDespachanteDeNotificacoes() {
+        String arquivo = System.getProperty("oficina.notificacoes.arquivo");
+        CanalDeEnvio canal = arquivo != null ? new CanalArquivo(arquivo) : new CanalConsole();
+        DespachanteDeNotificacoes despachante = new DespachanteDeNotificacoes(persistencia, canal);
+        despachante.iniciar();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> despachante.encerrar(ESPERA_ENCERRAMENTO_NOTIFICACOES_MS)));
+        return despachante;
+    }
+
+    /**
+     * Move para o arquivo histórico compactado os meses da agenda e as OS
+     * encerradas mais antigos que o período de retenção, mantendo pequenos os
+     * dados carregados na inicialização e regravados a cada alteração.
+     *
+     * @param diasRetencao idade máxima, em dias, dos registros mantidos em uso
+     */
+    public void executarArquivamento(int diasRetencao) {
+        if (diasRetencao <= 0) {
+            return;
+        }
+        LocalDate limite = LocalDate.now().minusDays(diasRetencao);
+        int meses = agenda.arquivarMesesAnterioresA(limite);
+        int ordens = gerenciadorOS.arquivarEncerradasAntesDe(limite.atStartOfDay());
+        if (meses > 0 || ordens > 0) {
+            System.out.println("[Sistema] Arquivamento: " + meses + " mês(es) da agenda e " + ordens + " OS movidos para data/arquivo.");
+        }
     }
 
     /**
@@ -64,6 +204,13 @@ public class OficinaAplicattion {
     }
 
     // Métodos de acesso aos componentes do sistema:
+    /**
+     * Retorna o despachante de notificações aos clientes.
+     */
+    public DespachanteDeNotificacoes getDespachanteDeNotificacoes() {
+        return despachanteDeNotificacoes;
+    }
+
     /**
      * Retorna o serviço de autenticação.
      */
@@ -99,6 +246,27 @@ public class OficinaAplicattion {
         return agenda;
     }
 
+    /**
+     * Retorna a lista de espera por vagas na agenda.
+     */
+    public ListaDeEspera getListaDeEspera() {
+        return listaDeEspera;
+    }
+
+    /**
+     * Retorna o compilador compartilhado das buscas de agendamentos.
+     */
+    public CompiladorDeBusca getCompiladorDeBusca() {
+        return compiladorDeBusca;
+    }
+
+    /**
+     * Retorna o cache de resultados das buscas de agendamentos (com as métricas de acerto).
+     */
+    public CacheDeBusca getCacheDeBusca() {
+        return cacheDeBusca;
+    }
+
     /**
      * Retorna o gerenciador de ordens de serviço.
      */
@@ -127,6 +295,13 @@ public class OficinaAplicattion {
         return estoque;
     }
 
+    /**
+     * Retorna o recebimento de pedidos de compra.
+     */
+    public RecebimentoDePedidos getRecebimentoDePedidos() {
+        return recebimentoDePedidos;
+    }
+
     /**
      * Verifica se já existe um funcionário no sistema. Caso contrário, cria um
      * usuário administrador padrão para o primeiro acesso.
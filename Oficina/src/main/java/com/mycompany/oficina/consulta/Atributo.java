@@ -0,0 +1,54 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.function.Function;
+
+/**
+ * Atributo consultável de uma entidade: um nome e a função que lê o valor.
+ * <p>
+ * Os atributos são declarados como constantes pelos gerenciadores (por
+ * exemplo, o status de uma OS ou o tipo de um registro financeiro) e servem
+ * ao mesmo tempo para montar critérios e para identificar os índices da
+ * {@link FonteIndexada}.
+ *
+ * @param <T> tipo da entidade
+ * @param <V> tipo do valor do atributo
+ */
+public final class Atributo<T, V> {
+
+    // Nome usado nas chaves normalizadas dos critérios
+    private final String nome;
+
+    // Lê o valor do atributo em uma entidade
+    private final Function<T, V> extrator;
+
+    /**
+     * @param nome nome do atributo
+     * @param extrator função que lê o valor do atributo
+     */
+    public Atributo(String nome, Function<T, V> extrator) {
+        this.nome = nome;
+        this.extrator = extrator;
+    }
+
+    /**
+     * Retorna o nome do atributo.
+     */
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * Lê o valor do atributo na entidade.
+     *
+     * @param item entidade
+     * @return valor do atributo (pode ser null)
+     */
+    public V valorDe(T item) {
+        return extrator.apply(item);
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+}
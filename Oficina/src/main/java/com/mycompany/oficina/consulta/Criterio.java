@@ -0,0 +1,70 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Critério de consulta sobre qualquer entidade (padrão Interpreter, como
+ * {@code Expressao} faz para a agenda).
+ * <p>
+ * As folhas ({@link CriterioIgual}, {@link CriterioFaixa}) comparam um
+ * {@link Atributo} e usam o índice da fonte quando ele existe; os operadores
+ * ({@link CriterioE}, {@link CriterioOu}, {@link CriterioNao}) combinam
+ * critérios. A avaliação é feita pelo {@link PlanejadorDeConsulta}.
+ *
+ * @param <T> tipo da entidade
+ */
+public interface Criterio<T> {
+
+    /**
+     * Verifica se um único item satisfaz o critério.
+     */
+    boolean aceita(T item);
+
+    /**
+     * Itens que podem satisfazer o critério. As folhas indexadas devolvem
+     * exatamente o resultado; as demais devolvem todos os itens da fonte, que
+     * o planejador filtra com {@link #aceita}.
+     */
+    Collection<T> candidatos(FonteDeConsulta<T> fonte);
+
+    /**
+     * Estima quantos itens {@link #candidatos} devolve. O planejador avalia
+     * primeiro o critério mais barato de um AND.
+     */
+    long custoEstimado(FonteDeConsulta<T> fonte);
+
+    /**
+     * Critério que exige este e o outro critério.
+     */
+    default Criterio<T> e(Criterio<T> outro) {
+        return new CriterioE<>(this, outro);
+    }
+
+    /**
+     * Critério que aceita itens deste ou do outro critério.
+     */
+    default Criterio<T> ou(Criterio<T> outro) {
+        return new CriterioOu<>(this, outro);
+    }
+
+    /**
+     * Critério que aceita os itens rejeitados por este.
+     */
+    default Criterio<T> negar() {
+        return new CriterioNao<>(this);
+    }
+
+    /**
+     * Atributo igual ao valor.
+     */
+    static <T, V> Criterio<T> igual(Atributo<T, V> atributo, V valor) {
+        return new CriterioIgual<>(atributo, valor);
+    }
+
+    /**
+     * Atributo entre os limites (inclusive); um limite null deixa a faixa aberta.
+     */
+    static <T, V extends Comparable<? super V>> Criterio<T> entre(Atributo<T, V> atributo, V de, V ate) {
+        return new CriterioFaixa<>(atributo, de, ate);
+    }
+}
@@ -0,0 +1,51 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Operador lógico E (AND) entre dois critérios: aceita os itens que satisfazem os dois critérios.
+ *
+ * @param <T> tipo da entidade
+ */
+public class CriterioE<T> implements Criterio<T> {
+
+    private final Criterio<T> esquerda;
+    private final Criterio<T> direita;
+
+    /**
+     * @param esquerda critério do lado esquerdo
+     * @param direita critério do lado direito
+     */
+    public CriterioE(Criterio<T> esquerda, Criterio<T> direita) {
+        this.esquerda = esquerda;
+        this.direita = direita;
+    }
+
+    @Override
+    public boolean aceita(T item) {
+        return esquerda.aceita(item) && direita.aceita(item);
+    }
+
+    /**
+     * Resultado completo, calculado pelo planejador.
+     */
+    @Override
+    public Collection<T> candidatos(FonteDeConsulta<T> fonte) {
+        return PlanejadorDeConsulta.executar(this, fonte);
+    }
+
+    @Override
+    public long custoEstimado(FonteDeConsulta<T> fonte) {
+        return Math.min(esquerda.custoEstimado(fonte), direita.custoEstimado(fonte));
+    }
+
+    // Critério do lado esquerdo (usado pelo planejador)
+    Criterio<T> getEsquerda() {
+        return esquerda;
+    }
+
+    // Critério do lado direito (usado pelo planejador)
+    Criterio<T> getDireita() {
+        return direita;
+    }
+}
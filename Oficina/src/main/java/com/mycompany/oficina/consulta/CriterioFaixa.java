@@ -0,0 +1,51 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Critério que exige o atributo dentro de uma faixa de valores (inclusive).
+ * Um limite null deixa a faixa aberta daquele lado.
+ *
+ * @param <T> tipo da entidade
+ * @param <V> tipo do valor
+ */
+public class CriterioFaixa<T, V extends Comparable<? super V>> implements Criterio<T> {
+
+    private final Atributo<T, V> atributo;
+    private final V de;
+    private final V ate;
+
+    /**
+     * @param atributo atributo comparado
+     * @param de menor valor aceito (null para sem limite)
+     * @param ate maior valor aceito (null para sem limite)
+     */
+    public CriterioFaixa(Atributo<T, V> atributo, V de, V ate) {
+        this.atributo = atributo;
+        this.de = de;
+        this.ate = ate;
+    }
+
+    @Override
+    public boolean aceita(T item) {
+        V valor = atributo.valorDe(item);
+        return valor != null
+                && (de == null || valor.compareTo(de) >= 0)
+                && (ate == null || valor.compareTo(ate) <= 0);
+    }
+
+    /**
+     * Usa o índice ordenado do atributo, se houver; senão, todos os itens.
+     */
+    @Override
+    public Collection<T> candidatos(FonteDeConsulta<T> fonte) {
+        Collection<T> indexados = fonte.buscarFaixa(atributo, de, ate);
+        return indexados != null ? indexados : fonte.todos();
+    }
+
+    @Override
+    public long custoEstimado(FonteDeConsulta<T> fonte) {
+        int indexados = fonte.contarFaixa(atributo, de, ate);
+        return indexados >= 0 ? indexados : fonte.tamanho();
+    }
+}
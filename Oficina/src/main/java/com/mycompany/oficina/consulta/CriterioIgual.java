@@ -0,0 +1,45 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Critério que compara um atributo com um valor.
+ *
+ * @param <T> tipo da entidade
+ * @param <V> tipo do valor
+ */
+public class CriterioIgual<T, V> implements Criterio<T> {
+
+    private final Atributo<T, V> atributo;
+    private final V valor;
+
+    /**
+     * @param atributo atributo comparado
+     * @param valor valor esperado
+     */
+    public CriterioIgual(Atributo<T, V> atributo, V valor) {
+        this.atributo = atributo;
+        this.valor = valor;
+    }
+
+    @Override
+    public boolean aceita(T item) {
+        return Objects.equals(atributo.valorDe(item), valor);
+    }
+
+    /**
+     * Usa o índice de valor do atributo, se houver; senão, todos os itens.
+     */
+    @Override
+    public Collection<T> candidatos(FonteDeConsulta<T> fonte) {
+        Collection<T> indexados = fonte.buscarIgual(atributo, valor);
+        return indexados != null ? indexados : fonte.todos();
+    }
+
+    @Override
+    public long custoEstimado(FonteDeConsulta<T> fonte) {
+        int indexados = fonte.contarIgual(atributo, valor);
+        return indexados >= 0 ? indexados : fonte.tamanho();
+    }
+}
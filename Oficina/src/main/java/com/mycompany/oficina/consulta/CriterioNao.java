@@ -0,0 +1,36 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Negação de um critério. Sozinha precisa varrer a fonte; dentro de um AND o
+ * planejador a aplica apenas como filtro.
+ *
+ * @param <T> tipo da entidade
+ */
+public class CriterioNao<T> implements Criterio<T> {
+
+    private final Criterio<T> interno;
+
+    /**
+     * @param interno critério negado
+     */
+    public CriterioNao(Criterio<T> interno) {
+        this.interno = interno;
+    }
+
+    @Override
+    public boolean aceita(T item) {
+        return !interno.aceita(item);
+    }
+
+    @Override
+    public Collection<T> candidatos(FonteDeConsulta<T> fonte) {
+        return fonte.todos();
+    }
+
+    @Override
+    public long custoEstimado(FonteDeConsulta<T> fonte) {
+        return fonte.tamanho();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Operador lógico OU (OR) entre dois critérios: aceita os itens que satisfazem ao menos um dos critérios.
+ *
+ * @param <T> tipo da entidade
+ */
+public class CriterioOu<T> implements Criterio<T> {
+
+    private final Criterio<T> esquerda;
+    private final Criterio<T> direita;
+
+    /**
+     * @param esquerda critério do lado esquerdo
+     * @param direita critério do lado direito
+     */
+    public CriterioOu(Criterio<T> esquerda, Criterio<T> direita) {
+        this.esquerda = esquerda;
+        this.direita = direita;
+    }
+
+    @Override
+    public boolean aceita(T item) {
+        return esquerda.aceita(item) || direita.aceita(item);
+    }
+
+    /**
+     * Resultado completo, calculado pelo planejador.
+     */
+    @Override
+    public Collection<T> candidatos(FonteDeConsulta<T> fonte) {
+        return PlanejadorDeConsulta.executar(this, fonte);
+    }
+
+    @Override
+    public long custoEstimado(FonteDeConsulta<T> fonte) {
+        return somaSaturada(esquerda.custoEstimado(fonte), direita.custoEstimado(fonte));
+    }
+
+    private static long somaSaturada(long a, long b) {
+        long soma = a + b;
+        return soma < 0 ? Long.MAX_VALUE : soma;
+    }
+
+    // Critério do lado esquerdo (usado pelo planejador)
+    Criterio<T> getEsquerda() {
+        return esquerda;
+    }
+
+    // Critério do lado direito (usado pelo planejador)
+    Criterio<T> getDireita() {
+        return direita;
+    }
+}
@@ -0,0 +1,55 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.Collection;
+
+/**
+ * Conjunto de entidades sobre o qual um {@link Criterio} é avaliado.
+ * <p>
+ * Além de expor todos os itens, a fonte informa quais atributos possuem
+ * índice. As consultas por atributo indexado retornam exatamente os itens
+ * procurados; as demais retornam null, e o {@link PlanejadorDeConsulta}
+ * recorre à varredura.
+ *
+ * @param <T> tipo da entidade
+ */
+public interface FonteDeConsulta<T> {
+
+    /**
+     * Retorna todos os itens da fonte.
+     */
+    Collection<T> todos();
+
+    /**
+     * Quantidade de itens da fonte (custo de uma varredura).
+     */
+    int tamanho();
+
+    /**
+     * Itens cujo atributo é igual ao valor, usando o índice do atributo.
+     *
+     * @return os itens encontrados, ou null se o atributo não tiver índice de valor
+     */
+    <V> Collection<T> buscarIgual(Atributo<T, V> atributo, V valor);
+
+    /**
+     * Quantidade de itens cujo atributo é igual ao valor.
+     *
+     * @return a quantidade, ou -1 se o atributo não tiver índice de valor
+     */
+    <V> int contarIgual(Atributo<T, V> atributo, V valor);
+
+    /**
+     * Itens cujo atributo está entre os limites (inclusive), em ordem crescente
+     * do atributo. Um limite null deixa o intervalo aberto daquele lado.
+     *
+     * @return os itens encontrados, ou null se o atributo não tiver índice ordenado
+     */
+    <V extends Comparable<? super V>> Collection<T> buscarFaixa(Atributo<T, V> atributo, V de, V ate);
+
+    /**
+     * Quantidade de itens cujo atributo está entre os limites (inclusive).
+     *
+     * @return a quantidade, ou -1 se o atributo não tiver índice ordenado
+     */
+    <V extends Comparable<? super V>> int contarFaixa(Atributo<T, V> atributo, V de, V ate);
+}
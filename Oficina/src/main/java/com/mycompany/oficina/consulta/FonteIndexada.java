@@ -0,0 +1,122 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * {@link FonteDeConsulta} mantida por um gerenciador, com índices opcionais
+ * por atributo.
+ * <p>
+ * Os itens continuam pertencendo ao gerenciador (a fonte só os lê pelo
+ * fornecedor informado no construtor). O gerenciador avisa a fonte quando
+ * inclui, remove ou altera um item, para manter os índices em dia.
+ * Atributos sem índice continuam consultáveis, por varredura.
+ *
+ * @param <T> tipo da entidade
+ */
+public final class FonteIndexada<T> implements FonteDeConsulta<T> {
+
+    private final Supplier<? extends Collection<T>> itens;
+    private final Map<Atributo<T, ?>, IndiceHash<T, ?>> indicesDeValor = new IdentityHashMap<>();
+    private final Map<Atributo<T, ?>, IndiceOrdenado<T, ?>> indicesOrdenados = new IdentityHashMap<>();
+
+    /**
+     * @param itens fornece a coleção atual de itens do gerenciador
+     */
+    public FonteIndexada(Supplier<? extends Collection<T>> itens) {
+        this.itens = itens;
+    }
+
+    /**
+     * Cria um índice de igualdade para o atributo, já com os itens atuais.
+     *
+     * @return a própria fonte, para encadear a configuração
+     */
+    public synchronized <V> FonteIndexada<T> indexarPorValor(Atributo<T, V> atributo) {
+        IndiceHash<T, V> indice = new IndiceHash<>(atributo);
+        for (T item : itens.get()) {
+            indice.adicionar(item);
+        }
+        indicesDeValor.put(atributo, indice);
+        return this;
+    }
+
+    /**
+     * Cria um índice ordenado (consultas por faixa) para o atributo, já com os itens atuais.
+     *
+     * @return a própria fonte, para encadear a configuração
+     */
+    public synchronized <V extends Comparable<? super V>> FonteIndexada<T> indexarPorFaixa(Atributo<T, V> atributo) {
+        IndiceOrdenado<T, V> indice = new IndiceOrdenado<>(atributo);
+        for (T item : itens.get()) {
+            indice.adicionar(item);
+        }
+        indicesOrdenados.put(atributo, indice);
+        return this;
+    }
+
+    /**
+     * Inclui um item recém-adicionado ao gerenciador nos índices.
+     */
+    public synchronized void adicionar(T item) {
+        indicesDeValor.values().forEach(indice -> indice.adicionar(item));
+        indicesOrdenados.values().forEach(indice -> indice.adicionar(item));
+    }
+
+    /**
+     * Retira dos índices um item removido do gerenciador.
+     */
+    public synchronized void remover(T item) {
+        indicesDeValor.values().forEach(indice -> indice.remover(item));
+        indicesOrdenados.values().forEach(indice -> indice.remover(item));
+    }
+
+    /**
+     * Reindexa um item cujos atributos foram alterados.
+     */
+    public synchronized void atualizar(T item) {
+        remover(item);
+        adicionar(item);
+    }
+
+    @Override
+    public synchronized Collection<T> todos() {
+        return new ArrayList<>(itens.get());
+    }
+
+    @Override
+    public synchronized int tamanho() {
+        return itens.get().size();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <V> Collection<T> buscarIgual(Atributo<T, V> atributo, V valor) {
+        IndiceHash<T, V> indice = (IndiceHash<T, V>) indicesDeValor.get(atributo);
+        return indice == null ? null : indice.buscar(valor);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <V> int contarIgual(Atributo<T, V> atributo, V valor) {
+        IndiceHash<T, V> indice = (IndiceHash<T, V>) indicesDeValor.get(atributo);
+        return indice == null ? -1 : indice.contar(valor);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <V extends Comparable<? super V>> Collection<T> buscarFaixa(Atributo<T, V> atributo, V de, V ate) {
+        IndiceOrdenado<T, V> indice = (IndiceOrdenado<T, V>) indicesOrdenados.get(atributo);
+        return indice == null ? null : indice.buscar(de, ate);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public synchronized <V extends Comparable<? super V>> int contarFaixa(Atributo<T, V> atributo, V de, V ate) {
+        IndiceOrdenado<T, V> indice = (IndiceOrdenado<T, V>) indicesOrdenados.get(atributo);
+        return indice == null ? -1 : indice.contar(de, ate);
+    }
+}
@@ -0,0 +1,57 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Índice de igualdade: valor do atributo -> itens com aquele valor.
+ * <p>
+ * Os itens de cada valor ficam na ordem em que foram indexados. O índice
+ * guarda também o valor com que cada item foi indexado, para que um item
+ * possa ser reindexado depois de ter o atributo alterado.
+ */
+final class IndiceHash<T, V> {
+
+    private final Atributo<T, V> atributo;
+    private final Map<V, Set<T>> porValor = new HashMap<>();
+    private final Map<T, V> valorIndexado = new IdentityHashMap<>();
+
+    IndiceHash(Atributo<T, V> atributo) {
+        this.atributo = atributo;
+    }
+
+    void adicionar(T item) {
+        V valor = atributo.valorDe(item);
+        valorIndexado.put(item, valor);
+        porValor.computeIfAbsent(valor, v -> new LinkedHashSet<>()).add(item);
+    }
+
+    void remover(T item) {
+        if (!valorIndexado.containsKey(item)) {
+            return;
+        }
+        V valor = valorIndexado.remove(item);
+        Set<T> itens = porValor.get(valor);
+        if (itens != null) {
+            itens.remove(item);
+            if (itens.isEmpty()) {
+                porValor.remove(valor);
+            }
+        }
+    }
+
+    Collection<T> buscar(V valor) {
+        Set<T> itens = porValor.get(valor);
+        return itens == null ? new ArrayList<>() : new ArrayList<>(itens);
+    }
+
+    int contar(V valor) {
+        Set<T> itens = porValor.get(valor);
+        return itens == null ? 0 : itens.size();
+    }
+}
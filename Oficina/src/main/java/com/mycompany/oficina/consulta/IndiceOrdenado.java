@@ -0,0 +1,80 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice ordenado: valor do atributo -> itens, em um {@link TreeMap}.
+ * <p>
+ * Consultas por faixa custam O(log n + k). Itens com o atributo nulo não são
+ * indexados, já que nunca pertencem a uma faixa.
+ */
+final class IndiceOrdenado<T, V extends Comparable<? super V>> {
+
+    private final Atributo<T, V> atributo;
+    private final TreeMap<V, Set<T>> porValor = new TreeMap<>();
+    private final Map<T, V> valorIndexado = new IdentityHashMap<>();
+
+    IndiceOrdenado(Atributo<T, V> atributo) {
+        this.atributo = atributo;
+    }
+
+    void adicionar(T item) {
+        V valor = atributo.valorDe(item);
+        if (valor == null) {
+            return;
+        }
+        valorIndexado.put(item, valor);
+        porValor.computeIfAbsent(valor, v -> new LinkedHashSet<>()).add(item);
+    }
+
+    void remover(T item) {
+        V valor = valorIndexado.remove(item);
+        if (valor == null) {
+            return;
+        }
+        Set<T> itens = porValor.get(valor);
+        if (itens != null) {
+            itens.remove(item);
+            if (itens.isEmpty()) {
+                porValor.remove(valor);
+            }
+        }
+    }
+
+    Collection<T> buscar(V de, V ate) {
+        Collection<T> resultado = new ArrayList<>();
+        for (Set<T> itens : faixa(de, ate).values()) {
+            resultado.addAll(itens);
+        }
+        return resultado;
+    }
+
+    int contar(V de, V ate) {
+        int total = 0;
+        for (Set<T> itens : faixa(de, ate).values()) {
+            total += itens.size();
+        }
+        return total;
+    }
+
+    // Limites nulos deixam o intervalo aberto
+    private NavigableMap<V, Set<T>> faixa(V de, V ate) {
+        if (de != null && ate != null) {
+            return de.compareTo(ate) > 0 ? new TreeMap<>() : porValor.subMap(de, true, ate, true);
+        }
+        if (de != null) {
+            return porValor.tailMap(de, true);
+        }
+        if (ate != null) {
+            return porValor.headMap(ate, true);
+        }
+        return porValor;
+    }
+}
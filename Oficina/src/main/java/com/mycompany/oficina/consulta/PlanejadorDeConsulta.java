@@ -0,0 +1,106 @@
+package com.mycompany.oficina.consulta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Planejador compartilhado pelas consultas de todas as entidades (OS,
+ * registros financeiros, produtos...).
+ * <p>
+ * Segue o mesmo plano do {@code PlanejadorDeBusca} da agenda: um AND é
+ * achatado e ordenado pelo custo estimado; só o critério mais barato produz
+ * candidatos (pelo índice, quando existe) e os demais são aplicados como
+ * filtro. Um OU avalia cada ramo uma vez e une os resultados sem repetir itens.
+ */
+public final class PlanejadorDeConsulta {
+
+    private PlanejadorDeConsulta() {
+    }
+
+    /**
+     * Avalia o critério sobre a fonte.
+     *
+     * @param criterio critério da consulta
+     * @param fonte itens e índices disponíveis
+     * @return itens que satisfazem o critério
+     */
+    public static <T> List<T> executar(Criterio<T> criterio, FonteDeConsulta<T> fonte) {
+        if (criterio instanceof CriterioE) {
+            List<Criterio<T>> condicoes = new ArrayList<>();
+            achatarE(criterio, condicoes);
+            IdentityHashMap<Criterio<T>, Long> custos = new IdentityHashMap<>();
+            for (Criterio<T> condicao : condicoes) {
+                custos.put(condicao, condicao.custoEstimado(fonte));
+            }
+            condicoes.sort(Comparator.comparingLong(custos::get));
+            List<Criterio<T>> filtros = condicoes.subList(1, condicoes.size());
+            List<T> resultado = new ArrayList<>();
+            for (T item : executar(condicoes.get(0), fonte)) {
+                if (aceitaTodos(filtros, item)) {
+                    resultado.add(item);
+                }
+            }
+            return resultado;
+        }
+        if (criterio instanceof CriterioOu) {
+            List<Criterio<T>> ramos = new ArrayList<>();
+            achatarOu(criterio, ramos);
+            Set<T> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<T> resultado = new ArrayList<>();
+            for (Criterio<T> ramo : ramos) {
+                for (T item : executar(ramo, fonte)) {
+                    if (vistos.add(item)) {
+                        resultado.add(item);
+                    }
+                }
+            }
+            return resultado;
+        }
+        // Folha: candidatos do índice (exatos) ou da varredura (filtrados aqui)
+        Collection<T> candidatos = criterio.candidatos(fonte);
+        List<T> resultado = new ArrayList<>();
+        for (T item : candidatos) {
+            if (criterio.aceita(item)) {
+                resultado.add(item);
+            }
+        }
+        return resultado;
+    }
+
+    // Para no primeiro filtro que rejeitar o item
+    private static <T> boolean aceitaTodos(List<Criterio<T>> filtros, T item) {
+        for (Criterio<T> filtro : filtros) {
+            if (!filtro.aceita(item)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Transforma E(E(a, b), c) em [a, b, c]
+    static <T> void achatarE(Criterio<T> criterio, List<Criterio<T>> destino) {
+        if (criterio instanceof CriterioE) {
+            CriterioE<T> e = (CriterioE<T>) criterio;
+            achatarE(e.getEsquerda(), destino);
+            achatarE(e.getDireita(), destino);
+        } else {
+            destino.add(criterio);
+        }
+    }
+
+    // Transforma OU(OU(a, b), c) em [a, b, c]
+    static <T> void achatarOu(Criterio<T> criterio, List<Criterio<T>> destino) {
+        if (criterio instanceof CriterioOu) {
+            CriterioOu<T> ou = (CriterioOu<T>) criterio;
+            achatarOu(ou.getEsquerda(), destino);
+            achatarOu(ou.getDireita(), destino);
+        } else {
+            destino.add(criterio);
+        }
+    }
+}
@@ -6,7 +6,9 @@ import com.mycompany.oficina.persistencia.PersistenciaJson;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 
 /**
  * Classe genérica para gerenciar entidades que implementam a interface
@@ -56,6 +58,7 @@ public abstract class GerenciadorGenerico<T extends Entidades> {
      */
     public void adicionar(T item) {
         lista.add(item);
+        aoAdicionar(item);
         salvarDados();
     }
 
@@ -86,6 +89,7 @@ public abstract class GerenciadorGenerico<T extends Entidades> {
         if (itemParaRemover != null) {
             boolean removido = lista.remove(itemParaRemover);
             if (removido) {
+                aoRemover(itemParaRemover);
                 salvarDados();
             }
             return removido;
@@ -93,6 +97,30 @@ public abstract class GerenciadorGenerico<T extends Entidades> {
         return false;
     }
 
+    /**
+     * Remove de uma só vez todos os itens que satisfazem a condição e salva a
+     * lista uma única vez, se algo tiver sido removido.
+     *
+     * @param condicao Critério dos itens a remover.
+     * @return Lista com os itens removidos (vazia se nenhum).
+     */
+    public List<T> removerSe(Predicate<T> condicao) {
+        List<T> removidos = new ArrayList<>();
+        Iterator<T> iterator = lista.iterator();
+        while (iterator.hasNext()) {
+            T item = iterator.next();
+            if (condicao.test(item)) {
+                iterator.remove();
+                aoRemover(item);
+                removidos.add(item);
+            }
+        }
+        if (!removidos.isEmpty()) {
+            salvarDados();
+        }
+        return removidos;
+    }
+
     /**
      * Retorna uma lista não modificável contendo todos os itens gerenciados.
      *
@@ -102,6 +130,23 @@ public abstract class GerenciadorGenerico<T extends Entidades> {
         return Collections.unmodifiableList(lista);
     }
 
+    /**
+     * Chamado depois que um item entra na lista. As classes filhas usam para
+     * manter seus índices em dia.
+     *
+     * @param item Item adicionado.
+     */
+    protected void aoAdicionar(T item) {
+    }
+
+    /**
+     * Chamado depois que um item sai da lista.
+     *
+     * @param item Item removido.
+     */
+    protected void aoRemover(T item) {
+    }
+
     /**
      * Método protegido para que classes filhas possam salvar alterações
      * específicas.
@@ -3,6 +3,8 @@ package com.mycompany.oficina.controller;
 import com.mycompany.oficina.application.OficinaAplicattion;
 import com.mycompany.oficina.agendamento.AgendaOficina;
 import com.mycompany.oficina.agendamento.Agendamento;
+import com.mycompany.oficina.agendamento.ListaDeEspera;
+import com.mycompany.oficina.agendamento.SolicitacaoEspera;
 import com.mycompany.oficina.agendamento.TipoServico;
 import com.mycompany.oficina.controlador.GerenciadorCarros;
 import com.mycompany.oficina.controlador.GerenciadorCliente;
@@ -14,14 +16,19 @@ import com.mycompany.oficina.entidades.Funcionario;
 import com.mycompany.oficina.financeiro.GerenciadorFinanceiro;
 import com.mycompany.oficina.interpreter.ContextoDeBusca;
 import com.mycompany.oficina.interpreter.Expressao;
+import com.mycompany.oficina.interpreter.ExpressaoE;
 import com.mycompany.oficina.interpreter.ExpressaoPorCliente;
-import com.mycompany.oficina.interpreter.ExpressaoPorData;
+import com.mycompany.oficina.interpreter.ExpressaoPorPeriodo;
+import com.mycompany.oficina.interpreter.CacheDeBusca;
+import com.mycompany.oficina.interpreter.CompiladorDeBusca;
+import com.mycompany.oficina.interpreter.PlanejadorDeBusca;
 import com.mycompany.oficina.ordemservico.GerenciadorOrdemDeServico;
 import com.mycompany.oficina.seguranca.Sessao;
 import com.mycompany.oficina.sistemaponto.GerenciadorPonto;
 import com.mycompany.oficina.sistemaponto.RegistroPonto;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -44,6 +51,9 @@ public class AtendenteController {
     private final GerenciadorPonto gerenciadorPonto;
     private final GerenciadorFinanceiro gerenciadorFinanceiro;
     private final AgendaOficina agenda;
+    private final ListaDeEspera listaDeEspera;
+    private final CompiladorDeBusca compiladorDeBusca;
+    private final CacheDeBusca cacheDeBusca;
     private final GerenciadorOrdemDeServico gerenciadorOS;
 
     /**
@@ -58,6 +68,9 @@ public class AtendenteController {
         this.gerenciadorFinanceiro = app.getGerenciadorFinanceiro();
         this.gerenciadorOS = app.getGerenciadorOS();
         this.agenda = app.getAgenda();
+        this.listaDeEspera = app.getListaDeEspera();
+        this.compiladorDeBusca = app.getCompiladorDeBusca();
+        this.cacheDeBusca = app.getCacheDeBusca();
     }
 
     // --- LÓGICA DE CLIENTES ---
@@ -230,22 +243,61 @@ public class AtendenteController {
     // --- LÓGICA DE AGENDAMENTOS ---
 
     /**
-     * Busca agendamentos por data (formato dd/MM/yyyy) ou nome de cliente.
+     * Busca agendamentos usando a linguagem de busca do {@link CompiladorDeBusca}.
+     * <p>
+     * Aceita uma data (dd/MM/yyyy) ou CPF isolados, como antes, e também buscas
+     * compostas, por exemplo
+     * {@code cliente:123 AND mecanico:Tadeu AND data:01/07/2025..31/07/2025 OR tipo:REPARO}.
      *
-     * @param termoBusca data ou nome do cliente
+     * Buscas repetidas são respondidas pelo {@link CacheDeBusca} enquanto os
+     * agendamentos envolvidos não mudarem.
+     *
+     * @param termoBusca texto da busca
      * @return lista de agendamentos encontrados
+     * @throws IllegalArgumentException se a busca não puder ser interpretada (a
+     *         mensagem explica o motivo e pode ser mostrada ao usuário)
      */
     public List<Agendamento> buscarAgendamentos(String termoBusca) {
-        Expressao expressaoDeBusca;
-        try {
-            LocalDate data = LocalDate.parse(termoBusca, java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy"));
-            expressaoDeBusca = new ExpressaoPorData(data);
-        } catch (java.time.format.DateTimeParseException e) {
-            Cliente cliente = buscarCliente(termoBusca);
-            if (cliente == null) return Collections.emptyList();
-            expressaoDeBusca = new ExpressaoPorCliente(cliente);
+        Expressao expressaoDeBusca = compiladorDeBusca.compilar(termoBusca);
+        return cacheDeBusca.buscar(expressaoDeBusca, new ContextoDeBusca(agenda));
+    }
+
+    /**
+     * Retorna o cache das buscas de agendamentos, para consulta das métricas
+     * de acerto, falha e invalidação.
+     */
+    public CacheDeBusca getCacheDeBusca() {
+        return cacheDeBusca;
+    }
+
+    /**
+     * Busca uma página de agendamentos, em ordem cronológica. A avaliação para
+     * assim que a página está completa, sem percorrer o restante da agenda.
+     *
+     * @param termoBusca texto da busca (mesma linguagem de {@link #buscarAgendamentos(String)})
+     * @param deslocamento quantos resultados pular
+     * @param limite tamanho da página
+     * @return agendamentos da página
+     * @throws IllegalArgumentException se a busca não puder ser interpretada
+     */
+    public List<Agendamento> buscarAgendamentos(String termoBusca, int deslocamento, int limite) {
+        Expressao expressaoDeBusca = compiladorDeBusca.compilar(termoBusca);
+        return PlanejadorDeBusca.buscar(expressaoDeBusca, new ContextoDeBusca(agenda), deslocamento, limite);
+    }
+
+    /**
+     * Lista os próximos agendamentos de um cliente, a partir de hoje.
+     *
+     * @param cpf CPF do cliente
+     * @param limite quantidade máxima de agendamentos
+     * @return próximos agendamentos do cliente, do mais próximo ao mais distante
+     */
+    public List<Agendamento> listarProximosAgendamentosDoCliente(String cpf, int limite) {
+        if (cpf == null || cpf.isBlank()) {
+            return Collections.emptyList();
         }
-        return expressaoDeBusca.interpreter(new ContextoDeBusca(agenda));
+        Expressao proximos = new ExpressaoE(new ExpressaoPorCliente(cpf), new ExpressaoPorPeriodo(LocalDate.now(), LocalDate.MAX));
+        return PlanejadorDeBusca.buscar(proximos, new ContextoDeBusca(agenda), 0, limite);
     }
 
     /**
@@ -277,6 +329,7 @@ public class AtendenteController {
 
     /**
      * Cancela um agendamento. Se for no mesmo dia, aplica taxa.
+     * A vaga liberada é oferecida imediatamente ao melhor cliente da lista de espera.
      *
      * @param agendamento agendamento a cancelar
      * @return true se cancelado
@@ -287,7 +340,63 @@ public class AtendenteController {
             String motivo = "Cancelamento no dia do serviço (" + LocalDate.now().format(java.time.format.DateTimeFormatter.ofPattern("dd/MM/yyyy")) + ")";
             this.gerenciadorFinanceiro.registrarReceitaCancelamento(agendamento.getCliente().getNome(), taxa, motivo);
         }
-        return agenda.cancelarAgendamento(agendamento);
+        boolean cancelado = agenda.cancelarAgendamento(agendamento);
+        if (cancelado) {
+            listaDeEspera.preencherVaga(agendamento);
+        }
+        return cancelado;
+    }
+
+    /**
+     * Coloca um cliente na lista de espera por uma vaga liberada por cancelamento.
+     *
+     * @param cliente cliente
+     * @param carro carro
+     * @param tipo tipo de serviço desejado
+     * @param dataInicio primeiro dia aceito
+     * @param dataFim último dia aceito
+     * @param prioridade prioridade do pedido (maior é atendido primeiro)
+     * @return true se o pedido foi registrado
+     */
+    public boolean registrarNaListaDeEspera(Cliente cliente, Carro carro, TipoServico tipo, LocalDate dataInicio, LocalDate dataFim, int prioridade) {
+        return listaDeEspera.registrar(new SolicitacaoEspera(cliente, carro, tipo, dataInicio, dataFim, prioridade));
+    }
+
+    /**
+     * Coloca um cliente na lista de espera aceitando só horários dentro de uma faixa de horas do dia.
+     *
+     * @param cliente cliente
+     * @param carro carro
+     * @param tipo tipo de serviço desejado
+     * @param dataInicio primeiro dia aceito
+     * @param dataFim último dia aceito
+     * @param prioridade prioridade do pedido (maior é atendido primeiro)
+     * @param horaMinima primeira hora aceita (null para qualquer)
+     * @param horaMaxima última hora aceita, inclusive (null para qualquer)
+     * @return true se o pedido foi registrado
+     */
+    public boolean registrarNaListaDeEspera(Cliente cliente, Carro carro, TipoServico tipo, LocalDate dataInicio, LocalDate dataFim, int prioridade,
+                                            Integer horaMinima, Integer horaMaxima) {
+        return listaDeEspera.registrar(new SolicitacaoEspera(cliente, carro, tipo, dataInicio, dataFim, prioridade, horaMinima, horaMaxima));
+    }
+
+    /**
+     * Lista os pedidos que aguardam vaga na agenda.
+     *
+     * @return lista de pedidos de espera
+     */
+    public List<SolicitacaoEspera> listarListaDeEspera() {
+        return listaDeEspera.listarSolicitacoes();
+    }
+
+    /**
+     * Retira um pedido da lista de espera.
+     *
+     * @param solicitacao pedido a remover
+     * @return true se removido
+     */
+    public boolean removerDaListaDeEspera(SolicitacaoEspera solicitacao) {
+        return listaDeEspera.remover(solicitacao);
     }
 
     /**
@@ -299,6 +408,37 @@ public class AtendenteController {
         return agenda.listarTodosAgendamentos();
     }
 
+    /**
+     * Lista, em ordem cronológica, os agendamentos entre duas datas.
+     *
+     * @param inicio data inicial (inclusive)
+     * @param fim data final (inclusive)
+     * @return lista de agendamentos do período
+     */
+    public List<Agendamento> listarAgendamentosEntre(LocalDate inicio, LocalDate fim) {
+        return agenda.listarEntre(inicio, fim);
+    }
+
+    /**
+     * Lista os agendamentos da semana que contém a data informada.
+     *
+     * @param dia qualquer dia da semana desejada
+     * @return lista de agendamentos da semana
+     */
+    public List<Agendamento> listarAgendamentosDaSemana(LocalDate dia) {
+        return agenda.listarSemana(dia);
+    }
+
+    /**
+     * Lista os agendamentos de um mês.
+     *
+     * @param mes mês desejado
+     * @return lista de agendamentos do mês
+     */
+    public List<Agendamento> listarAgendamentosDoMes(YearMonth mes) {
+        return agenda.listarMes(mes);
+    }
+
     public List<Elevador> listarElevadores() {
         // O método getElevadores() já existe e é estático na classe Elevador
         return Arrays.asList(Elevador.getElevadores());
@@ -1,16 +1,22 @@
 package com.mycompany.oficina.controller;
 
 import com.mycompany.oficina.application.OficinaAplicattion;
+import com.mycompany.oficina.consulta.Criterio;
 import com.mycompany.oficina.controlador.GerenciadorFuncionario;
 import com.mycompany.oficina.entidades.Funcionario;
 import com.mycompany.oficina.financeiro.GerenciadorFinanceiro;
 import com.mycompany.oficina.financeiro.RegistroFinanceiro;
+import com.mycompany.oficina.financeiro.ResumoFinanceiro;
+import com.mycompany.oficina.financeiro.TipoRegistro;
 import com.mycompany.oficina.loja.Estoque;
+import com.mycompany.oficina.loja.MonitorDeEstoqueBaixo;
+import com.mycompany.oficina.loja.PedidoDeCompra;
 import com.mycompany.oficina.loja.Produto;
+import com.mycompany.oficina.loja.RecebimentoDePedidos;
 import com.mycompany.oficina.ordemservico.*;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
-import java.util.stream.Collectors;
 /**
  * Controlador responsável pelas ações disponíveis ao gerente no sistema da oficina.
  * Estende o {@link AtendenteController}, herdando as funcionalidades de cliente, agendamento e ponto.
@@ -26,6 +32,7 @@ public class GerenteController extends AtendenteController {
     private final GerenciadorFinanceiro gerenciadorFinanceiro;
     private final GerenciadorOrdemDeServico gerenciadorOs;
     private final Estoque estoque;
+    private final RecebimentoDePedidos recebimentoDePedidos;
 
     /**
      * Construtor que inicializa os gerenciadores usados pelo gerente.
@@ -37,6 +44,7 @@ public class GerenteController extends AtendenteController {
         this.gerenciadorFinanceiro = app.getGerenciadorFinanceiro();
         this.gerenciadorOs =app.getGerenciadorOS();
         this.estoque = app.getEstoque();
+        this.recebimentoDePedidos = app.getRecebimentoDePedidos();
     }
 
     // --- LÓGICA DE FUNCIONÁRIOS ---
@@ -126,9 +134,31 @@ public class GerenteController extends AtendenteController {
      * @return lista de registros no intervalo
      */
     public List<RegistroFinanceiro> getRegistrosFinanceiros(LocalDate inicio, LocalDate fim) {
-        return gerenciadorFinanceiro.getRegistros().stream()
-                .filter(r -> !r.getData().toLocalDate().isBefore(inicio) && !r.getData().toLocalDate().isAfter(fim))
-                .collect(Collectors.toList());
+        return gerenciadorFinanceiro.listarNoPeriodo(inicio, fim);
+    }
+
+    /**
+     * Retorna os registros financeiros de um tipo dentro de um intervalo de datas.
+     *
+     * @param tipo tipo do registro
+     * @param inicio data inicial (inclusive)
+     * @param fim data final (inclusive)
+     * @return lista de registros do tipo no intervalo
+     */
+    public List<RegistroFinanceiro> getRegistrosFinanceiros(TipoRegistro tipo, LocalDate inicio, LocalDate fim) {
+        return gerenciadorFinanceiro.listarNoPeriodo(tipo, inicio, fim);
+    }
+
+    /**
+     * Retorna os totais de receitas, despesas e de cada tipo de registro entre
+     * duas datas, sem percorrer os registros.
+     *
+     * @param inicio data inicial (inclusive)
+     * @param fim data final (inclusive)
+     * @return totais do período
+     */
+    public ResumoFinanceiro.Totais getTotaisFinanceiros(LocalDate inicio, LocalDate fim) {
+        return gerenciadorFinanceiro.totaisNoPeriodo(inicio, fim);
     }
 
     /**
@@ -171,6 +201,48 @@ public class GerenteController extends AtendenteController {
         return estoque.listarProdutos();
     }
 
+    /**
+     * Lista os produtos de um fornecedor (consulta pelo índice de fornecedores).
+     *
+     * @param fornecedor nome do fornecedor
+     * @return produtos do fornecedor
+     */
+    public List<Produto> listarProdutosDoFornecedor(String fornecedor) {
+        return estoque.consultar(Criterio.igual(Estoque.FORNECEDOR, fornecedor));
+    }
+
+    /**
+     * Lista os produtos com quantidade em estoque menor ou igual ao limite.
+     *
+     * @param limite maior quantidade considerada baixa
+     * @return produtos com estoque baixo
+     */
+    public List<Produto> listarProdutosComEstoqueAte(int limite) {
+        return estoque.consultar(Criterio.entre(Estoque.QUANTIDADE, null, limite));
+    }
+
+    /**
+     * Lista os produtos que precisam ser repostos (abaixo do mínimo ou que
+     * chegam a ele antes do prazo de reposição), do mais urgente para o menos.
+     *
+     * @return situação de cada produto a repor
+     */
+    public List<MonitorDeEstoqueBaixo.SituacaoDoProduto> listarProdutosParaRepor() {
+        return estoque.listarParaRepor();
+    }
+
+    /**
+     * Define o estoque mínimo de uma peça.
+     *
+     * @param id identificador do produto
+     * @param estoqueMinimo quantidade mínima desejada
+     * @return true se o mínimo foi definido
+     */
+    public boolean definirEstoqueMinimo(String id, int estoqueMinimo) {
+        if (estoqueMinimo < 0) return false;
+        return estoque.definirEstoqueMinimo(id, estoqueMinimo);
+    }
+
     /**
      * Busca um produto pelo seu ID.
      *
@@ -223,30 +295,118 @@ public class GerenteController extends AtendenteController {
     public boolean reporEstoque(Produto peca, int quantidade) {
         if (peca == null || quantidade <= 0) return false;
 
-        peca.setQuantidade(peca.getQuantidade() + quantidade);
-        double precoCompraUnidade = Math.max(0, peca.getPreco() - 15.00);
-        double custoTotal = precoCompraUnidade * quantidade;
+        estoque.repor(peca, quantidade, "Reposição de estoque");
+        double custoTotal = custoDeCompra(peca) * quantidade;
         gerenciadorFinanceiro.registrarDespesaCompraPecas("Reposição de " + quantidade + "x " + peca.getNome(), custoTotal);
 
-        estoque.salvarEstoque();
         return true;
     }
+
+    /**
+     * Recebe a entrega de um fornecedor com várias linhas de uma só vez: soma
+     * todas as quantidades ao estoque em uma única gravação do livro de
+     * movimentos e registra uma única despesa com o valor total do pedido.
+     * O pedido é gravado inteiro antes (ver {@link RecebimentoDePedidos}), então
+     * uma queda no meio não deixa estoque sem despesa.
+     *
+     * @param pedido pedido de compra entregue
+     * @return true se o pedido foi recebido; false se estiver vazio, sem nota
+     *         fiscal, tiver produto fora do catálogo ou se a nota fiscal já foi
+     *         recebida (nesses casos nada é aplicado)
+     */
+    public boolean receberPedidoDeCompra(PedidoDeCompra pedido) {
+        return recebimentoDePedidos.receber(pedido);
+    }
+
+    /**
+     * Monta um pedido de compra para o fornecedor com as quantidades sugeridas
+     * pela análise de consumo de peças, ao custo de compra padrão.
+     *
+     * @param fornecedor fornecedor do pedido
+     * @param notaFiscal número da nota fiscal
+     * @return pedido montado (vazio se não houver sugestões para o fornecedor)
+     */
+    public PedidoDeCompra montarPedidoSugerido(String fornecedor, String notaFiscal) {
+        PedidoDeCompra pedido = new PedidoDeCompra(fornecedor, notaFiscal);
+        AnaliseDeConsumoDePecas.RelatorioDeConsumo relatorio = gerarSugestoesDeCompra();
+        if (relatorio == null) return pedido;
+
+        for (AnaliseDeConsumoDePecas.SugestaoDeCompra sugestao : relatorio.getSugestoesPorFornecedor().getOrDefault(fornecedor, List.of())) {
+            pedido.adicionarItem(sugestao.getProduto(), sugestao.getQuantidade(), custoDeCompra(sugestao.getProduto()));
+        }
+        return pedido;
+    }
+
+    // Custo de compra de uma unidade: preço de venda menos a margem da oficina
+    private double custoDeCompra(Produto peca) {
+        return Math.max(0, peca.getPreco() - 15.00);
+    }
     
     
     /**
-     * Retorna todas as Ordens de Serviço cadastradas no sistema.
+     * Retorna todas as Ordens de Serviço cadastradas no sistema, inclusive as arquivadas.
      * @return uma lista de todas as Ordens de Serviço.
      */
     public List<OrdemDeServico> listarTodasOS() {
-        return gerenciadorOs.listarTodos();
+        return gerenciadorOs.listarTodasComArquivadas();
+    }
+
+    /**
+     * Lista as OS abertas em um período, opcionalmente de um único mecânico.
+     *
+     * @param cpfMecanico CPF do mecânico, ou null para todos
+     * @param inicio data inicial (inclusive)
+     * @param fim data final (inclusive)
+     * @return OS abertas no período
+     */
+    public List<OrdemDeServico> listarOSAbertasEntre(String cpfMecanico, LocalDate inicio, LocalDate fim) {
+        Criterio<OrdemDeServico> criterio = Criterio.entre(GerenciadorOrdemDeServico.DATA_ABERTURA,
+                inicio.atStartOfDay(), fim.atTime(LocalTime.MAX));
+        if (cpfMecanico != null) {
+            criterio = criterio.e(Criterio.igual(GerenciadorOrdemDeServico.MECANICO, cpfMecanico));
+        }
+        return gerenciadorOs.consultar(criterio);
+    }
+
+    /**
+     * Imprime no console o tempo que as OS passam em cada etapa,
+     * por mecânico e por tipo de serviço.
+     */
+    public void emitirRelatorioDeEtapas() {
+        System.out.println(gerenciadorOs.getAnaliseDeEtapas().gerarRelatorio());
+    }
+
+    /**
+     * Retorna as sugestões de compra da análise de consumo de peças. Usa o
+     * resultado da análise noturna de hoje, se houver; senão, roda a análise.
+     *
+     * @return consumo por produto e sugestões de compra, ou null se a análise falhou
+     */
+    public AnaliseDeConsumoDePecas.RelatorioDeConsumo gerarSugestoesDeCompra() {
+        OficinaAplicattion app = OficinaAplicattion.getInstance();
+        AnaliseDeConsumoDePecas.RelatorioDeConsumo ultima = app.getUltimaAnaliseDeConsumo();
+        if (ultima != null && ultima.getDataDeReferencia().equals(LocalDate.now())) {
+            return ultima;
+        }
+        return app.executarAnaliseDeConsumo();
+    }
+
+    /**
+     * Imprime no console o consumo de peças e os pedidos sugeridos por fornecedor.
+     */
+    public void emitirRelatorioDeConsumo() {
+        AnaliseDeConsumoDePecas.RelatorioDeConsumo relatorio = gerarSugestoesDeCompra();
+        if (relatorio != null) {
+            System.out.println(relatorio.gerarRelatorio());
+        }
     }
 
     /**
-     * Busca uma Ordem de Serviço pelo seu número de identificação.
+     * Busca uma Ordem de Serviço pelo seu número de identificação (inclusive no arquivo histórico).
      * @param idOS o número da OS a ser buscada.
      * @return a Ordem de Serviço encontrada, ou null se não existir.
      */
     public OrdemDeServico buscarOS(String idOS) {
-        return gerenciadorOs.buscarPorIdentificador(idOS);
+        return gerenciadorOs.buscarOS(idOS);
     }
 }
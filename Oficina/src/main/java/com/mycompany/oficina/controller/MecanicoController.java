@@ -13,7 +13,6 @@ import com.mycompany.oficina.seguranca.Sessao;
 import com.mycompany.oficina.sistemaponto.GerenciadorPonto;
 import com.mycompany.oficina.sistemaponto.RegistroPonto;
 import java.time.LocalDate;
-import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -48,9 +47,8 @@ public class MecanicoController {
      * @return Lista de agendamentos do dia.
      */
     public List<Agendamento> listarAgendamentosDeHoje() {
-        return Arrays.stream(agenda.getHorariosDoDia(LocalDate.now()))
-                .filter(java.util.Objects::nonNull)
-                .collect(Collectors.toList());
+        LocalDate hoje = LocalDate.now();
+        return agenda.listarEntre(hoje, hoje);
     }
 
     /**
@@ -67,7 +65,8 @@ public class MecanicoController {
                 agendamento.getCliente(),
                 agendamento.getCarro(),
                 Sessao.getInstance().getUsuarioLogado(),
-                defeito
+                defeito,
+                agendamento.getTipoServico()
         );
 
         // --- LÓGICA CORRIGIDA ---
@@ -86,20 +85,30 @@ public class MecanicoController {
      * @return Lista de ordens de serviço ativas.
      */
     public List<OrdemDeServico> listarOSAtivas() {
-        return gerenciadorOS.listarTodos().stream()
-                .filter(os -> !os.getStatusAtual().equals("Finalizada") && !os.getStatusAtual().equals("Cancelada"))
-                .collect(Collectors.toList());
+        return gerenciadorOS.listarAtivas();
+    }
+
+    /**
+     * Lista a fila de ordens de serviço ativas do mecânico logado.
+     * @return Lista de ordens de serviço ativas do mecânico, em ordem de abertura.
+     */
+    public List<OrdemDeServico> listarMinhasOSAtivas() {
+        Funcionario mecanico = Sessao.getInstance().getUsuarioLogado();
+        if (mecanico == null) {
+            return Collections.emptyList();
+        }
+        return gerenciadorOS.listarAtivasDoMecanico(mecanico.getCpf());
     }
 
 
     /**
-     * Busca uma ordem de serviço pelo seu identificador.
+     * Busca uma ordem de serviço pelo seu identificador (inclusive no arquivo histórico).
      * @param idOS Identificador da ordem.
      * @return Ordem de serviço encontrada ou null.
      */
     public OrdemDeServico buscarOS(String idOS) {
 
-        return gerenciadorOS.buscarPorIdentificador(idOS);
+        return gerenciadorOS.buscarOS(idOS);
     }
 
     /**
@@ -108,8 +117,7 @@ public class MecanicoController {
      */
     public void iniciarInspecaoOS(OrdemDeServico os) {
 
-        if (os != null) os.iniciarInspecao();
-        gerenciadorOS.salvarAlteracoesOS();
+        if (os != null) os.iniciarInspecao(); // A transição é gravada no diário de eventos das OS
     }
 
     /**
@@ -118,8 +126,7 @@ public class MecanicoController {
      */
     public void iniciarServicoOS(OrdemDeServico os) {
 
-        if (os != null) os.iniciarServico();
-        gerenciadorOS.salvarAlteracoesOS();
+        if (os != null) os.iniciarServico(); // A transição é gravada no diário de eventos das OS
     }
 
     /**
@@ -128,8 +135,7 @@ public class MecanicoController {
      */
     public void finalizarServicoOS(OrdemDeServico os) {
 
-        if (os != null) os.finalizarServico();
-        gerenciadorOS.salvarAlteracoesOS();
+        if (os != null) os.finalizarServico(); // A transição é gravada no diário de eventos das OS
         gerenciadorFinanceiro.registrarFaturamentoOS(os);
     }
 
@@ -142,7 +148,7 @@ public class MecanicoController {
     public void adicionarPecaOS(OrdemDeServico os, Produto produto, int quantidade) {
         if (os != null && produto != null && quantidade > 0) {
             os.adicionarPeca(produto, quantidade);
-            gerenciadorOS.salvarAlteracoesOS();
+            gerenciadorOS.salvarAlteracoesOS(); // A saída da peça fica registrada no livro de movimentos
         }
     }
 
@@ -163,6 +169,17 @@ public class MecanicoController {
         return estoque.listarProdutos();
     }
 
+    /**
+     * Busca peças no estoque pelo texto digitado (nome, fornecedor ou ID),
+     * tolerando erros de digitação. Usada na busca enquanto se digita.
+     * @param texto Texto digitado.
+     * @param limite Quantidade máxima de resultados.
+     * @return Produtos encontrados, do mais para o menos relevante.
+     */
+    public List<Produto> buscarProdutosEstoque(String texto, int limite) {
+        return estoque.buscarProdutos(texto, limite);
+    }
+
     /**
      * Gera um extrato detalhado da ordem de serviço.
      * @param os Ordem de serviço.
@@ -1,15 +1,23 @@
 package com.mycompany.oficina.financeiro;
 
 
+import com.mycompany.oficina.consulta.Atributo;
+import com.mycompany.oficina.consulta.Criterio;
+import com.mycompany.oficina.consulta.FonteIndexada;
+import com.mycompany.oficina.consulta.PlanejadorDeConsulta;
 import com.mycompany.oficina.entidades.Funcionario;
 import com.mycompany.oficina.ordemservico.OrdemDeServico;
 import com.mycompany.oficina.persistencia.PersistenciaJson;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import com.google.gson.reflect.TypeToken;
 
 /**
@@ -24,11 +32,39 @@ public class GerenciadorFinanceiro {
      */
     private static GerenciadorFinanceiro instance;
 
+    /**
+     * Tipo do registro, consultável por igualdade.
+     */
+    public static final Atributo<RegistroFinanceiro, TipoRegistro> TIPO =
+            new Atributo<>("tipo", RegistroFinanceiro::getTipo);
+
+    /**
+     * Data do registro, consultável por faixa (por varredura; para períodos,
+     * {@link #listarNoPeriodo(LocalDate, LocalDate)} usa o índice por dia).
+     */
+    public static final Atributo<RegistroFinanceiro, LocalDateTime> DATA =
+            new Atributo<>("data", RegistroFinanceiro::getData);
+
     /**
      * Lista com todos os registros financeiros salvos.
      */
     private final List<RegistroFinanceiro> registros;
 
+    /**
+     * Índice por tipo usado nas consultas.
+     */
+    private final FonteIndexada<RegistroFinanceiro> fonteDeConsulta;
+
+    /**
+     * Registros por dia, em ordem cronológica, usados nas consultas por período.
+     */
+    private final IndicePorData indicePorData = new IndicePorData();
+
+    /**
+     * Totais por dia, mês e ano de cada tipo, usados nos balanços.
+     */
+    private final ResumoFinanceiro resumo = new ResumoFinanceiro();
+
     /**
      * Objeto responsável por persistência em JSON.
      */
@@ -47,11 +83,130 @@ public class GerenciadorFinanceiro {
     private GerenciadorFinanceiro(PersistenciaJson persistencia) {
         this.persistencia = persistencia;
         this.registros = this.persistencia.carregarLista("financeiro", new TypeToken<ArrayList<RegistroFinanceiro>>() {});
+        this.fonteDeConsulta = new FonteIndexada<>(() -> this.registros)
+                .indexarPorValor(TIPO);
+        for (RegistroFinanceiro registro : registros) {
+            indicePorData.adicionar(registro);
+            resumo.adicionar(registro);
+        }
     }
     
     
     public List<RegistroFinanceiro> getRegistros() {
-        return registros;
+        return Collections.unmodifiableList(registros);
+    }
+
+    /**
+     * Consulta os registros com o planejador compartilhado, usando os índices
+     * por tipo e por data.
+     *
+     * @param criterio critério da consulta
+     * @return registros que satisfazem o critério
+     */
+    public List<RegistroFinanceiro> consultar(Criterio<RegistroFinanceiro> criterio) {
+        return PlanejadorDeConsulta.executar(criterio, fonteDeConsulta);
+    }
+
+    /**
+     * Critério dos registros cuja data cai entre os dois dias (inclusive).
+     *
+     * @param inicio primeiro dia
+     * @param fim último dia
+     * @return critério por faixa de data
+     */
+    public static Criterio<RegistroFinanceiro> noPeriodo(LocalDate inicio, LocalDate fim) {
+        return Criterio.entre(DATA, inicio.atStartOfDay(), fim.atTime(LocalTime.MAX));
+    }
+
+    /**
+     * Registros cuja data cai entre os dois dias (inclusive), em ordem
+     * cronológica, pelo índice por dia: custa O(log n + k).
+     *
+     * @param inicio primeiro dia (nulo deixa o início aberto)
+     * @param fim último dia (nulo deixa o fim aberto)
+     * @return registros do período
+     */
+    public synchronized List<RegistroFinanceiro> listarNoPeriodo(LocalDate inicio, LocalDate fim) {
+        return indicePorData.buscar(inicio, fim, null);
+    }
+
+    /**
+     * Registros de um tipo cuja data cai entre os dois dias (inclusive), em
+     * ordem cronológica.
+     *
+     * @param tipo tipo dos registros
+     * @param inicio primeiro dia (nulo deixa o início aberto)
+     * @param fim último dia (nulo deixa o fim aberto)
+     * @return registros do tipo no período
+     */
+    public synchronized List<RegistroFinanceiro> listarNoPeriodo(TipoRegistro tipo, LocalDate inicio, LocalDate fim) {
+        return indicePorData.buscar(inicio, fim, tipo);
+    }
+
+    /**
+     * @param inicio primeiro dia (nulo deixa o início aberto)
+     * @param fim último dia (nulo deixa o fim aberto)
+     * @return quantidade de registros no período
+     */
+    public synchronized int contarNoPeriodo(LocalDate inicio, LocalDate fim) {
+        return indicePorData.contar(inicio, fim);
+    }
+
+    // Receita de serviço ou taxa de cancelamento
+    private static boolean isReceita(RegistroFinanceiro registro) {
+        return registro.getTipo() == TipoRegistro.RECEITA_SERVICO || registro.getTipo() == TipoRegistro.RECEITA_CANCELAMENTO;
+    }
+
+    // Inclui o registro na lista, nos índices e nos totais (a gravação fica com quem chama)
+    private synchronized void registrar(RegistroFinanceiro registro) {
+        registros.add(registro);
+        fonteDeConsulta.adicionar(registro);
+        indicePorData.adicionar(registro);
+        resumo.adicionar(registro);
+    }
+
+    /**
+     * Totais de cada tipo de registro entre dois dias (inclusive), somados a
+     * partir dos totais por dia, mês e ano, sem percorrer os registros.
+     *
+     * @param inicio primeiro dia
+     * @param fim último dia
+     * @return receitas, despesas e totais por tipo no período
+     */
+    public synchronized ResumoFinanceiro.Totais totaisNoPeriodo(LocalDate inicio, LocalDate fim) {
+        return resumo.totaisNoPeriodo(inicio, fim);
+    }
+
+    /**
+     * @param dia dia desejado
+     * @return cópia dos totais do dia (zerados se não houver registros)
+     */
+    public synchronized ResumoFinanceiro.Totais totaisDoDia(LocalDate dia) {
+        return resumo.totaisDoDia(dia);
+    }
+
+    /**
+     * @param mes mês desejado
+     * @return cópia dos totais do mês (zerados se não houver registros)
+     */
+    public synchronized ResumoFinanceiro.Totais totaisDoMes(YearMonth mes) {
+        return resumo.totaisDoMes(mes);
+    }
+
+    /**
+     * @param ano ano desejado
+     * @return cópia dos totais do ano (zerados se não houver registros)
+     */
+    public synchronized ResumoFinanceiro.Totais totaisDoAno(int ano) {
+        return resumo.totaisDoAno(ano);
+    }
+
+    /**
+     * @param ano ano desejado
+     * @return mês -> cópia dos totais, para cada mês do ano que teve registros
+     */
+    public synchronized Map<YearMonth, ResumoFinanceiro.Totais> totaisPorMes(int ano) {
+        return resumo.totaisPorMes(ano);
     }
     
     
@@ -88,7 +243,7 @@ public class GerenciadorFinanceiro {
      */
     public void registrarReceitaCancelamento(String clienteNome, double valor, String motivo) {
         String descricao = "Taxa de cancelamento para cliente " + clienteNome + ". Motivo: " + motivo;
-        registros.add(new RegistroFinanceiro(descricao, valor, TipoRegistro.RECEITA_CANCELAMENTO, LocalDateTime.now()));
+        registrar(new RegistroFinanceiro(descricao, valor, TipoRegistro.RECEITA_CANCELAMENTO, LocalDateTime.now()));
         salvar();
     }
 
@@ -99,11 +254,11 @@ public class GerenciadorFinanceiro {
      */
     public void registrarFaturamentoOS(OrdemDeServico os) {
         String descReceita = "Receita da OS #" + os.getNumeroOS() + " para cliente " + os.getCliente().getNome();
-        registros.add(new RegistroFinanceiro(descReceita, os.calcularValorTotal(), TipoRegistro.RECEITA_SERVICO, os.getDataAbertura()));
+        registrar(new RegistroFinanceiro(descReceita, os.calcularValorTotal(), TipoRegistro.RECEITA_SERVICO, os.getDataAbertura()));
 
         double comissao = os.calcularValorTotal() * 0.05;
         String descComissao = "Comissão (5%) da OS #" + os.getNumeroOS() + " para mecânico " + os.getMecanicoResponsavel().getNome();
-        registros.add(new RegistroFinanceiro(descComissao, comissao, TipoRegistro.DESPESA_COMISSAO, os.getDataAbertura()));
+        registrar(new RegistroFinanceiro(descComissao, comissao, TipoRegistro.DESPESA_COMISSAO, os.getDataAbertura()));
 
         salvar();
     }
@@ -115,7 +270,7 @@ public class GerenciadorFinanceiro {
      * @param valorTotal Valor total da compra.
      */
     public void registrarDespesaCompraPecas(String notaFiscal, double valorTotal) {
-        registros.add(new RegistroFinanceiro(notaFiscal, valorTotal, TipoRegistro.DESPESA_PECAS, LocalDateTime.now()));
+        registrar(new RegistroFinanceiro(notaFiscal, valorTotal, TipoRegistro.DESPESA_PECAS, LocalDateTime.now()));
         salvar();
     }
 
@@ -132,7 +287,7 @@ public class GerenciadorFinanceiro {
             if ("Mecanico".equals(f.getCargo())) salario = 1500;
 
             if (salario > 0) {
-                registros.add(new RegistroFinanceiro("Salário de " + f.getNome(), salario, TipoRegistro.DESPESA_SALARIO, LocalDateTime.now()));
+                registrar(new RegistroFinanceiro("Salário de " + f.getNome(), salario, TipoRegistro.DESPESA_SALARIO, LocalDateTime.now()));
             }
         }
         System.out.println("Folha de pagamento registrada.");
@@ -150,10 +305,7 @@ public class GerenciadorFinanceiro {
     public void emitirRelatorioServicos(LocalDate inicio, LocalDate fim) {
         System.out.println("\n--- Relatório de Serviços de " + inicio.format(dtf) + " a " + fim.format(dtf) + " ---");
 
-        List<RegistroFinanceiro> servicos = registros.stream()
-                .filter(r -> r.getTipo() == TipoRegistro.RECEITA_SERVICO)
-                .filter(r -> !r.getData().toLocalDate().isBefore(inicio) && !r.getData().toLocalDate().isAfter(fim))
-                .toList();
+        List<RegistroFinanceiro> servicos = listarNoPeriodo(TipoRegistro.RECEITA_SERVICO, inicio, fim);
 
         if (servicos.isEmpty()) {
             System.out.println("Nenhum serviço encontrado no período.");
@@ -171,25 +323,15 @@ public class GerenciadorFinanceiro {
      * @param fim Data final.
      */
     public void emitirBalanco(LocalDate inicio, LocalDate fim) {
-        List<RegistroFinanceiro> registrosPeriodo = registros.stream()
-                .filter(r -> !r.getData().toLocalDate().isBefore(inicio) && !r.getData().toLocalDate().isAfter(fim))
-                .toList();
-
-        double receitas = registrosPeriodo.stream()
-                .filter(r -> r.getTipo() == TipoRegistro.RECEITA_SERVICO || r.getTipo() == TipoRegistro.RECEITA_CANCELAMENTO)
-                .mapToDouble(RegistroFinanceiro::getValor)
-                .sum();
-
-        double despesas = registrosPeriodo.stream()
-                .filter(r -> r.getTipo() != TipoRegistro.RECEITA_SERVICO && r.getTipo() != TipoRegistro.RECEITA_CANCELAMENTO)
-                .mapToDouble(RegistroFinanceiro::getValor)
-                .sum();
+        ResumoFinanceiro.Totais totais = totaisNoPeriodo(inicio, fim);
+        double receitas = totais.getReceitas();
+        double despesas = totais.getDespesas();
 
         System.out.println("\n--- Balanço Financeiro de " + inicio.format(dtf) + " a " + fim.format(dtf) + " ---");
         System.out.printf("Total de Receitas: R$ %.2f\n", receitas);
         System.out.printf("Total de Despesas: R$ %.2f\n", despesas);
         System.out.println("----------------------------------------");
-        System.out.printf("Lucro (Salário do Gerente): R$ %.2f\n", (receitas - despesas));
+        System.out.printf("Lucro (Salário do Gerente): R$ %.2f\n", totais.getSaldo());
         System.out.println("----------------------------------------");
     }
 
@@ -202,10 +344,12 @@ public class GerenciadorFinanceiro {
     public void emitirRelatorioDespesasDetalhado(LocalDate inicio, LocalDate fim) {
         System.out.println("\n--- Relatório Detalhado de Despesas de " + inicio.format(dtf) + " a " + fim.format(dtf) + " ---");
 
-        List<RegistroFinanceiro> despesasPeriodo = registros.stream()
-                .filter(r -> r.getTipo() != TipoRegistro.RECEITA_SERVICO && r.getTipo() != TipoRegistro.RECEITA_CANCELAMENTO)
-                .filter(r -> !r.getData().toLocalDate().isBefore(inicio) && !r.getData().toLocalDate().isAfter(fim))
-                .toList();
+        List<RegistroFinanceiro> despesasPeriodo = new ArrayList<>();
+        for (RegistroFinanceiro registro : listarNoPeriodo(inicio, fim)) {
+            if (!isReceita(registro)) {
+                despesasPeriodo.add(registro);
+            }
+        }
 
         if (despesasPeriodo.isEmpty()) {
             System.out.println("Nenhuma despesa encontrada no período.");
@@ -221,7 +365,7 @@ public class GerenciadorFinanceiro {
             );
         }
 
-        double totalDespesas = despesasPeriodo.stream().mapToDouble(RegistroFinanceiro::getValor).sum();
+        double totalDespesas = totaisNoPeriodo(inicio, fim).getDespesas();
         System.out.println("----------------------------------------------------------------------------------");
         System.out.printf("Total de Despesas no Período: R$ %.2f\n", totalDespesas);
         System.out.println("----------------------------------------------------------------------------------");
@@ -0,0 +1,96 @@
+package com.mycompany.oficina.financeiro;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Registros financeiros agrupados por dia em um {@link TreeMap}, com cada dia
+ * em ordem de horário.
+ * <p>
+ * Uma consulta por período custa O(log n + k) e devolve os registros em ordem
+ * cronológica. Registros que chegam fora de ordem (por exemplo, o faturamento
+ * de uma OS, datado pela abertura da OS) são encaixados na posição certa do
+ * seu dia por busca binária. Registros com o mesmo horário ficam na ordem em
+ * que foram incluídos. Registros sem data não são indexados.
+ */
+final class IndicePorData {
+
+    private final TreeMap<LocalDate, List<RegistroFinanceiro>> porDia = new TreeMap<>();
+
+    void adicionar(RegistroFinanceiro registro) {
+        LocalDateTime data = registro.getData();
+        if (data == null) {
+            return;
+        }
+        List<RegistroFinanceiro> doDia = porDia.computeIfAbsent(data.toLocalDate(), d -> new ArrayList<>());
+        // Caso comum: o registro é o mais recente do dia e vai para o fim
+        int posicao = doDia.size();
+        if (posicao > 0 && doDia.get(posicao - 1).getData().isAfter(data)) {
+            posicao = primeiroDepoisDe(doDia, data);
+        }
+        doDia.add(posicao, registro);
+    }
+
+    /**
+     * @param inicio primeiro dia (nulo deixa o início aberto)
+     * @param fim último dia (nulo deixa o fim aberto)
+     * @param tipo tipo dos registros (nulo aceita todos)
+     * @return registros do período, em ordem cronológica
+     */
+    List<RegistroFinanceiro> buscar(LocalDate inicio, LocalDate fim, TipoRegistro tipo) {
+        List<RegistroFinanceiro> resultado = new ArrayList<>();
+        for (List<RegistroFinanceiro> doDia : faixa(inicio, fim).values()) {
+            if (tipo == null) {
+                resultado.addAll(doDia);
+                continue;
+            }
+            for (RegistroFinanceiro registro : doDia) {
+                if (registro.getTipo() == tipo) {
+                    resultado.add(registro);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    int contar(LocalDate inicio, LocalDate fim) {
+        int total = 0;
+        for (List<RegistroFinanceiro> doDia : faixa(inicio, fim).values()) {
+            total += doDia.size();
+        }
+        return total;
+    }
+
+    // Posição do primeiro registro com horário posterior a data
+    private static int primeiroDepoisDe(List<RegistroFinanceiro> doDia, LocalDateTime data) {
+        int baixo = 0;
+        int alto = doDia.size();
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (doDia.get(meio).getData().isAfter(data)) {
+                alto = meio;
+            } else {
+                baixo = meio + 1;
+            }
+        }
+        return baixo;
+    }
+
+    // Limites nulos deixam o intervalo aberto
+    private NavigableMap<LocalDate, List<RegistroFinanceiro>> faixa(LocalDate inicio, LocalDate fim) {
+        if (inicio != null && fim != null) {
+            return inicio.isAfter(fim) ? new TreeMap<>() : porDia.subMap(inicio, true, fim, true);
+        }
+        if (inicio != null) {
+            return porDia.tailMap(inicio, true);
+        }
+        if (fim != null) {
+            return porDia.headMap(fim, true);
+        }
+        return porDia;
+    }
+}
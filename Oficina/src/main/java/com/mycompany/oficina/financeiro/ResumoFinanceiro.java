@@ -0,0 +1,207 @@
+package com.mycompany.oficina.financeiro;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totais financeiros pré-calculados por dia, mês e ano, separados por
+ * {@link TipoRegistro}.
+ * <p>
+ * Cada registro incluído soma seu valor (em centavos, sem erro de
+ * arredondamento) e conta uma ocorrência no seu dia, no seu mês e no seu ano.
+ * Para somar um período, ele é quebrado em anos inteiros, meses inteiros e os
+ * dias que sobram nas pontas: o custo depende da quantidade desses pedaços, e
+ * não da quantidade de registros.
+ * <p>
+ * A classe não é sincronizada: só o {@link GerenciadorFinanceiro} a mantém e a
+ * consulta, sob a sua própria trava, e as consultas devolvem cópias.
+ */
+public class ResumoFinanceiro {
+
+    private static final int QUANTIDADE_DE_TIPOS = TipoRegistro.values().length;
+
+    private final TreeMap<LocalDate, Totais> porDia = new TreeMap<>();
+    private final TreeMap<YearMonth, Totais> porMes = new TreeMap<>();
+    private final TreeMap<Integer, Totais> porAno = new TreeMap<>();
+
+    /**
+     * Soma um registro aos totais do seu dia, mês e ano.
+     *
+     * @param registro registro financeiro (registros sem data ou tipo são ignorados)
+     */
+    void adicionar(RegistroFinanceiro registro) {
+        if (registro.getData() == null || registro.getTipo() == null) {
+            return;
+        }
+        LocalDate dia = registro.getData().toLocalDate();
+        long centavos = Totais.emCentavos(registro.getValor());
+        porDia.computeIfAbsent(dia, d -> new Totais()).somar(registro.getTipo(), centavos, 1);
+        porMes.computeIfAbsent(YearMonth.from(dia), m -> new Totais()).somar(registro.getTipo(), centavos, 1);
+        porAno.computeIfAbsent(dia.getYear(), a -> new Totais()).somar(registro.getTipo(), centavos, 1);
+    }
+
+    /**
+     * Totais entre dois dias (inclusive).
+     *
+     * @param inicio primeiro dia
+     * @param fim último dia
+     * @return totais do período (zerados se não houver registros)
+     */
+    public Totais totaisNoPeriodo(LocalDate inicio, LocalDate fim) {
+        Totais resultado = new Totais();
+        LocalDate dia = inicio;
+        while (!dia.isAfter(fim)) {
+            LocalDate fimDoAno = dia.withDayOfYear(dia.lengthOfYear());
+            LocalDate fimDoMes = dia.withDayOfMonth(dia.lengthOfMonth());
+            if (dia.getDayOfYear() == 1 && !fimDoAno.isAfter(fim)) {
+                resultado.somar(porAno.get(dia.getYear()));
+                dia = fimDoAno.plusDays(1);
+            } else if (dia.getDayOfMonth() == 1 && !fimDoMes.isAfter(fim)) {
+                resultado.somar(porMes.get(YearMonth.from(dia)));
+                dia = fimDoMes.plusDays(1);
+            } else {
+                // Dias soltos até o fim do mês (ou do período): só os dias com registros são visitados
+                LocalDate ate = fimDoMes.isBefore(fim) ? fimDoMes : fim;
+                for (Totais totais : porDia.subMap(dia, true, ate, true).values()) {
+                    resultado.somar(totais);
+                }
+                dia = ate.plusDays(1);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @param dia dia desejado
+     * @return totais do dia (zerados se não houver registros)
+     */
+    public Totais totaisDoDia(LocalDate dia) {
+        return copia(porDia.get(dia));
+    }
+
+    /**
+     * @param mes mês desejado
+     * @return totais do mês (zerados se não houver registros)
+     */
+    public Totais totaisDoMes(YearMonth mes) {
+        return copia(porMes.get(mes));
+    }
+
+    /**
+     * @param ano ano desejado
+     * @return totais do ano (zerados se não houver registros)
+     */
+    public Totais totaisDoAno(int ano) {
+        return copia(porAno.get(ano));
+    }
+
+    /**
+     * Totais de cada mês de um ano que teve registros.
+     *
+     * @param ano ano desejado
+     * @return mês -> totais, em ordem cronológica
+     */
+    public Map<YearMonth, Totais> totaisPorMes(int ano) {
+        Map<YearMonth, Totais> resultado = new TreeMap<>();
+        for (Map.Entry<YearMonth, Totais> mes : porMes.subMap(YearMonth.of(ano, 1), true, YearMonth.of(ano, 12), true).entrySet()) {
+            resultado.put(mes.getKey(), copia(mes.getValue()));
+        }
+        return resultado;
+    }
+
+    private static Totais copia(Totais totais) {
+        Totais resultado = new Totais();
+        resultado.somar(totais);
+        return resultado;
+    }
+
+    /**
+     * Soma dos valores e quantidade de registros de cada tipo em um período.
+     */
+    public static final class Totais {
+
+        private final long[] centavos = new long[QUANTIDADE_DE_TIPOS];
+        private final int[] quantidades = new int[QUANTIDADE_DE_TIPOS];
+
+        static long emCentavos(double valor) {
+            return Math.round(valor * 100);
+        }
+
+        private void somar(TipoRegistro tipo, long valorEmCentavos, int quantidade) {
+            centavos[tipo.ordinal()] += valorEmCentavos;
+            quantidades[tipo.ordinal()] += quantidade;
+        }
+
+        private void somar(Totais outros) {
+            if (outros == null) {
+                return;
+            }
+            for (int i = 0; i < QUANTIDADE_DE_TIPOS; i++) {
+                centavos[i] += outros.centavos[i];
+                quantidades[i] += outros.quantidades[i];
+            }
+        }
+
+        /**
+         * @param tipo tipo do registro
+         * @return soma dos valores do tipo
+         */
+        public double getValor(TipoRegistro tipo) {
+            return centavos[tipo.ordinal()] / 100.0;
+        }
+
+        /**
+         * @param tipo tipo do registro
+         * @return quantidade de registros do tipo
+         */
+        public int getQuantidade(TipoRegistro tipo) {
+            return quantidades[tipo.ordinal()];
+        }
+
+        /**
+         * @return soma das receitas (serviços e taxas de cancelamento)
+         */
+        public double getReceitas() {
+            return centavosDeReceita() / 100.0;
+        }
+
+        /**
+         * @return soma de todos os tipos de despesa
+         */
+        public double getDespesas() {
+            return centavosDeDespesa() / 100.0;
+        }
+
+        /**
+         * @return receitas menos despesas
+         */
+        public double getSaldo() {
+            return (centavosDeReceita() - centavosDeDespesa()) / 100.0;
+        }
+
+        private long centavosDeReceita() {
+            return centavos[TipoRegistro.RECEITA_SERVICO.ordinal()] + centavos[TipoRegistro.RECEITA_CANCELAMENTO.ordinal()];
+        }
+
+        private long centavosDeDespesa() {
+            long total = 0;
+            for (int i = 0; i < QUANTIDADE_DE_TIPOS; i++) {
+                total += centavos[i];
+            }
+            return total - centavosDeReceita();
+        }
+
+        /**
+         * @return quantidade de registros de todos os tipos
+         */
+        public int getQuantidadeTotal() {
+            int total = 0;
+            for (int quantidade : quantidades) {
+                total += quantidade;
+            }
+            return total;
+        }
+    }
+}
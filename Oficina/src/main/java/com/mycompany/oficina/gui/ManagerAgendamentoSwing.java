@@ -5,13 +5,21 @@ import com.mycompany.oficina.controller.AtendenteController;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
 public class ManagerAgendamentoSwing extends JFrame {
     private final AtendenteController controller;
     private final JTable tableView;
     private final DefaultTableModel tableModel;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private final JTextField campoBusca = new JTextField(28);
+    private final JComboBox<String> periodoCombo = new JComboBox<>(new String[]{"Esta semana", "Este mês", "Próximos 3 meses", "Todo o histórico"});
+    // Agendamentos exibidos na tabela, na mesma ordem das linhas
+    private List<Agendamento> agendamentosExibidos = new ArrayList<>();
 
     public ManagerAgendamentoSwing(AtendenteController controller) {
         this.controller = controller;
@@ -27,6 +35,19 @@ public class ManagerAgendamentoSwing extends JFrame {
         };
         tableView = new JTable(tableModel);
 
+        JPanel filtroPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 10));
+        filtroPanel.add(new JLabel("Período:"));
+        filtroPanel.add(periodoCombo);
+        periodoCombo.setSelectedIndex(1);
+        periodoCombo.addActionListener(e -> carregarDados());
+        JButton btnBuscar = new JButton("Buscar");
+        campoBusca.setToolTipText("Ex.: cliente:123 AND tipo:REPARO OR data:01/07/2025..31/07/2025 (vazio usa o período)");
+        filtroPanel.add(new JLabel("Busca:"));
+        filtroPanel.add(campoBusca);
+        filtroPanel.add(btnBuscar);
+        btnBuscar.addActionListener(e -> carregarDados());
+        campoBusca.addActionListener(e -> carregarDados());
+
         JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
         JButton btnNovo = new JButton("Novo Agendamento");
         JButton btnCancelar = new JButton("Cancelar Agendamento");
@@ -40,15 +61,43 @@ public class ManagerAgendamentoSwing extends JFrame {
         btnAtualizar.addActionListener(e -> carregarDados());
 
         setLayout(new BorderLayout());
+        add(filtroPanel, BorderLayout.NORTH);
         add(new JScrollPane(tableView), BorderLayout.CENTER);
         add(buttonPanel, BorderLayout.SOUTH);
 
         carregarDados();
     }
 
+    private List<Agendamento> buscarAgendamentosDoPeriodo() {
+        LocalDate hoje = LocalDate.now();
+        switch (periodoCombo.getSelectedIndex()) {
+            case 0:
+                return controller.listarAgendamentosDaSemana(hoje);
+            case 1:
+                return controller.listarAgendamentosDoMes(YearMonth.from(hoje));
+            case 2:
+                return controller.listarAgendamentosEntre(hoje, hoje.plusMonths(3));
+            default:
+                return controller.listarTodosAgendamentos();
+        }
+    }
+
     private void carregarDados() {
+        String termoBusca = campoBusca.getText().trim();
+        List<Agendamento> encontrados;
+        if (termoBusca.isEmpty()) {
+            encontrados = buscarAgendamentosDoPeriodo();
+        } else {
+            try {
+                encontrados = controller.buscarAgendamentos(termoBusca);
+            } catch (IllegalArgumentException e) {
+                AlertsSwing.showAlert("Busca Inválida", e.getMessage(), JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+        }
         tableModel.setRowCount(0);
-        for (Agendamento ag : controller.listarTodosAgendamentos()) {
+        agendamentosExibidos = encontrados;
+        for (Agendamento ag : agendamentosExibidos) {
             tableModel.addRow(new Object[]{
                     ag.getDataHora().format(formatter),
                     ag.getCliente().getNome(),
@@ -82,7 +131,7 @@ public class ManagerAgendamentoSwing extends JFrame {
         }
 
         // Recuperar o objeto Agendamento da linha selecionada
-        Agendamento sel = controller.listarTodosAgendamentos().get(selectedRow);
+        Agendamento sel = agendamentosExibidos.get(selectedRow);
 
         int confirm = JOptionPane.showConfirmDialog(this, "Cancelar agendamento para " + sel.getCliente().getNome() + "?", "Confirmar Cancelamento", JOptionPane.YES_NO_OPTION);
 
@@ -5,6 +5,8 @@ import com.mycompany.oficina.gui.menus.ExtratoOsDialogo;
 import com.mycompany.oficina.loja.Produto;
 import com.mycompany.oficina.ordemservico.OrdemDeServico;
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.Vector;
@@ -15,6 +17,7 @@ public class ManagerGerenciarOsSwing extends JFrame {
     private final JTable tableView;                    // Tabela que mostra as ordens de serviço
     private final DefaultTableModel tableModel;        // Modelo da tabela para manipular os dados
     private final OrdemDeServico osInicial;             // Ordem de serviço selecionada inicialmente (opcional)
+    private static final int LIMITE_BUSCA_PECAS = 20;   // Máximo de peças sugeridas pela busca
 
     // Construtor padrão que chama o outro passando null para ordem inicial
     public ManagerGerenciarOsSwing() {
@@ -175,6 +178,21 @@ public class ManagerGerenciarOsSwing extends JFrame {
         // ComboBox para seleção de peças disponíveis no estoque
         JComboBox<Produto> pecaCombo = new JComboBox<>(new Vector<>(controller.listarProdutosEstoque()));
         JTextField quantidadeField = new JTextField("1", 5);
+        JTextField buscaField = new JTextField(15);
+
+        // Busca enquanto digita: a lista passa a mostrar só as peças encontradas
+        buscaField.getDocument().addDocumentListener(new DocumentListener() {
+            private void filtrar() {
+                String texto = buscaField.getText().trim();
+                Vector<Produto> pecas = new Vector<>(texto.isEmpty()
+                        ? controller.listarProdutosEstoque()
+                        : controller.buscarProdutosEstoque(texto, LIMITE_BUSCA_PECAS));
+                pecaCombo.setModel(new DefaultComboBoxModel<>(pecas));
+            }
+            @Override public void insertUpdate(DocumentEvent e) { filtrar(); }
+            @Override public void removeUpdate(DocumentEvent e) { filtrar(); }
+            @Override public void changedUpdate(DocumentEvent e) { filtrar(); }
+        });
 
         // Renderizador customizado para mostrar nome e quantidade disponível da peça no ComboBox
         pecaCombo.setRenderer(new DefaultListCellRenderer() {
@@ -189,7 +207,9 @@ public class ManagerGerenciarOsSwing extends JFrame {
         });
 
         // Painel com layout de grade para inserir a peça e quantidade
-        JPanel panel = new JPanel(new GridLayout(2, 2, 5, 5));
+        JPanel panel = new JPanel(new GridLayout(3, 2, 5, 5));
+        panel.add(new JLabel("Buscar peça:"));
+        panel.add(buscaField);
         panel.add(new JLabel("Peça:"));
         panel.add(pecaCombo);
         panel.add(new JLabel("Quantidade:"));
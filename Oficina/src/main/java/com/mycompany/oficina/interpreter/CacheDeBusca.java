@@ -0,0 +1,161 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+import com.mycompany.oficina.agendamento.ObservadorAgenda;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache LRU dos resultados das buscas de agendamentos.
+ * <p>
+ * A chave é a {@link Expressao#chaveNormalizada() chave normalizada} da
+ * expressão, então buscas equivalentes escritas de formas diferentes
+ * compartilham a mesma entrada. O cache observa a agenda: quando um
+ * agendamento entra ou sai, só são descartadas as entradas cuja expressão
+ * {@link Expressao#aceita aceita} aquele agendamento (as buscas daquela data,
+ * daquele cliente, etc.); as demais continuam válidas. Cargas e arquivamentos
+ * de meses inteiros esvaziam o cache.
+ * <p>
+ * Uma busca que estava sendo calculada enquanto a agenda mudou não é guardada,
+ * para que um resultado desatualizado nunca entre no cache.
+ */
+public final class CacheDeBusca implements ObservadorAgenda {
+
+    // Quantidade de resultados mantidos no cache
+    public static final int TAMANHO_PADRAO = 256;
+
+    // Resultado guardado junto com a expressão que o produziu (usada na invalidação)
+    private static final class Entrada {
+        final Expressao expressao;
+        final List<Agendamento> resultado;
+
+        Entrada(Expressao expressao, List<Agendamento> resultado) {
+            this.expressao = expressao;
+            this.resultado = resultado;
+        }
+    }
+
+    private final Map<String, Entrada> entradas;
+
+    // Incrementada a cada invalidação; protegida pelo monitor do cache
+    private long geracao;
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    /**
+     * Cria um cache com o tamanho padrão.
+     */
+    public CacheDeBusca() {
+        this(TAMANHO_PADRAO);
+    }
+
+    /**
+     * @param tamanho quantidade máxima de resultados guardados
+     */
+    public CacheDeBusca(int tamanho) {
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> maisAntiga) {
+                return size() > tamanho;
+            }
+        };
+    }
+
+    /**
+     * Retorna o resultado da expressão, do cache quando possível.
+     *
+     * @param expressao expressão a ser avaliada
+     * @param contexto contexto da busca
+     * @return cópia da lista de agendamentos que satisfazem a expressão
+     */
+    public List<Agendamento> buscar(Expressao expressao, ContextoDeBusca contexto) {
+        String chave = expressao.chaveNormalizada();
+        long geracaoInicial;
+        synchronized (this) {
+            Entrada entrada = entradas.get(chave);
+            if (entrada != null) {
+                acertos.incrementAndGet();
+                return new ArrayList<>(entrada.resultado);
+            }
+            geracaoInicial = geracao;
+        }
+        falhas.incrementAndGet();
+        List<Agendamento> resultado = PlanejadorDeBusca.executar(expressao, contexto);
+        synchronized (this) {
+            if (geracao == geracaoInicial) {
+                entradas.put(chave, new Entrada(expressao, Collections.unmodifiableList(new ArrayList<>(resultado))));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Descarta as entradas cujo resultado inclui (ou passaria a incluir) o agendamento.
+     */
+    @Override
+    public synchronized void horarioAlterado(Agendamento agendamento) {
+        geracao++;
+        Iterator<Entrada> it = entradas.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expressao.aceita(agendamento)) {
+                it.remove();
+                invalidacoes.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Descarta todas as entradas.
+     */
+    @Override
+    public synchronized void agendaRecarregada() {
+        geracao++;
+        invalidacoes.addAndGet(entradas.size());
+        entradas.clear();
+    }
+
+    /** Buscas respondidas pelo cache. */
+    public long getAcertos() {
+        return acertos.get();
+    }
+
+    /** Buscas que precisaram ser calculadas. */
+    public long getFalhas() {
+        return falhas.get();
+    }
+
+    /** Entradas descartadas por mudanças na agenda. */
+    public long getInvalidacoes() {
+        return invalidacoes.get();
+    }
+
+    /** Quantidade de resultados guardados no momento. */
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    /**
+     * Fração das buscas respondidas pelo cache (0 quando ainda não houve buscas).
+     */
+    public double getTaxaDeAcerto() {
+        long total = acertos.get() + falhas.get();
+        return total == 0 ? 0.0 : (double) acertos.get() / total;
+    }
+
+    /**
+     * Retorna um resumo das métricas do cache.
+     */
+    @Override
+    public String toString() {
+        return String.format("CacheDeBusca{acertos=%d, falhas=%d, taxa=%.1f%%, invalidacoes=%d, entradas=%d}",
+                getAcertos(), getFalhas(), getTaxaDeAcerto() * 100, getInvalidacoes(), getTamanho());
+    }
+}
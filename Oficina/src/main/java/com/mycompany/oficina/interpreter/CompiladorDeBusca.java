@@ -0,0 +1,288 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.TipoServico;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compila o texto de uma busca de agendamentos em uma árvore de {@link Expressao}.
+ * <p>
+ * Linguagem aceita (palavras-chave sem diferenciar maiúsculas de minúsculas):
+ * <pre>
+ *   busca   := ou
+ *   ou      := e ( (OR | OU) e )*
+ *   e       := nao ( [AND | E] nao )*      -- termos lado a lado também são AND
+ *   nao     := (NOT | NAO) nao | termo
+ *   termo   := "(" ou ")" | campo:valor | valor
+ * </pre>
+ * Campos:
+ * <ul>
+ *   <li>{@code cliente:CPF}</li>
+ *   <li>{@code mecanico:CPF} ou {@code mecanico:Nome} (nomes com espaço entre aspas)</li>
+ *   <li>{@code tipo:REPARO} (qualquer {@link TipoServico})</li>
+ *   <li>{@code elevador:2}</li>
+ *   <li>{@code data:dd/MM/yyyy} ou {@code data:dd/MM/yyyy..dd/MM/yyyy}; um dos
+ *       lados do intervalo pode ficar em branco</li>
+ * </ul>
+ * Um valor sem campo é tratado como data, se for uma, ou como CPF de cliente,
+ * mantendo o comportamento da busca antiga.
+ * <p>
+ * Exemplo: {@code cliente:123 AND mecanico:Tadeu AND data:01/07/2025..31/07/2025 OR tipo:REPARO}
+ * <p>
+ * As árvores compiladas são imutáveis e ficam em um cache LRU indexado pelo
+ * texto normalizado, então buscas repetidas não são analisadas de novo.
+ */
+public final class CompiladorDeBusca {
+
+    // Quantidade de buscas compiladas mantidas no cache
+    public static final int TAMANHO_PADRAO_CACHE = 128;
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private final Map<String, Expressao> cache;
+
+    /**
+     * Cria um compilador com o cache do tamanho padrão.
+     */
+    public CompiladorDeBusca() {
+        this(TAMANHO_PADRAO_CACHE);
+    }
+
+    /**
+     * @param tamanhoCache quantidade máxima de buscas compiladas em cache
+     */
+    public CompiladorDeBusca(int tamanhoCache) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Expressao> maisAntiga) {
+                return size() > tamanhoCache;
+            }
+        };
+    }
+
+    /**
+     * Compila o texto da busca, reaproveitando a árvore já compilada quando possível.
+     *
+     * @param texto texto da busca
+     * @return árvore de expressão equivalente
+     * @throws IllegalArgumentException se o texto não for uma busca válida
+     */
+    public Expressao compilar(String texto) {
+        if (texto == null || texto.isBlank()) {
+            throw new IllegalArgumentException("A busca está vazia.");
+        }
+        String normalizado = texto.trim().replaceAll("\\s+", " ");
+        synchronized (cache) {
+            Expressao emCache = cache.get(normalizado);
+            if (emCache != null) {
+                return emCache;
+            }
+        }
+        Expressao compilada = new Analisador(tokenizar(normalizado)).analisar();
+        synchronized (cache) {
+            cache.put(normalizado, compilada);
+        }
+        return compilada;
+    }
+
+    // Separa o texto em palavras, parênteses e trechos entre aspas
+    private static List<String> tokenizar(String texto) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (char c : texto.toCharArray()) {
+            if (c == '"') {
+                entreAspas = !entreAspas;
+            } else if (entreAspas) {
+                atual.append(c);
+            } else if (Character.isWhitespace(c) || c == '(' || c == ')') {
+                if (atual.length() > 0) {
+                    tokens.add(atual.toString());
+                    atual.setLength(0);
+                }
+                if (c == '(' || c == ')') {
+                    tokens.add(String.valueOf(c));
+                }
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas na busca.");
+        }
+        if (atual.length() > 0) {
+            tokens.add(atual.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * Analisador descendente recursivo sobre a lista de tokens.
+     */
+    private static final class Analisador {
+        private final List<String> tokens;
+        private int posicao;
+
+        Analisador(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Expressao analisar() {
+            Expressao expressao = ou();
+            if (posicao < tokens.size()) {
+                throw new IllegalArgumentException("Trecho inesperado na busca: " + tokens.get(posicao));
+            }
+            return expressao;
+        }
+
+        private Expressao ou() {
+            Expressao expressao = e();
+            while (palavraChave("OR", "OU")) {
+                expressao = new ExpressaoOu(expressao, e());
+            }
+            return expressao;
+        }
+
+        private Expressao e() {
+            Expressao expressao = nao();
+            while (true) {
+                if (palavraChave("AND", "E")) {
+                    expressao = new ExpressaoE(expressao, nao());
+                } else if (posicao < tokens.size() && !proximoEh(")") && !proximoEhPalavraChave("OR", "OU")) {
+                    expressao = new ExpressaoE(expressao, nao()); // Termos lado a lado
+                } else {
+                    return expressao;
+                }
+            }
+        }
+
+        private Expressao nao() {
+            if (palavraChave("NOT", "NAO")) {
+                return new ExpressaoNao(nao());
+            }
+            return termo();
+        }
+
+        private Expressao termo() {
+            if (posicao >= tokens.size()) {
+                throw new IllegalArgumentException("A busca terminou antes do esperado.");
+            }
+            String token = tokens.get(posicao++);
+            if (token.equals("(")) {
+                Expressao interna = ou();
+                if (!proximoEh(")")) {
+                    throw new IllegalArgumentException("Parêntese não fechado na busca.");
+                }
+                posicao++;
+                return interna;
+            }
+            if (token.equals(")")) {
+                throw new IllegalArgumentException("Parêntese fechado sem abertura na busca.");
+            }
+            int separador = token.indexOf(':');
+            if (separador < 0) {
+                return valorSemCampo(token);
+            }
+            String campo = token.substring(0, separador).toLowerCase(Locale.ROOT);
+            String valor = token.substring(separador + 1);
+            if (valor.isEmpty()) {
+                throw new IllegalArgumentException("O campo '" + campo + "' está sem valor.");
+            }
+            switch (campo) {
+                case "cliente":
+                case "cpf":
+                    return new ExpressaoPorCliente(valor);
+                case "mecanico":
+                    return new ExpressaoPorMecanico(valor);
+                case "tipo":
+                    return new ExpressaoPorTipoServico(tipoServico(valor));
+                case "elevador":
+                    return new ExpressaoPorElevador(inteiro(valor));
+                case "data":
+                    return data(valor);
+                default:
+                    throw new IllegalArgumentException("Campo de busca desconhecido: " + campo);
+            }
+        }
+
+        // Compatibilidade com a busca antiga: uma data ou o CPF de um cliente
+        private Expressao valorSemCampo(String valor) {
+            try {
+                return new ExpressaoPorData(LocalDate.parse(valor, FORMATO_DATA));
+            } catch (DateTimeParseException e) {
+                return new ExpressaoPorCliente(valor);
+            }
+        }
+
+        private Expressao data(String valor) {
+            int intervalo = valor.indexOf("..");
+            if (intervalo < 0) {
+                return new ExpressaoPorData(converterData(valor));
+            }
+            String inicio = valor.substring(0, intervalo);
+            String fim = valor.substring(intervalo + 2);
+            if (inicio.isEmpty() && fim.isEmpty()) {
+                throw new IllegalArgumentException("Intervalo de datas sem início nem fim.");
+            }
+            return new ExpressaoPorPeriodo(
+                    inicio.isEmpty() ? LocalDate.MIN : converterData(inicio),
+                    fim.isEmpty() ? LocalDate.MAX : converterData(fim));
+        }
+
+        private LocalDate converterData(String valor) {
+            try {
+                return LocalDate.parse(valor, FORMATO_DATA);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Data inválida na busca (use dd/MM/yyyy): " + valor);
+            }
+        }
+
+        private TipoServico tipoServico(String valor) {
+            try {
+                return TipoServico.valueOf(valor.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Tipo de serviço desconhecido: " + valor);
+            }
+        }
+
+        private int inteiro(String valor) {
+            try {
+                return Integer.parseInt(valor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Número de elevador inválido: " + valor);
+            }
+        }
+
+        // Consome o próximo token se for uma das palavras-chave
+        private boolean palavraChave(String... palavras) {
+            if (proximoEhPalavraChave(palavras)) {
+                posicao++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean proximoEhPalavraChave(String... palavras) {
+            if (posicao >= tokens.size()) {
+                return false;
+            }
+            for (String palavra : palavras) {
+                if (palavra.equalsIgnoreCase(tokens.get(posicao))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean proximoEh(String token) {
+            return posicao < tokens.size() && tokens.get(posicao).equals(token);
+        }
+    }
+}
@@ -6,6 +6,7 @@ package com.mycompany.oficina.interpreter;
 
 import com.mycompany.oficina.agendamento.Agendamento;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Define a interface comum para todos os elementos de uma expressão de busca.
@@ -23,4 +24,52 @@ public interface Expressao {
      * @return uma lista de agendamentos que correspondem à condição definida pela expressão.
      */
     List<Agendamento> interpreter(ContextoDeBusca contexto);
+
+    /**
+     * Verifica se um único agendamento satisfaz a condição da expressão.
+     * <p>
+     * Usado pelo {@link PlanejadorDeBusca} para aplicar as condições mais caras
+     * como filtro sobre o resultado da condição mais barata, em vez de
+     * avaliá-las por completo e cruzar as listas.
+     *
+     * @param agendamento agendamento a ser testado
+     * @return true se o agendamento satisfaz a expressão
+     */
+    boolean aceita(Agendamento agendamento);
+
+    /**
+     * Estima quantos agendamentos {@link #interpreter} precisa examinar para
+     * avaliar esta expressão. O planejador avalia primeiro o lado mais barato.
+     *
+     * @param contexto contexto da busca
+     * @return custo estimado (quanto menor, mais barato)
+     */
+    default long custoEstimado(ContextoDeBusca contexto) {
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * Representação canônica da expressão: duas expressões com a mesma chave
+     * selecionam exatamente os mesmos agendamentos. Operandos de AND/OR são
+     * achatados e ordenados, então {@code a AND b} e {@code b AND a} coincidem.
+     *
+     * @return chave normalizada
+     */
+    String chaveNormalizada();
+
+    /**
+     * Avalia a expressão sob demanda, em ordem cronológica.
+     * <p>
+     * Diferente de {@link #interpreter}, o resultado não precisa ser montado
+     * inteiro: quem consome o fluxo pode pular e limitar resultados (paginação)
+     * e a avaliação para assim que o limite é atingido. A implementação padrão
+     * apenas percorre a lista de {@link #interpreter}; as expressões que sabem
+     * ler a agenda aos poucos a sobrescrevem.
+     *
+     * @param contexto contexto da busca
+     * @return fluxo dos agendamentos que satisfazem a expressão
+     */
+    default Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return interpreter(contexto).stream();
+    }
 }
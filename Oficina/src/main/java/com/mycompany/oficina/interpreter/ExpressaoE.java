@@ -5,8 +5,8 @@
 package com.mycompany.oficina.interpreter;
 
 import com.mycompany.oficina.agendamento.Agendamento;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Representa a expressão lógica "E" (AND) que combina duas expressões.
@@ -35,29 +35,58 @@ public class ExpressaoE implements Expressao {
     /**
      * Interpreta a expressão lógica AND.
      * <p>
-     * Avalia as duas expressões dentro do mesmo contexto e retorna somente
-     * os agendamentos presentes em ambas as listas (interseção).
+     * A avaliação é feita pelo {@link PlanejadorDeBusca}: a condição mais barata
+     * é avaliada primeiro e as demais são aplicadas como filtro sobre o resultado
+     * dela, o que equivale à interseção das duas listas em tempo linear.
      *
      * @param contexto o contexto da busca contendo os dados necessários para avaliação
      * @return lista com agendamentos que satisfazem as duas expressões
      */
     @Override
     public List<Agendamento> interpreter(ContextoDeBusca contexto) {
-        // Executa a interpretação da expressão do lado esquerdo
-        List<Agendamento> resultadoEsquerda = esquerda.interpreter(contexto);
-        // Executa a interpretação da expressão do lado direito
-        List<Agendamento> resultadoDireita = direita.interpreter(contexto);
+        return PlanejadorDeBusca.executar(this, contexto);
+    }
+
+    /**
+     * Um agendamento satisfaz o AND se satisfaz os dois lados; o lado direito
+     * só é testado se o esquerdo aceitar.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return esquerda.aceita(agendamento) && direita.aceita(agendamento);
+    }
+
+    /**
+     * O AND nunca produz mais que o seu lado mais barato.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return Math.min(esquerda.custoEstimado(contexto), direita.custoEstimado(contexto));
+    }
 
-        List<Agendamento> resultadoFinal = new ArrayList<>();
+    /**
+     * Avaliação sob demanda, também delegada ao {@link PlanejadorDeBusca}.
+     */
+    @Override
+    public Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return PlanejadorDeBusca.stream(this, contexto);
+    }
 
-        // Mantém apenas os agendamentos presentes em ambas as listas (interseção)
-        for (Agendamento ag : resultadoEsquerda) {
-            if (resultadoDireita.contains(ag)) {
-                resultadoFinal.add(ag);
-            }
-        }
+    // Expressão do lado esquerdo (usada pelo planejador)
+    Expressao getEsquerda() {
+        return esquerda;
+    }
 
-        return resultadoFinal;
+    // Expressão do lado direito (usada pelo planejador)
+    Expressao getDireita() {
+        return direita;
     }
-}
 
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return PlanejadorDeBusca.chaveDosOperandos("AND", this);
+    }
+}
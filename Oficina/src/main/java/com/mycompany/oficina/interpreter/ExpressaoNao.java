@@ -0,0 +1,80 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Representa a negação (NOT) de uma expressão.
+ * <p>
+ * Sozinha, a negação precisa examinar todos os agendamentos da agenda, por
+ * isso declara o maior custo possível entre as folhas: dentro de um AND o
+ * {@link PlanejadorDeBusca} a usa apenas como filtro sobre o resultado das
+ * demais condições.
+ */
+public class ExpressaoNao implements Expressao {
+
+    // Expressão negada
+    private final Expressao interna;
+
+    /**
+     * @param interna expressão a ser negada
+     */
+    public ExpressaoNao(Expressao interna) {
+        this.interna = interna;
+    }
+
+    /**
+     * Retorna os agendamentos da agenda que não satisfazem a expressão interna.
+     */
+    @Override
+    public List<Agendamento> interpreter(ContextoDeBusca contexto) {
+        List<Agendamento> resultado = new ArrayList<>();
+        for (Agendamento ag : contexto.getAgenda().listarTodosAgendamentos()) {
+            if (!interna.aceita(ag)) {
+                resultado.add(ag);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Percorre os agendamentos da agenda sob demanda, descartando os aceitos
+     * pela expressão interna.
+     */
+    @Override
+    public Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return contexto.getAgenda().streamTodosAgendamentos().filter(ag -> !interna.aceita(ag));
+    }
+
+    /**
+     * Aceita o agendamento quando a expressão interna o rejeita.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return !interna.aceita(agendamento);
+    }
+
+    /**
+     * Percorre todos os horários dos dias com agendamento.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return (long) contexto.getAgenda().getDatasAgendadas().size() * contexto.getAgenda().getTotalDeHorarios();
+    }
+
+    // Expressão negada (usada pelo planejador)
+    Expressao getInterna() {
+        return interna;
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "NOT(" + interna.chaveNormalizada() + ")";
+    }
+}
@@ -5,10 +5,8 @@
 package com.mycompany.oficina.interpreter;
 
 import com.mycompany.oficina.agendamento.Agendamento;
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Representa a expressão lógica "OU" (OR) que combina duas expressões.
@@ -37,25 +35,58 @@ public class ExpressaoOu implements Expressao {
     /**
      * Interpreta a expressão lógica OR.
      * <p>
-     * Avalia as duas expressões dentro do mesmo contexto e retorna uma lista
-     * contendo todos os agendamentos que aparecem em pelo menos uma das listas.
+     * A avaliação é feita pelo {@link PlanejadorDeBusca}: cada ramo é avaliado
+     * uma única vez e a união elimina repetidos por identidade.
      *
      * @param contexto o contexto da busca contendo os dados necessários para avaliação
      * @return lista com agendamentos que satisfazem pelo menos uma das expressões
      */
     @Override
     public List<Agendamento> interpreter(ContextoDeBusca contexto) {
-        // Executa a interpretação da expressão do lado esquerdo
-        List<Agendamento> resultadoEsquerda = esquerda.interpreter(contexto);
-        // Executa a interpretação da expressão do lado direito
-        List<Agendamento> resultadoDireita = direita.interpreter(contexto);
-
-        // Cria um Set para armazenar a união sem duplicatas
-        Set<Agendamento> uniao = new HashSet<>(resultadoEsquerda);
-        // Adiciona todos os elementos do resultado direito ao conjunto
-        uniao.addAll(resultadoDireita);
-
-        // Retorna a união como uma lista
-        return new ArrayList<>(uniao);
+        return PlanejadorDeBusca.executar(this, contexto);
+    }
+
+    /**
+     * Um agendamento satisfaz o OR se satisfaz pelo menos um dos lados.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return esquerda.aceita(agendamento) || direita.aceita(agendamento);
+    }
+
+    /**
+     * O OR precisa avaliar os dois lados.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        long custoEsquerda = esquerda.custoEstimado(contexto);
+        long custoDireita = direita.custoEstimado(contexto);
+        return custoEsquerda > Long.MAX_VALUE - custoDireita ? Long.MAX_VALUE : custoEsquerda + custoDireita;
+    }
+
+    /**
+     * Avaliação sob demanda, também delegada ao {@link PlanejadorDeBusca}.
+     */
+    @Override
+    public Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return PlanejadorDeBusca.stream(this, contexto);
+    }
+
+    // Expressão do lado esquerdo (usada pelo planejador)
+    Expressao getEsquerda() {
+        return esquerda;
+    }
+
+    // Expressão do lado direito (usada pelo planejador)
+    Expressao getDireita() {
+        return direita;
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return PlanejadorDeBusca.chaveDosOperandos("OR", this);
     }
 }
@@ -8,18 +8,17 @@ import com.mycompany.oficina.agendamento.Agendamento;
 
 import com.mycompany.oficina.entidades.Cliente;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Representa uma expressão de busca filtrando agendamentos por um cliente específico.
  * <p>
- * Essa expressão retorna todos os agendamentos associados ao cliente informado.
+ * Essa expressão retorna todos os agendamentos associados ao cliente informado,
+ * usando o índice por CPF mantido pela agenda.
  */
 public class ExpressaoPorCliente implements Expressao {
-    // Cliente que será usado como filtro na busca
-    private final Cliente cliente;
+    // CPF do cliente que será usado como filtro na busca
+    private final String cpf;
 
     /**
      * Construtor que recebe o cliente para filtrar os agendamentos.
@@ -27,32 +26,51 @@ public class ExpressaoPorCliente implements Expressao {
      * @param cliente o cliente que deve ser buscado nos agendamentos
      */
     public ExpressaoPorCliente(Cliente cliente) {
-        this.cliente = cliente;
+        this.cpf = cliente.getCpf();
     }
 
     /**
-     * Interpreta a expressão filtrando os agendamentos que pertencem ao cliente especificado.
+     * Construtor que recebe diretamente o CPF do cliente (a pontuação é ignorada).
+     *
+     * @param cpf CPF do cliente
+     */
+    public ExpressaoPorCliente(String cpf) {
+        this.cpf = cpf.replaceAll("\\D", "");
+    }
+
+    /**
+     * Interpreta a expressão consultando o índice de clientes da agenda.
      *
      * @param contexto o contexto da busca contendo a agenda com os agendamentos
-     * @return lista de agendamentos do cliente filtrado
+     * @return lista de agendamentos do cliente filtrado, em ordem cronológica
      */
     @Override
     public List<Agendamento> interpreter(ContextoDeBusca contexto) {
-        // Lista que armazenará os agendamentos encontrados para o cliente
-        List<Agendamento> resultados = new ArrayList<>();
-
-        // Percorre todas as datas que possuem agendamentos na agenda
-        for (LocalDate data : contexto.getAgenda().getDatasAgendadas()) {
-            // Para cada data, obtém a lista de agendamentos daquele dia
-            for (Agendamento ag : contexto.getAgenda().getHorariosDoDia(data)) {
-                // Verifica se o agendamento não é nulo e se o cliente bate com o cliente buscado
-                if (ag != null && ag.getCliente().equals(this.cliente)) {
-                    // Adiciona o agendamento na lista de resultados
-                    resultados.add(ag);
-                }
-            }
-        }
-        // Retorna a lista de agendamentos encontrados
-        return resultados;
+        return contexto.getAgenda().buscarPorCliente(cpf);
+    }
+
+    /**
+     * Verifica se o agendamento pertence ao cliente filtrado (comparando o CPF,
+     * já que o cliente lido do JSON é outra instância).
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return agendamento.getCliente() != null && cpf.equals(agendamento.getCliente().getCpf());
+    }
+
+    /**
+     * O índice devolve exatamente os agendamentos do cliente.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return contexto.getAgenda().contarPorCliente(cpf);
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "cliente:" + cpf;
     }
 }
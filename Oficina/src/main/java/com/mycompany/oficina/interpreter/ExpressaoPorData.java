@@ -10,6 +10,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Representa uma expressão de busca que filtra agendamentos por uma data específica.
@@ -48,4 +49,36 @@ public class ExpressaoPorData implements Expressao {
                 .filter(Objects::nonNull)  // remove possíveis posições vazias no array
                 .collect(Collectors.toList());
     }
+
+    /**
+     * Percorre os horários do dia sob demanda.
+     */
+    @Override
+    public Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return Arrays.stream(contexto.getAgenda().getHorariosDoDia(data)).filter(Objects::nonNull);
+    }
+
+    /**
+     * Verifica se o agendamento ocorre na data filtrada.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return agendamento.getDataHora().toLocalDate().equals(data);
+    }
+
+    /**
+     * A busca por data examina apenas os horários de um único dia.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return contexto.getAgenda().getTotalDeHorarios();
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "data:" + data;
+    }
 }
@@ -0,0 +1,54 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+
+import java.util.List;
+
+/**
+ * Representa uma expressão de busca filtrando agendamentos pelo elevador reservado.
+ * <p>
+ * Usa o índice por elevador mantido pela agenda.
+ */
+public class ExpressaoPorElevador implements Expressao {
+    // Identificador do elevador usado como filtro
+    private final int idElevador;
+
+    /**
+     * @param idElevador identificador do elevador
+     */
+    public ExpressaoPorElevador(int idElevador) {
+        this.idElevador = idElevador;
+    }
+
+    /**
+     * Retorna os agendamentos do elevador, em ordem cronológica.
+     */
+    @Override
+    public List<Agendamento> interpreter(ContextoDeBusca contexto) {
+        return contexto.getAgenda().buscarPorElevador(idElevador);
+    }
+
+    /**
+     * Verifica se o agendamento usa o elevador filtrado.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return agendamento.getElevador() != null && agendamento.getElevador().getId() == idElevador;
+    }
+
+    /**
+     * O índice devolve exatamente os agendamentos do elevador.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return contexto.getAgenda().contarPorElevador(idElevador);
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "elevador:" + idElevador;
+    }
+}
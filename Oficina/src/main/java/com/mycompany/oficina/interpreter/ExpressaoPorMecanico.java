@@ -0,0 +1,78 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+import com.mycompany.oficina.entidades.Funcionario;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Representa uma expressão de busca filtrando agendamentos pelo mecânico responsável.
+ * <p>
+ * O mecânico pode ser identificado pelo CPF ou pelo nome (sem diferenciar
+ * maiúsculas de minúsculas); nos dois casos a busca usa o índice correspondente
+ * mantido pela agenda.
+ */
+public class ExpressaoPorMecanico implements Expressao {
+    // CPF ou nome (normalizado) do mecânico usado como filtro
+    private final String chave;
+
+    // Indica se a chave é um CPF ou um nome
+    private final boolean porCpf;
+
+    /**
+     * @param mecanico mecânico cujos agendamentos serão buscados
+     */
+    public ExpressaoPorMecanico(Funcionario mecanico) {
+        this.chave = mecanico.getCpf();
+        this.porCpf = true;
+    }
+
+    /**
+     * @param termo CPF (somente dígitos, com ou sem pontuação) ou nome do mecânico
+     */
+    public ExpressaoPorMecanico(String termo) {
+        String digitos = termo.replaceAll("\\D", "");
+        this.porCpf = !digitos.isEmpty() && termo.replaceAll("[\\d.\\-\\s]", "").isEmpty();
+        this.chave = porCpf ? digitos : termo.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Retorna os agendamentos do mecânico, em ordem cronológica.
+     */
+    @Override
+    public List<Agendamento> interpreter(ContextoDeBusca contexto) {
+        return porCpf ? contexto.getAgenda().buscarPorMecanico(chave) : contexto.getAgenda().buscarPorNomeMecanico(chave);
+    }
+
+    /**
+     * Verifica se o agendamento é do mecânico filtrado.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        Funcionario mecanico = agendamento.getMecanico();
+        if (mecanico == null) {
+            return false;
+        }
+        if (porCpf) {
+            return chave.equals(mecanico.getCpf());
+        }
+        return mecanico.getNome() != null && chave.equals(mecanico.getNome().trim().toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * O índice devolve exatamente os agendamentos do mecânico.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return porCpf ? contexto.getAgenda().contarPorMecanico(chave) : contexto.getAgenda().contarPorNomeMecanico(chave);
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return (porCpf ? "mecanico-cpf:" : "mecanico-nome:") + chave;
+    }
+}
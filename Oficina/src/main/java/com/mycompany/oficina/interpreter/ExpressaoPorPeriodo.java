@@ -0,0 +1,70 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Representa uma expressão de busca filtrando agendamentos por um intervalo de datas.
+ * <p>
+ * Usa o índice ordenado por data da agenda, percorrendo apenas os dias do intervalo.
+ */
+public class ExpressaoPorPeriodo implements Expressao {
+    // Primeira data do intervalo (inclusiva)
+    private final LocalDate inicio;
+
+    // Última data do intervalo (inclusiva)
+    private final LocalDate fim;
+
+    /**
+     * @param inicio primeira data do intervalo
+     * @param fim última data do intervalo
+     */
+    public ExpressaoPorPeriodo(LocalDate inicio, LocalDate fim) {
+        this.inicio = inicio;
+        this.fim = fim;
+    }
+
+    /**
+     * Retorna os agendamentos do intervalo, em ordem cronológica.
+     */
+    @Override
+    public List<Agendamento> interpreter(ContextoDeBusca contexto) {
+        return contexto.getAgenda().listarEntre(inicio, fim);
+    }
+
+    /**
+     * Percorre os dias do intervalo sob demanda, sem montar a lista.
+     */
+    @Override
+    public Stream<Agendamento> stream(ContextoDeBusca contexto) {
+        return contexto.getAgenda().streamEntre(inicio, fim);
+    }
+
+    /**
+     * Verifica se o agendamento cai dentro do intervalo.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        LocalDate data = agendamento.getDataHora().toLocalDate();
+        return !data.isBefore(inicio) && !data.isAfter(fim);
+    }
+
+    /**
+     * A busca percorre todos os horários dos dias do intervalo.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return contexto.getAgenda().estimarHorariosEntre(inicio, fim);
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "periodo:" + inicio + ".." + fim;
+    }
+}
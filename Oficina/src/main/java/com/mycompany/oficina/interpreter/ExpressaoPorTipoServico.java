@@ -0,0 +1,55 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+import com.mycompany.oficina.agendamento.TipoServico;
+
+import java.util.List;
+
+/**
+ * Representa uma expressão de busca filtrando agendamentos pelo tipo de serviço.
+ * <p>
+ * Usa o índice por tipo de serviço mantido pela agenda.
+ */
+public class ExpressaoPorTipoServico implements Expressao {
+    // Tipo de serviço usado como filtro
+    private final TipoServico tipo;
+
+    /**
+     * @param tipo tipo de serviço a ser buscado
+     */
+    public ExpressaoPorTipoServico(TipoServico tipo) {
+        this.tipo = tipo;
+    }
+
+    /**
+     * Retorna os agendamentos do tipo de serviço, em ordem cronológica.
+     */
+    @Override
+    public List<Agendamento> interpreter(ContextoDeBusca contexto) {
+        return contexto.getAgenda().buscarPorTipoServico(tipo);
+    }
+
+    /**
+     * Verifica se o agendamento é do tipo filtrado.
+     */
+    @Override
+    public boolean aceita(Agendamento agendamento) {
+        return agendamento.getTipoServico() == tipo;
+    }
+
+    /**
+     * O índice devolve exatamente os agendamentos do tipo.
+     */
+    @Override
+    public long custoEstimado(ContextoDeBusca contexto) {
+        return contexto.getAgenda().contarPorTipoServico(tipo);
+    }
+
+    /**
+     * Chave normalizada usada pelo cache de resultados.
+     */
+    @Override
+    public String chaveNormalizada() {
+        return "tipo:" + tipo;
+    }
+}
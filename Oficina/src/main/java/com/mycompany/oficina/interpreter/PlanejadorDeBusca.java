@@ -0,0 +1,194 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Planejador que decide como avaliar uma árvore de {@link Expressao}.
+ * <p>
+ * Em uma expressão E (AND), as condições encadeadas são achatadas em uma única
+ * lista e ordenadas pelo custo estimado. Somente a mais barata é avaliada por
+ * completo; as demais são aplicadas como filtro ({@link Expressao#aceita}) sobre
+ * o resultado dela, com parada no primeiro filtro que falhar. O custo passa a
+ * ser linear no tamanho do menor resultado, em vez de quadrático.
+ * <p>
+ * Em uma expressão OU (OR), cada ramo é avaliado uma vez e a união elimina
+ * repetidos por identidade, preservando a ordem em que os agendamentos aparecem.
+ * <p>
+ * O modo sob demanda ({@link #stream} e {@link #buscar(Expressao, ContextoDeBusca, int, int)})
+ * segue o mesmo plano, mas sem montar listas intermediárias: o AND filtra o
+ * fluxo da condição mais barata e o OU intercala os fluxos dos ramos em ordem
+ * cronológica. Assim, deslocamento e limite chegam até a leitura da agenda e a
+ * avaliação para assim que a página está completa.
+ */
+public final class PlanejadorDeBusca {
+
+    private PlanejadorDeBusca() {
+    }
+
+    /**
+     * Avalia a expressão usando o melhor plano disponível.
+     *
+     * @param expressao expressão a ser avaliada
+     * @param contexto contexto da busca
+     * @return agendamentos que satisfazem a expressão
+     */
+    public static List<Agendamento> executar(Expressao expressao, ContextoDeBusca contexto) {
+        if (expressao instanceof ExpressaoE) {
+            return executarE((ExpressaoE) expressao, contexto);
+        }
+        if (expressao instanceof ExpressaoOu) {
+            return executarOu((ExpressaoOu) expressao, contexto);
+        }
+        return expressao.interpreter(contexto);
+    }
+
+    /**
+     * Avalia a expressão sob demanda, em ordem cronológica.
+     *
+     * @param expressao expressão a ser avaliada
+     * @param contexto contexto da busca
+     * @return fluxo dos agendamentos que satisfazem a expressão
+     */
+    public static Stream<Agendamento> stream(Expressao expressao, ContextoDeBusca contexto) {
+        if (expressao instanceof ExpressaoE) {
+            List<Expressao> condicoes = ordenarPorCusto((ExpressaoE) expressao, contexto);
+            List<Expressao> filtros = condicoes.subList(1, condicoes.size());
+            return stream(condicoes.get(0), contexto).filter(ag -> aceitaTodos(filtros, ag));
+        }
+        if (expressao instanceof ExpressaoOu) {
+            List<Expressao> ramos = new ArrayList<>();
+            achatarOu(expressao, ramos);
+            List<Iterator<Agendamento>> fluxos = new ArrayList<>();
+            for (Expressao ramo : ramos) {
+                fluxos.add(stream(ramo, contexto).iterator());
+            }
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                    new UniaoOrdenada(fluxos), Spliterator.ORDERED | Spliterator.NONNULL), false);
+        }
+        return expressao.stream(contexto);
+    }
+
+    /**
+     * Retorna uma página do resultado, em ordem cronológica, sem avaliar o que
+     * vem depois dela.
+     *
+     * @param expressao expressão a ser avaliada
+     * @param contexto contexto da busca
+     * @param deslocamento quantos resultados pular
+     * @param limite quantidade máxima de resultados
+     * @return agendamentos da página
+     */
+    public static List<Agendamento> buscar(Expressao expressao, ContextoDeBusca contexto, int deslocamento, int limite) {
+        if (limite <= 0) {
+            return new ArrayList<>();
+        }
+        try (Stream<Agendamento> fluxo = stream(expressao, contexto)) {
+            return fluxo.skip(Math.max(0, deslocamento)).limit(limite).collect(Collectors.toList());
+        }
+    }
+
+    // Achata o AND e ordena as condições da mais barata para a mais cara
+    private static List<Expressao> ordenarPorCusto(ExpressaoE expressao, ContextoDeBusca contexto) {
+        List<Expressao> condicoes = new ArrayList<>();
+        achatarE(expressao, condicoes);
+        // Estima o custo uma vez por condição
+        IdentityHashMap<Expressao, Long> custos = new IdentityHashMap<>();
+        for (Expressao condicao : condicoes) {
+            custos.put(condicao, condicao.custoEstimado(contexto));
+        }
+        condicoes.sort(Comparator.comparingLong(custos::get));
+        return condicoes;
+    }
+
+    private static List<Agendamento> executarE(ExpressaoE expressao, ContextoDeBusca contexto) {
+        List<Expressao> condicoes = ordenarPorCusto(expressao, contexto);
+        List<Agendamento> candidatos = executar(condicoes.get(0), contexto);
+        List<Expressao> filtros = condicoes.subList(1, condicoes.size());
+        List<Agendamento> resultado = new ArrayList<>();
+        for (Agendamento ag : candidatos) {
+            if (aceitaTodos(filtros, ag)) {
+                resultado.add(ag);
+            }
+        }
+        return resultado;
+    }
+
+    private static List<Agendamento> executarOu(ExpressaoOu expressao, ContextoDeBusca contexto) {
+        List<Expressao> ramos = new ArrayList<>();
+        achatarOu(expressao, ramos);
+        Set<Agendamento> vistos = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Agendamento> resultado = new ArrayList<>();
+        for (Expressao ramo : ramos) {
+            for (Agendamento ag : executar(ramo, contexto)) {
+                if (vistos.add(ag)) {
+                    resultado.add(ag);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Chave de um AND/OR: operandos achatados, sem repetição e em ordem alfabética
+    static String chaveDosOperandos(String operador, Expressao expressao) {
+        List<Expressao> operandos = new ArrayList<>();
+        if (expressao instanceof ExpressaoE) {
+            achatarE(expressao, operandos);
+        } else {
+            achatarOu(expressao, operandos);
+        }
+        Set<String> chaves = new TreeSet<>();
+        for (Expressao operando : operandos) {
+            chaves.add(operando.chaveNormalizada());
+        }
+        if (chaves.size() == 1) {
+            return chaves.iterator().next(); // a AND a equivale a a
+        }
+        return operador + "(" + String.join(",", chaves) + ")";
+    }
+
+    // Para no primeiro filtro que rejeitar o agendamento
+    static boolean aceitaTodos(List<Expressao> filtros, Agendamento ag) {
+        for (Expressao filtro : filtros) {
+            if (!filtro.aceita(ag)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Transforma E(E(a, b), c) em [a, b, c]
+    static void achatarE(Expressao expressao, List<Expressao> destino) {
+        if (expressao instanceof ExpressaoE) {
+            ExpressaoE e = (ExpressaoE) expressao;
+            achatarE(e.getEsquerda(), destino);
+            achatarE(e.getDireita(), destino);
+        } else {
+            destino.add(expressao);
+        }
+    }
+
+    // Transforma OU(OU(a, b), c) em [a, b, c]
+    static void achatarOu(Expressao expressao, List<Expressao> destino) {
+        if (expressao instanceof ExpressaoOu) {
+            ExpressaoOu ou = (ExpressaoOu) expressao;
+            achatarOu(ou.getEsquerda(), destino);
+            achatarOu(ou.getDireita(), destino);
+        } else {
+            destino.add(expressao);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mycompany.oficina.interpreter;
+
+import com.mycompany.oficina.agendamento.Agendamento;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Intercala, em ordem cronológica, vários fluxos de agendamentos que já estão
+ * em ordem cronológica, descartando repetidos (por identidade).
+ * <p>
+ * Cada fluxo só é lido quando o seu próximo elemento é o menor entre todos,
+ * então o consumo de um resultado limitado não lê os fluxos até o fim.
+ */
+final class UniaoOrdenada implements Iterator<Agendamento> {
+
+    // Cabeça atual de um dos fluxos
+    private static final class Cabeca {
+        final Agendamento atual;
+        final Iterator<Agendamento> restante;
+
+        Cabeca(Agendamento atual, Iterator<Agendamento> restante) {
+            this.atual = atual;
+            this.restante = restante;
+        }
+    }
+
+    private final PriorityQueue<Cabeca> cabecas =
+            new PriorityQueue<>(Comparator.comparing((Cabeca c) -> c.atual.getDataHora()));
+
+    private final Set<Agendamento> entregues = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private Agendamento proximo;
+
+    /**
+     * @param fluxos iteradores em ordem cronológica
+     */
+    UniaoOrdenada(List<Iterator<Agendamento>> fluxos) {
+        for (Iterator<Agendamento> fluxo : fluxos) {
+            avancar(fluxo);
+        }
+    }
+
+    private void avancar(Iterator<Agendamento> fluxo) {
+        if (fluxo.hasNext()) {
+            cabecas.add(new Cabeca(fluxo.next(), fluxo));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (proximo == null && !cabecas.isEmpty()) {
+            Cabeca menor = cabecas.poll();
+            avancar(menor.restante);
+            if (entregues.add(menor.atual)) {
+                proximo = menor.atual;
+            }
+        }
+        return proximo != null;
+    }
+
+    @Override
+    public Agendamento next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Agendamento resultado = proximo;
+        proximo = null;
+        return resultado;
+    }
+}
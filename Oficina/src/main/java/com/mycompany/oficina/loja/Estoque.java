@@ -5,21 +5,57 @@
 package com.mycompany.oficina.loja;
 
 import com.google.gson.reflect.TypeToken;
+import com.mycompany.oficina.consulta.Atributo;
+import com.mycompany.oficina.consulta.Criterio;
+import com.mycompany.oficina.consulta.FonteIndexada;
+import com.mycompany.oficina.consulta.PlanejadorDeConsulta;
 import com.mycompany.oficina.persistencia.PersistenciaJson; 
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Classe que representa o estoque de produtos da oficina.
  * Responsável por gerenciar a lista de produtos, incluindo
  * operações de adicionar, editar, remover e buscar produtos,
  * além de salvar e carregar os dados utilizando persistência em JSON.
+ * <p>
+ * Os produtos ficam em um mapa indexado pelo ID que preserva a ordem de
+ * cadastro: busca, cadastro, edição e remoção custam O(1), e a listagem
+ * continua na ordem em que os produtos foram incluídos. O arquivo JSON
+ * mantém o formato de lista.
+ * <p>
+ * Toda mudança de quantidade é registrada no {@link LivroDeMovimentos}, que
+ * só acrescenta linhas; o estoque.json guarda o catálogo e é regravado apenas
+ * quando o cadastro muda. Na carga, o saldo do livro prevalece. O
+ * {@link MonitorDeEstoqueBaixo} ouve o livro e avisa quando uma peça fica
+ * abaixo do estoque mínimo.
  */
 public class Estoque {
 
-    // Lista interna que armazena os produtos no estoque
-    private List<Produto> produtos;
+    // Fornecedor do produto, consultável por igualdade (com índice)
+    public static final Atributo<Produto, String> FORNECEDOR = new Atributo<>("fornecedor", Produto::getFornecedor);
+
+    // Quantidade em estoque, consultável por faixa (sem índice: muda a cada baixa de peça)
+    public static final Atributo<Produto, Integer> QUANTIDADE = new Atributo<>("quantidade", Produto::getQuantidade);
+
+    // Produtos do estoque por ID, na ordem de cadastro
+    private final Map<String, Produto> produtos = new LinkedHashMap<>();
+
+    // Índices usados pelas consultas
+    private final FonteIndexada<Produto> fonteDeConsulta;
+
+    // Histórico de movimentações de quantidade
+    private final LivroDeMovimentos livroDeMovimentos;
+
+    // Busca por nome, fornecedor ou ID, tolerante a erros de digitação
+    private final IndiceDeBuscaDeProdutos indiceDeBusca = new IndiceDeBuscaDeProdutos();
+
+    // Níveis mínimos e lista de produtos a repor
+    private final MonitorDeEstoqueBaixo monitorDeEstoqueBaixo;
 
     // Objeto responsável pela persistência dos dados em arquivo JSON
     private PersistenciaJson persistencia;
@@ -33,47 +69,106 @@ public class Estoque {
     public Estoque(PersistenciaJson persistencia) {
         this.persistencia = persistencia;
         // Carrega a lista de produtos salva no arquivo "estoque"
-        this.produtos = this.persistencia.carregarLista("estoque", new TypeToken<ArrayList<Produto>>() {});
+        List<Produto> salvos = this.persistencia.carregarLista("estoque", new TypeToken<ArrayList<Produto>>() {});
+        int maiorId = 0;
+        for (Produto produto : salvos) {
+            if (produtos.putIfAbsent(produto.getIdProduto(), produto) != null) {
+                System.err.println("Produto com ID repetido ignorado no estoque: " + produto);
+            }
+            maiorId = Math.max(maiorId, Produto.numeroDoId(produto.getIdProduto()));
+        }
+        // Novos produtos não podem repetir IDs já salvos
+        Produto.ajustarContador(maiorId);
+        this.fonteDeConsulta = new FonteIndexada<>(this.produtos::values).indexarPorValor(FORNECEDOR);
+        for (Produto produto : produtos.values()) {
+            indiceDeBusca.adicionar(produto);
+        }
+        this.livroDeMovimentos = new LivroDeMovimentos(persistencia);
+        this.livroDeMovimentos.sincronizar(produtos.values());
+        this.monitorDeEstoqueBaixo = new MonitorDeEstoqueBaixo(livroDeMovimentos, produtos.values(),
+                MonitorDeEstoqueBaixo.PRAZO_DE_REPOSICAO_PADRAO_DIAS);
+    }
+
+    /**
+     * Consulta os produtos com o planejador compartilhado, por exemplo
+     * {@code Criterio.igual(FORNECEDOR, "Bosch").e(Criterio.entre(QUANTIDADE, null, 5))}.
+     *
+     * @param criterio critério da consulta
+     * @return produtos que satisfazem o critério
+     */
+    public synchronized List<Produto> consultar(Criterio<Produto> criterio) {
+        return PlanejadorDeConsulta.executar(criterio, fonteDeConsulta);
+    }
+
+    /**
+     * Busca produtos pelo texto digitado (nome, fornecedor ou ID, mesmo
+     * incompleto ou com erro de digitação), do mais para o menos relevante.
+     *
+     * @param texto texto digitado
+     * @param limite quantidade máxima de resultados
+     * @return produtos encontrados
+     */
+    public synchronized List<Produto> buscarProdutos(String texto, int limite) {
+        return indiceDeBusca.buscar(texto, limite);
     }
 
     /**
      * Salva o estado atual da lista de produtos no arquivo JSON.
      * Deve ser chamado sempre que o estoque for modificado.
      */
-    public void salvarEstoque() {
-        this.persistencia.salvarLista("estoque", this.produtos);
+    public synchronized void salvarEstoque() {
+        this.persistencia.salvarLista("estoque", new ArrayList<>(this.produtos.values()));
     }
 
     /**
-     * Retorna a lista de produtos atualmente no estoque.
-     * @return lista dos produtos
+     * Retorna os produtos atualmente no estoque, na ordem de cadastro.
+     * @return cópia da lista dos produtos
      */
     public List<Produto> getProdutos() {
-        return produtos;
+        return listarProdutos();
     }
 
     /**
      * Adiciona um novo produto à lista e salva imediatamente a alteração.
+     * Se já existir um produto com o mesmo ID, ele é substituído e o livro
+     * recebe um ajuste com a diferença entre as quantidades.
      * @param produto novo produto a ser adicionado
+     * @return true se o produto foi adicionado; false se o movimento não pôde
+     *         ser gravado no livro (nada muda)
      */
-    public void adicionarProduto(Produto produto) {
-        produtos.add(produto);
+    public synchronized boolean adicionarProduto(Produto produto) {
+        Produto existente = produtos.get(produto.getIdProduto());
+        int diferenca = produto.getQuantidade() - (existente != null ? existente.getQuantidade() : 0);
+        if (diferenca != 0) {
+            TipoMovimento tipo = existente != null ? TipoMovimento.AJUSTE : TipoMovimento.ENTRADA;
+            if (livroDeMovimentos.registrar(tipo, produto.getIdProduto(), diferenca, "Cadastro do produto") == null) {
+                return false;
+            }
+        }
+        Produto anterior = produtos.put(produto.getIdProduto(), produto);
+        if (anterior != null) {
+            fonteDeConsulta.remover(anterior); // Mesmo ID: o novo produto substitui o anterior
+        }
+        fonteDeConsulta.adicionar(produto);
+        indiceDeBusca.adicionar(produto);
+        monitorDeEstoqueBaixo.acompanhar(produto);
         salvarEstoque(); // Salva imediatamente após adicionar
+        return true;
     }
 
     /**
      * Cadastra um novo produto somente se não existir outro com o mesmo ID.
      * @param produto produto a ser cadastrado
-     * @return true se cadastro for bem sucedido, false caso o ID já exista
+     * @return true se cadastro for bem sucedido, false caso o ID já exista ou
+     *         a entrada não possa ser gravada no livro
      */
-    public boolean cadastrarProduto(Produto produto) {
-        if (buscarProduto(produto.getIdProduto()) != null) {
+    public synchronized boolean cadastrarProduto(Produto produto) {
+        if (produtos.containsKey(produto.getIdProduto())) {
             // Produto com esse ID já existe
             return false;
         }
         // Adiciona o produto e salva a lista
-        adicionarProduto(produto);
-        return true;
+        return adicionarProduto(produto);
     }
 
     /**
@@ -85,14 +180,24 @@ public class Estoque {
      * @param novaQuantidade nova quantidade em estoque
      * @param novoFornecedor novo fornecedor do produto
      * @return true se o produto foi editado com sucesso, false caso não exista
+     *         ou o ajuste de quantidade não possa ser gravado no livro
      */
-    public boolean editarProduto(String idProduto, String novoNome, double novoPreco, int novaQuantidade, String novoFornecedor) {
+    public synchronized boolean editarProduto(String idProduto, String novoNome, double novoPreco, int novaQuantidade, String novoFornecedor) {
         Produto produto = buscarProduto(idProduto);
         if (produto != null) {
+            // Soma a diferença em vez de sobrescrever, para não perder reservas feitas ao mesmo tempo
+            int diferenca = novaQuantidade - produto.getQuantidade();
+            if (diferenca != 0) {
+                if (livroDeMovimentos.registrar(TipoMovimento.AJUSTE, idProduto, diferenca, "Edição do produto") == null) {
+                    return false;
+                }
+                produto.repor(diferenca);
+            }
             produto.setNome(novoNome);
             produto.setPreco(novoPreco);
-            produto.setQuantidade(novaQuantidade);
             produto.setFornecedor(novoFornecedor);
+            fonteDeConsulta.atualizar(produto);
+            indiceDeBusca.atualizar(produto);
             salvarEstoque(); // Salva após edição
             return true;
         }
@@ -103,38 +208,168 @@ public class Estoque {
      * Remove um produto da lista baseado no seu ID.
      * Se removido, salva imediatamente o estoque atualizado.
      * @param idProduto ID do produto a ser removido
-     * @return true se o produto foi removido, false se não foi encontrado
+     * @return true se o produto foi removido, false se não foi encontrado ou o
+     *         ajuste não pôde ser gravado no livro
      */
-    public boolean removerProduto(String idProduto) {
-        Produto produto = buscarProduto(idProduto);
+    public synchronized boolean removerProduto(String idProduto) {
+        Produto produto = produtos.get(idProduto);
         if (produto != null) {
-            produtos.remove(produto);
+            if (produto.getQuantidade() != 0
+                    && livroDeMovimentos.registrar(TipoMovimento.AJUSTE, idProduto, -produto.getQuantidade(), "Produto removido") == null) {
+                return false;
+            }
+            produtos.remove(idProduto);
+            fonteDeConsulta.remover(produto);
+            indiceDeBusca.remover(idProduto);
+            monitorDeEstoqueBaixo.deixarDeAcompanhar(idProduto);
             salvarEstoque(); // Salva após remoção
             return true;
         }
         return false;
     }
 
+    /**
+     * Soma peças ao estoque (reposição, compra) e registra a entrada no livro.
+     * Não regrava o estoque.json.
+     *
+     * @param produto produto reposto
+     * @param quantidade quantidade que entrou
+     * @param referencia descrição da entrada
+     * @return true se a entrada foi registrada; false se os dados são
+     *         inválidos ou a entrada não pôde ser gravada no livro
+     */
+    public boolean repor(Produto produto, int quantidade, String referencia) {
+        if (produto == null || quantidade <= 0
+                || livroDeMovimentos.registrar(TipoMovimento.ENTRADA, produto.getIdProduto(), quantidade, referencia) == null) {
+            return false;
+        }
+        produto.repor(quantidade);
+        return true;
+    }
+
+    /**
+     * Recebe de uma vez todas as linhas de um pedido de compra. Primeiro todas
+     * as linhas são conferidas; se alguma for de um produto fora do catálogo,
+     * nada é aplicado. Depois as entradas vão para o livro de movimentos em
+     * uma única gravação e, só se ela der certo, os saldos são somados. O
+     * estoque.json não é regravado, pois o catálogo não muda.
+     *
+     * @param pedido pedido recebido
+     * @return true se o pedido foi aplicado; false se estiver vazio, tiver
+     *         produto que não está no catálogo ou não puder ser gravado no livro
+     */
+    public synchronized boolean receberPedido(PedidoDeCompra pedido) {
+        if (!conferirPedido(pedido)) {
+            return false;
+        }
+        List<PedidoDeCompra.ItemDoPedido> itens = pedido.getItens();
+        Map<String, Integer> entradas = new LinkedHashMap<>();
+        for (PedidoDeCompra.ItemDoPedido item : itens) {
+            entradas.merge(item.getProduto().getIdProduto(), item.getQuantidade(), Integer::sum);
+        }
+        // Os saldos só mudam depois que as entradas estão gravadas
+        if (livroDeMovimentos.registrarLote(TipoMovimento.ENTRADA, entradas, pedido.getReferencia()) == null) {
+            return false;
+        }
+        for (PedidoDeCompra.ItemDoPedido item : itens) {
+            item.getProduto().repor(item.getQuantidade());
+        }
+        return true;
+    }
+
+    /**
+     * Confere, sem aplicar nada, se o pedido pode ser recebido.
+     *
+     * @param pedido pedido a conferir
+     * @return true se o pedido tem linhas e todas são de produtos do catálogo
+     */
+    synchronized boolean conferirPedido(PedidoDeCompra pedido) {
+        if (pedido == null || pedido.isVazio()) {
+            return false;
+        }
+        for (PedidoDeCompra.ItemDoPedido item : pedido.getItens()) {
+            if (produtos.get(item.getProduto().getIdProduto()) != item.getProduto()) {
+                System.err.println("Pedido " + pedido.getNotaFiscal() + " recusado: produto fora do catálogo " + item.getProduto().getIdProduto());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Define o estoque mínimo de um produto e salva o catálogo.
+     *
+     * @param idProduto ID do produto
+     * @param estoqueMinimo quantidade mínima (zero para não acompanhar o mínimo)
+     * @return true se o mínimo foi definido, false se o produto não existe
+     * @throws IllegalArgumentException se o mínimo for negativo
+     */
+    public synchronized boolean definirEstoqueMinimo(String idProduto, int estoqueMinimo) {
+        if (estoqueMinimo < 0) {
+            throw new IllegalArgumentException("O estoque mínimo não pode ser negativo.");
+        }
+        Produto produto = buscarProduto(idProduto);
+        if (produto == null) {
+            return false;
+        }
+        produto.setEstoqueMinimo(estoqueMinimo);
+        monitorDeEstoqueBaixo.atualizar(produto);
+        salvarEstoque();
+        return true;
+    }
+
+    /**
+     * Produtos abaixo do mínimo ou que chegam a ele antes do prazo de
+     * reposição, do mais urgente para o menos.
+     *
+     * @return situações dos produtos a repor
+     */
+    public List<MonitorDeEstoqueBaixo.SituacaoDoProduto> listarParaRepor() {
+        return monitorDeEstoqueBaixo.listarParaRepor();
+    }
+
+    /**
+     * Retorna o monitor de estoque baixo.
+     * @return monitor de estoque baixo
+     */
+    public MonitorDeEstoqueBaixo getMonitorDeEstoqueBaixo() {
+        return monitorDeEstoqueBaixo;
+    }
+
+    /**
+     * Saldo de um produto em um momento passado, segundo o livro de movimentos.
+     *
+     * @param idProduto ID do produto
+     * @param instante momento da consulta
+     * @return saldo naquele momento
+     */
+    public int consultarSaldoEm(String idProduto, LocalDateTime instante) {
+        return livroDeMovimentos.saldoEm(idProduto, instante);
+    }
+
+    /**
+     * Retorna o livro de movimentos do estoque.
+     * @return livro de movimentos
+     */
+    public LivroDeMovimentos getLivroDeMovimentos() {
+        return livroDeMovimentos;
+    }
+
     /**
      * Busca um produto na lista pelo seu ID.
      * @param idProduto ID do produto buscado
      * @return o produto encontrado ou null se não existir
      */
-    public Produto buscarProduto(String idProduto) {
-        for (Produto p : produtos) {
-            if (p.getIdProduto().equals(idProduto)) {
-                return p;
-            }
-        }
-        return null;
+    public synchronized Produto buscarProduto(String idProduto) {
+        return idProduto == null ? null : produtos.get(idProduto);
     }
 
     /**
-     * Retorna uma nova lista contendo todos os produtos do estoque.
-     * Essa cópia evita modificações externas diretas na lista interna.
+     * Retorna uma nova lista contendo todos os produtos do estoque, na ordem de cadastro.
+     * Essa cópia evita modificações externas diretas no estoque.
      * @return lista dos produtos
      */
-    public List<Produto> listarProdutos() {
-        return new ArrayList<>(produtos);
+    public synchronized List<Produto> listarProdutos() {
+        return new ArrayList<>(produtos.values());
     }
 }
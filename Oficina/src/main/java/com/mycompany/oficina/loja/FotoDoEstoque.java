@@ -0,0 +1,30 @@
+package com.mycompany.oficina.loja;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Saldos de todos os produtos em um ponto do livro de movimentos.
+ * Permite conhecer o estoque sem reler todos os movimentos anteriores.
+ */
+public class FotoDoEstoque {
+
+    private final long sequencia; // Último movimento incluído na foto
+    private final LocalDateTime instante; // Momento desse movimento
+    private final Map<String, Integer> saldos; // ID do produto -> saldo
+
+    public FotoDoEstoque(long sequencia, LocalDateTime instante, Map<String, Integer> saldos) {
+        this.sequencia = sequencia;
+        this.instante = instante;
+        this.saldos = new HashMap<>(saldos);
+    }
+
+    public long getSequencia() { return sequencia; }
+    public LocalDateTime getInstante() { return instante; }
+
+    // Cópia dos saldos (a foto em si não muda)
+    public Map<String, Integer> getSaldos() {
+        return new HashMap<>(saldos);
+    }
+}
@@ -0,0 +1,364 @@
+package com.mycompany.oficina.loja;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Índice em memória para a busca de produtos por nome, fornecedor ou ID,
+ * tolerante a erros de digitação.
+ * <p>
+ * O texto é normalizado (minúsculas, sem acentos) e dividido em palavras. Cada
+ * palavra entra em dois índices:
+ * <ul>
+ *   <li>um mapa ordenado de palavras, para achar por prefixo o que ainda está
+ *       sendo digitado ("fil" encontra "filtro");</li>
+ *   <li>um índice de trigramas (trechos de três letras) que leva às palavras
+ *       indexadas, para achar palavras parecidas ("fitro" e "filtro" têm
+ *       quase todos os trigramas em comum).</li>
+ * </ul>
+ * A semelhança é medida palavra a palavra: um produto só casa com "fitro" se
+ * uma de suas palavras for parecida com "fitro", e não por juntar trigramas
+ * espalhados por palavras diferentes. Cada produto ocupa uma posição numérica
+ * e cada palavra indexada guarda as posições dos produtos que a contêm. A
+ * busca só visita os produtos que compartilham algo com o texto digitado, soma
+ * as pontuações em vetores reaproveitados de uma busca para a outra e mantém
+ * os melhores em um heap do tamanho do limite, sem ordenar o resto.
+ * <p>
+ * A classe não é sincronizada: o {@link Estoque} a atualiza e consulta sob a
+ * sua própria trava, a cada cadastro, edição e remoção.
+ */
+public class IndiceDeBuscaDeProdutos {
+
+    // Fração mínima dos trigramas da palavra buscada que o produto precisa ter
+    private static final double SIMILARIDADE_MINIMA = 0.4;
+    // Pontos por palavra buscada: igual, começo de palavra, parecida (multiplicado pela similaridade)
+    private static final double PONTOS_IGUAL = 4.0;
+    private static final double PONTOS_PREFIXO = 3.0;
+    private static final double PONTOS_PARECIDA = 2.0;
+
+    // Produto indexado, a posição que ocupa e as palavras com que entrou no índice
+    // (guardadas para remover o produto mesmo depois de editado)
+    private static final class Entrada {
+        final Produto produto;
+        final int posicao;
+        final Set<String> palavras;
+
+        Entrada(Produto produto, int posicao, Set<String> palavras) {
+            this.produto = produto;
+            this.posicao = posicao;
+            this.palavras = palavras;
+        }
+    }
+
+    // Palavra indexada: posições dos produtos que a contêm e a contagem de
+    // trigramas em comum com a palavra buscada (válida quando a marca é a atual)
+    private static final class Palavra {
+        final String texto;
+        final Posicoes posicoes = new Posicoes();
+        int marca;
+        int trigramasEmComum;
+
+        Palavra(String texto) {
+            this.texto = texto;
+        }
+    }
+
+    // Lista de posições de produtos (as listas do índice guardam posições, não objetos)
+    private static final class Posicoes {
+        int[] valores = new int[4];
+        int tamanho;
+
+        void adicionar(int posicao) {
+            if (tamanho == valores.length) {
+                valores = Arrays.copyOf(valores, tamanho * 2);
+            }
+            valores[tamanho++] = posicao;
+        }
+
+        void remover(int posicao) {
+            for (int i = 0; i < tamanho; i++) {
+                if (valores[i] == posicao) {
+                    valores[i] = valores[--tamanho];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final Map<String, Entrada> porId = new HashMap<>();
+    // Posição -> entrada (null nas posições livres)
+    private final List<Entrada> porPosicao = new ArrayList<>();
+    private final ArrayDeque<Integer> posicoesLivres = new ArrayDeque<>();
+    // Palavra -> palavra indexada (ordenado para a busca por prefixo)
+    private final TreeMap<String, Palavra> porPalavra = new TreeMap<>();
+    // Trigrama -> palavras indexadas que o contêm
+    private final Map<String, List<Palavra>> porTrigrama = new HashMap<>();
+
+    // Áreas de trabalho da busca, reaproveitadas entre buscas. Cada vetor de
+    // marcas diz se o valor da mesma posição pertence à passada atual, então
+    // nada precisa ser zerado entre uma palavra e outra.
+    private double[] pontos = new double[0];
+    private double[] pontosDaPalavra = new double[0];
+    private int[] marcaDaBusca = new int[0];
+    private int[] marcaDaPalavra = new int[0];
+    private int marcaAtual;
+
+    /**
+     * Inclui (ou reindexa) um produto.
+     *
+     * @param produto produto do catálogo
+     */
+    public void adicionar(Produto produto) {
+        remover(produto.getIdProduto());
+        Set<String> palavras = new LinkedHashSet<>();
+        palavras.addAll(palavras(produto.getNome()));
+        palavras.addAll(palavras(produto.getFornecedor()));
+        palavras.addAll(palavras(produto.getIdProduto()));
+        int posicao;
+        if (posicoesLivres.isEmpty()) {
+            posicao = porPosicao.size();
+            porPosicao.add(null);
+        } else {
+            posicao = posicoesLivres.poll();
+        }
+        for (String texto : palavras) {
+            Palavra palavra = porPalavra.get(texto);
+            if (palavra == null) {
+                // Palavra nova no catálogo: entra no índice de trigramas
+                palavra = new Palavra(texto);
+                porPalavra.put(texto, palavra);
+                for (String trigrama : trigramas(texto)) {
+                    porTrigrama.computeIfAbsent(trigrama, t -> new ArrayList<>()).add(palavra);
+                }
+            }
+            palavra.posicoes.adicionar(posicao);
+        }
+        Entrada entrada = new Entrada(produto, posicao, palavras);
+        porPosicao.set(posicao, entrada);
+        porId.put(produto.getIdProduto(), entrada);
+    }
+
+    /**
+     * Reindexa um produto cujo nome ou fornecedor mudou.
+     *
+     * @param produto produto editado
+     */
+    public void atualizar(Produto produto) {
+        adicionar(produto);
+    }
+
+    /**
+     * Retira um produto do índice.
+     *
+     * @param idProduto ID do produto
+     */
+    public void remover(String idProduto) {
+        Entrada entrada = porId.remove(idProduto);
+        if (entrada == null) {
+            return;
+        }
+        for (String texto : entrada.palavras) {
+            Palavra palavra = porPalavra.get(texto);
+            if (palavra == null) {
+                continue;
+            }
+            palavra.posicoes.remover(entrada.posicao);
+            if (palavra.posicoes.tamanho == 0) {
+                // Nenhum produto usa mais a palavra: sai também do índice de trigramas
+                porPalavra.remove(texto);
+                for (String trigrama : trigramas(texto)) {
+                    List<Palavra> comTrigrama = porTrigrama.get(trigrama);
+                    if (comTrigrama != null) {
+                        comTrigrama.remove(palavra);
+                        if (comTrigrama.isEmpty()) {
+                            porTrigrama.remove(trigrama);
+                        }
+                    }
+                }
+            }
+        }
+        porPosicao.set(entrada.posicao, null);
+        posicoesLivres.add(entrada.posicao);
+    }
+
+    /**
+     * Busca os produtos mais parecidos com o texto, do mais para o menos relevante.
+     * Cada palavra digitada pontua pelo melhor casamento com o produto: palavra
+     * igual, começo de palavra ou palavra parecida (comparada com cada palavra
+     * do produto separadamente).
+     *
+     * @param texto texto digitado (nome, fornecedor ou ID, completo ou não)
+     * @param limite quantidade máxima de resultados
+     * @return produtos encontrados (vazia se o texto não tiver letras ou números)
+     */
+    public List<Produto> buscar(String texto, int limite) {
+        List<String> consulta = new ArrayList<>(new LinkedHashSet<>(palavras(texto)));
+        if (consulta.isEmpty() || limite <= 0) {
+            return new ArrayList<>();
+        }
+        prepararAreasDeTrabalho();
+        int marcaDaBuscaAtual = ++marcaAtual;
+        Posicoes encontrados = new Posicoes();
+        Posicoes daPalavra = new Posicoes();
+        for (String palavra : consulta) {
+            int marcaDaPalavraAtual = ++marcaAtual;
+            daPalavra.tamanho = 0;
+            // Palavras indexadas que começam com a palavra digitada
+            for (Palavra indexada : porPalavra.subMap(palavra, palavra + Character.MAX_VALUE).values()) {
+                double valor = indexada.texto.equals(palavra) ? PONTOS_IGUAL : PONTOS_PREFIXO;
+                pontuarPosicoes(indexada.posicoes, valor, marcaDaPalavraAtual, daPalavra);
+            }
+            // Palavras parecidas: conta os trigramas em comum com cada palavra indexada
+            List<String> trigramasBuscados = trigramasDeBusca(palavra);
+            if (!trigramasBuscados.isEmpty()) {
+                int marcaDosTrigramas = ++marcaAtual;
+                List<Palavra> comTrigrama = new ArrayList<>();
+                for (String trigrama : trigramasBuscados) {
+                    for (Palavra indexada : porTrigrama.getOrDefault(trigrama, Collections.emptyList())) {
+                        if (indexada.marca != marcaDosTrigramas) {
+                            indexada.marca = marcaDosTrigramas;
+                            indexada.trigramasEmComum = 0;
+                            comTrigrama.add(indexada);
+                        }
+                        indexada.trigramasEmComum++;
+                    }
+                }
+                // Só depois de medir a palavra inteira ela se expande para os produtos que a contêm
+                for (Palavra indexada : comTrigrama) {
+                    double similaridade = indexada.trigramasEmComum / (double) trigramasBuscados.size();
+                    if (similaridade >= SIMILARIDADE_MINIMA) {
+                        pontuarPosicoes(indexada.posicoes, PONTOS_PARECIDA * similaridade, marcaDaPalavraAtual, daPalavra);
+                    }
+                }
+            }
+            // Soma a melhor pontuação desta palavra à pontuação do produto
+            for (int i = 0; i < daPalavra.tamanho; i++) {
+                int posicao = daPalavra.valores[i];
+                if (marcaDaBusca[posicao] != marcaDaBuscaAtual) {
+                    marcaDaBusca[posicao] = marcaDaBuscaAtual;
+                    pontos[posicao] = 0;
+                    encontrados.adicionar(posicao);
+                }
+                pontos[posicao] += pontosDaPalavra[posicao];
+            }
+        }
+        return melhores(encontrados, limite);
+    }
+
+    /**
+     * @return quantidade de produtos indexados
+     */
+    public int tamanho() {
+        return porId.size();
+    }
+
+    private void pontuarPosicoes(Posicoes posicoes, double valor, int marca, Posicoes daPalavra) {
+        for (int i = 0; i < posicoes.tamanho; i++) {
+            pontuarPalavra(posicoes.valores[i], valor, marca, daPalavra);
+        }
+    }
+
+    // Guarda a maior pontuação da palavra atual para o produto
+    private void pontuarPalavra(int posicao, double valor, int marca, Posicoes daPalavra) {
+        if (marcaDaPalavra[posicao] != marca) {
+            marcaDaPalavra[posicao] = marca;
+            pontosDaPalavra[posicao] = valor;
+            daPalavra.adicionar(posicao);
+        } else if (valor > pontosDaPalavra[posicao]) {
+            pontosDaPalavra[posicao] = valor;
+        }
+    }
+
+    // Acompanha o crescimento do catálogo; as marcas recomeçam antes de estourar o int
+    private void prepararAreasDeTrabalho() {
+        int necessario = porPosicao.size();
+        if (pontos.length < necessario || marcaAtual > Integer.MAX_VALUE - 1000) {
+            int tamanho = Math.max(necessario, pontos.length * 3 / 2);
+            pontos = new double[tamanho];
+            pontosDaPalavra = new double[tamanho];
+            marcaDaBusca = new int[tamanho];
+            marcaDaPalavra = new int[tamanho];
+            marcaAtual = 0;
+            for (Palavra palavra : porPalavra.values()) {
+                palavra.marca = 0;
+            }
+        }
+    }
+
+    // Seleciona os "limite" produtos de maior pontuação com um heap de mínimo
+    private List<Produto> melhores(Posicoes encontrados, int limite) {
+        Comparator<Integer> ordem = Comparator.<Integer>comparingDouble(p -> pontos[p])
+                .thenComparing(p -> porPosicao.get(p).produto.getNome(), Comparator.nullsFirst(Comparator.reverseOrder()));
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limite + 1, ordem);
+        for (int i = 0; i < encontrados.tamanho; i++) {
+            int posicao = encontrados.valores[i];
+            // Com o heap cheio, só entra quem tem pelo menos a pontuação do pior
+            if (heap.size() == limite && pontos[posicao] < pontos[heap.peek()]) {
+                continue;
+            }
+            heap.offer(posicao);
+            if (heap.size() > limite) {
+                heap.poll(); // Descarta o pior
+            }
+        }
+        List<Produto> resultado = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            resultado.add(porPosicao.get(heap.poll()).produto);
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    // Minúsculas e sem acentos; hífens e pontos dentro da palavra somem ("PR-003" vira "pr003")
+    static List<String> palavras(String texto) {
+        List<String> resultado = new ArrayList<>();
+        if (texto == null) {
+            return resultado;
+        }
+        String normalizado = Normalizer.normalize(texto, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase();
+        for (String trecho : normalizado.split("[\\s,;/()]+")) {
+            String palavra = trecho.replaceAll("[^\\p{Alnum}]", "");
+            if (!palavra.isEmpty()) {
+                resultado.add(palavra);
+            }
+        }
+        return resultado;
+    }
+
+    // Trigramas da palavra com um espaço no início e outro no fim: "oleo" -> " ol", "ole", "leo", "eo "
+    private static Set<String> trigramas(String palavra) {
+        Set<String> resultado = new HashSet<>();
+        String marcada = " " + palavra + " ";
+        for (int i = 0; i + 3 <= marcada.length(); i++) {
+            resultado.add(marcada.substring(i, i + 3));
+        }
+        return resultado;
+    }
+
+    // Na busca, a última palavra pode estar incompleta: não usa o trigrama do fim da palavra
+    private static List<String> trigramasDeBusca(String palavra) {
+        if (palavra.length() < 3) {
+            return Collections.emptyList(); // Palavras curtas só casam por prefixo
+        }
+        Set<String> resultado = new LinkedHashSet<>();
+        String marcada = " " + palavra;
+        for (int i = 0; i + 3 <= marcada.length(); i++) {
+            resultado.add(marcada.substring(i, i + 3));
+        }
+        return new ArrayList<>(resultado);
+    }
+}
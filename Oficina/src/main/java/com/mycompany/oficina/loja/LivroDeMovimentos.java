@@ -0,0 +1,476 @@
+package com.mycompany.oficina.loja;
+
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Livro de movimentos do estoque: toda entrada, saída por OS, ajuste e
+ * devolução é acrescentada, uma linha por movimento, ao diário em
+ * data/movimentos_estoque. Gravar um movimento não regrava nenhum arquivo.
+ * <p>
+ * Os saldos em memória só mudam depois que o movimento foi gravado no diário;
+ * se a gravação falhar, nada é aplicado e quem registrou é avisado.
+ * <p>
+ * As saídas por OS e as devoluções não esperam pela gravação: entram em uma
+ * fila sem trava ({@link #registrarSemEsperar}) e uma thread própria as grava
+ * em lote, uma escrita por rodada. Quem reserva peças não disputa a trava do
+ * livro nem espera o disco. Os registros síncronos e as consultas gravam a
+ * fila antes, então veem os movimentos na ordem em que foram feitos.
+ * <p>
+ * Quando o diário atual chega a {@link #MOVIMENTOS_POR_FOTO} movimentos é
+ * salva uma foto com o saldo de todos os produtos e um novo diário é iniciado. Na carga, basta ler a
+ * última foto e o diário que vem depois dela. Para saber o saldo em uma data
+ * passada, procura-se (por busca binária) a última foto anterior à data e
+ * reaplicam-se apenas os movimentos do diário seguinte a ela.
+ * <p>
+ * As fotos e os diários têm o nome da sequência em que começam: o diário
+ * "000000001000.jsonl" contém os movimentos posteriores à foto "000000001000.json".
+ */
+public class LivroDeMovimentos {
+
+    public static final int MOVIMENTOS_POR_FOTO = 1000;
+    // Espera da thread do livro antes de tentar de novo uma gravação que falhou
+    private static final long ESPERA_APOS_FALHA_MS = 1000;
+
+    private static final String CHAVE = "movimentos_estoque";
+    // Quantos diários antigos ficam em memória para as consultas de datas passadas
+    private static final int DIARIOS_EM_CACHE = 4;
+
+    private final PersistenciaJson persistencia;
+
+    // Saldo atual de cada produto segundo o livro
+    private final Map<String, Integer> saldos = new HashMap<>();
+    // Sequências das fotos salvas, em ordem crescente
+    private final List<Long> fotos = new ArrayList<>();
+    // Fotos já lidas do disco
+    private final Map<Long, FotoDoEstoque> fotosLidas = new HashMap<>();
+    // Diários antigos lidos do disco, do menos para o mais recentemente usado
+    private final Map<Long, List<MovimentoEstoque>> diariosLidos = new LinkedHashMap<Long, List<MovimentoEstoque>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, List<MovimentoEstoque>> maisAntigo) {
+            return size() > DIARIOS_EM_CACHE;
+        }
+    };
+
+    private long ultimaSequencia;
+    private LocalDateTime ultimoInstante;
+    private long inicioDoDiarioAtual; // Sequência da foto que abre o diário atual
+    private final List<MovimentoEstoque> diarioAtual = new ArrayList<>();
+
+    // Avisados a cada movimento registrado
+    private final List<OuvinteDeMovimentos> ouvintes = new CopyOnWriteArrayList<>();
+
+    // Movimentos aceitos sem esperar pela gravação, na ordem em que chegaram
+    private final ConcurrentLinkedQueue<MovimentoPendente> pendentes = new ConcurrentLinkedQueue<>();
+    // Movimentos retirados da fila cuja gravação falhou (só mexidos com a trava do livro)
+    private final List<MovimentoPendente> naoGravados = new ArrayList<>();
+    private final AtomicBoolean gravadorIniciado = new AtomicBoolean();
+    private volatile Thread gravador;
+
+    /**
+     * Carrega a última foto e os movimentos gravados depois dela.
+     *
+     * @param persistencia persistência usada para os diários e as fotos
+     */
+    public LivroDeMovimentos(PersistenciaJson persistencia) {
+        this.persistencia = persistencia;
+        for (String particao : persistencia.listarParticoes(CHAVE)) {
+            Long sequencia = sequenciaDoNome(particao);
+            if (sequencia != null) {
+                fotos.add(sequencia);
+            }
+        }
+        fotos.sort(null);
+
+        if (!fotos.isEmpty()) {
+            FotoDoEstoque ultima = lerFoto(fotos.get(fotos.size() - 1));
+            if (ultima != null) {
+                saldos.putAll(ultima.getSaldos());
+                ultimaSequencia = ultima.getSequencia();
+                ultimoInstante = ultima.getInstante();
+                inicioDoDiarioAtual = ultima.getSequencia();
+            }
+        }
+        // Normalmente há um único diário depois da última foto
+        for (String diario : persistencia.listarDiarios(CHAVE)) {
+            Long inicio = sequenciaDoNome(diario);
+            if (inicio == null || inicio < inicioDoDiarioAtual) {
+                continue;
+            }
+            for (MovimentoEstoque m : persistencia.carregarDiario(CHAVE, diario, MovimentoEstoque.class)) {
+                if (m.getSequencia() > ultimaSequencia) {
+                    aplicar(m);
+                    diarioAtual.add(m);
+                }
+            }
+            inicioDoDiarioAtual = inicio;
+        }
+    }
+
+    /**
+     * Alinha o livro com os produtos do catálogo na carga do sistema. Se o livro
+     * ainda não existe, os saldos atuais viram a foto inicial; se existe, o
+     * saldo do livro prevalece sobre o gravado no catálogo.
+     *
+     * @param produtos produtos do catálogo
+     */
+    public synchronized void sincronizar(Collection<Produto> produtos) {
+        descarregar();
+        if (fotos.isEmpty() && ultimaSequencia == 0) {
+            for (Produto produto : produtos) {
+                saldos.put(produto.getIdProduto(), produto.getQuantidade());
+            }
+            salvarFoto();
+            return;
+        }
+        for (Produto produto : produtos) {
+            Integer saldo = saldos.get(produto.getIdProduto());
+            if (saldo != null) {
+                produto.setQuantidade(saldo);
+            } else if (produto.getQuantidade() != 0) {
+                // Produto que o livro não conhece: o saldo do catálogo vira uma entrada
+                registrar(TipoMovimento.ENTRADA, produto.getIdProduto(), produto.getQuantidade(), "Saldo inicial");
+            }
+        }
+    }
+
+    /**
+     * Acrescenta um movimento ao livro.
+     *
+     * @param tipo tipo do movimento
+     * @param idProduto produto movimentado
+     * @param quantidade variação do saldo (negativa nas saídas)
+     * @param referencia número da OS ou descrição
+     * @return o movimento gravado, ou null se não foi possível gravá-lo
+     */
+    public synchronized MovimentoEstoque registrar(TipoMovimento tipo, String idProduto, int quantidade, String referencia) {
+        Map<String, Integer> movimento = new LinkedHashMap<>();
+        movimento.put(idProduto, quantidade);
+        List<MovimentoEstoque> gravados = registrarLote(tipo, movimento, referencia);
+        return gravados == null ? null : gravados.get(0);
+    }
+
+    /**
+     * Acrescenta ao livro vários movimentos do mesmo tipo e referência (por
+     * exemplo, as linhas de um pedido de compra), com uma única escrita no
+     * diário. O lote nunca é dividido entre dois diários: se passar do limite
+     * de uma foto, a foto é tirada logo depois dele.
+     *
+     * @param tipo tipo dos movimentos
+     * @param quantidades ID do produto -> variação do saldo, na ordem de gravação
+     * @param referencia número do pedido, da OS ou descrição
+     * @return os movimentos gravados, na mesma ordem, ou null se a gravação
+     *         falhou (nesse caso nenhum saldo muda)
+     */
+    public synchronized List<MovimentoEstoque> registrarLote(TipoMovimento tipo, Map<String, Integer> quantidades, String referencia) {
+        descarregar();
+        LocalDateTime agora = LocalDateTime.now();
+        List<MovimentoPendente> lote = new ArrayList<>(quantidades.size());
+        for (Map.Entry<String, Integer> item : quantidades.entrySet()) {
+            lote.add(new MovimentoPendente(agora, tipo, item.getKey(), item.getValue(), referencia));
+        }
+        return gravar(lote);
+    }
+
+    /**
+     * Aceita um movimento sem esperar pela gravação: ele entra na fila, sem
+     * trava, e é gravado em lote pela thread do livro logo em seguida. Usado
+     * nas reservas de peças, que não podem esperar pelo disco. Se a gravação
+     * falhar, o movimento continua na fila e é tentado de novo.
+     *
+     * @param tipo tipo do movimento
+     * @param idProduto produto movimentado
+     * @param quantidade variação do saldo (negativa nas saídas)
+     * @param referencia número da OS ou descrição
+     */
+    public void registrarSemEsperar(TipoMovimento tipo, String idProduto, int quantidade, String referencia) {
+        pendentes.add(new MovimentoPendente(LocalDateTime.now(), tipo, idProduto, quantidade, referencia));
+        if (gravadorIniciado.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::executarGravador, "livro-movimentos");
+            thread.setDaemon(true);
+            gravador = thread;
+            thread.start();
+        } else {
+            Thread thread = gravador;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+
+    /**
+     * Grava agora os movimentos que estão na fila (por exemplo, ao encerrar o
+     * programa).
+     *
+     * @return true se não sobrou nenhum movimento sem gravar
+     */
+    public synchronized boolean descarregar() {
+        MovimentoPendente pendente;
+        while ((pendente = pendentes.poll()) != null) {
+            naoGravados.add(pendente);
+        }
+        if (naoGravados.isEmpty()) {
+            return true;
+        }
+        if (gravar(naoGravados) == null) {
+            return false;
+        }
+        naoGravados.clear();
+        return true;
+    }
+
+    // Laço da thread do livro: grava o que chegou e dorme até o próximo movimento
+    private void executarGravador() {
+        while (true) {
+            if (!descarregar()) {
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(ESPERA_APOS_FALHA_MS));
+            } else if (pendentes.isEmpty()) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    // Grava os movimentos com uma única escrita e só então aplica os saldos e avisa os ouvintes
+    private List<MovimentoEstoque> gravar(List<MovimentoPendente> lote) {
+        // Monta os movimentos sem mexer nos saldos; eles só mudam depois da gravação
+        List<MovimentoEstoque> gravados = new ArrayList<>(lote.size());
+        Map<String, Integer> saldosDoLote = new HashMap<>();
+        long sequencia = ultimaSequencia;
+        LocalDateTime instante = ultimoInstante;
+        for (MovimentoPendente item : lote) {
+            // O instante nunca volta no tempo, para que a busca por data funcione
+            if (instante == null || item.instante.isAfter(instante)) {
+                instante = item.instante;
+            }
+            int anterior = saldosDoLote.getOrDefault(item.idProduto, saldos.getOrDefault(item.idProduto, 0));
+            int saldo = anterior + item.quantidade;
+            saldosDoLote.put(item.idProduto, saldo);
+            gravados.add(new MovimentoEstoque(++sequencia, instante, item.idProduto, item.tipo, item.quantidade, saldo, item.referencia));
+        }
+        if (!persistencia.anexarLoteAoDiario(CHAVE, nomeDaSequencia(inicioDoDiarioAtual), gravados)) {
+            System.err.println("Movimentos de estoque não gravados (" + lote.get(0).referencia
+                    + (lote.size() > 1 ? " e outros " + (lote.size() - 1) : "") + "); saldos mantidos.");
+            return null;
+        }
+        for (MovimentoEstoque movimento : gravados) {
+            aplicar(movimento);
+            diarioAtual.add(movimento);
+        }
+        if (diarioAtual.size() >= MOVIMENTOS_POR_FOTO) {
+            salvarFoto();
+        }
+        for (MovimentoEstoque movimento : gravados) {
+            for (OuvinteDeMovimentos ouvinte : ouvintes) {
+                ouvinte.movimentoRegistrado(movimento);
+            }
+        }
+        return gravados;
+    }
+
+    /**
+     * Passa a avisar o ouvinte a cada movimento registrado.
+     *
+     * @param ouvinte objeto a ser avisado
+     */
+    public void adicionarOuvinte(OuvinteDeMovimentos ouvinte) {
+        ouvintes.add(ouvinte);
+    }
+
+    /**
+     * Deixa de avisar o ouvinte.
+     *
+     * @param ouvinte objeto que não será mais avisado
+     */
+    public void removerOuvinte(OuvinteDeMovimentos ouvinte) {
+        ouvintes.remove(ouvinte);
+    }
+
+    // Atualiza saldo, sequência e instante com um movimento
+    private void aplicar(MovimentoEstoque movimento) {
+        saldos.put(movimento.getIdProduto(), movimento.getSaldo());
+        ultimaSequencia = movimento.getSequencia();
+        ultimoInstante = movimento.getInstante();
+    }
+
+    // Salva a foto dos saldos atuais e abre um novo diário
+    private void salvarFoto() {
+        LocalDateTime instante = ultimoInstante != null ? ultimoInstante : LocalDateTime.now();
+        FotoDoEstoque foto = new FotoDoEstoque(ultimaSequencia, instante, saldos);
+        persistencia.salvarParticao(CHAVE, nomeDaSequencia(ultimaSequencia), foto);
+        fotos.add(ultimaSequencia);
+        fotosLidas.put(ultimaSequencia, foto);
+        inicioDoDiarioAtual = ultimaSequencia;
+        diarioAtual.clear();
+        ultimoInstante = instante;
+    }
+
+    /**
+     * Saldo atual de um produto segundo o livro.
+     *
+     * @param idProduto ID do produto
+     * @return saldo (zero se o produto nunca foi movimentado)
+     */
+    public synchronized int getSaldo(String idProduto) {
+        descarregar();
+        return saldos.getOrDefault(idProduto, 0);
+    }
+
+    /**
+     * Saldo de um produto em um momento passado.
+     *
+     * @param idProduto ID do produto
+     * @param instante momento da consulta
+     * @return saldo naquele momento (zero antes do início do livro)
+     */
+    public synchronized int saldoEm(String idProduto, LocalDateTime instante) {
+        return saldosEm(instante).getOrDefault(idProduto, 0);
+    }
+
+    /**
+     * Saldos de todos os produtos em um momento passado: última foto anterior
+     * ao momento mais os movimentos do diário seguinte até ele.
+     *
+     * @param instante momento da consulta
+     * @return mapa ID do produto -> saldo
+     */
+    public synchronized Map<String, Integer> saldosEm(LocalDateTime instante) {
+        descarregar();
+        int indice = indiceDaFotoAte(instante);
+        Map<String, Integer> resultado = new HashMap<>();
+        long inicio = 0;
+        if (indice >= 0) {
+            FotoDoEstoque foto = lerFoto(fotos.get(indice));
+            if (foto != null) {
+                resultado.putAll(foto.getSaldos());
+            }
+            inicio = fotos.get(indice);
+        }
+        for (MovimentoEstoque m : movimentosDoDiario(inicio)) {
+            if (m.getInstante().isAfter(instante)) {
+                break;
+            }
+            resultado.put(m.getIdProduto(), m.getSaldo());
+        }
+        return resultado;
+    }
+
+    /**
+     * Movimentos de um produto entre duas datas (inclusive), em ordem.
+     * Só os diários que cobrem o período são lidos.
+     *
+     * @param idProduto ID do produto, ou null para todos
+     * @param inicio início do período (null: desde o primeiro movimento)
+     * @param fim fim do período (null: até o último movimento)
+     * @return movimentos do período
+     */
+    public synchronized List<MovimentoEstoque> listarMovimentos(String idProduto, LocalDateTime inicio, LocalDateTime fim) {
+        descarregar();
+        if (inicio == null) {
+            inicio = LocalDateTime.MIN;
+        }
+        if (fim == null) {
+            fim = LocalDateTime.MAX;
+        }
+        List<MovimentoEstoque> resultado = new ArrayList<>();
+        // Diário em que o período começa e os seguintes, enquanto abrirem antes do fim
+        Set<Long> inicios = new LinkedHashSet<>();
+        int indice = indiceDaFotoAte(inicio);
+        inicios.add(indice >= 0 ? fotos.get(indice) : 0L);
+        for (int i = indice + 1; i < fotos.size(); i++) {
+            FotoDoEstoque foto = lerFoto(fotos.get(i));
+            if (foto == null || foto.getInstante().isAfter(fim)) {
+                break;
+            }
+            inicios.add(fotos.get(i));
+        }
+        for (Long diario : inicios) {
+            for (MovimentoEstoque m : movimentosDoDiario(diario)) {
+                if (!m.getInstante().isBefore(inicio) && !m.getInstante().isAfter(fim)
+                        && (idProduto == null || idProduto.equals(m.getIdProduto()))) {
+                    resultado.add(m);
+                }
+            }
+        }
+        return resultado;
+    }
+
+    // Busca binária: posição da última foto tirada até o instante (-1 se nenhuma)
+    private int indiceDaFotoAte(LocalDateTime instante) {
+        int baixo = 0;
+        int alto = fotos.size() - 1;
+        int encontrada = -1;
+        while (baixo <= alto) {
+            int meio = (baixo + alto) >>> 1;
+            FotoDoEstoque foto = lerFoto(fotos.get(meio));
+            if (foto != null && !foto.getInstante().isAfter(instante)) {
+                encontrada = meio;
+                baixo = meio + 1;
+            } else {
+                alto = meio - 1;
+            }
+        }
+        return encontrada;
+    }
+
+    private FotoDoEstoque lerFoto(long sequencia) {
+        FotoDoEstoque foto = fotosLidas.get(sequencia);
+        if (foto == null) {
+            foto = persistencia.carregarParticao(CHAVE, nomeDaSequencia(sequencia), FotoDoEstoque.class);
+            if (foto != null) {
+                fotosLidas.put(sequencia, foto);
+            }
+        }
+        return foto;
+    }
+
+    private List<MovimentoEstoque> movimentosDoDiario(long inicio) {
+        if (inicio == inicioDoDiarioAtual) {
+            return diarioAtual;
+        }
+        return diariosLidos.computeIfAbsent(inicio,
+                i -> persistencia.carregarDiario(CHAVE, nomeDaSequencia(i), MovimentoEstoque.class));
+    }
+
+    // Movimento aceito e ainda não gravado; o saldo e a sequência só são definidos na gravação
+    private static final class MovimentoPendente {
+        private final LocalDateTime instante;
+        private final TipoMovimento tipo;
+        private final String idProduto;
+        private final int quantidade;
+        private final String referencia;
+
+        private MovimentoPendente(LocalDateTime instante, TipoMovimento tipo, String idProduto, int quantidade, String referencia) {
+            this.instante = instante;
+            this.tipo = tipo;
+            this.idProduto = idProduto;
+            this.quantidade = quantidade;
+            this.referencia = referencia;
+        }
+    }
+
+    private static String nomeDaSequencia(long sequencia) {
+        return String.format("%012d", sequencia);
+    }
+
+    private static Long sequenciaDoNome(String nome) {
+        try {
+            return Long.parseLong(nome);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package com.mycompany.oficina.loja;
+
+import com.mycompany.oficina.notificacao.DespachanteDeNotificacoes;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Acompanha o nível de estoque de cada produto e avisa quando uma peça fica
+ * abaixo do mínimo, sem percorrer o catálogo.
+ * <p>
+ * Cada produto tem uma {@link SituacaoDoProduto} com o consumo dos últimos
+ * {@link #JANELA_DE_CONSUMO_DIAS} dias (saídas por OS menos devoluções) e os
+ * dias de cobertura: quantos dias o saldo ainda dura, no ritmo atual, até
+ * chegar ao estoque mínimo. As situações ficam em uma árvore ordenada pelos
+ * dias de cobertura, então a lista "a repor" é só o começo da árvore.
+ * <p>
+ * O monitor ouve o {@link LivroDeMovimentos}: a cada movimento apenas a
+ * situação do produto movimentado é recalculada e reposicionada na árvore
+ * (O(log n)). O saldo usado é o do movimento, pois o livro avisa antes de o
+ * estoque aplicar a entrada ou o ajuste no produto. Quando o produto passa a
+ * ficar abaixo do mínimo, o alerta é enviado na hora.
+ */
+public class MonitorDeEstoqueBaixo implements OuvinteDeMovimentos {
+
+    public static final int JANELA_DE_CONSUMO_DIAS = 30;
+    public static final int PRAZO_DE_REPOSICAO_PADRAO_DIAS = 7;
+
+    // Mais urgente primeiro; o ID desempata para que produtos diferentes nunca se confundam
+    private static final Comparator<SituacaoDoProduto> POR_COBERTURA =
+            Comparator.comparingDouble(SituacaoDoProduto::getDiasDeCobertura)
+                    .thenComparing(s -> s.getProduto().getIdProduto());
+
+    private final Map<String, SituacaoDoProduto> situacoes = new HashMap<>();
+    private final TreeSet<SituacaoDoProduto> porCobertura = new TreeSet<>(POR_COBERTURA);
+    // Produtos com cobertura menor que este prazo entram na lista a repor
+    private final int prazoDeReposicaoDias;
+    // Dia do último recálculo geral (o consumo antigo sai da janela com a passagem dos dias)
+    private long diaDaUltimaReavaliacao;
+
+    // Para onde vão os alertas (sem despachante, são escritos no console)
+    private volatile DespachanteDeNotificacoes despachante;
+    private volatile String destinatarioDosAlertas;
+
+    /**
+     * Monta as situações dos produtos a partir do consumo registrado no livro
+     * e passa a ouvir os novos movimentos.
+     *
+     * @param livro livro de movimentos do estoque
+     * @param produtos produtos do catálogo
+     * @param prazoDeReposicaoDias cobertura abaixo da qual o produto deve ser reposto
+     */
+    public MonitorDeEstoqueBaixo(LivroDeMovimentos livro, Collection<Produto> produtos, int prazoDeReposicaoDias) {
+        this.prazoDeReposicaoDias = prazoDeReposicaoDias;
+        for (Produto produto : produtos) {
+            situacoes.put(produto.getIdProduto(), new SituacaoDoProduto(produto));
+        }
+        LocalDate hoje = LocalDate.now();
+        for (MovimentoEstoque m : livro.listarMovimentos(null, hoje.minusDays(JANELA_DE_CONSUMO_DIAS - 1).atStartOfDay(), null)) {
+            SituacaoDoProduto situacao = situacoes.get(m.getIdProduto());
+            if (situacao != null) {
+                situacao.registrarConsumo(m);
+            }
+        }
+        diaDaUltimaReavaliacao = hoje.toEpochDay();
+        for (SituacaoDoProduto situacao : situacoes.values()) {
+            situacao.recalcular(diaDaUltimaReavaliacao);
+            porCobertura.add(situacao);
+        }
+        livro.adicionarOuvinte(this);
+    }
+
+    /**
+     * Define para onde os alertas de estoque baixo são enviados.
+     *
+     * @param despachante despachante de notificações (null: console)
+     * @param destinatario destinatário dos alertas
+     */
+    public void setDestinoDosAlertas(DespachanteDeNotificacoes despachante, String destinatario) {
+        this.destinatarioDosAlertas = destinatario;
+        this.despachante = despachante;
+    }
+
+    /**
+     * Passa a acompanhar um produto (novo ou substituído).
+     *
+     * @param produto produto do catálogo
+     */
+    public synchronized void acompanhar(Produto produto) {
+        SituacaoDoProduto anterior = situacoes.remove(produto.getIdProduto());
+        if (anterior != null) {
+            porCobertura.remove(anterior);
+        }
+        SituacaoDoProduto situacao = new SituacaoDoProduto(produto);
+        if (anterior != null) {
+            situacao.herdarConsumo(anterior);
+        }
+        situacoes.put(produto.getIdProduto(), situacao);
+        situacao.recalcular(LocalDate.now().toEpochDay());
+        porCobertura.add(situacao);
+    }
+
+    /**
+     * Deixa de acompanhar um produto removido do catálogo.
+     *
+     * @param idProduto ID do produto
+     */
+    public synchronized void deixarDeAcompanhar(String idProduto) {
+        SituacaoDoProduto situacao = situacoes.remove(idProduto);
+        if (situacao != null) {
+            porCobertura.remove(situacao);
+        }
+    }
+
+    /**
+     * Recalcula a situação de um produto cujo mínimo foi alterado.
+     *
+     * @param produto produto alterado
+     */
+    public synchronized void atualizar(Produto produto) {
+        SituacaoDoProduto situacao = situacoes.get(produto.getIdProduto());
+        if (situacao != null) {
+            situacao.quantidade = produto.getQuantidade();
+            reposicionar(situacao, LocalDate.now().toEpochDay());
+        }
+    }
+
+    /**
+     * Atualiza o consumo e a posição do produto movimentado.
+     */
+    @Override
+    public synchronized void movimentoRegistrado(MovimentoEstoque movimento) {
+        SituacaoDoProduto situacao = situacoes.get(movimento.getIdProduto());
+        if (situacao == null) {
+            return; // Produto fora do catálogo (por exemplo, acabou de ser removido)
+        }
+        situacao.registrarConsumo(movimento);
+        situacao.quantidade = movimento.getSaldo();
+        reposicionar(situacao, movimento.getInstante().toLocalDate().toEpochDay());
+    }
+
+    /**
+     * Produtos que devem ser repostos: os que já estão abaixo do mínimo e os
+     * que chegam a ele antes do prazo de reposição, do mais urgente para o menos.
+     *
+     * @return situações dos produtos a repor
+     */
+    public synchronized List<SituacaoDoProduto> listarParaRepor() {
+        reavaliarSeMudouODia();
+        List<SituacaoDoProduto> resultado = new ArrayList<>();
+        for (SituacaoDoProduto situacao : porCobertura) {
+            if (situacao.getDiasDeCobertura() >= prazoDeReposicaoDias) {
+                break; // Daqui em diante a cobertura só aumenta
+            }
+            resultado.add(situacao);
+        }
+        return resultado;
+    }
+
+    /**
+     * Produtos que estão com o saldo no mínimo ou abaixo dele.
+     *
+     * @return situações dos produtos abaixo do mínimo
+     */
+    public synchronized List<SituacaoDoProduto> listarAbaixoDoMinimo() {
+        List<SituacaoDoProduto> resultado = new ArrayList<>();
+        for (SituacaoDoProduto situacao : porCobertura) {
+            if (situacao.getDiasDeCobertura() > 0) {
+                break;
+            }
+            if (situacao.isAbaixoDoMinimo()) {
+                resultado.add(situacao);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Situação atual de um produto.
+     *
+     * @param idProduto ID do produto
+     * @return situação do produto ou null se não for acompanhado
+     */
+    public synchronized SituacaoDoProduto getSituacao(String idProduto) {
+        return situacoes.get(idProduto);
+    }
+
+    // Retira da árvore, recalcula e devolve; avisa se o produto acabou de ficar abaixo do mínimo
+    private void reposicionar(SituacaoDoProduto situacao, long hoje) {
+        boolean estavaAbaixo = situacao.isAbaixoDoMinimo();
+        porCobertura.remove(situacao);
+        situacao.recalcular(hoje);
+        porCobertura.add(situacao);
+        if (!estavaAbaixo && situacao.isAbaixoDoMinimo()) {
+            alertar(situacao);
+        }
+    }
+
+    // O consumo antigo sai da janela com a passagem dos dias: recalcula tudo uma vez por dia
+    private void reavaliarSeMudouODia() {
+        long hoje = LocalDate.now().toEpochDay();
+        if (hoje == diaDaUltimaReavaliacao) {
+            return;
+        }
+        List<SituacaoDoProduto> todas = new ArrayList<>(porCobertura);
+        porCobertura.clear();
+        for (SituacaoDoProduto situacao : todas) {
+            situacao.recalcular(hoje);
+            porCobertura.add(situacao);
+        }
+        diaDaUltimaReavaliacao = hoje;
+    }
+
+    private void alertar(SituacaoDoProduto situacao) {
+        Produto produto = situacao.getProduto();
+        String mensagem = String.format("Estoque baixo: %s (%s) com %d unidade(s), mínimo %d.",
+                produto.getNome(), produto.getIdProduto(), situacao.getQuantidade(), produto.getEstoqueMinimo());
+        DespachanteDeNotificacoes destino = despachante;
+        if (destino == null || !destino.publicar(destinatarioDosAlertas, mensagem)) {
+            System.out.println("[Estoque] " + mensagem);
+        }
+    }
+
+    /**
+     * Nível de estoque de um produto: consumo recente e dias de cobertura.
+     */
+    public static final class SituacaoDoProduto {
+
+        private final Produto produto;
+        // Consumo por dia, em um anel indexado pelo dia (epochDay % janela)
+        private final int[] consumoPorDia = new int[JANELA_DE_CONSUMO_DIAS];
+        private final long[] diaDoConsumo = new long[JANELA_DE_CONSUMO_DIAS];
+        // Saldo do produto segundo o último movimento (o produto pode ainda não tê-lo aplicado)
+        private int quantidade;
+
+        // Valores do último recálculo (a ordem da árvore depende deles)
+        private double consumoDiario;
+        private double diasDeCobertura;
+        private boolean abaixoDoMinimo;
+
+        private SituacaoDoProduto(Produto produto) {
+            this.produto = produto;
+            this.quantidade = produto.getQuantidade();
+        }
+
+        // Saídas por OS aumentam o consumo do dia; devoluções o diminuem
+        private void registrarConsumo(MovimentoEstoque movimento) {
+            if (movimento.getTipo() != TipoMovimento.SAIDA_OS && movimento.getTipo() != TipoMovimento.DEVOLUCAO) {
+                return;
+            }
+            int consumo = -movimento.getQuantidade();
+            long dia = movimento.getInstante().toLocalDate().toEpochDay();
+            int posicao = (int) Math.floorMod(dia, (long) JANELA_DE_CONSUMO_DIAS);
+            if (diaDoConsumo[posicao] != dia) {
+                diaDoConsumo[posicao] = dia;
+                consumoPorDia[posicao] = 0;
+            }
+            consumoPorDia[posicao] += consumo;
+        }
+
+        private void herdarConsumo(SituacaoDoProduto anterior) {
+            System.arraycopy(anterior.consumoPorDia, 0, consumoPorDia, 0, JANELA_DE_CONSUMO_DIAS);
+            System.arraycopy(anterior.diaDoConsumo, 0, diaDoConsumo, 0, JANELA_DE_CONSUMO_DIAS);
+        }
+
+        // Cobertura negativa ou zero: o saldo já está no mínimo ou abaixo dele
+        private void recalcular(long hoje) {
+            int total = 0;
+            for (int i = 0; i < JANELA_DE_CONSUMO_DIAS; i++) {
+                if (diaDoConsumo[i] > hoje - JANELA_DE_CONSUMO_DIAS && diaDoConsumo[i] <= hoje) {
+                    total += consumoPorDia[i];
+                }
+            }
+            consumoDiario = Math.max(0, total) / (double) JANELA_DE_CONSUMO_DIAS;
+            int minimo = produto.getEstoqueMinimo();
+            int excedente = quantidade - minimo;
+            abaixoDoMinimo = quantidade <= 0 || (minimo > 0 && quantidade <= minimo);
+            if (abaixoDoMinimo) {
+                diasDeCobertura = consumoDiario > 0 ? Math.min(0, excedente / consumoDiario) : Math.min(0, excedente);
+            } else if (consumoDiario > 0) {
+                diasDeCobertura = excedente / consumoDiario;
+            } else {
+                diasDeCobertura = Double.POSITIVE_INFINITY; // Sem consumo recente, o saldo não acaba
+            }
+        }
+
+        public Produto getProduto() {
+            return produto;
+        }
+
+        /**
+         * @return saldo considerado no último recálculo
+         */
+        public int getQuantidade() {
+            return quantidade;
+        }
+
+        /**
+         * @return média de unidades consumidas por dia na janela de consumo
+         */
+        public double getConsumoDiario() {
+            return consumoDiario;
+        }
+
+        /**
+         * @return dias até o saldo chegar ao mínimo (zero ou negativo se já chegou)
+         */
+        public double getDiasDeCobertura() {
+            return diasDeCobertura;
+        }
+
+        public boolean isAbaixoDoMinimo() {
+            return abaixoDoMinimo;
+        }
+
+        @Override
+        public String toString() {
+            String cobertura = Double.isInfinite(diasDeCobertura) ? "sem consumo" : String.format("%.1f dia(s)", diasDeCobertura);
+            return String.format("%s %s: %d un. (mínimo %d), consumo %.2f/dia, cobertura %s",
+                    produto.getIdProduto(), produto.getNome(), quantidade,
+                    produto.getEstoqueMinimo(), consumoDiario, cobertura);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.mycompany.oficina.loja;
+
+import java.time.LocalDateTime;
+
+/**
+ * Uma linha do livro de movimentos do estoque. Depois de gravada, nunca é alterada.
+ */
+public class MovimentoEstoque {
+
+    private final long sequencia; // Número do movimento no livro (crescente)
+    private final LocalDateTime instante; // Momento do movimento
+    private final String idProduto; // Produto movimentado
+    private final TipoMovimento tipo; // Tipo do movimento
+    private final int quantidade; // Variação do saldo (negativa nas saídas)
+    private final int saldo; // Saldo do produto depois do movimento
+    private final String referencia; // Número da OS ou descrição do movimento
+
+    public MovimentoEstoque(long sequencia, LocalDateTime instante, String idProduto, TipoMovimento tipo,
+                            int quantidade, int saldo, String referencia) {
+        this.sequencia = sequencia;
+        this.instante = instante;
+        this.idProduto = idProduto;
+        this.tipo = tipo;
+        this.quantidade = quantidade;
+        this.saldo = saldo;
+        this.referencia = referencia;
+    }
+
+    public long getSequencia() { return sequencia; }
+    public LocalDateTime getInstante() { return instante; }
+    public String getIdProduto() { return idProduto; }
+    public TipoMovimento getTipo() { return tipo; }
+    public int getQuantidade() { return quantidade; }
+    public int getSaldo() { return saldo; }
+    public String getReferencia() { return referencia; }
+
+    @Override
+    public String toString() {
+        return String.format("#%d %s %s %-9s %+d (saldo %d) %s",
+                sequencia, instante, idProduto, tipo, quantidade, saldo, referencia != null ? referencia : "");
+    }
+}
@@ -0,0 +1,17 @@
+package com.mycompany.oficina.loja;
+
+/**
+ * Interface para objetos que desejam ser avisados de cada movimento
+ * acrescentado ao {@link LivroDeMovimentos}.
+ */
+public interface OuvinteDeMovimentos {
+
+    /**
+     * Chamado logo depois que o movimento é gravado, ainda dentro da trava do
+     * livro (para saídas por OS e devoluções, na thread do livro); a
+     * implementação deve ser rápida e não pode gravar no livro.
+     *
+     * @param movimento movimento registrado
+     */
+    void movimentoRegistrado(MovimentoEstoque movimento);
+}
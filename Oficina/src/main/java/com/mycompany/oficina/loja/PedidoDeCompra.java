@@ -0,0 +1,154 @@
+package com.mycompany.oficina.loja;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entrega de um fornecedor com várias linhas (produto, quantidade e custo).
+ * <p>
+ * O pedido é montado linha a linha e recebido de uma vez por
+ * {@link RecebimentoDePedidos#receber(PedidoDeCompra)}: todas as entradas vão
+ * para o livro de movimentos em uma única gravação e a compra vira uma única
+ * despesa.
+ * Linhas repetidas do mesmo produto são somadas.
+ */
+public class PedidoDeCompra {
+
+    private final String fornecedor; // Fornecedor que fez a entrega
+    private final String notaFiscal; // Número da nota fiscal da entrega
+    private final Map<String, ItemDoPedido> itens = new LinkedHashMap<>(); // ID do produto -> linha
+
+    /**
+     * @param fornecedor fornecedor que fez a entrega
+     * @param notaFiscal número da nota fiscal
+     */
+    public PedidoDeCompra(String fornecedor, String notaFiscal) {
+        this.fornecedor = fornecedor;
+        this.notaFiscal = notaFiscal;
+    }
+
+    /**
+     * Acrescenta uma linha ao pedido.
+     *
+     * @param produto produto entregue
+     * @param quantidade quantidade entregue
+     * @param custoUnitario custo de cada unidade
+     * @return o próprio pedido, para encadear as linhas
+     * @throws IllegalArgumentException se o produto for nulo, a quantidade não
+     *         for positiva ou o custo for negativo
+     */
+    public PedidoDeCompra adicionarItem(Produto produto, int quantidade, double custoUnitario) {
+        if (produto == null || quantidade <= 0 || custoUnitario < 0) {
+            throw new IllegalArgumentException("Linha de pedido inválida: produto, quantidade ou custo.");
+        }
+        ItemDoPedido item = itens.get(produto.getIdProduto());
+        if (item == null) {
+            itens.put(produto.getIdProduto(), new ItemDoPedido(produto, quantidade, quantidade * custoUnitario));
+        } else {
+            item.quantidade += quantidade;
+            item.valorTotal += quantidade * custoUnitario;
+        }
+        return this;
+    }
+
+    public String getFornecedor() {
+        return fornecedor;
+    }
+
+    public String getNotaFiscal() {
+        return notaFiscal;
+    }
+
+    /**
+     * @return linhas do pedido, na ordem em que foram incluídas
+     */
+    public List<ItemDoPedido> getItens() {
+        return new ArrayList<>(itens.values());
+    }
+
+    public boolean isVazio() {
+        return itens.isEmpty();
+    }
+
+    /**
+     * @return soma do custo de todas as linhas
+     */
+    public double getValorTotal() {
+        double total = 0;
+        for (ItemDoPedido item : itens.values()) {
+            total += item.valorTotal;
+        }
+        return total;
+    }
+
+    /**
+     * @return soma das quantidades de todas as linhas
+     */
+    public int getQuantidadeTotal() {
+        int total = 0;
+        for (ItemDoPedido item : itens.values()) {
+            total += item.quantidade;
+        }
+        return total;
+    }
+
+    /**
+     * Referência gravada nos movimentos de estoque do pedido.
+     *
+     * @return por exemplo "Pedido NF 123 - Bosch"
+     */
+    public String getReferencia() {
+        return referenciaDe(notaFiscal, fornecedor);
+    }
+
+    /**
+     * Referência dos movimentos de estoque de um pedido, a partir da nota
+     * fiscal e do fornecedor (usada para conferir pedidos já gravados).
+     *
+     * @param notaFiscal número da nota fiscal
+     * @param fornecedor fornecedor do pedido
+     * @return a mesma referência de {@link #getReferencia()}
+     */
+    static String referenciaDe(String notaFiscal, String fornecedor) {
+        return "Pedido NF " + notaFiscal + " - " + fornecedor;
+    }
+
+    /**
+     * Descrição da despesa única que a compra gera no financeiro.
+     *
+     * @return referência do pedido com a quantidade de linhas e de unidades
+     */
+    public String getDescricaoDaDespesa() {
+        return "Compra de peças: " + getReferencia() + " (" + itens.size() + " item(ns), "
+                + getQuantidadeTotal() + " unidade(s))";
+    }
+
+    /**
+     * Uma linha do pedido.
+     */
+    public static final class ItemDoPedido {
+
+        private final Produto produto;
+        private int quantidade;
+        private double valorTotal;
+
+        private ItemDoPedido(Produto produto, int quantidade, double valorTotal) {
+            this.produto = produto;
+            this.quantidade = quantidade;
+            this.valorTotal = valorTotal;
+        }
+
+        public Produto getProduto() { return produto; }
+        public int getQuantidade() { return quantidade; }
+        public double getValorTotal() { return valorTotal; }
+
+        /**
+         * @return custo médio de cada unidade da linha
+         */
+        public double getCustoUnitario() {
+            return valorTotal / quantidade;
+        }
+    }
+}
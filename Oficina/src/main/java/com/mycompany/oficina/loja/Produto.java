@@ -4,10 +4,16 @@
  */
 package com.mycompany.oficina.loja;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Representa um produto do estoque com atributos básicos como
  * ID, nome, preço, quantidade disponível e fornecedor.
  * O ID é gerado automaticamente no formato "PR-001", "PR-002", etc.
+ * <p>
+ * A quantidade disponível e a quantidade reservada para OS em andamento são
+ * alteradas com compare-and-set, sem trava: dois mecânicos retirando a mesma
+ * peça ao mesmo tempo nunca deixam o estoque negativo.
  */
 public class Produto {
     // Contador estático para gerar IDs únicos sequenciais para cada produto criado
@@ -22,12 +28,24 @@ public class Produto {
     // Preço unitário do produto
     private double preco;
 
-    // Quantidade disponível em estoque
-    private int quantidade;
+    // Atualizadores atômicos dos contadores de estoque (criados uma vez por classe)
+    private static final AtomicIntegerFieldUpdater<Produto> DISPONIVEL =
+            AtomicIntegerFieldUpdater.newUpdater(Produto.class, "quantidade");
+    private static final AtomicIntegerFieldUpdater<Produto> RESERVADA =
+            AtomicIntegerFieldUpdater.newUpdater(Produto.class, "quantidadeReservada");
+
+    // Quantidade disponível em estoque (já descontadas as reservas)
+    private volatile int quantidade;
+
+    // Quantidade reservada para OS em andamento; é recalculada a partir das OS na carga
+    private transient volatile int quantidadeReservada;
 
     // Nome do fornecedor do produto
     private String fornecedor;
 
+    // Quantidade abaixo da qual o produto deve ser reposto (0: sem mínimo)
+    private int estoqueMinimo;
+
     /**
      * Construtor para criar um novo produto com dados fornecidos.
      * O ID é gerado automaticamente no formato "PR-XXX" usando o contador estático.
@@ -55,6 +73,35 @@ public class Produto {
         return contadorId;
     }
 
+    /**
+     * Garante que os próximos IDs gerados sejam maiores que o informado.
+     * Chamado na carga do estoque, para não repetir IDs já salvos.
+     *
+     * @param ultimoNumero maior número de ID existente (o 7 de "PR-007")
+     */
+    public static synchronized void ajustarContador(int ultimoNumero) {
+        if (contadorId <= ultimoNumero) {
+            contadorId = ultimoNumero + 1;
+        }
+    }
+
+    /**
+     * Extrai o número de um ID no formato "PR-XXX".
+     *
+     * @param idProduto ID do produto
+     * @return número do ID, ou 0 se estiver fora do formato
+     */
+    public static int numeroDoId(String idProduto) {
+        if (idProduto == null || !idProduto.startsWith("PR-")) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(idProduto.substring(3));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
     /**
      * Retorna o ID único do produto.
      *
@@ -118,6 +165,62 @@ public class Produto {
         this.quantidade = quantidade;
     }
 
+    /**
+     * Retorna a quantidade reservada para OS ainda em andamento.
+     *
+     * @return Quantidade reservada
+     */
+    public int getQuantidadeReservada() {
+        return quantidadeReservada;
+    }
+
+    /**
+     * Retira do disponível a quantidade pedida, se houver saldo, e a marca como reservada.
+     * Usa compare-and-set: se outro mecânico alterar o saldo no meio, a leitura é refeita.
+     *
+     * @param quantidade quantidade a reservar (maior que zero)
+     * @return true se reservou; false se não há saldo suficiente
+     */
+    boolean reservar(int quantidade) {
+        if (quantidade <= 0) {
+            return false;
+        }
+        int atual;
+        do {
+            atual = this.quantidade;
+            if (atual < quantidade) {
+                return false;
+            }
+        } while (!DISPONIVEL.compareAndSet(this, atual, atual - quantidade));
+        RESERVADA.addAndGet(this, quantidade);
+        return true;
+    }
+
+    // A peça reservada foi usada na OS: sai da reserva e não volta ao disponível
+    void consumirReserva(int quantidade) {
+        RESERVADA.addAndGet(this, -quantidade);
+    }
+
+    // A reserva foi desfeita (OS cancelada): a peça volta ao disponível
+    void liberarReserva(int quantidade) {
+        RESERVADA.addAndGet(this, -quantidade);
+        DISPONIVEL.addAndGet(this, quantidade);
+    }
+
+    // Reserva já descontada do disponível em uma execução anterior (carga do sistema)
+    void restaurarReserva(int quantidade) {
+        RESERVADA.addAndGet(this, quantidade);
+    }
+
+    /**
+     * Soma atomicamente uma quantidade ao disponível (reposição de estoque).
+     *
+     * @param quantidade quantidade a adicionar
+     */
+    public void repor(int quantidade) {
+        DISPONIVEL.addAndGet(this, quantidade);
+    }
+
     /**
      * Retorna o nome do fornecedor do produto.
      *
@@ -136,6 +239,24 @@ public class Produto {
         this.fornecedor = fornecedor;
     }
 
+    /**
+     * Retorna o estoque mínimo do produto.
+     *
+     * @return Quantidade mínima desejada em estoque
+     */
+    public int getEstoqueMinimo() {
+        return estoqueMinimo;
+    }
+
+    /**
+     * Define o estoque mínimo do produto.
+     *
+     * @param estoqueMinimo Quantidade mínima desejada em estoque
+     */
+    public void setEstoqueMinimo(int estoqueMinimo) {
+        this.estoqueMinimo = estoqueMinimo;
+    }
+
     /**
      * Retorna uma representação textual do produto com seus detalhes.
      *
@@ -148,6 +269,8 @@ public class Produto {
                ", nome=" + nome +
                ", preco=" + preco +
                ", quantidade=" + quantidade +
+               ", reservada=" + quantidadeReservada +
+               ", minimo=" + estoqueMinimo +
                ", fornecedor=" + fornecedor +
                '}';
     }
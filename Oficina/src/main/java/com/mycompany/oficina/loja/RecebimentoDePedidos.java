@@ -0,0 +1,218 @@
+package com.mycompany.oficina.loja;
+
+import com.mycompany.oficina.financeiro.GerenciadorFinanceiro;
+import com.mycompany.oficina.financeiro.RegistroFinanceiro;
+import com.mycompany.oficina.financeiro.TipoRegistro;
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recebimento de pedidos de compra: a entrada das peças no estoque e a despesa
+ * no financeiro como uma única operação.
+ * <p>
+ * Antes de qualquer alteração, o pedido inteiro (linhas de estoque e despesa)
+ * é gravado como uma linha no diário data/pedidos_recebidos/recebidos.jsonl.
+ * Depois as duas metades são aplicadas e uma segunda linha marca o pedido como
+ * concluído. Se o programa parar no meio, na próxima carga os pedidos sem
+ * marca de conclusão são conferidos e a metade que falta (entradas no livro de
+ * movimentos ou despesa no financeiro) é aplicada.
+ * <p>
+ * O diário também guarda as notas fiscais já recebidas: receber de novo a
+ * mesma nota do mesmo fornecedor (por exemplo, ao repetir uma tentativa) é
+ * recusado, e o estoque não recebe as peças duas vezes.
+ */
+public class RecebimentoDePedidos {
+
+    private static final String CHAVE = "pedidos_recebidos";
+    private static final String PARTICAO = "recebidos";
+
+    private final PersistenciaJson persistencia;
+    private final Estoque estoque;
+    private final GerenciadorFinanceiro financeiro;
+    // Fornecedor + nota fiscal de todos os pedidos já gravados no diário
+    private final Set<String> recebidos = new HashSet<>();
+
+    /**
+     * Lê o diário e conclui os pedidos que ficaram pela metade.
+     *
+     * @param persistencia persistência do diário
+     * @param estoque estoque que recebe as peças
+     * @param financeiro financeiro que recebe a despesa
+     */
+    public RecebimentoDePedidos(PersistenciaJson persistencia, Estoque estoque, GerenciadorFinanceiro financeiro) {
+        this.persistencia = persistencia;
+        this.estoque = estoque;
+        this.financeiro = financeiro;
+        concluirPendentes();
+    }
+
+    /**
+     * Recebe a entrega de um fornecedor: grava o pedido no diário, soma as
+     * quantidades ao estoque (uma única gravação no livro de movimentos) e
+     * registra uma única despesa com o valor total.
+     * <p>
+     * Depois que o pedido está no diário ele é considerado recebido: se uma das
+     * metades falhar, ela é aplicada na próxima carga do sistema.
+     *
+     * @param pedido pedido de compra entregue
+     * @return true se o pedido foi recebido; false se estiver vazio, sem nota
+     *         fiscal, com produto fora do catálogo, se a nota já foi recebida
+     *         ou se não foi possível gravá-lo no diário (nesses casos nada é aplicado)
+     */
+    public synchronized boolean receber(PedidoDeCompra pedido) {
+        if (pedido == null || pedido.isVazio() || pedido.getNotaFiscal() == null || pedido.getNotaFiscal().isBlank()) {
+            return false;
+        }
+        String chave = chaveDe(pedido.getFornecedor(), pedido.getNotaFiscal());
+        if (recebidos.contains(chave)) {
+            System.err.println("Pedido recusado: a nota fiscal " + pedido.getNotaFiscal() + " de " + pedido.getFornecedor() + " já foi recebida.");
+            return false;
+        }
+        if (!estoque.conferirPedido(pedido)) {
+            return false;
+        }
+        Recebimento recebimento = new Recebimento(pedido, LocalDateTime.now());
+        if (!persistencia.anexarAoDiario(CHAVE, PARTICAO, recebimento)) {
+            return false;
+        }
+        recebidos.add(chave);
+
+        boolean entrouNoEstoque = estoque.receberPedido(pedido);
+        if (entrouNoEstoque) {
+            financeiro.registrarDespesaCompraPecas(recebimento.descricaoDaDespesa, recebimento.valorTotal);
+            persistencia.anexarAoDiario(CHAVE, PARTICAO, recebimento.concluido());
+        } else {
+            System.err.println("Pedido " + pedido.getNotaFiscal() + " gravado, mas as entradas no estoque falharam; serão aplicadas na próxima carga.");
+        }
+        return true;
+    }
+
+    /**
+     * @param fornecedor fornecedor do pedido
+     * @param notaFiscal número da nota fiscal
+     * @return true se a nota fiscal do fornecedor já foi recebida
+     */
+    public synchronized boolean foiRecebido(String fornecedor, String notaFiscal) {
+        return recebidos.contains(chaveDe(fornecedor, notaFiscal));
+    }
+
+    // Conclui, na carga, os pedidos gravados no diário sem a marca de conclusão
+    private void concluirPendentes() {
+        Map<String, Recebimento> pendentes = new LinkedHashMap<>();
+        for (Recebimento linha : persistencia.carregarDiario(CHAVE, PARTICAO, Recebimento.class)) {
+            String chave = chaveDe(linha.fornecedor, linha.notaFiscal);
+            recebidos.add(chave);
+            if (linha.concluido) {
+                pendentes.remove(chave);
+            } else {
+                pendentes.put(chave, linha);
+            }
+        }
+        for (Recebimento recebimento : pendentes.values()) {
+            concluir(recebimento);
+        }
+    }
+
+    // Aplica a metade que falta de um pedido interrompido
+    private void concluir(Recebimento recebimento) {
+        String referencia = PedidoDeCompra.referenciaDe(recebimento.notaFiscal, recebimento.fornecedor);
+        boolean noEstoque = false;
+        for (MovimentoEstoque movimento : estoque.getLivroDeMovimentos().listarMovimentos(null, recebimento.instante, null)) {
+            if (referencia.equals(movimento.getReferencia())) {
+                noEstoque = true;
+                break;
+            }
+        }
+        PedidoDeCompra remontado = noEstoque ? null : recebimento.comoPedido(estoque);
+        if (remontado != null && !remontado.isVazio() && !estoque.receberPedido(remontado)) {
+            System.err.println("Pedido " + recebimento.notaFiscal + " continua pendente: entradas no estoque não aplicadas.");
+            return;
+        }
+        boolean noFinanceiro = false;
+        for (RegistroFinanceiro registro : financeiro.listarNoPeriodo(TipoRegistro.DESPESA_PECAS, recebimento.instante.toLocalDate(), null)) {
+            if (recebimento.descricaoDaDespesa.equals(registro.getDescricao())) {
+                noFinanceiro = true;
+                break;
+            }
+        }
+        if (!noFinanceiro) {
+            financeiro.registrarDespesaCompraPecas(recebimento.descricaoDaDespesa, recebimento.valorTotal);
+        }
+        persistencia.anexarAoDiario(CHAVE, PARTICAO, recebimento.concluido());
+        System.out.println("Pedido " + recebimento.notaFiscal + " concluído na carga"
+                + (noEstoque ? "" : " (entradas no estoque)") + (noFinanceiro ? "" : " (despesa)") + ".");
+    }
+
+    private static String chaveDe(String fornecedor, String notaFiscal) {
+        return fornecedor + "|" + notaFiscal;
+    }
+
+    // Linha do diário: o pedido completo ou, com concluido = true, a marca de conclusão
+    private static final class Recebimento {
+        private String notaFiscal;
+        private String fornecedor;
+        private LocalDateTime instante;
+        private List<Linha> linhas;
+        private String descricaoDaDespesa;
+        private double valorTotal;
+        private boolean concluido;
+
+        Recebimento(PedidoDeCompra pedido, LocalDateTime instante) {
+            this.notaFiscal = pedido.getNotaFiscal();
+            this.fornecedor = pedido.getFornecedor();
+            this.instante = instante;
+            this.linhas = new ArrayList<>();
+            for (PedidoDeCompra.ItemDoPedido item : pedido.getItens()) {
+                linhas.add(new Linha(item.getProduto().getIdProduto(), item.getQuantidade(), item.getValorTotal()));
+            }
+            this.descricaoDaDespesa = pedido.getDescricaoDaDespesa();
+            this.valorTotal = pedido.getValorTotal();
+        }
+
+        private Recebimento() {
+            // Usado pelo Gson
+        }
+
+        Recebimento concluido() {
+            Recebimento marca = new Recebimento();
+            marca.notaFiscal = notaFiscal;
+            marca.fornecedor = fornecedor;
+            marca.instante = LocalDateTime.now();
+            marca.concluido = true;
+            return marca;
+        }
+
+        // Remonta o pedido com os produtos atuais do catálogo (produtos removidos ficam de fora)
+        PedidoDeCompra comoPedido(Estoque estoque) {
+            PedidoDeCompra pedido = new PedidoDeCompra(fornecedor, notaFiscal);
+            for (Linha linha : linhas) {
+                Produto produto = estoque.buscarProduto(linha.idProduto);
+                if (produto == null) {
+                    System.err.println("Pedido " + notaFiscal + ": produto " + linha.idProduto + " não está mais no catálogo.");
+                } else {
+                    pedido.adicionarItem(produto, linha.quantidade, linha.valorTotal / linha.quantidade);
+                }
+            }
+            return pedido;
+        }
+    }
+
+    private static final class Linha {
+        private String idProduto;
+        private int quantidade;
+        private double valorTotal;
+
+        Linha(String idProduto, int quantidade, double valorTotal) {
+            this.idProduto = idProduto;
+            this.quantidade = quantidade;
+            this.valorTotal = valorTotal;
+        }
+    }
+}
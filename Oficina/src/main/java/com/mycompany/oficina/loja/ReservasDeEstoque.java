@@ -0,0 +1,148 @@
+package com.mycompany.oficina.loja;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reservas de peças do estoque feitas pelas Ordens de Serviço.
+ * <p>
+ * Ciclo de vida: a peça é <b>reservada</b> quando o mecânico a adiciona à OS
+ * (sai do disponível na hora), é <b>consumida</b> quando a OS é finalizada e
+ * é <b>liberada</b> de volta ao estoque se a OS for cancelada.
+ * <p>
+ * Não há trava global: o saldo de cada produto muda por compare-and-set, as
+ * reservas de cada OS ficam em mapas concorrentes e as saídas e devoluções
+ * entram na fila do livro de movimentos sem esperar pela gravação, então
+ * mecânicos diferentes retiram peças em paralelo. Implementa o padrão Singleton.
+ */
+public final class ReservasDeEstoque {
+
+    private static final ReservasDeEstoque INSTANCIA = new ReservasDeEstoque();
+
+    // Número da OS -> produto -> quantidade reservada
+    private final ConcurrentMap<String, ConcurrentMap<Produto, AtomicInteger>> reservasPorOS = new ConcurrentHashMap<>();
+
+    // Livro onde saídas e devoluções são registradas (null: sem registro)
+    private volatile LivroDeMovimentos livroDeMovimentos;
+
+    private ReservasDeEstoque() {
+    }
+
+    public static ReservasDeEstoque getInstance() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Define o livro em que as saídas por OS e as devoluções são registradas.
+     *
+     * @param livroDeMovimentos livro de movimentos do estoque
+     */
+    public void setLivroDeMovimentos(LivroDeMovimentos livroDeMovimentos) {
+        this.livroDeMovimentos = livroDeMovimentos;
+    }
+
+    /**
+     * Reserva uma peça para a OS, se houver saldo.
+     *
+     * @param numeroOS número da OS
+     * @param produto produto do estoque
+     * @param quantidade quantidade desejada
+     * @return true se a reserva foi feita; false se não há saldo ou os dados
+     *         são inválidos
+     */
+    public boolean reservar(String numeroOS, Produto produto, int quantidade) {
+        if (numeroOS == null || produto == null || !produto.reservar(quantidade)) {
+            return false;
+        }
+        LivroDeMovimentos livro = livroDeMovimentos;
+        if (livro != null) {
+            livro.registrarSemEsperar(TipoMovimento.SAIDA_OS, produto.getIdProduto(), -quantidade, numeroOS);
+        }
+        registrar(numeroOS, produto, quantidade);
+        return true;
+    }
+
+    /**
+     * Registra uma reserva que já estava descontada do estoque (OS em andamento
+     * carregada do arquivo). O saldo disponível não muda.
+     *
+     * @param numeroOS número da OS
+     * @param produto produto do estoque
+     * @param quantidade quantidade reservada
+     */
+    public void restaurar(String numeroOS, Produto produto, int quantidade) {
+        if (numeroOS == null || produto == null || quantidade <= 0) {
+            return;
+        }
+        produto.restaurarReserva(quantidade);
+        registrar(numeroOS, produto, quantidade);
+    }
+
+    private void registrar(String numeroOS, Produto produto, int quantidade) {
+        reservasPorOS.computeIfAbsent(numeroOS, n -> new ConcurrentHashMap<>())
+                .computeIfAbsent(produto, p -> new AtomicInteger())
+                .addAndGet(quantidade);
+    }
+
+    /**
+     * Marca como usadas todas as peças reservadas pela OS.
+     *
+     * @param numeroOS número da OS finalizada
+     * @return quantidade total de peças consumidas
+     */
+    public int consumir(String numeroOS) {
+        Map<Produto, AtomicInteger> reservas = numeroOS == null ? null : reservasPorOS.remove(numeroOS);
+        if (reservas == null) {
+            return 0;
+        }
+        int total = 0;
+        for (Map.Entry<Produto, AtomicInteger> reserva : reservas.entrySet()) {
+            reserva.getKey().consumirReserva(reserva.getValue().get());
+            total += reserva.getValue().get();
+        }
+        return total;
+    }
+
+    /**
+     * Devolve ao estoque todas as peças reservadas pela OS.
+     *
+     * @param numeroOS número da OS cancelada
+     * @return quantidade total de peças devolvidas
+     */
+    public int liberar(String numeroOS) {
+        Map<Produto, AtomicInteger> reservas = numeroOS == null ? null : reservasPorOS.remove(numeroOS);
+        if (reservas == null) {
+            return 0;
+        }
+        int total = 0;
+        for (Map.Entry<Produto, AtomicInteger> reserva : reservas.entrySet()) {
+            reserva.getKey().liberarReserva(reserva.getValue().get());
+            total += reserva.getValue().get();
+            LivroDeMovimentos livro = livroDeMovimentos;
+            if (livro != null) {
+                livro.registrarSemEsperar(TipoMovimento.DEVOLUCAO, reserva.getKey().getIdProduto(), reserva.getValue().get(), numeroOS);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lista as reservas em aberto de uma OS.
+     *
+     * @param numeroOS número da OS
+     * @return mapa produto -> quantidade reservada (vazio se não houver)
+     */
+    public Map<Produto, Integer> listarReservas(String numeroOS) {
+        Map<Produto, AtomicInteger> reservas = numeroOS == null ? null : reservasPorOS.get(numeroOS);
+        if (reservas == null) {
+            return Collections.emptyMap();
+        }
+        Map<Produto, Integer> copia = new LinkedHashMap<>();
+        reservas.forEach((produto, quantidade) -> copia.put(produto, quantidade.get()));
+        return copia;
+    }
+}
@@ -0,0 +1,16 @@
+package com.mycompany.oficina.loja;
+
+// Enumeração dos tipos de movimentação registrados no livro de movimentos do estoque
+public enum TipoMovimento {
+    // Peças que entram no estoque (cadastro, reposição, compra)
+    ENTRADA,
+
+    // Peças retiradas para uma Ordem de Serviço
+    SAIDA_OS,
+
+    // Correção manual da quantidade (edição do produto, remoção do cadastro)
+    AJUSTE,
+
+    // Peças devolvidas ao estoque por uma OS cancelada
+    DEVOLUCAO
+}
@@ -0,0 +1,40 @@
+package com.mycompany.oficina.notificacao;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Canal que acrescenta as mensagens em um arquivo de texto, uma por linha.
+ * Útil para testes e para conferir o que teria sido enviado.
+ */
+public class CanalArquivo implements CanalDeEnvio {
+
+    private final File arquivo; // Arquivo de destino (criado se não existir)
+
+    public CanalArquivo(String caminho) {
+        this.arquivo = new File(caminho);
+    }
+
+    @Override
+    public boolean enviar(String destinatario, List<String> mensagens) {
+        File dir = arquivo.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        try (Writer writer = new FileWriter(arquivo, StandardCharsets.UTF_8, true)) {
+            LocalDateTime agora = LocalDateTime.now();
+            for (String mensagem : mensagens) {
+                writer.write(agora + " | " + destinatario + " | " + mensagem + System.lineSeparator());
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Falha ao gravar notificações em " + arquivo + ": " + e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mycompany.oficina.notificacao;
+
+import java.util.List;
+
+/**
+ * Canal que simula o envio imprimindo as mensagens no console.
+ */
+public class CanalConsole implements CanalDeEnvio {
+
+    @Override
+    public boolean enviar(String destinatario, List<String> mensagens) {
+        StringBuilder saida = new StringBuilder();
+        saida.append("\n=================[ SIMULADOR DE NOTIFICAÇÃO ]=================\n");
+        for (String mensagem : mensagens) {
+            saida.append("DESTINATÁRIO: ").append(destinatario).append(" | MENSAGEM: ").append(mensagem).append("\n");
+        }
+        saida.append("==============================================================\n");
+        System.out.println(saida);
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.mycompany.oficina.notificacao;
+
+import java.util.List;
+
+/**
+ * Meio de entrega das notificações (console, arquivo, gateway de SMS...).
+ * <p>
+ * As implementações são chamadas apenas pela thread do
+ * {@link DespachanteDeNotificacoes}, então podem bloquear sem atrasar quem
+ * gerou a mensagem.
+ */
+public interface CanalDeEnvio {
+
+    /**
+     * Entrega um lote de mensagens para um mesmo destinatário.
+     *
+     * @param destinatario telefone (ou endereço) do cliente
+     * @param mensagens mensagens, na ordem em que foram geradas
+     * @return true se o lote foi entregue; false para tentar de novo mais tarde
+     */
+    boolean enviar(String destinatario, List<String> mensagens);
+}
@@ -0,0 +1,306 @@
+package com.mycompany.oficina.notificacao;
+
+import com.google.gson.reflect.TypeToken;
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega as notificações aos clientes fora da thread que as gerou.
+ * <p>
+ * {@link #publicar} acrescenta a mensagem ao diário de aceitas (uma linha em
+ * data/notificacoes/aceitas.jsonl), coloca-a em uma fila de tamanho limitado e
+ * retorna: se a fila estiver cheia, a mensagem é recusada (retorno false) em
+ * vez de fazer a mudança de estado da OS esperar. Uma thread própria retira as
+ * mensagens da fila, junta as do mesmo destinatário em um lote e as entrega
+ * pelo {@link CanalDeEnvio} configurado.
+ * <p>
+ * Mensagens retiradas da fila e ainda não entregues ficam na caixa de saída,
+ * salva em JSON. Depois que a caixa de saída é salva com a fila vazia, o
+ * diário de aceitas é apagado; se o programa parar antes disso, as mensagens
+ * do diário voltam para a caixa de saída na próxima inicialização. Assim
+ * nenhuma mensagem aceita se perde. Falhas de entrega são tentadas de novo com
+ * espera crescente, até {@link #MAX_TENTATIVAS}.
+ */
+public class DespachanteDeNotificacoes {
+
+    public static final int CAPACIDADE_PADRAO = 1000;
+    public static final int MAX_TENTATIVAS = 5;
+
+    private static final String CHAVE_CAIXA_DE_SAIDA = "notificacoes_pendentes";
+    // Diário das mensagens aceitas e ainda não salvas na caixa de saída
+    private static final String CHAVE_DIARIO = "notificacoes";
+    private static final String PARTICAO_ACEITAS = "aceitas";
+    // Tempo que a thread espera por mais mensagens antes de enviar o lote
+    private static final long JANELA_DO_LOTE_MS = 200;
+    // Máximo de mensagens retiradas da fila por rodada
+    private static final int MAX_POR_RODADA = 500;
+    // Espera antes da primeira nova tentativa (dobra a cada falha)
+    private static final long ESPERA_INICIAL_MS = 1000;
+
+    private final BlockingQueue<Notificacao> fila;
+    private final CanalDeEnvio canal;
+    private final PersistenciaJson persistencia; // null: sem caixa de saída persistida
+    // Caixa de saída: mensagens retiradas da fila e ainda não entregues (só a thread de envio mexe)
+    private final List<Notificacao> pendentes = new ArrayList<>();
+    // Serializa a gravação no diário com a entrada na fila e com a compactação do diário
+    private final Object travaDoDiario = new Object();
+
+    private final AtomicLong enviadas = new AtomicLong();
+    private final AtomicLong recusadas = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+
+    private volatile boolean ativo;
+    private Thread threadDeEnvio;
+
+    /**
+     * @param persistencia onde salvar a caixa de saída (null para não persistir)
+     * @param canal meio de entrega
+     * @param capacidade tamanho máximo da fila
+     */
+    public DespachanteDeNotificacoes(PersistenciaJson persistencia, CanalDeEnvio canal, int capacidade) {
+        this.persistencia = persistencia;
+        this.canal = canal;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        if (persistencia != null) {
+            // Mensagens que ficaram pendentes na execução anterior
+            pendentes.addAll(persistencia.carregarLista(CHAVE_CAIXA_DE_SAIDA, new TypeToken<ArrayList<Notificacao>>() {}));
+            recuperarAceitas();
+        }
+    }
+
+    // Devolve à caixa de saída as mensagens aceitas que ainda estavam só no diário
+    private void recuperarAceitas() {
+        List<Notificacao> aceitas = persistencia.carregarDiario(CHAVE_DIARIO, PARTICAO_ACEITAS, Notificacao.class);
+        if (aceitas.isEmpty()) {
+            return;
+        }
+        Set<String> naCaixa = new HashSet<>();
+        for (Notificacao n : pendentes) {
+            naCaixa.add(n.getId());
+        }
+        int recuperadas = 0;
+        for (Notificacao n : aceitas) {
+            if (n.getId() == null || naCaixa.add(n.getId())) {
+                pendentes.add(n);
+                recuperadas++;
+            }
+        }
+        System.out.println("Notificações recuperadas do diário de aceitas: " + recuperadas);
+        if (salvarCaixaDeSaida()) {
+            persistencia.apagarDiario(CHAVE_DIARIO, PARTICAO_ACEITAS);
+        }
+    }
+
+    public DespachanteDeNotificacoes(PersistenciaJson persistencia, CanalDeEnvio canal) {
+        this(persistencia, canal, CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * Inicia a thread de envio. Chamadas repetidas não têm efeito.
+     */
+    public synchronized void iniciar() {
+        if (threadDeEnvio != null) {
+            return;
+        }
+        ativo = true;
+        threadDeEnvio = new Thread(this::executar, "despachante-notificacoes");
+        threadDeEnvio.setDaemon(true);
+        threadDeEnvio.start();
+    }
+
+    /**
+     * Para a thread de envio depois de esvaziar a fila, e salva a caixa de saída.
+     *
+     * @param esperaMaximaMs tempo máximo de espera pela thread
+     */
+    public void encerrar(long esperaMaximaMs) {
+        Thread thread;
+        synchronized (this) {
+            thread = threadDeEnvio;
+            ativo = false;
+        }
+        if (thread == null) {
+            return;
+        }
+        try {
+            thread.join(esperaMaximaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Grava a mensagem no diário de aceitas e a coloca na fila de envio, sem
+     * esperar pela entrega.
+     *
+     * @param destinatario telefone do cliente
+     * @param mensagem texto da mensagem
+     * @return true se a mensagem foi aceita (e gravada); false se a fila está
+     *         cheia, a gravação falhou, o despachante foi encerrado ou os dados
+     *         são inválidos
+     */
+    public boolean publicar(String destinatario, String mensagem) {
+        if (destinatario == null || destinatario.isBlank() || mensagem == null || !ativo) {
+            return false;
+        }
+        Notificacao notificacao = new Notificacao(destinatario, mensagem);
+        synchronized (travaDoDiario) {
+            // Só a thread de envio retira da fila: havendo vaga agora, o offer abaixo não falha
+            if (fila.remainingCapacity() == 0
+                    || (persistencia != null && !persistencia.anexarAoDiario(CHAVE_DIARIO, PARTICAO_ACEITAS, notificacao))) {
+                recusadas.incrementAndGet();
+                return false;
+            }
+            fila.offer(notificacao);
+        }
+        return true;
+    }
+
+    // Laço da thread de envio
+    private void executar() {
+        while (ativo || !fila.isEmpty()) {
+            try {
+                int recebidas = receberLote();
+                if (recebidas > 0 && salvarCaixaDeSaida()) {
+                    compactarDiario(); // Aceitas ficam salvas antes da tentativa de entrega
+                }
+                if (enviarVencidas()) {
+                    salvarCaixaDeSaida();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                System.err.println("Erro no envio de notificações: " + e.getMessage());
+            }
+        }
+        if (salvarCaixaDeSaida()) {
+            compactarDiario();
+        }
+    }
+
+    /*
+     * Apaga o diário de aceitas se tudo o que foi gravado nele já saiu da fila
+     * (e, portanto, está na caixa de saída que acabou de ser salva). Com a
+     * trava, nenhuma mensagem é gravada no diário entre a verificação e a
+     * remoção.
+     */
+    private void compactarDiario() {
+        if (persistencia == null) {
+            return;
+        }
+        synchronized (travaDoDiario) {
+            if (fila.isEmpty()) {
+                persistencia.apagarDiario(CHAVE_DIARIO, PARTICAO_ACEITAS);
+            }
+        }
+    }
+
+    // Espera a primeira mensagem e junta as que chegarem dentro da janela do lote
+    private int receberLote() throws InterruptedException {
+        Notificacao primeira = fila.poll(tempoAteProximaTentativa(), TimeUnit.MILLISECONDS);
+        if (primeira == null) {
+            return 0;
+        }
+        pendentes.add(primeira);
+        int recebidas = 1;
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(JANELA_DO_LOTE_MS);
+        while (recebidas < MAX_POR_RODADA) {
+            long restante = limite - System.nanoTime();
+            Notificacao proxima = restante > 0 ? fila.poll(restante, TimeUnit.NANOSECONDS) : fila.poll();
+            if (proxima == null) {
+                break;
+            }
+            pendentes.add(proxima);
+            recebidas++;
+        }
+        return recebidas;
+    }
+
+    // Quanto esperar por novas mensagens antes de repetir uma entrega que falhou
+    private long tempoAteProximaTentativa() {
+        long agora = System.currentTimeMillis();
+        long espera = ativo ? 1000 : 0;
+        for (Notificacao n : pendentes) {
+            espera = Math.min(espera, Math.max(0, n.getProximaTentativaMs() - agora));
+        }
+        return espera;
+    }
+
+    // Entrega, em um lote por destinatário, as mensagens cuja tentativa já venceu
+    private boolean enviarVencidas() {
+        long agora = System.currentTimeMillis();
+        Map<String, List<Notificacao>> porDestinatario = new LinkedHashMap<>();
+        for (Notificacao n : pendentes) {
+            if (n.getProximaTentativaMs() <= agora) {
+                porDestinatario.computeIfAbsent(n.getDestinatario(), d -> new ArrayList<>()).add(n);
+            }
+        }
+        if (porDestinatario.isEmpty()) {
+            return false;
+        }
+        for (Map.Entry<String, List<Notificacao>> lote : porDestinatario.entrySet()) {
+            List<String> textos = new ArrayList<>();
+            for (Notificacao n : lote.getValue()) {
+                textos.add(n.getMensagem());
+            }
+            boolean entregue;
+            try {
+                entregue = canal.enviar(lote.getKey(), textos);
+            } catch (RuntimeException e) {
+                System.err.println("Falha no canal de notificações: " + e.getMessage());
+                entregue = false;
+            }
+            if (entregue) {
+                pendentes.removeAll(lote.getValue());
+                enviadas.addAndGet(lote.getValue().size());
+            } else {
+                for (Notificacao n : lote.getValue()) {
+                    n.registrarFalha(agora + (ESPERA_INICIAL_MS << Math.min(n.getTentativas(), 16)));
+                }
+            }
+        }
+        descartarEsgotadas();
+        return true;
+    }
+
+    // Mensagens que já esgotaram as tentativas saem da caixa de saída
+    private void descartarEsgotadas() {
+        Iterator<Notificacao> it = pendentes.iterator();
+        while (it.hasNext()) {
+            Notificacao n = it.next();
+            if (n.getTentativas() >= MAX_TENTATIVAS) {
+                System.err.println("Notificação descartada após " + MAX_TENTATIVAS + " tentativas: " + n);
+                falhas.incrementAndGet();
+                it.remove();
+            }
+        }
+    }
+
+    private boolean salvarCaixaDeSaida() {
+        return persistencia == null || persistencia.salvarLista(CHAVE_CAIXA_DE_SAIDA, new ArrayList<>(pendentes));
+    }
+
+    // --- Métricas ---
+    public long getEnviadas() { return enviadas.get(); }
+    public long getRecusadas() { return recusadas.get(); }
+    public long getFalhas() { return falhas.get(); }
+    public int getTamanhoDaFila() { return fila.size(); }
+
+    @Override
+    public String toString() {
+        return String.format("DespachanteDeNotificacoes{fila=%d, enviadas=%d, recusadas=%d, falhas=%d}",
+                getTamanhoDaFila(), getEnviadas(), getRecusadas(), getFalhas());
+    }
+}
@@ -0,0 +1,47 @@
+package com.mycompany.oficina.notificacao;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Mensagem a ser entregue a um cliente (por SMS, WhatsApp etc.).
+ * Enquanto não é entregue, fica no diário de aceitas e depois na caixa de
+ * saída persistida em JSON.
+ */
+public class Notificacao {
+
+    private final String id; // Identifica a mensagem ao juntar diário e caixa de saída (null em mensagens antigas)
+    private final String destinatario; // Telefone (ou outro endereço) do cliente
+    private final String mensagem; // Texto da mensagem
+    private final LocalDateTime criadaEm; // Momento em que a mensagem foi gerada
+    private int tentativas; // Tentativas de entrega que falharam
+    private transient long proximaTentativaMs; // Quando tentar de novo (System.currentTimeMillis); não vai para o JSON
+
+    public Notificacao(String destinatario, String mensagem) {
+        this.id = UUID.randomUUID().toString();
+        this.destinatario = destinatario;
+        this.mensagem = mensagem;
+        this.criadaEm = LocalDateTime.now();
+    }
+
+    public String getId() { return id; }
+    public String getDestinatario() { return destinatario; }
+    public String getMensagem() { return mensagem; }
+    public LocalDateTime getCriadaEm() { return criadaEm; }
+    public int getTentativas() { return tentativas; }
+
+    // Controle de novas tentativas, usado pelo despachante
+    void registrarFalha(long proximaTentativaMs) {
+        this.tentativas++;
+        this.proximaTentativaMs = proximaTentativaMs;
+    }
+
+    long getProximaTentativaMs() {
+        return proximaTentativaMs;
+    }
+
+    @Override
+    public String toString() {
+        return "Notificacao{para=" + destinatario + ", tentativas=" + tentativas + ", mensagem=" + mensagem + "}";
+    }
+}
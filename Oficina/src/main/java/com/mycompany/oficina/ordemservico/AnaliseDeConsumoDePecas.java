@@ -0,0 +1,318 @@
+package com.mycompany.oficina.ordemservico;
+
+import com.mycompany.oficina.agendamento.TipoServico;
+import com.mycompany.oficina.loja.Produto;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+
+/**
+ * Análise em lote do consumo de peças a partir do histórico de OS.
+ * <p>
+ * O histórico é percorrido uma única vez, em paralelo: cada thread acumula o
+ * consumo das OS que recebe em mapas próprios, e os mapas parciais são
+ * somados no final, sem trava. Para cada produto sai a série semanal, o
+ * consumo por {@link TipoServico} e a média semanal das últimas semanas; com
+ * o catálogo atual, a média vira quantidade de reposição e as sugestões de
+ * compra são agrupadas por fornecedor.
+ * <p>
+ * A data de cada peça é a do evento em que ela foi adicionada à OS; OS antigas,
+ * sem histórico de eventos, usam a data de abertura. OS canceladas não contam,
+ * pois as peças voltaram ao estoque.
+ */
+public class AnaliseDeConsumoDePecas {
+
+    public static final int JANELA_PADRAO_SEMANAS = 12;
+    public static final int PRAZO_DE_ENTREGA_PADRAO_SEMANAS = 1;
+    public static final int COBERTURA_PADRAO_SEMANAS = 4;
+
+    // Semanas completas usadas na média de consumo
+    private final int janelaSemanas;
+    // Tempo entre o pedido e a chegada das peças
+    private final int prazoDeEntregaSemanas;
+    // Quantas semanas de consumo cada compra deve cobrir
+    private final int coberturaSemanas;
+
+    /**
+     * Análise com os parâmetros padrão (12 semanas de média, 1 de entrega, 4 de cobertura).
+     */
+    public AnaliseDeConsumoDePecas() {
+        this(JANELA_PADRAO_SEMANAS, PRAZO_DE_ENTREGA_PADRAO_SEMANAS, COBERTURA_PADRAO_SEMANAS);
+    }
+
+    /**
+     * @param janelaSemanas semanas completas usadas na média de consumo
+     * @param prazoDeEntregaSemanas semanas entre o pedido e a chegada
+     * @param coberturaSemanas semanas de consumo que cada compra deve cobrir
+     * @throws IllegalArgumentException se a janela não for positiva ou os prazos forem negativos
+     */
+    public AnaliseDeConsumoDePecas(int janelaSemanas, int prazoDeEntregaSemanas, int coberturaSemanas) {
+        if (janelaSemanas <= 0 || prazoDeEntregaSemanas < 0 || coberturaSemanas < 0) {
+            throw new IllegalArgumentException("Parâmetros inválidos para a análise de consumo.");
+        }
+        this.janelaSemanas = janelaSemanas;
+        this.prazoDeEntregaSemanas = prazoDeEntregaSemanas;
+        this.coberturaSemanas = coberturaSemanas;
+    }
+
+    /**
+     * Executa a análise.
+     *
+     * @param historico fluxo de OS (de preferência paralelo, ver
+     *        {@link GerenciadorOrdemDeServico#streamHistorico()})
+     * @param catalogo produtos atuais do estoque
+     * @param hoje data de referência
+     * @return consumo por produto e sugestões de compra
+     */
+    public RelatorioDeConsumo executar(Stream<OrdemDeServico> historico, Collection<Produto> catalogo, LocalDate hoje) {
+        LocalDate semanaAtual = hoje.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate inicioDaJanela = semanaAtual.minusWeeks(janelaSemanas);
+
+        Map<String, ConsumoDoProduto> consumo = historico.collect(Collector.of(
+                HashMap<String, ConsumoDoProduto>::new,
+                (parcial, os) -> acumular(parcial, os, inicioDaJanela, semanaAtual),
+                AnaliseDeConsumoDePecas::combinar));
+
+        List<SugestaoDeCompra> sugestoes = new ArrayList<>();
+        for (Produto produto : catalogo) {
+            ConsumoDoProduto c = consumo.get(produto.getIdProduto());
+            double semanal = c == null ? 0 : c.getConsumoNaJanela() / (double) janelaSemanas;
+            SugestaoDeCompra sugestao = sugerir(produto, semanal);
+            if (sugestao != null) {
+                sugestoes.add(sugestao);
+            }
+        }
+        return new RelatorioDeConsumo(hoje, janelaSemanas, new TreeMap<>(consumo), sugestoes);
+    }
+
+    // Soma as peças de uma OS ao acumulador da thread
+    private static void acumular(Map<String, ConsumoDoProduto> parcial, OrdemDeServico os,
+                                 LocalDate inicioDaJanela, LocalDate semanaAtual) {
+        if (os.getCodigoEstado() == CodigoEstadoOS.CANCELADA) {
+            return;
+        }
+        TipoServico tipo = os.getTipoServico();
+        boolean temEventosDePeca = false;
+        for (EventoOS evento : os.getHistorico()) {
+            if (evento.getTipo() == TipoEventoOS.PECA_ADICIONADA) {
+                temEventosDePeca = true;
+                parcial.computeIfAbsent(evento.getIdProduto(), ConsumoDoProduto::new)
+                        .registrar(evento.getInstante().toLocalDate(), tipo, evento.getQuantidade(), inicioDaJanela, semanaAtual);
+            }
+        }
+        if (temEventosDePeca || os.getListaDePecasUtilizadas() == null || os.getDataAbertura() == null) {
+            return;
+        }
+        LocalDate data = os.getDataAbertura().toLocalDate();
+        for (PecaUtilizada peca : os.getListaDePecasUtilizadas()) {
+            if (peca.getProdutoOriginal() != null) {
+                parcial.computeIfAbsent(peca.getProdutoOriginal().getIdProduto(), ConsumoDoProduto::new)
+                        .registrar(data, tipo, peca.getQuantidadeUtilizada(), inicioDaJanela, semanaAtual);
+            }
+        }
+    }
+
+    // Junta os acumuladores de duas threads
+    private static Map<String, ConsumoDoProduto> combinar(Map<String, ConsumoDoProduto> a, Map<String, ConsumoDoProduto> b) {
+        if (a.size() < b.size()) {
+            Map<String, ConsumoDoProduto> troca = a;
+            a = b;
+            b = troca;
+        }
+        for (Map.Entry<String, ConsumoDoProduto> entrada : b.entrySet()) {
+            ConsumoDoProduto existente = a.get(entrada.getKey());
+            if (existente == null) {
+                a.put(entrada.getKey(), entrada.getValue());
+            } else {
+                existente.somar(entrada.getValue());
+            }
+        }
+        return a;
+    }
+
+    // Pede quando o saldo não cobre o prazo de entrega mais o mínimo; a compra cobre a entrega e a cobertura
+    private SugestaoDeCompra sugerir(Produto produto, double consumoSemanal) {
+        int disponivel = produto.getQuantidade();
+        int minimo = produto.getEstoqueMinimo();
+        int pontoDePedido = (int) Math.ceil(consumoSemanal * prazoDeEntregaSemanas) + minimo;
+        if (disponivel > pontoDePedido || (consumoSemanal == 0 && disponivel >= minimo)) {
+            return null;
+        }
+        int alvo = (int) Math.ceil(consumoSemanal * (prazoDeEntregaSemanas + coberturaSemanas)) + minimo;
+        int quantidade = alvo - disponivel;
+        return quantidade > 0 ? new SugestaoDeCompra(produto, quantidade, consumoSemanal) : null;
+    }
+
+    /**
+     * Consumo de um produto no histórico analisado.
+     */
+    public static final class ConsumoDoProduto {
+
+        private final String idProduto;
+        private int total;
+        private int consumoNaJanela;
+        // Segunda-feira da semana -> unidades
+        private final TreeMap<LocalDate, Integer> porSemana = new TreeMap<>();
+        // Tipo de serviço -> unidades (OS sem tipo ficam só no total)
+        private final Map<TipoServico, Integer> porTipoServico = new EnumMap<>(TipoServico.class);
+        // Tipo de serviço -> unidades dentro da janela da média
+        private final Map<TipoServico, Integer> porTipoServicoNaJanela = new EnumMap<>(TipoServico.class);
+
+        private ConsumoDoProduto(String idProduto) {
+            this.idProduto = idProduto;
+        }
+
+        private void registrar(LocalDate data, TipoServico tipo, int quantidade, LocalDate inicioDaJanela, LocalDate semanaAtual) {
+            LocalDate semana = data.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            boolean naJanela = !semana.isBefore(inicioDaJanela) && semana.isBefore(semanaAtual);
+            total += quantidade;
+            porSemana.merge(semana, quantidade, Integer::sum);
+            if (naJanela) {
+                consumoNaJanela += quantidade;
+            }
+            if (tipo != null) {
+                porTipoServico.merge(tipo, quantidade, Integer::sum);
+                if (naJanela) {
+                    porTipoServicoNaJanela.merge(tipo, quantidade, Integer::sum);
+                }
+            }
+        }
+
+        private void somar(ConsumoDoProduto outro) {
+            total += outro.total;
+            consumoNaJanela += outro.consumoNaJanela;
+            outro.porSemana.forEach((semana, q) -> porSemana.merge(semana, q, Integer::sum));
+            outro.porTipoServico.forEach((tipo, q) -> porTipoServico.merge(tipo, q, Integer::sum));
+            outro.porTipoServicoNaJanela.forEach((tipo, q) -> porTipoServicoNaJanela.merge(tipo, q, Integer::sum));
+        }
+
+        public String getIdProduto() { return idProduto; }
+        public int getTotal() { return total; }
+        public int getConsumoNaJanela() { return consumoNaJanela; }
+        public Map<LocalDate, Integer> getPorSemana() { return Collections.unmodifiableMap(porSemana); }
+        public Map<TipoServico, Integer> getPorTipoServico() { return Collections.unmodifiableMap(porTipoServico); }
+        public Map<TipoServico, Integer> getPorTipoServicoNaJanela() { return Collections.unmodifiableMap(porTipoServicoNaJanela); }
+    }
+
+    /**
+     * Sugestão de compra de um produto.
+     */
+    public static final class SugestaoDeCompra {
+
+        private final Produto produto;
+        private final int quantidade;
+        private final double consumoSemanal;
+
+        private SugestaoDeCompra(Produto produto, int quantidade, double consumoSemanal) {
+            this.produto = produto;
+            this.quantidade = quantidade;
+            this.consumoSemanal = consumoSemanal;
+        }
+
+        public Produto getProduto() { return produto; }
+        public int getQuantidade() { return quantidade; }
+        public double getConsumoSemanal() { return consumoSemanal; }
+
+        /**
+         * @return fornecedor do produto ("Sem fornecedor" se não informado)
+         */
+        public String getFornecedor() {
+            String fornecedor = produto.getFornecedor();
+            return fornecedor == null || fornecedor.isBlank() ? "Sem fornecedor" : fornecedor;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s: comprar %d (saldo %d, mínimo %d, consumo %.1f/semana)",
+                    produto.getIdProduto(), produto.getNome(), quantidade,
+                    produto.getQuantidade(), produto.getEstoqueMinimo(), consumoSemanal);
+        }
+    }
+
+    /**
+     * Resultado de uma execução da análise.
+     */
+    public static final class RelatorioDeConsumo {
+
+        private final LocalDate dataDeReferencia;
+        private final int janelaSemanas;
+        private final Map<String, ConsumoDoProduto> consumo;
+        private final List<SugestaoDeCompra> sugestoes;
+
+        private RelatorioDeConsumo(LocalDate dataDeReferencia, int janelaSemanas,
+                                   Map<String, ConsumoDoProduto> consumo, List<SugestaoDeCompra> sugestoes) {
+            this.dataDeReferencia = dataDeReferencia;
+            this.janelaSemanas = janelaSemanas;
+            this.consumo = Collections.unmodifiableMap(consumo);
+            this.sugestoes = Collections.unmodifiableList(sugestoes);
+        }
+
+        public LocalDate getDataDeReferencia() { return dataDeReferencia; }
+
+        /**
+         * @return consumo por ID do produto, em ordem de ID
+         */
+        public Map<String, ConsumoDoProduto> getConsumo() { return consumo; }
+
+        public List<SugestaoDeCompra> getSugestoes() { return sugestoes; }
+
+        /**
+         * Agrupa as sugestões por fornecedor, para montar um pedido por fornecedor.
+         *
+         * @return fornecedor -> sugestões, em ordem alfabética de fornecedor
+         */
+        public Map<String, List<SugestaoDeCompra>> getSugestoesPorFornecedor() {
+            Map<String, List<SugestaoDeCompra>> porFornecedor = new TreeMap<>();
+            for (SugestaoDeCompra sugestao : sugestoes) {
+                porFornecedor.computeIfAbsent(sugestao.getFornecedor(), f -> new ArrayList<>()).add(sugestao);
+            }
+            return porFornecedor;
+        }
+
+        /**
+         * Monta o relatório em texto: consumo por produto e pedidos por fornecedor.
+         *
+         * @return relatório formatado
+         */
+        public String gerarRelatorio() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("--- Consumo de peças (referência ").append(dataDeReferencia)
+              .append(", média das últimas ").append(janelaSemanas).append(" semanas) ---\n");
+            if (consumo.isEmpty()) {
+                sb.append("Nenhuma peça utilizada no histórico.\n");
+            }
+            for (ConsumoDoProduto c : consumo.values()) {
+                sb.append(String.format("%s: total %d, %.1f/semana", c.getIdProduto(), c.getTotal(),
+                        c.getConsumoNaJanela() / (double) janelaSemanas));
+                if (!c.getPorTipoServicoNaJanela().isEmpty()) {
+                    sb.append(" ").append(c.getPorTipoServicoNaJanela());
+                }
+                sb.append('\n');
+            }
+            sb.append("--- Sugestões de compra ---\n");
+            Map<String, List<SugestaoDeCompra>> porFornecedor = getSugestoesPorFornecedor();
+            if (porFornecedor.isEmpty()) {
+                sb.append("Nenhuma compra necessária.\n");
+            }
+            for (Map.Entry<String, List<SugestaoDeCompra>> pedido : porFornecedor.entrySet()) {
+                sb.append("Fornecedor ").append(pedido.getKey()).append(":\n");
+                for (SugestaoDeCompra sugestao : pedido.getValue()) {
+                    sb.append("  ").append(sugestao).append('\n');
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.mycompany.oficina.ordemservico;
+
+import com.mycompany.oficina.agendamento.TipoServico;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Análise do tempo que as OS passam em cada etapa (Aguardando, Em Inspeção,
+ * Em Serviço), por mecânico e por tipo de serviço.
+ * <p>
+ * É alimentada a cada transição: a duração da etapa que terminou é a diferença
+ * entre o evento atual e o evento em que a OS entrou naquela etapa, e vai para
+ * os histogramas correspondentes. Nenhuma OS precisa ser relida para o relatório.
+ */
+public class AnaliseDeEtapasOS {
+
+    // Etapa -> CPF do mecânico -> histograma
+    private final Map<CodigoEstadoOS, Map<String, HistogramaLatencia>> porMecanico = new EnumMap<>(CodigoEstadoOS.class);
+    // Etapa -> tipo de serviço -> histograma
+    private final Map<CodigoEstadoOS, Map<TipoServico, HistogramaLatencia>> porTipoServico = new EnumMap<>(CodigoEstadoOS.class);
+    // Etapa -> histograma de todas as OS
+    private final Map<CodigoEstadoOS, HistogramaLatencia> geral = new EnumMap<>(CodigoEstadoOS.class);
+
+    /**
+     * Registra a última transição da OS (chamado logo após a mudança de estado).
+     *
+     * @param os OS que acabou de mudar de estado
+     */
+    public synchronized void registrarUltimaTransicao(OrdemDeServico os) {
+        List<EventoOS> historico = os.getHistorico();
+        int ultimo = historico.size() - 1;
+        if (ultimo >= 0 && historico.get(ultimo).getTipo() == TipoEventoOS.TRANSICAO) {
+            registrarEtapa(cpfDoMecanico(os), os.getTipoServico(), historico, ultimo);
+        }
+    }
+
+    /**
+     * Registra todas as etapas já concluídas de uma OS (usado na carga do sistema).
+     *
+     * @param os OS com histórico
+     */
+    public synchronized void registrarHistorico(OrdemDeServico os) {
+        registrarHistorico(cpfDoMecanico(os), os.getTipoServico(), os.getHistorico());
+    }
+
+    /**
+     * Registra todas as etapas concluídas de um histórico de eventos, sem
+     * precisar da OS (usado para as OS arquivadas, lidas só do diário).
+     *
+     * @param cpfMecanico CPF do mecânico responsável (pode ser null)
+     * @param tipoServico tipo de serviço da OS (pode ser null)
+     * @param historico eventos da OS em ordem de ocorrência
+     */
+    public synchronized void registrarHistorico(String cpfMecanico, TipoServico tipoServico, List<EventoOS> historico) {
+        for (int i = 0; i < historico.size(); i++) {
+            if (historico.get(i).getTipo() == TipoEventoOS.TRANSICAO) {
+                registrarEtapa(cpfMecanico, tipoServico, historico, i);
+            }
+        }
+    }
+
+    /**
+     * Acrescenta a esta análise todos os histogramas de outra (usado para
+     * juntar os histogramas salvos das OS arquivadas aos das OS ativas).
+     *
+     * @param outra análise somada (não é alterada)
+     */
+    public synchronized void somar(AnaliseDeEtapasOS outra) {
+        synchronized (outra) {
+            for (Map.Entry<CodigoEstadoOS, HistogramaLatencia> etapa : outra.geral.entrySet()) {
+                geral.computeIfAbsent(etapa.getKey(), e -> new HistogramaLatencia()).somar(etapa.getValue());
+            }
+            for (Map.Entry<CodigoEstadoOS, Map<String, HistogramaLatencia>> etapa : outra.porMecanico.entrySet()) {
+                Map<String, HistogramaLatencia> destino = porMecanico.computeIfAbsent(etapa.getKey(), e -> new TreeMap<>());
+                for (Map.Entry<String, HistogramaLatencia> m : etapa.getValue().entrySet()) {
+                    destino.computeIfAbsent(m.getKey(), c -> new HistogramaLatencia()).somar(m.getValue());
+                }
+            }
+            for (Map.Entry<CodigoEstadoOS, Map<TipoServico, HistogramaLatencia>> etapa : outra.porTipoServico.entrySet()) {
+                Map<TipoServico, HistogramaLatencia> destino = porTipoServico.computeIfAbsent(etapa.getKey(), e -> new EnumMap<>(TipoServico.class));
+                for (Map.Entry<TipoServico, HistogramaLatencia> t : etapa.getValue().entrySet()) {
+                    destino.computeIfAbsent(t.getKey(), c -> new HistogramaLatencia()).somar(t.getValue());
+                }
+            }
+        }
+    }
+
+    private static String cpfDoMecanico(OrdemDeServico os) {
+        return os.getMecanicoResponsavel() != null ? os.getMecanicoResponsavel().getCpf() : null;
+    }
+
+    // Mede a etapa encerrada pela transição na posição indicada
+    private void registrarEtapa(String cpfMecanico, TipoServico tipoServico, List<EventoOS> historico, int posicao) {
+        EventoOS saida = historico.get(posicao);
+        // Procura, para trás, o evento em que a OS entrou na etapa (peças adicionadas não contam)
+        for (int i = posicao - 1; i >= 0; i--) {
+            EventoOS entrada = historico.get(i);
+            if (entrada.mudaEstado()) {
+                if (entrada.getEstadoNovo() == saida.getEstadoAnterior()) {
+                    Duration duracao = Duration.between(entrada.getInstante(), saida.getInstante());
+                    registrar(saida.getEstadoAnterior(), cpfMecanico, tipoServico, duracao);
+                }
+                return;
+            }
+        }
+    }
+
+    private void registrar(CodigoEstadoOS etapa, String cpfMecanico, TipoServico tipoServico, Duration duracao) {
+        geral.computeIfAbsent(etapa, e -> new HistogramaLatencia()).registrar(duracao);
+        if (cpfMecanico != null) {
+            porMecanico.computeIfAbsent(etapa, e -> new TreeMap<>())
+                    .computeIfAbsent(cpfMecanico, c -> new HistogramaLatencia())
+                    .registrar(duracao);
+        }
+        if (tipoServico != null) {
+            porTipoServico.computeIfAbsent(etapa, e -> new EnumMap<>(TipoServico.class))
+                    .computeIfAbsent(tipoServico, t -> new HistogramaLatencia())
+                    .registrar(duracao);
+        }
+    }
+
+    /**
+     * @param etapa etapa medida
+     * @return cópia do histograma de todas as OS naquela etapa
+     */
+    public synchronized HistogramaLatencia getHistograma(CodigoEstadoOS etapa) {
+        HistogramaLatencia h = geral.get(etapa);
+        return h == null ? new HistogramaLatencia() : h.copiar();
+    }
+
+    /**
+     * @param etapa etapa medida
+     * @param cpfMecanico CPF do mecânico
+     * @return cópia do histograma do mecânico naquela etapa
+     */
+    public synchronized HistogramaLatencia getHistogramaPorMecanico(CodigoEstadoOS etapa, String cpfMecanico) {
+        HistogramaLatencia h = porMecanico.getOrDefault(etapa, Map.of()).get(cpfMecanico);
+        return h == null ? new HistogramaLatencia() : h.copiar();
+    }
+
+    /**
+     * @param etapa etapa medida
+     * @param tipo tipo de serviço
+     * @return cópia do histograma do tipo de serviço naquela etapa
+     */
+    public synchronized HistogramaLatencia getHistogramaPorTipoServico(CodigoEstadoOS etapa, TipoServico tipo) {
+        HistogramaLatencia h = porTipoServico.getOrDefault(etapa, Map.of()).get(tipo);
+        return h == null ? new HistogramaLatencia() : h.copiar();
+    }
+
+    /**
+     * Gera o relatório de tempo por etapa, geral, por mecânico e por tipo de serviço.
+     *
+     * @return relatório formatado
+     */
+    public synchronized String gerarRelatorio() {
+        StringBuilder relatorio = new StringBuilder();
+        relatorio.append("\n================[ TEMPO POR ETAPA DAS OS ]================\n");
+        if (geral.isEmpty()) {
+            relatorio.append("Nenhuma etapa concluída registrada.\n");
+        }
+        for (Map.Entry<CodigoEstadoOS, HistogramaLatencia> etapa : geral.entrySet()) {
+            relatorio.append("\n").append(etapa.getKey().getStatus()).append(": ").append(etapa.getValue()).append("\n");
+            for (Map.Entry<String, HistogramaLatencia> m : porMecanico.getOrDefault(etapa.getKey(), Map.of()).entrySet()) {
+                relatorio.append(String.format("  Mecânico %-15s %s\n", m.getKey(), m.getValue()));
+            }
+            for (Map.Entry<TipoServico, HistogramaLatencia> t : porTipoServico.getOrDefault(etapa.getKey(), Map.of()).entrySet()) {
+                relatorio.append(String.format("  Serviço  %-15s %s\n", t.getKey(), t.getValue()));
+            }
+        }
+        relatorio.append("==========================================================\n");
+        return relatorio.toString();
+    }
+}
@@ -0,0 +1,92 @@
+package com.mycompany.oficina.ordemservico;
+
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Diário dos eventos de todas as OS, somente acréscimo.
+ * <p>
+ * Cada evento é uma linha JSON em data/eventos_os/AAAA-MM.jsonl (mês do
+ * evento). Registrar um evento acrescenta uma linha e não regrava nenhum
+ * arquivo, qualquer que seja o tamanho do histórico. Os eventos continuam no
+ * diário quando a OS é arquivada.
+ */
+final class DiarioDeEventosOS {
+
+    static final String CHAVE = "eventos_os";
+
+    private final PersistenciaJson persistencia;
+
+    DiarioDeEventosOS(PersistenciaJson persistencia) {
+        this.persistencia = persistencia;
+    }
+
+    /**
+     * Acrescenta eventos de uma OS ao diário do mês de cada evento.
+     *
+     * @param os OS dos eventos
+     * @param eventos eventos em ordem de ocorrência
+     * @return true se todos foram gravados
+     */
+    boolean anexar(OrdemDeServico os, List<EventoOS> eventos) {
+        Map<String, List<EventoOS>> porMes = new LinkedHashMap<>();
+        for (EventoOS evento : eventos) {
+            porMes.computeIfAbsent(YearMonth.from(evento.getInstante()).toString(), m -> new ArrayList<>()).add(evento.daOS(os));
+        }
+        boolean gravou = true;
+        for (Map.Entry<String, List<EventoOS>> mes : porMes.entrySet()) {
+            gravou &= persistencia.anexarLoteAoDiario(CHAVE, mes.getKey(), mes.getValue());
+        }
+        return gravou;
+    }
+
+    /**
+     * Indica se o diário ainda não tem nenhum mês gravado.
+     *
+     * @return true se o diário está vazio
+     */
+    boolean vazio() {
+        return persistencia.listarDiarios(CHAVE).isEmpty();
+    }
+
+    /**
+     * Lê os eventos das OS informadas, só nos meses do intervalo. Os eventos
+     * de uma OS ficam entre o mês de abertura e o de encerramento, então os
+     * demais meses do diário não são abertos.
+     *
+     * @param desde primeiro mês lido (null = desde o início do diário)
+     * @param ate último mês lido (null = até o fim do diário)
+     * @param numerosOS números das OS de interesse
+     * @return número da OS -> eventos da OS, em ordem de ocorrência
+     */
+    Map<String, List<EventoOS>> carregar(YearMonth desde, YearMonth ate, Set<String> numerosOS) {
+        Map<String, List<EventoOS>> porOS = new HashMap<>();
+        if (numerosOS.isEmpty()) {
+            return porOS;
+        }
+        for (String particao : persistencia.listarDiarios(CHAVE)) {
+            YearMonth mes = YearMonth.parse(particao);
+            if ((desde != null && mes.isBefore(desde)) || (ate != null && mes.isAfter(ate))) {
+                continue;
+            }
+            for (EventoOS evento : persistencia.carregarDiario(CHAVE, particao, EventoOS.class)) {
+                if (evento.getInstante() != null && numerosOS.contains(evento.getNumeroOS())) {
+                    porOS.computeIfAbsent(evento.getNumeroOS(), n -> new ArrayList<>()).add(evento);
+                }
+            }
+        }
+        // Eventos migrados de OS antigas podem ter sido gravados depois de outros do mesmo mês
+        for (List<EventoOS> eventos : porOS.values()) {
+            eventos.sort(Comparator.comparing(EventoOS::getInstante));
+        }
+        return porOS;
+    }
+}
@@ -0,0 +1,126 @@
+package com.mycompany.oficina.ordemservico;
+
+import com.mycompany.oficina.agendamento.TipoServico;
+import com.mycompany.oficina.loja.Produto;
+import com.mycompany.oficina.ordemservico.stateOS.AcaoOS;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento do histórico de uma Ordem de Serviço.
+ * <p>
+ * O histórico só recebe eventos novos no fim (nada é alterado ou removido) e é
+ * gravado no {@link DiarioDeEventosOS}, uma linha por evento. A partir dele é
+ * possível reconstruir o estado da OS e medir quanto tempo ela passou em cada
+ * etapa. No diário cada evento leva o número da OS; a abertura leva também o
+ * mecânico e o tipo de serviço, para que os tempos por etapa possam ser
+ * calculados sem carregar a OS (inclusive as arquivadas).
+ */
+public class EventoOS {
+
+    private final TipoEventoOS tipo; // Tipo do evento
+    private final LocalDateTime instante; // Momento em que o evento ocorreu
+    private final AcaoOS acao; // Ação aplicada (só em transições)
+    private final CodigoEstadoOS estadoAnterior; // Estado antes do evento (null na abertura)
+    private final CodigoEstadoOS estadoNovo; // Estado depois do evento
+    private final String idProduto; // Peça adicionada (só em PECA_ADICIONADA)
+    private final int quantidade; // Quantidade da peça adicionada
+    private final String numeroOS; // OS do evento (preenchido só no diário)
+    private final String cpfMecanico; // Mecânico da OS (só na abertura, no diário)
+    private final TipoServico tipoServico; // Tipo de serviço da OS (só na abertura, no diário)
+
+    private EventoOS(TipoEventoOS tipo, LocalDateTime instante, AcaoOS acao, CodigoEstadoOS estadoAnterior,
+                     CodigoEstadoOS estadoNovo, String idProduto, int quantidade) {
+        this(tipo, instante, acao, estadoAnterior, estadoNovo, idProduto, quantidade, null, null, null);
+    }
+
+    private EventoOS(TipoEventoOS tipo, LocalDateTime instante, AcaoOS acao, CodigoEstadoOS estadoAnterior,
+                     CodigoEstadoOS estadoNovo, String idProduto, int quantidade,
+                     String numeroOS, String cpfMecanico, TipoServico tipoServico) {
+        this.tipo = tipo;
+        this.instante = instante;
+        this.acao = acao;
+        this.estadoAnterior = estadoAnterior;
+        this.estadoNovo = estadoNovo;
+        this.idProduto = idProduto;
+        this.quantidade = quantidade;
+        this.numeroOS = numeroOS;
+        this.cpfMecanico = cpfMecanico;
+        this.tipoServico = tipoServico;
+    }
+
+    /**
+     * Cópia do evento identificada com a OS, como é gravada no diário. Na
+     * abertura, inclui o mecânico e o tipo de serviço da OS.
+     *
+     * @param os OS a que o evento pertence
+     * @return evento com o número da OS
+     */
+    EventoOS daOS(OrdemDeServico os) {
+        boolean abertura = tipo == TipoEventoOS.ABERTURA;
+        String cpf = abertura && os.getMecanicoResponsavel() != null ? os.getMecanicoResponsavel().getCpf() : null;
+        return new EventoOS(tipo, instante, acao, estadoAnterior, estadoNovo, idProduto, quantidade,
+                os.getNumeroOS(), cpf, abertura ? os.getTipoServico() : null);
+    }
+
+    /**
+     * Evento de abertura da OS, que entra no estado inicial.
+     *
+     * @param instante data de abertura
+     * @return evento criado
+     */
+    public static EventoOS abertura(LocalDateTime instante) {
+        return new EventoOS(TipoEventoOS.ABERTURA, instante, null, null, CodigoEstadoOS.AGUARDANDO, null, 0);
+    }
+
+    /**
+     * Evento de mudança de estado.
+     *
+     * @param instante momento da transição
+     * @param acao ação aplicada
+     * @param de estado de origem
+     * @param para estado de destino
+     * @return evento criado
+     */
+    public static EventoOS transicao(LocalDateTime instante, AcaoOS acao, CodigoEstadoOS de, CodigoEstadoOS para) {
+        return new EventoOS(TipoEventoOS.TRANSICAO, instante, acao, de, para, null, 0);
+    }
+
+    /**
+     * Evento de peça adicionada; o estado da OS não muda.
+     *
+     * @param instante momento em que a peça foi registrada
+     * @param estado estado atual da OS
+     * @param produto peça utilizada
+     * @param quantidade quantidade utilizada
+     * @return evento criado
+     */
+    public static EventoOS pecaAdicionada(LocalDateTime instante, CodigoEstadoOS estado, Produto produto, int quantidade) {
+        return new EventoOS(TipoEventoOS.PECA_ADICIONADA, instante, null, estado, estado, produto.getIdProduto(), quantidade);
+    }
+
+    // Indica se o evento marca a entrada em um novo estado
+    public boolean mudaEstado() {
+        return tipo != TipoEventoOS.PECA_ADICIONADA;
+    }
+
+    public TipoEventoOS getTipo() { return tipo; }
+    public LocalDateTime getInstante() { return instante; }
+    public AcaoOS getAcao() { return acao; }
+    public CodigoEstadoOS getEstadoAnterior() { return estadoAnterior; }
+    public CodigoEstadoOS getEstadoNovo() { return estadoNovo; }
+    public String getIdProduto() { return idProduto; }
+    public int getQuantidade() { return quantidade; }
+    public String getNumeroOS() { return numeroOS; }
+    public String getCpfMecanico() { return cpfMecanico; }
+    public TipoServico getTipoServico() { return tipoServico; }
+
+    @Override
+    public String toString() {
+        return "EventoOS{" + tipo + " em " + instante +
+                (acao != null ? ", acao=" + acao : "") +
+                ", " + estadoAnterior + " -> " + estadoNovo +
+                (idProduto != null ? ", produto=" + idProduto + " x" + quantidade : "") + "}";
+    }
+}
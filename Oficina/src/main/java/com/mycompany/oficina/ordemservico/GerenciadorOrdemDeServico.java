@@ -1,21 +1,87 @@
 package com.mycompany.oficina.ordemservico;
 
 import com.google.gson.reflect.TypeToken;
+import com.mycompany.oficina.agendamento.TipoServico;
+import com.mycompany.oficina.consulta.Atributo;
+import com.mycompany.oficina.consulta.Criterio;
+import com.mycompany.oficina.consulta.FonteIndexada;
+import com.mycompany.oficina.consulta.PlanejadorDeConsulta;
 import com.mycompany.oficina.controlador.GerenciadorGenerico;
 import com.mycompany.oficina.entidades.Carro;
 import com.mycompany.oficina.entidades.Cliente;
 import com.mycompany.oficina.entidades.Funcionario;
+import com.mycompany.oficina.ordemservico.ObserverOS.Observador;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
 import com.mycompany.oficina.persistencia.PersistenciaJson;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
 
 
 /**
  * Classe responsável por gerenciar as Ordens de Serviço (OS).
  * Estende uma classe genérica de gerenciador que trata persistência e operações básicas.
+ * <p>
+ * O gerenciador observa cada OS (padrão Observer) e mantém as OS separadas
+ * por status, atualizando os grupos a cada mudança de estado. Assim, o quadro
+ * de OS ativas e a fila de cada mecânico custam O(ativas), e não O(histórico).
+ * A cada transição, a etapa que terminou também é medida na {@link AnaliseDeEtapasOS}.
+ * <p>
+ * Os eventos das OS ficam no {@link DiarioDeEventosOS}, e não no JSON das OS:
+ * uma transição acrescenta uma linha ao diário, e o estado de cada OS é
+ * reconstruído a partir dele na carga.
  */
-public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServico> {
+public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServico> implements Observador {
+
+    // Estados em que a OS ainda está em andamento (os demais são encerrados)
+    public static final Set<CodigoEstadoOS> STATUS_ATIVOS = Collections.unmodifiableSet(
+            EnumSet.of(CodigoEstadoOS.AGUARDANDO, CodigoEstadoOS.EM_INSPECAO, CodigoEstadoOS.EM_SERVICO));
+
+    // Chaves usadas no arquivo histórico: OS encerradas por mês e índice número -> mês
+    private static final String CHAVE_ARQUIVO = "ordens_servico";
+    private static final String CHAVE_INDICE_ARQUIVO = "ordens_servico_indice";
+    private static final String PARTICAO_INDICE = "indice";
+    // Histogramas de etapas das OS arquivadas, para não reler o diário delas a cada carga
+    private static final String CHAVE_ETAPAS_ARQUIVADAS = "ordens_servico_etapas";
+    private static final String PARTICAO_ETAPAS = "histogramas";
+
+    // --- ATRIBUTOS CONSULTÁVEIS (ver consultar) ---
+    public static final Atributo<OrdemDeServico, CodigoEstadoOS> STATUS =
+            new Atributo<>("status", OrdemDeServico::getCodigoEstado);
+    public static final Atributo<OrdemDeServico, String> MECANICO =
+            new Atributo<>("mecanico", os -> os.getMecanicoResponsavel() != null ? os.getMecanicoResponsavel().getCpf() : null);
+    public static final Atributo<OrdemDeServico, LocalDateTime> DATA_ABERTURA =
+            new Atributo<>("dataAbertura", OrdemDeServico::getDataAbertura);
+
+    private final PersistenciaJson persistencia;
+    private final TypeToken<ArrayList<OrdemDeServico>> tipoLista = new TypeToken<ArrayList<OrdemDeServico>>() {};
+    // Índice das OS arquivadas: número da OS -> mês (AAAA-MM) do arquivo que a contém
+    private final Map<String, String> indiceArquivadas;
+    // Índices usados pelas consultas (o índice de status são os grupos por status)
+    private final FonteIndexada<OrdemDeServico> fonteDeConsulta;
+    // OS ativas de cada mecânico (CPF -> OS), na ordem de abertura
+    private final Map<String, Set<OrdemDeServico>> ativasPorMecanico = new HashMap<>();
+    // Observadores extras registrados em todas as OS (por exemplo, o notificador de clientes)
+    private final List<Observador> observadoresDasOS = new ArrayList<>();
+    // Histogramas de tempo por etapa, alimentados pelo histórico de eventos das OS
+    private final AnaliseDeEtapasOS analiseDeEtapas = new AnaliseDeEtapasOS();
+    // Parte dos histogramas que vem das OS arquivadas (salva no arquivo histórico)
+    private final AnaliseDeEtapasOS etapasArquivadas = new AnaliseDeEtapasOS();
+    // Diário (somente acréscimo) dos eventos de todas as OS, ativas e arquivadas
+    private final DiarioDeEventosOS diarioDeEventos;
 
     /**
      * Construtor que recebe a persistência e configura o nome do arquivo JSON
@@ -26,6 +92,255 @@ public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServic
     public GerenciadorOrdemDeServico(PersistenciaJson persistencia) {
         // Passa para o construtor da superclasse o nome do arquivo e o tipo da lista
         super(persistencia, "ordens_servico", new TypeToken<ArrayList<OrdemDeServico>>() {});
+        this.persistencia = persistencia;
+        Map<String, String> indice = persistencia.carregarArquivoHistorico(CHAVE_INDICE_ARQUIVO, PARTICAO_INDICE,
+                new TypeToken<HashMap<String, String>>() {}.getType());
+        this.indiceArquivadas = indice != null ? indice : new HashMap<>();
+        this.diarioDeEventos = new DiarioDeEventosOS(persistencia);
+        carregarEventos();
+        // Mecânico e data de abertura não mudam; o status é reindexado a cada transição
+        this.fonteDeConsulta = new FonteIndexada<>(this::listarTodos)
+                .indexarPorValor(MECANICO)
+                .indexarPorValor(STATUS)
+                .indexarPorFaixa(DATA_ABERTURA);
+        ajustarNumeracao();
+        for (OrdemDeServico os : listarTodos()) {
+            os.adicionarObservador(this);
+            atualizarFilaDoMecanico(os);
+        }
+    }
+
+    /*
+     * Liga as OS ativas ao diário de eventos e alimenta os histogramas com o
+     * histórico de todas as OS, inclusive as arquivadas. O estado das OS
+     * ativas passa a ser o reconstruído pelo diário (ou o salvo, se estiver à
+     * frente dele). Só os meses do diário a partir da abertura da OS ativa
+     * mais antiga são lidos; as arquivadas entram pelos histogramas salvos.
+     * Na primeira carga depois da mudança de formato, os eventos salvos
+     * dentro das OS (ativas e arquivadas) são copiados para o diário.
+     */
+    private void carregarEventos() {
+        boolean primeiraCarga = diarioDeEventos.vazio();
+        Set<String> numeros = new HashSet<>();
+        YearMonth desde = null;
+        boolean semAbertura = false;
+        for (OrdemDeServico os : listarTodos()) {
+            numeros.add(os.getNumeroOS());
+            if (os.getDataAbertura() == null) {
+                semAbertura = true;
+            } else if (desde == null || YearMonth.from(os.getDataAbertura()).isBefore(desde)) {
+                desde = YearMonth.from(os.getDataAbertura());
+            }
+        }
+        Map<String, List<EventoOS>> eventosPorOS = diarioDeEventos.carregar(semAbertura ? null : desde, null, numeros);
+        boolean migrouAtivas = false;
+        for (OrdemDeServico os : listarTodos()) {
+            migrouAtivas |= os.temHistoricoAntigo();
+            os.ligarAoDiario(diarioDeEventos, eventosPorOS.get(os.getNumeroOS())); // Reconstrói o estado pelo diário
+            analiseDeEtapas.registrarHistorico(os);
+        }
+        if (migrouAtivas) {
+            salvarAlteracoes(); // Tira o histórico antigo do JSON das OS
+        }
+        carregarEtapasArquivadas(primeiraCarga);
+        analiseDeEtapas.somar(etapasArquivadas);
+    }
+
+    /*
+     * Lê os histogramas salvos das OS arquivadas. Se ainda não existirem
+     * (arquivo de uma versão anterior), eles são calculados uma única vez: na
+     * primeira carga, migrando os eventos antigos das arquivadas para o
+     * diário; depois dela, lendo do diário os eventos das arquivadas.
+     */
+    private void carregarEtapasArquivadas(boolean primeiraCarga) {
+        AnaliseDeEtapasOS salvas = persistencia.carregarArquivoHistorico(CHAVE_ETAPAS_ARQUIVADAS, PARTICAO_ETAPAS,
+                AnaliseDeEtapasOS.class);
+        if (salvas != null) {
+            etapasArquivadas.somar(salvas); // Refaz os mapas com os tipos certos
+            return;
+        }
+        if (indiceArquivadas.isEmpty()) {
+            return;
+        }
+        if (primeiraCarga) {
+            migrarArquivadas();
+        } else {
+            Map<String, List<EventoOS>> eventosPorOS = diarioDeEventos.carregar(null, null, indiceArquivadas.keySet());
+            for (List<EventoOS> eventos : eventosPorOS.values()) {
+                EventoOS abertura = eventos.get(0).getTipo() == TipoEventoOS.ABERTURA ? eventos.get(0) : null;
+                etapasArquivadas.registrarHistorico(abertura != null ? abertura.getCpfMecanico() : null,
+                        abertura != null ? abertura.getTipoServico() : null, eventos);
+            }
+        }
+        persistencia.salvarArquivoHistorico(CHAVE_ETAPAS_ARQUIVADAS, PARTICAO_ETAPAS, etapasArquivadas);
+    }
+
+    // Copia para o diário os eventos das OS arquivadas no formato antigo e já os registra nos histogramas
+    private void migrarArquivadas() {
+        for (String mes : new HashSet<>(indiceArquivadas.values())) {
+            for (OrdemDeServico os : listarArquivadasDoMes(YearMonth.parse(mes))) {
+                if (os.temHistoricoAntigo() && diarioDeEventos.anexar(os, os.getHistorico())) {
+                    etapasArquivadas.registrarHistorico(os);
+                }
+            }
+        }
+    }
+
+    // Entradas e saídas da lista passam pela trava do gerenciador, a mesma de streamHistorico
+    @Override
+    public synchronized void adicionar(OrdemDeServico os) {
+        super.adicionar(os);
+    }
+
+    @Override
+    public synchronized boolean removerItemPorIdentificador(String identificador) {
+        return super.removerItemPorIdentificador(identificador);
+    }
+
+    @Override
+    protected synchronized void aoAdicionar(OrdemDeServico os) {
+        os.ligarAoDiario(diarioDeEventos, null); // Grava a abertura
+        fonteDeConsulta.adicionar(os);
+        atualizarFilaDoMecanico(os);
+        os.adicionarObservador(this);
+        for (Observador observador : observadoresDasOS) {
+            os.adicionarObservador(observador);
+        }
+    }
+
+    @Override
+    protected synchronized void aoRemover(OrdemDeServico os) {
+        os.removerObservador(this);
+        for (Observador observador : observadoresDasOS) {
+            os.removerObservador(observador);
+        }
+        fonteDeConsulta.remover(os);
+        retirarDaFilaDoMecanico(os);
+    }
+
+    /**
+     * Chamado pela OS a cada mudança de estado: move a OS para o grupo do novo status.
+     *
+     * @param os OS que mudou de estado
+     */
+    @Override
+    public synchronized void atualizar(OrdemDeServico os) {
+        fonteDeConsulta.atualizar(os);
+        atualizarFilaDoMecanico(os);
+        analiseDeEtapas.registrarUltimaTransicao(os);
+    }
+
+    /**
+     * Registra um observador em todas as OS atuais e nas que forem abertas depois.
+     *
+     * @param observador observador a ser registrado
+     */
+    public synchronized void adicionarObservadorDasOS(Observador observador) {
+        observadoresDasOS.add(observador);
+        for (OrdemDeServico os : listarTodos()) {
+            os.adicionarObservador(observador);
+        }
+    }
+
+    /**
+     * Retorna a análise de tempo por etapa de todas as OS, ativas e arquivadas.
+     *
+     * @return análise de etapas
+     */
+    public AnaliseDeEtapasOS getAnaliseDeEtapas() {
+        return analiseDeEtapas;
+    }
+
+    // Mantém a OS na fila do mecânico enquanto estiver ativa
+    private void atualizarFilaDoMecanico(OrdemDeServico os) {
+        String cpf = MECANICO.valorDe(os);
+        if (cpf == null) {
+            return;
+        }
+        if (!os.getCodigoEstado().isEncerrado()) {
+            ativasPorMecanico.computeIfAbsent(cpf, c -> new LinkedHashSet<>()).add(os);
+        } else {
+            retirarDaFilaDoMecanico(os);
+        }
+    }
+
+    private void retirarDaFilaDoMecanico(OrdemDeServico os) {
+        String cpf = MECANICO.valorDe(os);
+        Set<OrdemDeServico> fila = cpf == null ? null : ativasPorMecanico.get(cpf);
+        if (fila != null) {
+            fila.remove(os);
+            if (fila.isEmpty()) {
+                ativasPorMecanico.remove(cpf);
+            }
+        }
+    }
+
+    // Evita repetir números de OS já usados (ativas ou arquivadas) em uma nova execução
+    private void ajustarNumeracao() {
+        List<String> numeros = new ArrayList<>(indiceArquivadas.keySet());
+        for (OrdemDeServico os : listarTodos()) {
+            numeros.add(os.getNumeroOS());
+        }
+        int maior = -1;
+        for (String numero : numeros) {
+            if (numero != null && numero.startsWith(OrdemDeServico.PREFIXO_NUMERO)) {
+                try {
+                    maior = Math.max(maior, Integer.parseInt(numero.substring(OrdemDeServico.PREFIXO_NUMERO.length())));
+                } catch (NumberFormatException e) {
+                    // Número fora do padrão: não participa da numeração
+                }
+            }
+        }
+        OrdemDeServico.ajustarContador(maior);
+    }
+
+    /**
+     * Lista as OS com o status informado, direto do grupo daquele status.
+     *
+     * @param status estado da OS (por exemplo {@code CodigoEstadoOS.EM_SERVICO})
+     * @return OS com o status
+     */
+    public List<OrdemDeServico> listarPorStatus(CodigoEstadoOS status) {
+        Collection<OrdemDeServico> grupo = fonteDeConsulta.buscarIgual(STATUS, status);
+        return new ArrayList<>(grupo);
+    }
+
+    /**
+     * Lista as OS ainda em andamento (aguardando, em inspeção ou em serviço),
+     * em ordem de abertura. Só os grupos ativos são lidos.
+     *
+     * @return OS ativas
+     */
+    public List<OrdemDeServico> listarAtivas() {
+        List<OrdemDeServico> ativas = new ArrayList<>();
+        for (CodigoEstadoOS status : STATUS_ATIVOS) {
+            ativas.addAll(fonteDeConsulta.buscarIgual(STATUS, status));
+        }
+        ativas.sort(Comparator.comparing(OrdemDeServico::getDataAbertura));
+        return ativas;
+    }
+
+    /**
+     * Lista a fila de OS ativas de um mecânico, em ordem de abertura.
+     *
+     * @param cpfMecanico CPF do mecânico
+     * @return OS ativas do mecânico (vazia se não houver)
+     */
+    public synchronized List<OrdemDeServico> listarAtivasDoMecanico(String cpfMecanico) {
+        Set<OrdemDeServico> fila = ativasPorMecanico.get(cpfMecanico);
+        return fila == null ? new ArrayList<>() : new ArrayList<>(fila);
+    }
+
+    /**
+     * Consulta as OS ativas (não arquivadas) com o planejador compartilhado,
+     * por exemplo {@code Criterio.igual(MECANICO, cpf).e(Criterio.entre(DATA_ABERTURA, inicio, fim))}.
+     * Mecânico, status e data de abertura usam índice.
+     *
+     * @param criterio critério da consulta
+     * @return OS que satisfazem o critério
+     */
+    public List<OrdemDeServico> consultar(Criterio<OrdemDeServico> criterio) {
+        return PlanejadorDeConsulta.executar(criterio, fonteDeConsulta);
     }
 
     /**
@@ -38,6 +353,21 @@ public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServic
      * @return A nova OrdemDeServico criada ou null se dados inválidos
      */
     public OrdemDeServico abrirOS(Cliente cliente, Carro carro, Funcionario mecanico, String defeito) {
+        return abrirOS(cliente, carro, mecanico, defeito, null);
+    }
+
+    /**
+     * Cria uma nova Ordem de Serviço informando o tipo de serviço agendado,
+     * usado na análise de tempo por etapa.
+     *
+     * @param cliente Cliente associado à OS
+     * @param carro Veículo relacionado à OS
+     * @param mecanico Funcionário (mecânico) responsável
+     * @param defeito Descrição do defeito relatado
+     * @param tipoServico Tipo de serviço do agendamento (pode ser null)
+     * @return A nova OrdemDeServico criada ou null se dados inválidos
+     */
+    public OrdemDeServico abrirOS(Cliente cliente, Carro carro, Funcionario mecanico, String defeito, TipoServico tipoServico) {
         // Valida se os dados obrigatórios foram informados
         if (cliente == null || carro == null || mecanico == null || defeito == null || defeito.trim().isEmpty()) {
             return null;
@@ -55,6 +385,7 @@ public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServic
             new ArrayList<>(), // Lista vazia para peças usadas inicialmente
             new ArrayList<>()  // Lista vazia para serviços realizados inicialmente
         );
+        novaOS.setTipoServico(tipoServico);
 
         // Adiciona a nova OS na lista gerenciada pela superclasse e salva no JSON
         super.adicionar(novaOS);
@@ -64,5 +395,171 @@ public class GerenciadorOrdemDeServico extends GerenciadorGenerico<OrdemDeServic
     public void salvarAlteracoesOS(){
         super.salvarAlteracoes();
     }
+
+    // --- ARQUIVO HISTÓRICO ---
+
+    /**
+     * Move para o arquivo histórico compactado as OS finalizadas ou canceladas
+     * encerradas antes da data limite. As OS são agrupadas por mês de
+     * encerramento e removidas da lista ativa com uma única gravação.
+     *
+     * @param limite OS encerradas antes deste momento são arquivadas
+     * @return quantidade de OS arquivadas
+     */
+    public synchronized int arquivarEncerradasAntesDe(LocalDateTime limite) {
+        Map<YearMonth, List<OrdemDeServico>> porMes = new HashMap<>();
+        // Só os grupos de OS encerradas são percorridos
+        List<OrdemDeServico> encerradas = listarPorStatus(CodigoEstadoOS.FINALIZADA);
+        encerradas.addAll(listarPorStatus(CodigoEstadoOS.CANCELADA));
+        for (OrdemDeServico os : encerradas) {
+            if (dataDeEncerramento(os).isBefore(limite)) {
+                porMes.computeIfAbsent(YearMonth.from(dataDeEncerramento(os)), m -> new ArrayList<>()).add(os);
+            }
+        }
+
+        List<OrdemDeServico> arquivadas = new ArrayList<>();
+        for (Map.Entry<YearMonth, List<OrdemDeServico>> mes : porMes.entrySet()) {
+            String particao = mes.getKey().toString();
+            List<OrdemDeServico> conteudo = listarArquivadasDoMes(mes.getKey());
+            conteudo.addAll(mes.getValue());
+            // Só remove da lista ativa o que foi gravado no arquivo com sucesso
+            if (persistencia.salvarArquivoHistorico(CHAVE_ARQUIVO, particao, conteudo)) {
+                for (OrdemDeServico os : mes.getValue()) {
+                    indiceArquivadas.put(os.getNumeroOS(), particao);
+                }
+                arquivadas.addAll(mes.getValue());
+            }
+        }
+
+        if (!arquivadas.isEmpty()) {
+            persistencia.salvarArquivoHistorico(CHAVE_INDICE_ARQUIVO, PARTICAO_INDICE, indiceArquivadas);
+            Set<OrdemDeServico> removiveis = Collections.newSetFromMap(new IdentityHashMap<>());
+            removiveis.addAll(arquivadas);
+            removerSe(removiveis::contains);
+            // Os histogramas delas passam a ser lidos do arquivo, e não do diário
+            for (OrdemDeServico os : arquivadas) {
+                etapasArquivadas.registrarHistorico(os);
+            }
+            persistencia.salvarArquivoHistorico(CHAVE_ETAPAS_ARQUIVADAS, PARTICAO_ETAPAS, etapasArquivadas);
+        }
+        return arquivadas.size();
+    }
+
+    /**
+     * Busca no arquivo histórico uma OS já arquivada pelo seu número.
+     *
+     * @param numeroOS número da OS
+     * @return a OS arquivada ou null se não estiver no arquivo
+     */
+    public OrdemDeServico buscarOSArquivada(String numeroOS) {
+        String particao = indiceArquivadas.get(numeroOS);
+        if (particao == null) {
+            return null;
+        }
+        for (OrdemDeServico os : listarArquivadasDoMes(YearMonth.parse(particao))) {
+            if (os.getNumeroOS().equals(numeroOS)) {
+                usarEventosDoDiario(List.of(os), YearMonth.parse(particao));
+                return os;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Busca uma OS pelo número entre as não arquivadas e, se não estiver entre
+     * elas, no arquivo histórico.
+     *
+     * @param numeroOS número da OS
+     * @return a OS, ou null se o número não existir
+     */
+    public OrdemDeServico buscarOS(String numeroOS) {
+        OrdemDeServico os = buscarPorIdentificador(numeroOS);
+        return os != null ? os : buscarOSArquivada(numeroOS);
+    }
+
+    /**
+     * Lista todas as OS: as não arquivadas e, em seguida, as arquivadas, mês a
+     * mês (cada mês arquivado é lido do arquivo histórico).
+     *
+     * @return lista de todas as OS
+     */
+    public List<OrdemDeServico> listarTodasComArquivadas() {
+        List<OrdemDeServico> todas = new ArrayList<>(listarTodos());
+        for (String mes : persistencia.listarArquivosHistoricos(CHAVE_ARQUIVO)) {
+            todas.addAll(listarArquivadasDoMes(YearMonth.parse(mes)));
+        }
+        return todas;
+    }
+
+    /**
+     * Lista as OS arquivadas que foram encerradas em um mês.
+     *
+     * @param mes mês de encerramento
+     * @return lista das OS arquivadas naquele mês (vazia se não houver)
+     */
+    public List<OrdemDeServico> listarArquivadasDoMes(YearMonth mes) {
+        List<OrdemDeServico> lista = persistencia.carregarArquivoHistorico(CHAVE_ARQUIVO, mes.toString(), tipoLista.getType());
+        return lista != null ? lista : new ArrayList<>();
+    }
+
+    /**
+     * Fluxo paralelo de todo o histórico de OS: as não arquivadas e, mês a mês,
+     * as arquivadas. Cada mês arquivado (e os meses do diário com os eventos
+     * dele) só é lido quando o fluxo chega a ele e pode ser descartado logo
+     * depois, então anos de histórico não ficam em memória.
+     * <p>
+     * As OS não arquivadas entram como cópias tiradas sob a trava do
+     * gerenciador, então o fluxo pode ser consumido em outra thread enquanto
+     * as originais mudam de estado ou recebem peças.
+     *
+     * @return fluxo paralelo de todas as OS
+     */
+    public Stream<OrdemDeServico> streamHistorico() {
+        List<OrdemDeServico> ativas = new ArrayList<>();
+        synchronized (this) {
+            for (OrdemDeServico os : listarTodos()) {
+                ativas.add(os.copiarParaLeitura());
+            }
+        }
+        Stream<OrdemDeServico> arquivadas = persistencia.listarArquivosHistoricos(CHAVE_ARQUIVO).parallelStream()
+                .flatMap(mes -> {
+                    List<OrdemDeServico> doMes = listarArquivadasDoMes(YearMonth.parse(mes));
+                    usarEventosDoDiario(doMes, YearMonth.parse(mes));
+                    return doMes.stream();
+                });
+        return Stream.concat(ativas.parallelStream(), arquivadas);
+    }
+
+    /*
+     * Carrega do diário os eventos de OS arquivadas no mesmo mês, lendo só os
+     * meses entre a abertura mais antiga delas e o mês do arquivo. OS antigas
+     * sem data de fechamento foram arquivadas pelo mês de abertura, então
+     * nesse caso o diário é lido até o fim (e, sem abertura, desde o início).
+     */
+    private void usarEventosDoDiario(List<OrdemDeServico> doMes, YearMonth mesDoArquivo) {
+        Set<String> numeros = new HashSet<>();
+        YearMonth desde = mesDoArquivo;
+        YearMonth ate = mesDoArquivo;
+        for (OrdemDeServico os : doMes) {
+            numeros.add(os.getNumeroOS());
+            if (os.getDataAbertura() == null) {
+                desde = null;
+            } else if (desde != null && YearMonth.from(os.getDataAbertura()).isBefore(desde)) {
+                desde = YearMonth.from(os.getDataAbertura());
+            }
+            if (os.getDataFechamento() == null) {
+                ate = null;
+            }
+        }
+        Map<String, List<EventoOS>> eventosPorOS = diarioDeEventos.carregar(desde, ate, numeros);
+        for (OrdemDeServico os : doMes) {
+            os.usarEventos(eventosPorOS.get(os.getNumeroOS()));
+        }
+    }
+
+    // OS antigas não têm data de fechamento registrada; nesse caso usa a abertura
+    private LocalDateTime dataDeEncerramento(OrdemDeServico os) {
+        return os.getDataFechamento() != null ? os.getDataFechamento() : os.getDataAbertura();
+    }
 }
 
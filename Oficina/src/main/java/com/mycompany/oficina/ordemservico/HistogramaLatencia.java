@@ -0,0 +1,117 @@
+package com.mycompany.oficina.ordemservico;
+
+import java.time.Duration;
+
+/**
+ * Histograma de durações com faixas fixas (de 5 minutos a uma semana).
+ * <p>
+ * Registrar uma duração só incrementa contadores, então o histograma pode ser
+ * atualizado a cada evento sem guardar as amostras. Os percentis são
+ * aproximados pelo limite superior da faixa em que caem.
+ */
+public class HistogramaLatencia {
+
+    // Limite superior (em segundos) de cada faixa; a última faixa recebe o que passar de uma semana
+    private static final long[] LIMITES = {
+        5 * 60, 15 * 60, 30 * 60, 60 * 60, 2 * 3600, 4 * 3600, 8 * 3600,
+        24 * 3600, 2 * 24 * 3600, 4 * 24 * 3600, 7 * 24 * 3600
+    };
+
+    private final long[] contagens = new long[LIMITES.length + 1];
+    private long total;
+    private long somaSegundos;
+    private long maximoSegundos;
+
+    /**
+     * Registra uma duração. Durações negativas (relógio ajustado) contam como zero.
+     *
+     * @param duracao tempo passado na etapa
+     */
+    public void registrar(Duration duracao) {
+        long segundos = Math.max(0, duracao.getSeconds());
+        int faixa = 0;
+        while (faixa < LIMITES.length && segundos > LIMITES[faixa]) {
+            faixa++;
+        }
+        contagens[faixa]++;
+        total++;
+        somaSegundos += segundos;
+        maximoSegundos = Math.max(maximoSegundos, segundos);
+    }
+
+    public long getContagem() {
+        return total;
+    }
+
+    public Duration getMedia() {
+        return total == 0 ? Duration.ZERO : Duration.ofSeconds(somaSegundos / total);
+    }
+
+    public Duration getMaximo() {
+        return Duration.ofSeconds(maximoSegundos);
+    }
+
+    /**
+     * Percentil aproximado.
+     *
+     * @param percentil valor entre 0 e 100 (por exemplo 50 ou 90)
+     * @return limite superior da faixa que contém o percentil (ou o máximo, na última faixa)
+     */
+    public Duration getPercentil(double percentil) {
+        if (total == 0) {
+            return Duration.ZERO;
+        }
+        long alvo = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentil)) / 100.0);
+        long acumulado = 0;
+        for (int faixa = 0; faixa < contagens.length; faixa++) {
+            acumulado += contagens[faixa];
+            if (acumulado >= Math.max(1, alvo)) {
+                long limite = faixa < LIMITES.length ? LIMITES[faixa] : maximoSegundos;
+                return Duration.ofSeconds(Math.min(limite, maximoSegundos));
+            }
+        }
+        return getMaximo();
+    }
+
+    /**
+     * Acrescenta a este histograma as amostras de outro.
+     *
+     * @param outro histograma somado (não é alterado)
+     */
+    public void somar(HistogramaLatencia outro) {
+        for (int faixa = 0; faixa < contagens.length; faixa++) {
+            contagens[faixa] += outro.contagens[faixa];
+        }
+        total += outro.total;
+        somaSegundos += outro.somaSegundos;
+        maximoSegundos = Math.max(maximoSegundos, outro.maximoSegundos);
+    }
+
+    /**
+     * Cópia independente, usada para entregar o histograma sem expor o original.
+     *
+     * @return cópia do histograma
+     */
+    public HistogramaLatencia copiar() {
+        HistogramaLatencia copia = new HistogramaLatencia();
+        System.arraycopy(contagens, 0, copia.contagens, 0, contagens.length);
+        copia.total = total;
+        copia.somaSegundos = somaSegundos;
+        copia.maximoSegundos = maximoSegundos;
+        return copia;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d | média %s | p50 %s | p90 %s | máx %s",
+                total, formatar(getMedia()), formatar(getPercentil(50)), formatar(getPercentil(90)), formatar(getMaximo()));
+    }
+
+    // Formata a duração como "1d 02h05m"
+    static String formatar(Duration duracao) {
+        long minutos = duracao.toMinutes();
+        long dias = minutos / (24 * 60);
+        long horas = (minutos / 60) % 24;
+        return (dias > 0 ? dias + "d " : "") + String.format("%02dh%02dm", horas, minutos % 60);
+    }
+}
@@ -4,14 +4,27 @@
  */
 package com.mycompany.oficina.ordemservico.ObserverOS;
 
+import com.mycompany.oficina.notificacao.DespachanteDeNotificacoes;
 import com.mycompany.oficina.ordemservico.OrdemDeServico;
 
 /**
  * Implementação da interface Observador para notificar o cliente sobre
  * as mudanças no status da Ordem de Serviço (OS).
+ * 
+ * A mensagem é apenas entregue ao {@link DespachanteDeNotificacoes}, que faz o
+ * envio em outra thread; a mudança de estado nunca espera pela entrega.
  */
 public class NotificadorOs implements Observador {
 
+    private final DespachanteDeNotificacoes despachante; // Fila de envio assíncrona
+
+    /**
+     * @param despachante despachante que fará a entrega das mensagens
+     */
+    public NotificadorOs(DespachanteDeNotificacoes despachante) {
+        this.despachante = despachante;
+    }
+
     /**
      * Método chamado sempre que a Ordem de Serviço sofre uma atualização.
      * Envia uma mensagem personalizada ao cliente dependendo do estado atual da OS.
@@ -63,15 +76,15 @@ public class NotificadorOs implements Observador {
     }
 
     /**
-     * Simula o envio de uma notificação para o cliente.
-     * No momento, apenas imprime a mensagem no console.
+     * Coloca a mensagem na fila de envio, sem esperar pela entrega.
+     * Se a fila estiver cheia, a mensagem é recusada e o fato é registrado.
      * 
      * @param telefone número de telefone do cliente
      * @param mensagem mensagem a ser enviada
      */
     private void enviarNotificacao(String telefone, String mensagem) {
-        System.out.println("\n=================[ SIMULADOR DE NOTIFICAÇÃO ]=================");
-        System.out.println("DESTINATÁRIO: " + telefone + " | MENSAGEM: " + mensagem);
-        System.out.println("==============================================================\n");
+        if (!despachante.publicar(telefone, mensagem)) {
+            System.err.println("Notificação não enfileirada para " + telefone + " (" + despachante + ")");
+        }
     }
 }
@@ -0,0 +1,59 @@
+package com.mycompany.oficina.ordemservico.ObserverOS;
+
+import com.mycompany.oficina.loja.Estoque;
+import com.mycompany.oficina.loja.Produto;
+import com.mycompany.oficina.loja.ReservasDeEstoque;
+import com.mycompany.oficina.ordemservico.OrdemDeServico;
+import com.mycompany.oficina.ordemservico.PecaUtilizada;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
+
+import java.util.Collection;
+
+/**
+ * Observador que encerra as reservas de peças quando a OS termina:
+ * ao finalizar, as peças reservadas são consumidas; ao cancelar, voltam
+ * para o estoque disponível.
+ */
+public class ReservaDePecasOS implements Observador {
+
+    private final ReservasDeEstoque reservas;
+    private final Estoque estoque;
+
+    /**
+     * @param reservas reservas de estoque
+     * @param estoque estoque, usado para localizar os produtos das OS carregadas
+     */
+    public ReservaDePecasOS(ReservasDeEstoque reservas, Estoque estoque) {
+        this.reservas = reservas;
+        this.estoque = estoque;
+    }
+
+    /**
+     * Reconstrói as reservas das OS ainda em andamento, carregadas do arquivo.
+     * As peças delas já foram descontadas do estoque quando foram adicionadas.
+     *
+     * @param ordens OS carregadas
+     */
+    public void restaurar(Collection<OrdemDeServico> ordens) {
+        for (OrdemDeServico os : ordens) {
+            if (os.getCodigoEstado().isEncerrado()) {
+                continue;
+            }
+            for (PecaUtilizada peca : os.getListaDePecasUtilizadas()) {
+                // A peça salva na OS é uma cópia; a reserva vale para o produto do estoque
+                Produto produto = estoque.buscarProduto(peca.getProdutoOriginal().getIdProduto());
+                reservas.restaurar(os.getNumeroOS(), produto, peca.getQuantidadeUtilizada());
+            }
+        }
+    }
+
+    @Override
+    public void atualizar(OrdemDeServico os) {
+        CodigoEstadoOS codigo = os.getCodigoEstado();
+        if (codigo == CodigoEstadoOS.FINALIZADA) {
+            reservas.consumir(os.getNumeroOS());
+        } else if (codigo == CodigoEstadoOS.CANCELADA) {
+            reservas.liberar(os.getNumeroOS()); // A devolução fica registrada no livro de movimentos
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.mycompany.oficina.ordemservico;
 
+import com.mycompany.oficina.agendamento.TipoServico;
 import com.mycompany.oficina.entidades.Carro;
 import com.mycompany.oficina.entidades.Cliente;
 import com.mycompany.oficina.entidades.Entidades;
@@ -7,12 +8,15 @@ import com.mycompany.oficina.entidades.Funcionario;
 import com.mycompany.oficina.loja.Produto;
 import com.mycompany.oficina.ordemservico.ObserverOS.Assunto;
 import com.mycompany.oficina.ordemservico.ObserverOS.Observador;
-import com.mycompany.oficina.ordemservico.stateOS.EstadoAguardando;
+import com.mycompany.oficina.ordemservico.stateOS.AcaoOS;
+import com.mycompany.oficina.ordemservico.stateOS.CodigoEstadoOS;
 import com.mycompany.oficina.ordemservico.stateOS.EstadoOS;
+import com.mycompany.oficina.ordemservico.stateOS.MaquinaDeEstadosOS;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter; // Importar para formatar a data
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -35,6 +39,7 @@ public class OrdemDeServico implements Assunto, Entidades {
 
     private String numeroOS; // Número identificador único da ordem de serviço
     private static int contadorNumeroOS; // Contador estático para gerar números únicos das OS
+    public static final String PREFIXO_NUMERO = "Ordem-Serviço"; // Prefixo do número da OS
     private final Cliente cliente; // Cliente relacionado à ordem de serviço
     private final Carro carro; // Carro que será atendido na ordem de serviço
     private final Funcionario mecanicoResponsavel; // Funcionário (mecânico) responsável pelo serviço
@@ -43,20 +48,25 @@ public class OrdemDeServico implements Assunto, Entidades {
     private LocalDateTime dataFechamento; // Data e hora de fechamento da OS (pode ser nula se não finalizada)
     private final List<String> servicosRealizados; // Lista de serviços realizados na OS
     private final List<PecaUtilizada> pecasUtilizadas; // Lista de peças utilizadas na OS
-    private transient EstadoOS estadoAtual; // Estado atual da ordem (padrão State)
-    private final List<Observador> observadores = new ArrayList<>(); // Lista de observadores (padrão Observer)
+    private CodigoEstadoOS estado; // Estado atual da ordem (padrão State); o código é o que vai para o JSON
+    private TipoServico tipoServico; // Tipo de serviço do agendamento que originou a OS (pode ser nulo)
+    private List<EventoOS> historico; // Formato antigo: eventos salvos dentro da OS; lido apenas para migrar ao diário
+    private transient List<EventoOS> eventos; // Eventos da OS (abertura, transições, peças), só acrescentados no fim
+    private transient int eventosGravados; // Quantos eventos do início da lista já estão no diário
+    private transient DiarioDeEventosOS diario; // Diário onde os eventos são gravados (ligado pelo gerenciador)
+    private transient List<Observador> observadores; // Observadores (padrão Observer); não vão para o JSON, são registrados na carga
 
     // 1. CONSTANTE PARA O VALOR FIXO DA MÃO DE OBRA
     private static final double VALOR_MAO_DE_OBRA = 150.0;
-    private String nomeDaClasseDoEstado;
+    private String nomeDaClasseDoEstado; // Formato antigo do estado no JSON; lido apenas para converter em código
 
     /**
      * Construtor principal da Ordem de Serviço.
      * Inicializa os dados e já gera um número único para a OS.
-     * Define o estado inicial como EstadoAguardando.
+     * Define o estado inicial como "Aguardando".
      */
     public OrdemDeServico(String numeroOS, Cliente cliente, Carro carro, Funcionario mecanicoResponsavel, String defeitoRelatado, LocalDateTime dataAbertura, LocalDateTime dataFechamento, List servicosRealizados, List pecasUtilizadas) {
-        this.numeroOS = "Ordem-Serviço" + String.format("%03d", contadorNumeroOS++);
+        this.numeroOS = proximoNumero();
         this.cliente = cliente;
         this.carro = carro;
         this.mecanicoResponsavel = mecanicoResponsavel;
@@ -65,42 +75,243 @@ public class OrdemDeServico implements Assunto, Entidades {
         this.dataFechamento = dataFechamento;
         this.servicosRealizados = servicosRealizados;
         this.pecasUtilizadas = pecasUtilizadas;
-        setEstado(new EstadoAguardando(this)); // Define estado inicial da OS
+        this.estado = CodigoEstadoOS.AGUARDANDO; // Define estado inicial da OS
+        registrarEvento(EventoOS.abertura(dataAbertura != null ? dataAbertura : LocalDateTime.now()));
     }
 
 
+    /*
+     * Cópia para leitura em outra thread: as listas são copiadas e a cópia não
+     * tem diário nem observadores, então não muda depois de criada.
+     */
+    private OrdemDeServico(OrdemDeServico original) {
+        this.numeroOS = original.numeroOS;
+        this.cliente = original.cliente;
+        this.carro = original.carro;
+        this.mecanicoResponsavel = original.mecanicoResponsavel;
+        this.defeitoRelatado = original.defeitoRelatado;
+        this.dataAbertura = original.dataAbertura;
+        this.dataFechamento = original.dataFechamento;
+        this.servicosRealizados = original.servicosRealizados == null ? null : new ArrayList<>(original.servicosRealizados);
+        this.pecasUtilizadas = original.pecasUtilizadas == null ? null : new ArrayList<>(original.pecasUtilizadas);
+        this.estado = original.getCodigoEstado();
+        this.tipoServico = original.tipoServico;
+        this.eventos = new ArrayList<>(original.getHistorico());
+        this.eventosGravados = this.eventos.size();
+    }
+
+    /**
+     * Cópia da OS (peças, eventos e estado) tirada de uma vez, para ser lida
+     * por outra thread enquanto a original continua recebendo eventos.
+     * @return cópia somente para leitura
+     */
+    synchronized OrdemDeServico copiarParaLeitura() {
+        return new OrdemDeServico(this);
+    }
+
+    private static synchronized String proximoNumero() {
+        return PREFIXO_NUMERO + String.format("%03d", contadorNumeroOS++);
+    }
+
+    /**
+     * Garante que os próximos números de OS sejam maiores que o informado.
+     * Chamado na carga, para não repetir números de OS já salvas.
+     * @param ultimoNumero maior número de OS existente
+     */
+    public static synchronized void ajustarContador(int ultimoNumero) {
+        if (contadorNumeroOS <= ultimoNumero) {
+            contadorNumeroOS = ultimoNumero + 1;
+        }
+    }
+
+    /**
+     * Retorna o código do estado atual.
+     * OS gravadas no formato antigo (nome da classe do estado) são convertidas
+     * na primeira consulta, sem reflexão; o campo antigo deixa de ser salvo.
+     * @return código do estado atual
+     */
+    public CodigoEstadoOS getCodigoEstado() {
+        if (estado == null) {
+            this.estado = CodigoEstadoOS.doNomeDaClasse(nomeDaClasseDoEstado);
+            this.nomeDaClasseDoEstado = null;
+        }
+        return estado;
+    }
+
+    // Instância compartilhada do estado atual
     private EstadoOS getEstado() {
-        // Se o estado é nulo (porque o objeto foi carregado e o campo era 'transient')...
-        if (estadoAtual == null) {
-            // ...verificamos qual era o nome da classe do estado que salvamos no JSON.
-            if (nomeDaClasseDoEstado != null && !nomeDaClasseDoEstado.isEmpty()) {
-                try {
-                    // Usa o nome da classe para criar uma nova instância do estado correto
-                    Class<?> clazz = Class.forName(nomeDaClasseDoEstado);
-                    // Assume que todos os estados têm um construtor que aceita OrdemDeServico
-                    this.estadoAtual = (EstadoOS) clazz.getConstructor(OrdemDeServico.class).newInstance(this);
-                } catch (Exception e) {
-                    // Se algo der errado (ex: classe não encontrada), volta para o estado padrão.
-                    this.estadoAtual = new EstadoAguardando(this);
+        return getCodigoEstado().getEstado();
+    }
+
+    /**
+     * Atualiza o estado atual da OS e notifica os observadores da mudança.
+     * Chamado pelos estados ao aplicar uma transição.
+     * @param novoEstado código do novo estado da OS
+     */
+    public final void setEstado(CodigoEstadoOS novoEstado) {
+        synchronized (this) {
+            this.estado = novoEstado;
+            this.nomeDaClasseDoEstado = null;
+        }
+        this.notificarObservadores(); // Notifica fora da trava da OS, sobre a mudança
+    }
+
+    /**
+     * Acrescenta um evento ao fim do histórico da OS e, se a OS já estiver
+     * ligada ao diário, grava-o lá (uma linha acrescentada). Chamado pelos
+     * estados a cada transição e a cada peça adicionada.
+     * @param evento evento ocorrido
+     */
+    public synchronized void registrarEvento(EventoOS evento) {
+        if (eventos == null) {
+            eventos = new ArrayList<>(); // OS carregada sem eventos
+        }
+        eventos.add(evento);
+        gravarEventosPendentes();
+    }
+
+    /**
+     * Acrescenta uma peça à lista de peças utilizadas junto com o evento que a
+     * registra, de uma vez (uma cópia para leitura vê as duas ou nenhuma).
+     * @param peca peça utilizada
+     * @param evento evento de peça adicionada
+     */
+    public synchronized void registrarPeca(PecaUtilizada peca, EventoOS evento) {
+        pecasUtilizadas.add(peca);
+        registrarEvento(evento);
+    }
+
+    /**
+     * Liga a OS ao diário de eventos. Os eventos já gravados no diário passam a
+     * ser o histórico da OS e o estado é reconstruído a partir deles; se o
+     * estado salvo no JSON estiver à frente do diário (uma gravação no diário
+     * falhou e a OS foi salva depois), ele é mantido e as transições que
+     * faltam são acrescentadas ao diário. Se não houver nenhum evento no
+     * diário, os eventos do formato antigo (salvos dentro da OS) ou os
+     * registrados antes da ligação, como a abertura, são gravados agora.
+     * @param diario diário de eventos das OS
+     * @param doDiario eventos desta OS lidos do diário (null ou vazio se não houver)
+     */
+    void ligarAoDiario(DiarioDeEventosOS diario, List<EventoOS> doDiario) {
+        this.diario = diario;
+        if (doDiario != null && !doDiario.isEmpty()) {
+            CodigoEstadoOS salvo = getCodigoEstado();
+            LocalDateTime fechamentoSalvo = dataFechamento;
+            eventos = new ArrayList<>(doDiario);
+            eventosGravados = eventos.size();
+            if (reconstruirPeloHistorico() && estado != salvo) {
+                completarTransicoesAte(salvo, fechamentoSalvo);
+            }
+        } else if (eventos == null) {
+            eventos = historico != null ? new ArrayList<>(historico) : new ArrayList<>();
+            eventosGravados = 0;
+        }
+        historico = null; // O formato antigo deixa de ser salvo
+        gravarEventosPendentes();
+    }
+
+    /*
+     * Acrescenta ao histórico as transições entre o estado reconstruído pelo
+     * diário e o estado salvo, quando o salvo é alcançável pela tabela. Se não
+     * for (o diário está à frente do JSON), vale o estado do diário.
+     */
+    private void completarTransicoesAte(CodigoEstadoOS salvo, LocalDateTime fechamentoSalvo) {
+        List<AcaoOS> faltantes = MaquinaDeEstadosOS.caminho(estado, salvo);
+        if (faltantes == null) {
+            return;
+        }
+        // As transições perdidas não têm horário próprio: usam o último evento (ou o fechamento salvo)
+        LocalDateTime instante = eventos.get(eventos.size() - 1).getInstante();
+        for (AcaoOS acao : faltantes) {
+            CodigoEstadoOS origem = estado;
+            estado = MaquinaDeEstadosOS.destino(origem, acao);
+            if (estado.isEncerrado()) {
+                if (fechamentoSalvo != null && fechamentoSalvo.isAfter(instante)) {
+                    instante = fechamentoSalvo;
                 }
-            } else {
-                // Se até a "pista" (o nome da classe) for nula, define o estado padrão.
-                this.estadoAtual = new EstadoAguardando(this);
+                dataFechamento = fechamentoSalvo != null ? fechamentoSalvo : instante;
             }
+            eventos.add(EventoOS.transicao(instante, acao, origem, estado));
         }
-        return estadoAtual;
+        System.out.println("OS " + numeroOS + ": " + faltantes.size()
+                + " transição(ões) ausentes do diário foram completadas pelo estado salvo (" + salvo.getStatus() + ").");
     }
+
     /**
-     * Atualiza o estado atual da OS e notifica os observadores da mudança.
-     * @param novoEstado novo estado da OS
+     * Usa como histórico eventos lidos do diário, sem ligar a OS a ele (OS
+     * arquivadas, somente leitura).
+     * @param doDiario eventos desta OS lidos do diário
+     */
+    void usarEventos(List<EventoOS> doDiario) {
+        if (doDiario != null && !doDiario.isEmpty()) {
+            eventos = new ArrayList<>(doDiario);
+            eventosGravados = eventos.size();
+            historico = null;
+        }
+    }
+
+    /**
+     * Indica se a OS ainda traz eventos no formato antigo (dentro do JSON da OS).
+     * @return true se há eventos a migrar para o diário
+     */
+    boolean temHistoricoAntigo() {
+        return historico != null && !historico.isEmpty();
+    }
+
+    // Grava no diário os eventos ainda não gravados; se falhar, tenta de novo no próximo evento
+    private void gravarEventosPendentes() {
+        if (diario == null || eventos == null || eventosGravados >= eventos.size()) {
+            return;
+        }
+        if (diario.anexar(this, eventos.subList(eventosGravados, eventos.size()))) {
+            eventosGravados = eventos.size();
+        } else {
+            System.err.println("Eventos da OS " + numeroOS + " não foram gravados no diário; nova tentativa no próximo evento.");
+        }
+    }
+
+    /**
+     * Retorna o histórico de eventos da OS, em ordem de ocorrência.
+     * @return lista somente leitura (vazia para OS antigas sem histórico)
      */
-    public final void setEstado(EstadoOS novoEstado) {
-        this.estadoAtual = novoEstado;
-        if (novoEstado != null) {
-            // Salva o nome completo da classe como nossa "pista"
-            this.nomeDaClasseDoEstado = novoEstado.getClass().getName();
+    public List<EventoOS> getHistorico() {
+        if (eventos != null) {
+            return Collections.unmodifiableList(eventos);
         }
-        this.notificarObservadores(); // Notifica sobre a mudança
+        return historico == null ? Collections.emptyList() : Collections.unmodifiableList(historico);
+    }
+
+    /**
+     * Reconstrói o estado e a data de fechamento da OS a partir do histórico,
+     * reaplicando cada transição na tabela de estados.
+     * @return true se o histórico é válido e foi aplicado; false se está vazio
+     *         ou contém uma transição que a tabela não permite
+     */
+    public boolean reconstruirPeloHistorico() {
+        List<EventoOS> eventosDaOS = getHistorico();
+        if (eventosDaOS.isEmpty()) {
+            return false;
+        }
+        CodigoEstadoOS atual = CodigoEstadoOS.AGUARDANDO;
+        LocalDateTime fechamento = null;
+        for (EventoOS evento : eventosDaOS) {
+            if (evento.getTipo() != TipoEventoOS.TRANSICAO) {
+                continue;
+            }
+            CodigoEstadoOS proximo = MaquinaDeEstadosOS.destino(atual, evento.getAcao());
+            if (proximo == null) {
+                System.err.println("Histórico inválido na OS " + numeroOS + ": " + evento);
+                return false;
+            }
+            atual = proximo;
+            if (atual.isEncerrado()) {
+                fechamento = evento.getInstante();
+            }
+        }
+        this.dataFechamento = fechamento;
+        this.estado = atual;
+        this.nomeDaClasseDoEstado = null;
+        return true;
     }
 
     /**
@@ -157,11 +368,12 @@ public class OrdemDeServico implements Assunto, Entidades {
 
 
     // --- Métodos que delegam ações para o estado atual da OS (padrão State) ---
-    public void iniciarInspecao() { this.estadoAtual.iniciarInspecao(); }
-    public void iniciarServico() { this.estadoAtual.iniciarServico(); }
-    public void adicionarPeca(Produto produtoDoEstoque, int quantidade) { this.estadoAtual.adicionarPeca(produtoDoEstoque, quantidade); }
-    public void finalizarServico() { this.estadoAtual.finalizarServico(); }
-    public void cancelar(String motivo) { this.estadoAtual.cancelar(motivo); }
+    // Os estados são instâncias únicas; a OS é passada em cada chamada
+    public void iniciarInspecao() { getEstado().iniciarInspecao(this); }
+    public void iniciarServico() { getEstado().iniciarServico(this); }
+    public void adicionarPeca(Produto produtoDoEstoque, int quantidade) { getEstado().adicionarPeca(this, produtoDoEstoque, quantidade); }
+    public void finalizarServico() { getEstado().finalizarServico(this); }
+    public void cancelar(String motivo) { getEstado().cancelar(this, motivo); }
 
 
 
@@ -176,20 +388,59 @@ public class OrdemDeServico implements Assunto, Entidades {
         return mecanicoResponsavel;
     }
 
+    public TipoServico getTipoServico() {
+        return tipoServico;
+    }
+
+    public void setTipoServico(TipoServico tipoServico) {
+        this.tipoServico = tipoServico;
+    }
+
+    /**
+     * Retorna a data de encerramento (finalização ou cancelamento) da OS.
+     * @return data de fechamento, ou null se a OS ainda estiver aberta
+     */
+    public LocalDateTime getDataFechamento() {
+        return dataFechamento;
+    }
+
+    /**
+     * Registra o momento de encerramento da OS. Chamado pelos estados finais;
+     * se a data já tiver sido registrada, ela é mantida.
+     */
+    public void registrarFechamento() {
+        if (this.dataFechamento == null) {
+            this.dataFechamento = LocalDateTime.now();
+        }
+    }
+
     // --- Implementação do padrão Observer ---
     @Override
-    public void adicionarObservador(Observador observador) { this.observadores.add(observador); }
+    public void adicionarObservador(Observador observador) {
+        if (this.observadores == null) {
+            this.observadores = new ArrayList<>(); // OS carregada do JSON
+        }
+        this.observadores.add(observador);
+    }
     @Override
-    public void removerObservador(Observador observador) { this.observadores.remove(observador); }
+    public void removerObservador(Observador observador) { if (observadores != null) this.observadores.remove(observador); }
     @Override
-    public void notificarObservadores() { observadores.forEach(obs -> obs.atualizar(this)); }
+    public void notificarObservadores() {
+        if (observadores == null) {
+            return;
+        }
+        // Laço indexado: a notificação não cria iteradores nem lambdas a cada transição
+        for (int i = 0; i < observadores.size(); i++) {
+            observadores.get(i).atualizar(this);
+        }
+    }
 
     // --- Outros getters ---
     public List<PecaUtilizada> getListaDePecasUtilizadas() { return pecasUtilizadas; }
     public String getNumeroOS() { return numeroOS; }
     public Cliente getCliente() { return cliente; }
     public Carro getCarro() { return carro; }
-    public String getStatusAtual() { return getEstado().getStatus(); }
+    public String getStatusAtual() { return getCodigoEstado().getStatus(); }
 
     /**
      * Retorna o identificador da OS, usado por entidades no sistema.
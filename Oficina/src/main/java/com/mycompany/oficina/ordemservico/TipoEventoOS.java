@@ -0,0 +1,13 @@
+package com.mycompany.oficina.ordemservico;
+
+// Enumeração dos tipos de evento registrados no histórico de uma Ordem de Serviço
+public enum TipoEventoOS {
+    // A OS foi aberta (entrada no estado inicial)
+    ABERTURA,
+
+    // A OS mudou de estado (iniciar inspeção, iniciar serviço, finalizar ou cancelar)
+    TRANSICAO,
+
+    // Uma peça foi adicionada à OS durante o serviço
+    PECA_ADICIONADA
+}
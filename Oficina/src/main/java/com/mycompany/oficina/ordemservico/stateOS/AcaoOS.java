@@ -0,0 +1,12 @@
+package com.mycompany.oficina.ordemservico.stateOS;
+
+/**
+ * Ações que podem mudar o estado de uma Ordem de Serviço.
+ * Usadas como coluna da tabela de transições de {@link MaquinaDeEstadosOS}.
+ */
+public enum AcaoOS {
+    INICIAR_INSPECAO,
+    INICIAR_SERVICO,
+    FINALIZAR_SERVICO,
+    CANCELAR
+}
@@ -0,0 +1,65 @@
+package com.mycompany.oficina.ordemservico.stateOS;
+
+/**
+ * Identifica cada estado da Ordem de Serviço.
+ * <p>
+ * É o código que vai para o JSON no lugar do nome da classe do estado. Cada
+ * código aponta para a instância única (compartilhada por todas as OS) do
+ * estado correspondente, então carregar uma OS não cria nem procura classes
+ * por reflexão.
+ */
+public enum CodigoEstadoOS {
+    AGUARDANDO("Aguardando", false, EstadoAguardando.INSTANCIA),
+    EM_INSPECAO("Em Inspeção", false, EstadoEmInspecao.INSTANCIA),
+    EM_SERVICO("Em Serviço", false, EstadoEmServico.INSTANCIA),
+    FINALIZADA("Finalizada", true, EstadoFinalizada.INSTANCIA),
+    CANCELADA("Cancelada", true, EstadoCancelada.INSTANCIA);
+
+    private final String status; // Texto exibido para o usuário
+    private final boolean encerrado; // Estados finais registram a data de fechamento
+    private final EstadoOS estado; // Instância única do estado
+
+    CodigoEstadoOS(String status, boolean encerrado, EstadoOS estado) {
+        this.status = status;
+        this.encerrado = encerrado;
+        this.estado = estado;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isEncerrado() {
+        return encerrado;
+    }
+
+    public EstadoOS getEstado() {
+        return estado;
+    }
+
+    /**
+     * Converte o nome de classe salvo pelas versões antigas do sistema
+     * (campo {@code nomeDaClasseDoEstado}) no código equivalente.
+     *
+     * @param nomeDaClasse nome completo ou simples da classe do estado
+     * @return código correspondente, ou AGUARDANDO se o nome for desconhecido
+     */
+    public static CodigoEstadoOS doNomeDaClasse(String nomeDaClasse) {
+        if (nomeDaClasse == null) {
+            return AGUARDANDO;
+        }
+        String nomeSimples = nomeDaClasse.substring(nomeDaClasse.lastIndexOf('.') + 1);
+        switch (nomeSimples) {
+            case "EstadoEmInspecao":
+                return EM_INSPECAO;
+            case "EstadoEmServico":
+                return EM_SERVICO;
+            case "EstadoFinalizada":
+                return FINALIZADA;
+            case "EstadoCancelada":
+                return CANCELADA;
+            default:
+                return AGUARDANDO;
+        }
+    }
+}
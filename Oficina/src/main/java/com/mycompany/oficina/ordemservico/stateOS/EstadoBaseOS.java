@@ -10,35 +10,19 @@ import com.mycompany.oficina.ordemservico.OrdemDeServico;
 /**
  * Classe abstrata base para os diferentes estados de uma Ordem de Serviço.
  * 
- * Fornece uma implementação padrão dos métodos da interface EstadoOS,
- * lançando exceção para operações não permitidas no estado atual,
- * exceto para o método de cancelar, que é implementado.
- * 
- * Também mantém uma referência à OrdemDeServico associada para que os estados possam manipulá-la.
+ * As transições (iniciar inspeção, iniciar serviço, finalizar e cancelar) são
+ * resolvidas pela tabela de {@link MaquinaDeEstadosOS}: se a ação não estiver
+ * prevista para o estado atual, é lançada exceção. Os estados não guardam a OS;
+ * ela é recebida em cada chamada, o que permite uma única instância por estado.
  */
 public abstract class EstadoBaseOS implements EstadoOS {
-    // Referência para a Ordem de Serviço à qual esse estado pertence
-    private  final OrdemDeServico os;
 
     /**
-     * Construtor que recebe a OrdemDeServico associada.
-     * 
-     * @param os OrdemDeServico a ser gerenciada por este estado
-     */
-    public EstadoBaseOS(OrdemDeServico os) {
-        this.os = os;
-    }
-    
-    /**
-     * Getter para acesso controlado à OrdemDeServico.
-     * Permite que classes filhas acessem a OS sem expor diretamente o atributo.
-     * 
-     * @return OrdemDeServico associada a este estado
+     * Construtor usado apenas pelas instâncias únicas de cada estado.
      */
-    public OrdemDeServico getOs() {
-        return this.os;
+    protected EstadoBaseOS() {
     }
-    
+
     /**
      * Método auxiliar que lança exceção para operações inválidas
      * no estado atual da Ordem de Serviço.
@@ -46,24 +30,38 @@ public abstract class EstadoBaseOS implements EstadoOS {
     private void lancaErro() { 
         throw new UnsupportedOperationException("Operação não permitida no estado atual: " + getStatus()); 
     }
-    
+
     /**
-     * Métodos padrão da interface EstadoOS que lançam exceção,
-     * indicando que essas operações não são permitidas neste estado.
+     * Transições consultadas na tabela de estados.
      */
-    @Override public void iniciarInspecao() { lancaErro(); }
-    @Override public void iniciarServico() { lancaErro(); }
-    @Override public void adicionarPeca(Produto p, int q) { lancaErro(); }
-    @Override public void finalizarServico() { lancaErro(); }
+    @Override public void iniciarInspecao(OrdemDeServico os) { MaquinaDeEstadosOS.aplicar(os, AcaoOS.INICIAR_INSPECAO); }
+    @Override public void iniciarServico(OrdemDeServico os) { MaquinaDeEstadosOS.aplicar(os, AcaoOS.INICIAR_SERVICO); }
+    @Override public void finalizarServico(OrdemDeServico os) { MaquinaDeEstadosOS.aplicar(os, AcaoOS.FINALIZAR_SERVICO); }
+
+    /**
+     * Por padrão, não é permitido adicionar peças.
+     */
+    @Override public void adicionarPeca(OrdemDeServico os, Produto p, int q) { lancaErro(); }
     
     /**
      * Implementação padrão para cancelar a Ordem de Serviço.
-     * Ao cancelar, a OS muda para o estado EstadoCancelada, informando o motivo.
+     * Ao cancelar, a OS muda para o estado "Cancelada" e a data de fechamento é registrada.
      * 
+     * @param os Ordem de Serviço a ser cancelada
      * @param motivo motivo do cancelamento
      */
     @Override 
-    public void cancelar(String motivo) { 
-        getOs().setEstado(new EstadoCancelada(getOs(), motivo)); 
+    public void cancelar(OrdemDeServico os, String motivo) { 
+        MaquinaDeEstadosOS.aplicar(os, AcaoOS.CANCELAR);
+    }
+
+    /**
+     * O texto do status vem do código do estado.
+     * 
+     * @return nome do estado atual
+     */
+    @Override
+    public String getStatus() {
+        return getCodigo().getStatus();
     }
 }
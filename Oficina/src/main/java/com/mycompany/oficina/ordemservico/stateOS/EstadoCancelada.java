@@ -13,37 +13,29 @@ import com.mycompany.oficina.ordemservico.OrdemDeServico;
  * portanto, nenhuma outra operação além de consultar o status
  * é permitida.
  */
-public class EstadoCancelada extends EstadoBaseOS {
+public final class EstadoCancelada extends EstadoBaseOS {
 
-    /**
-     * Construtor que recebe a Ordem de Serviço e o motivo do cancelamento.
-     * 
-     * @param os OrdemDeServico que será marcada como cancelada
-     * @param motivo motivo do cancelamento (não armazenado neste exemplo)
-     */
-    public EstadoCancelada(OrdemDeServico os, String motivo) {
-        super(os);
+    // Instância única, compartilhada por todas as OS neste estado
+    public static final EstadoCancelada INSTANCIA = new EstadoCancelada();
+
+    private EstadoCancelada() {
     }
 
-    /**
-     * Retorna o status atual da OS, que é "Cancelada".
-     * 
-     * @return string indicando o estado "Cancelada"
-     */
     @Override
-    public String getStatus() {
-        return "Cancelada";
+    public CodigoEstadoOS getCodigo() {
+        return CodigoEstadoOS.CANCELADA;
     }
 
     /**
      * Caso a operação cancelar seja chamada novamente,
      * lança exceção porque a OS já está cancelada e não pode ser cancelada duas vezes.
      * 
+     * @param os Ordem de Serviço (não alterada)
      * @param motivo motivo do cancelamento (não utilizado)
      * @throws UnsupportedOperationException se tentar cancelar novamente
      */
     @Override
-    public void cancelar(String motivo) {
+    public void cancelar(OrdemDeServico os, String motivo) {
         throw new UnsupportedOperationException("A OS já está cancelada.");
     }
 }
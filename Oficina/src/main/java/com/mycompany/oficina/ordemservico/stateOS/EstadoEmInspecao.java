@@ -4,42 +4,22 @@
  */
 package com.mycompany.oficina.ordemservico.stateOS;
 
-import com.mycompany.oficina.ordemservico.OrdemDeServico;
-
 /**
  * Representa o estado "Em Inspeção" da Ordem de Serviço.
  * 
  * Quando a OS está neste estado, significa que a inspeção do veículo está em andamento.
+ * Pela tabela de transições, daqui a OS segue para "Em Serviço" (ou é cancelada).
  */
-public class EstadoEmInspecao extends EstadoBaseOS {
+public final class EstadoEmInspecao extends EstadoBaseOS {
 
-    /**
-     * Construtor que recebe a Ordem de Serviço e passa para a superclasse.
-     * 
-     * @param os OrdemDeServico que estará no estado "Em Inspeção"
-     */
-    public EstadoEmInspecao(OrdemDeServico os) {
-        super(os);
-    }
+    // Instância única, compartilhada por todas as OS neste estado
+    public static final EstadoEmInspecao INSTANCIA = new EstadoEmInspecao();
 
-    /**
-     * Método que inicia o serviço, alterando o estado da OS para "Em Serviço".
-     * 
-     * Aqui, utilizamos o método protegido getOs() da superclasse para acessar a OS
-     * e alterar seu estado para uma nova instância de EstadoEmServico.
-     */
-    @Override
-    public void iniciarServico() {
-        getOs().setEstado(new EstadoEmServico(getOs()));
+    private EstadoEmInspecao() {
     }
 
-    /**
-     * Retorna o status atual da OS como "Em Inspeção".
-     * 
-     * @return String representando o estado atual
-     */
     @Override
-    public String getStatus() {
-        return "Em Inspeção";
+    public CodigoEstadoOS getCodigo() {
+        return CodigoEstadoOS.EM_INSPECAO;
     }
 }
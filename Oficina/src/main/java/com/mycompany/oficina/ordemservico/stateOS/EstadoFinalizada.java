@@ -7,41 +7,33 @@ package com.mycompany.oficina.ordemservico.stateOS;
 import com.mycompany.oficina.ordemservico.OrdemDeServico;
 
 /**
- * Representa o estado "Finalizada" de uma Ordem de Serviço.
+ * Representa o estado "Finalizada" da Ordem de Serviço.
  * 
- * Nesse estado, o serviço foi concluído e não permite mais alterações,
- * como cancelamento da OS.
+ * Estado final: nenhuma transição sai daqui.
  */
-public class EstadoFinalizada extends EstadoBaseOS {
+public final class EstadoFinalizada extends EstadoBaseOS {
 
-    /**
-     * Construtor que recebe a Ordem de Serviço e passa para a superclasse.
-     * 
-     * @param os OrdemDeServico que estará no estado "Finalizada"
-     */
-    public EstadoFinalizada(OrdemDeServico os) {
-        super(os);
+    // Instância única, compartilhada por todas as OS neste estado
+    public static final EstadoFinalizada INSTANCIA = new EstadoFinalizada();
+
+    private EstadoFinalizada() {
     }
 
-    /**
-     * Retorna o status atual da OS como "Finalizada".
-     * 
-     * @return String representando o estado atual
-     */
     @Override
-    public String getStatus() {
-        return "Finalizada";
+    public CodigoEstadoOS getCodigo() {
+        return CodigoEstadoOS.FINALIZADA;
     }
 
     /**
      * Método para cancelar a OS. 
      * Neste estado, o cancelamento não é permitido e lança exceção.
      * 
+     * @param os Ordem de Serviço (não alterada)
      * @param motivo Motivo do cancelamento (não utilizado aqui)
      * @throws UnsupportedOperationException se chamado
      */
     @Override
-    public void cancelar(String motivo) {
+    public void cancelar(OrdemDeServico os, String motivo) {
         throw new UnsupportedOperationException("Não é possível cancelar uma OS já finalizada.");
     }
 }
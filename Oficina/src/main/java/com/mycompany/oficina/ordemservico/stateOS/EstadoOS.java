@@ -5,47 +5,59 @@
 package com.mycompany.oficina.ordemservico.stateOS;
 
 import com.mycompany.oficina.loja.Produto;
+import com.mycompany.oficina.ordemservico.OrdemDeServico;
 
 /**
  * Interface que define as operações possíveis para os estados de uma Ordem de Serviço (OS).
  * Cada estado da OS implementa essa interface para controlar o comportamento da OS em diferentes fases.
+ * 
+ * Os estados não guardam informação própria: existe uma única instância de cada um,
+ * compartilhada por todas as OS, e a OS sobre a qual agir é recebida como parâmetro.
  */
 public interface EstadoOS {
     
     /**
      * Inicia a inspeção da Ordem de Serviço.
      * Geralmente usado para transitar do estado "Aguardando" para "Em Inspeção".
+     * 
+     * @param os Ordem de Serviço que está neste estado
      */
-    void iniciarInspecao();
+    void iniciarInspecao(OrdemDeServico os);
 
     /**
      * Inicia o serviço da Ordem de Serviço.
      * Geralmente usado para transitar do estado "Em Inspeção" para "Em Serviço".
+     * 
+     * @param os Ordem de Serviço que está neste estado
      */
-    void iniciarServico();
+    void iniciarServico(OrdemDeServico os);
 
     /**
      * Adiciona uma peça ao serviço, considerando o estoque e quantidade.
      * Usado principalmente no estado "Em Serviço".
      * 
+     * @param os Ordem de Serviço que está neste estado
      * @param produtoDoEstoque Produto que será utilizado na OS
      * @param quantidade Quantidade da peça a ser usada
      */
-    void adicionarPeca(Produto produtoDoEstoque, int quantidade);
+    void adicionarPeca(OrdemDeServico os, Produto produtoDoEstoque, int quantidade);
 
     /**
      * Finaliza o serviço da Ordem de Serviço.
      * Geralmente transita para o estado "Finalizada".
+     * 
+     * @param os Ordem de Serviço que está neste estado
      */
-    void finalizarServico();
+    void finalizarServico(OrdemDeServico os);
 
     /**
      * Cancela a Ordem de Serviço com um motivo especificado.
      * Dependendo do estado atual, pode ou não ser permitido cancelar.
      * 
+     * @param os Ordem de Serviço que está neste estado
      * @param motivo Justificativa para o cancelamento
      */
-    void cancelar(String motivo);
+    void cancelar(OrdemDeServico os, String motivo);
 
     /**
      * Retorna o status atual da Ordem de Serviço como uma String.
@@ -53,4 +65,11 @@ public interface EstadoOS {
      * @return O nome do estado atual
      */
     String getStatus();
+
+    /**
+     * Retorna o código do estado, que é o valor persistido na OS.
+     * 
+     * @return código do estado
+     */
+    CodigoEstadoOS getCodigo();
 }
@@ -0,0 +1,114 @@
+package com.mycompany.oficina.ordemservico.stateOS;
+
+import com.mycompany.oficina.ordemservico.EventoOS;
+import com.mycompany.oficina.ordemservico.OrdemDeServico;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabela de transições da Ordem de Serviço.
+ * <p>
+ * Cada par (estado atual, ação) aponta para o estado de destino, ou fica vazio
+ * quando a ação não é permitida. A tabela é montada uma vez e consultada pelos
+ * estados, que não guardam nenhuma informação própria: mudar de estado é só
+ * trocar o código gravado na OS, sem criar objetos.
+ */
+public final class MaquinaDeEstadosOS {
+
+    // [estado atual][ação] -> estado de destino (null = não permitido)
+    private static final CodigoEstadoOS[][] TRANSICOES =
+            new CodigoEstadoOS[CodigoEstadoOS.values().length][AcaoOS.values().length];
+
+    static {
+        definir(CodigoEstadoOS.AGUARDANDO, AcaoOS.INICIAR_INSPECAO, CodigoEstadoOS.EM_INSPECAO);
+        definir(CodigoEstadoOS.EM_INSPECAO, AcaoOS.INICIAR_SERVICO, CodigoEstadoOS.EM_SERVICO);
+        definir(CodigoEstadoOS.EM_SERVICO, AcaoOS.FINALIZAR_SERVICO, CodigoEstadoOS.FINALIZADA);
+        definir(CodigoEstadoOS.AGUARDANDO, AcaoOS.CANCELAR, CodigoEstadoOS.CANCELADA);
+        definir(CodigoEstadoOS.EM_INSPECAO, AcaoOS.CANCELAR, CodigoEstadoOS.CANCELADA);
+        definir(CodigoEstadoOS.EM_SERVICO, AcaoOS.CANCELAR, CodigoEstadoOS.CANCELADA);
+    }
+
+    private MaquinaDeEstadosOS() {
+    }
+
+    private static void definir(CodigoEstadoOS origem, AcaoOS acao, CodigoEstadoOS destino) {
+        TRANSICOES[origem.ordinal()][acao.ordinal()] = destino;
+    }
+
+    /**
+     * Consulta a tabela de transições.
+     *
+     * @param origem estado atual
+     * @param acao ação solicitada
+     * @return estado de destino, ou null se a ação não é permitida em {@code origem}
+     */
+    public static CodigoEstadoOS destino(CodigoEstadoOS origem, AcaoOS acao) {
+        return TRANSICOES[origem.ordinal()][acao.ordinal()];
+    }
+
+    /**
+     * Procura a sequência mais curta de ações que leva de um estado a outro
+     * pela tabela de transições.
+     *
+     * @param origem estado de partida
+     * @param destino estado de chegada
+     * @return ações em ordem (vazia se os estados são iguais), ou null se
+     *         {@code destino} não é alcançável a partir de {@code origem}
+     */
+    public static List<AcaoOS> caminho(CodigoEstadoOS origem, CodigoEstadoOS destino) {
+        // Estado alcançado -> ação e estado anterior do caminho até ele
+        Map<CodigoEstadoOS, AcaoOS> acaoAte = new EnumMap<>(CodigoEstadoOS.class);
+        Map<CodigoEstadoOS, CodigoEstadoOS> anterior = new EnumMap<>(CodigoEstadoOS.class);
+        Deque<CodigoEstadoOS> fila = new ArrayDeque<>();
+        fila.add(origem);
+        anterior.put(origem, origem);
+        while (!fila.isEmpty() && !anterior.containsKey(destino)) {
+            CodigoEstadoOS atual = fila.poll();
+            for (AcaoOS acao : AcaoOS.values()) {
+                CodigoEstadoOS proximo = destino(atual, acao);
+                if (proximo != null && !anterior.containsKey(proximo)) {
+                    anterior.put(proximo, atual);
+                    acaoAte.put(proximo, acao);
+                    fila.add(proximo);
+                }
+            }
+        }
+        if (!anterior.containsKey(destino)) {
+            return null;
+        }
+        List<AcaoOS> acoes = new ArrayList<>();
+        for (CodigoEstadoOS estado = destino; estado != origem; estado = anterior.get(estado)) {
+            acoes.add(acaoAte.get(estado));
+        }
+        Collections.reverse(acoes);
+        return acoes;
+    }
+
+    /**
+     * Aplica uma ação à OS e acrescenta a transição ao histórico dela.
+     * Ao entrar em um estado final, registra a data de fechamento.
+     *
+     * @param os Ordem de Serviço
+     * @param acao ação solicitada
+     * @throws UnsupportedOperationException se a ação não é permitida no estado atual
+     */
+    static void aplicar(OrdemDeServico os, AcaoOS acao) {
+        CodigoEstadoOS origem = os.getCodigoEstado();
+        CodigoEstadoOS novo = destino(origem, acao);
+        if (novo == null) {
+            throw new UnsupportedOperationException("Operação não permitida no estado atual: " + origem.getStatus());
+        }
+        if (novo.isEncerrado()) {
+            os.registrarFechamento();
+        }
+        os.registrarEvento(EventoOS.transicao(LocalDateTime.now(), acao, origem, novo));
+        os.setEstado(novo);
+    }
+}
@@ -6,17 +6,28 @@ import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
 import com.mycompany.oficina.ordemservico.stateOS.EstadoOS;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Classe responsável por gerenciar a persistência dos dados em arquivos JSON.
@@ -26,33 +37,59 @@ import java.util.Map;
  */
 public class PersistenciaJson {
 
-    // Diretório onde os arquivos JSON serão armazenados
+    // Diretório padrão onde os arquivos JSON serão armazenados
     private static final String DATA_DIRECTORY = "data";
 
+    // Subdiretório de "data" com os arquivos históricos compactados (somente leitura)
+    private static final String ARQUIVO_DIRECTORY = "arquivo";
+
     // Instância do Gson configurada com adaptador para LocalDateTime e impressão formatada
     private final Gson gson;
 
+    // Gson sem formatação, usado nos diários (um registro JSON por linha)
+    private final Gson gsonCompacto;
+
     // Mapeamento entre uma chave (nome da entidade) e o nome do arquivo JSON correspondente
     private final Map<String, String> arquivosDeEntidade = new HashMap<>();
 
+    // Mapeamento entre uma chave e o diretório onde suas partições (um arquivo por período) são salvas
+    private final Map<String, String> diretoriosParticionados = new HashMap<>();
+
+    // Diretório de dados desta instância
+    private final String diretorioDeDados;
+
     /**
      * Construtor que inicializa o Gson e prepara o diretório de dados e os arquivos de entidades.
      */
     public PersistenciaJson() {
+        this(DATA_DIRECTORY);
+    }
+
+    /**
+     * Construtor com outro diretório de dados (por exemplo, um diretório
+     * temporário para testes, sem tocar nos dados da oficina).
+     *
+     * @param diretorioDeDados diretório dos arquivos JSON
+     */
+    public PersistenciaJson(String diretorioDeDados) {
+        this.diretorioDeDados = diretorioDeDados;
         GsonBuilder builder = new GsonBuilder();
 
         // Registra adaptador customizado para serializar e desserializar LocalDateTime
         builder.registerTypeAdapter(LocalDateTime.class, new LocalDataTimeAdapter());
         builder.registerTypeAdapter(LocalDate.class, new LocalDateAdapter());
 
+        // Os diários gravam cada registro em uma única linha
+        this.gsonCompacto = builder.create();
+
         // Define que o JSON deve ser formatado com quebras de linha e indentação
         builder.setPrettyPrinting();
 
         // Cria a instância final do Gson
         this.gson = builder.create();
 
-        // Cria o diretório "data" caso ele não exista
-        File dir = new File(DATA_DIRECTORY);
+        // Cria o diretório de dados caso ele não exista
+        File dir = new File(diretorioDeDados);
 
         // Linha de diagnóstico: mostra o caminho do diretório de dados que o sistema usará
         System.out.println("[DIAGNÓSTICO] O sistema está procurando o diretório de dados aqui: " + dir.getAbsolutePath());
@@ -70,6 +107,30 @@ public class PersistenciaJson {
         registrarEntidade("agenda", "agenda.json");
         registrarEntidade("estoque", "estoque.json");
         registrarEntidade("financeiro", "financeiro.json");
+        registrarEntidade("lista_espera", "lista_espera.json");
+        registrarEntidade("notificacoes_pendentes", "notificacoes_pendentes.json");
+
+        // Entidades salvas em partições (um arquivo JSON por período)
+        registrarParticionada("agenda", "agenda");
+        registrarParticionada("movimentos_estoque", "movimentos_estoque");
+        registrarParticionada("eventos_os", "eventos_os");
+        registrarParticionada("notificacoes", "notificacoes");
+        registrarParticionada("pedidos_recebidos", "pedidos_recebidos");
+    }
+
+    /**
+     * Registra uma entidade particionada, associando a chave a um subdiretório
+     * de "data" onde cada partição é salva em um arquivo próprio.
+     *
+     * @param chave Identificador da entidade (ex: "agenda")
+     * @param nomeDiretorio Nome do subdiretório (ex: "agenda")
+     */
+    private void registrarParticionada(String chave, String nomeDiretorio) {
+        File dir = new File(diretorioDeDados, nomeDiretorio);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        diretoriosParticionados.put(chave, dir.getPath());
     }
 
     /**
@@ -79,7 +140,7 @@ public class PersistenciaJson {
      * @param nomeArquivo Nome do arquivo JSON para armazenar essa entidade (ex: "clientes.json")
      */
     private void registrarEntidade(String chave, String nomeArquivo) {
-        arquivosDeEntidade.put(chave, DATA_DIRECTORY + "/" + nomeArquivo);
+        arquivosDeEntidade.put(chave, diretorioDeDados + "/" + nomeArquivo);
     }
 
     // --- MÉTODOS PARA CARREGAR LISTAS DE OBJETOS ---
@@ -170,11 +231,12 @@ public class PersistenciaJson {
      * @param <T> Tipo dos objetos da lista
      * @param chave Chave da entidade
      * @param lista Lista de objetos a salvar
+     * @return true se o arquivo foi gravado
      */
-    public <T> void salvarLista(String chave, List<T> lista) {
+    public <T> boolean salvarLista(String chave, List<T> lista) {
         String nomeArquivo = getNomeArquivo(chave);
-        if (nomeArquivo == null) return;
-        salvar(lista, nomeArquivo);
+        if (nomeArquivo == null) return false;
+        return salvar(lista, nomeArquivo);
     }
 
     /**
@@ -183,12 +245,15 @@ public class PersistenciaJson {
      * @param <T> Tipo do objeto a salvar
      * @param dados Objeto a ser salvo
      * @param nomeArquivo Caminho do arquivo JSON
+     * @return true se o arquivo foi gravado
      */
-    private <T> void salvar(T dados, String nomeArquivo) {
+    private <T> boolean salvar(T dados, String nomeArquivo) {
         try (FileWriter writer = new FileWriter(nomeArquivo)) {
             gson.toJson(dados, writer);
+            return true;
         } catch (IOException e) {
             System.err.println("ERRO CRÍTICO ao salvar o arquivo " + nomeArquivo + ": " + e.getMessage());
+            return false;
         }
     }
 
@@ -223,4 +288,353 @@ public class PersistenciaJson {
         Map<K, V> mapa = carregar(nomeArquivo, tipoToken.getType());
         return mapa != null ? mapa : new HashMap<>();
     }
+
+    /**
+     * Indica se o arquivo JSON (não particionado) de uma entidade existe.
+     *
+     * @param chave Chave da entidade
+     * @return true se o arquivo existir
+     */
+    public boolean existeArquivo(String chave) {
+        String nomeArquivo = arquivosDeEntidade.get(chave);
+        return nomeArquivo != null && new File(nomeArquivo).exists();
+    }
+
+    /**
+     * Renomeia o arquivo JSON de uma entidade para "<nome>.migrado", para que
+     * ele não seja lido novamente depois que seus dados foram convertidos para
+     * outro formato. O conteúdo original é preservado como cópia de segurança.
+     *
+     * @param chave Chave da entidade
+     */
+    public void marcarArquivoComoMigrado(String chave) {
+        String nomeArquivo = getNomeArquivo(chave);
+        if (nomeArquivo == null) return;
+        File origem = new File(nomeArquivo);
+        if (origem.exists() && !origem.renameTo(new File(nomeArquivo + ".migrado"))) {
+            System.err.println("ERRO: não foi possível renomear o arquivo migrado " + nomeArquivo);
+        }
+    }
+
+    // --- MÉTODOS PARA ENTIDADES PARTICIONADAS ---
+
+    /**
+     * Lista os nomes das partições já salvas para uma entidade particionada.
+     *
+     * @param chave Chave da entidade particionada
+     * @return Nomes das partições (sem a extensão .json), em ordem alfabética
+     */
+    public List<String> listarParticoes(String chave) {
+        String diretorio = getDiretorioParticionado(chave);
+        List<String> particoes = new ArrayList<>();
+        if (diretorio == null) return particoes;
+
+        File[] arquivos = new File(diretorio).listFiles((dir, nome) -> nome.endsWith(".json"));
+        if (arquivos != null) {
+            for (File arquivo : arquivos) {
+                String nome = arquivo.getName();
+                particoes.add(nome.substring(0, nome.length() - ".json".length()));
+            }
+        }
+        Collections.sort(particoes);
+        return particoes;
+    }
+
+    /**
+     * Salva um mapa como uma partição de uma entidade particionada.
+     * Se o mapa estiver vazio, o arquivo da partição é removido.
+     *
+     * @param <K> Tipo da chave do mapa
+     * @param <V> Tipo do valor do mapa
+     * @param chave Chave da entidade particionada
+     * @param particao Nome da partição (ex: "2025-06")
+     * @param mapa Dados da partição
+     */
+    public <K, V> void salvarMapaParticao(String chave, String particao, Map<K, V> mapa) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return;
+        File arquivo = new File(diretorio, particao + ".json");
+        if (mapa.isEmpty()) {
+            if (arquivo.exists() && !arquivo.delete()) {
+                System.err.println("ERRO: não foi possível remover a partição vazia " + arquivo.getPath());
+            }
+            return;
+        }
+        salvar(mapa, arquivo.getPath());
+    }
+
+    /**
+     * Carrega um mapa salvo como partição de uma entidade particionada.
+     *
+     * @param <K> Tipo da chave do mapa
+     * @param <V> Tipo do valor do mapa
+     * @param chave Chave da entidade particionada
+     * @param particao Nome da partição (ex: "2025-06")
+     * @param tipoToken Tipo genérico para deserialização do mapa
+     * @return Mapa carregado ou vazio se a partição não existir
+     */
+    public <K, V> Map<K, V> carregarMapaParticao(String chave, String particao, TypeToken<HashMap<K, V>> tipoToken) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return new HashMap<>();
+        File arquivo = new File(diretorio, particao + ".json");
+        if (!arquivo.exists()) return new HashMap<>();
+
+        Map<K, V> mapa = carregar(arquivo.getPath(), tipoToken.getType());
+        return mapa != null ? mapa : new HashMap<>();
+    }
+
+    /**
+     * Remove o arquivo de uma partição, se existir.
+     *
+     * @param chave Chave da entidade particionada
+     * @param particao Nome da partição
+     */
+    public void removerParticao(String chave, String particao) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return;
+        File arquivo = new File(diretorio, particao + ".json");
+        if (arquivo.exists() && !arquivo.delete()) {
+            System.err.println("ERRO: não foi possível remover a partição " + arquivo.getPath());
+        }
+    }
+
+    /**
+     * Salva qualquer objeto como uma partição de uma entidade particionada.
+     *
+     * @param <T> Tipo dos dados
+     * @param chave Chave da entidade particionada
+     * @param particao Nome da partição
+     * @param dados Dados a salvar
+     */
+    public <T> void salvarParticao(String chave, String particao, T dados) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return;
+        salvar(dados, new File(diretorio, particao + ".json").getPath());
+    }
+
+    /**
+     * Carrega um objeto salvo como partição de uma entidade particionada.
+     *
+     * @param <T> Tipo do objeto a ser retornado
+     * @param chave Chave da entidade particionada
+     * @param particao Nome da partição
+     * @param tipo Tipo genérico para deserialização
+     * @return Dados lidos ou null se a partição não existir ou não puder ser lida
+     */
+    public <T> T carregarParticao(String chave, String particao, Type tipo) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return null;
+        File arquivo = new File(diretorio, particao + ".json");
+        return arquivo.exists() ? carregar(arquivo.getPath(), tipo) : null;
+    }
+
+    // --- MÉTODOS PARA DIÁRIOS (SOMENTE ACRÉSCIMO) ---
+
+    /**
+     * Acrescenta um registro ao fim de um diário (&lt;particao&gt;.jsonl dentro do
+     * diretório da entidade particionada), em uma linha de JSON. O custo não
+     * depende do tamanho do arquivo, que nunca é regravado.
+     *
+     * @param chave Chave da entidade particionada
+     * @param particao Nome do diário
+     * @param registro Registro a acrescentar
+     * @return true se o registro foi gravado
+     */
+    public boolean anexarAoDiario(String chave, String particao, Object registro) {
+        return anexarLoteAoDiario(chave, particao, Collections.singletonList(registro));
+    }
+
+    /**
+     * Acrescenta vários registros ao fim de um diário, uma linha por registro,
+     * com uma única abertura e uma única escrita do arquivo.
+     *
+     * @param chave Chave da entidade particionada
+     * @param particao Nome do diário
+     * @param registros Registros a acrescentar, em ordem
+     * @return true se todos os registros foram gravados
+     */
+    public boolean anexarLoteAoDiario(String chave, String particao, List<?> registros) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return false;
+        if (registros.isEmpty()) return true;
+        StringBuilder linhas = new StringBuilder();
+        for (Object registro : registros) {
+            linhas.append(gsonCompacto.toJson(registro)).append('\n');
+        }
+        File arquivo = new File(diretorio, particao + ".jsonl");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(arquivo, true), StandardCharsets.UTF_8)) {
+            writer.write(linhas.toString());
+            return true;
+        } catch (IOException e) {
+            System.err.println("ERRO CRÍTICO ao gravar no diário " + arquivo.getPath() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Lê todos os registros de um diário, na ordem em que foram gravados.
+     * Uma última linha incompleta (gravação interrompida) é ignorada.
+     *
+     * @param <T> Tipo dos registros
+     * @param chave Chave da entidade particionada
+     * @param particao Nome do diário
+     * @param tipo Classe dos registros
+     * @return Registros lidos (vazio se o diário não existir)
+     */
+    public <T> List<T> carregarDiario(String chave, String particao, Class<T> tipo) {
+        List<T> registros = new ArrayList<>();
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return registros;
+        File arquivo = new File(diretorio, particao + ".jsonl");
+        if (!arquivo.exists()) return registros;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(arquivo), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = reader.readLine()) != null) {
+                if (linha.isBlank()) continue;
+                try {
+                    registros.add(gsonCompacto.fromJson(linha, tipo));
+                } catch (JsonSyntaxException e) {
+                    System.err.println("[DIAGNÓSTICO] Linha inválida ignorada no diário " + arquivo.getPath() + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[DIAGNÓSTICO] ERRO DE LEITURA no diário " + arquivo.getPath() + ": " + e.getMessage());
+        }
+        return registros;
+    }
+
+    /**
+     * Apaga um diário inteiro, depois que seus registros foram gravados em
+     * outro lugar (compactação).
+     *
+     * @param chave Chave da entidade particionada
+     * @param particao Nome do diário
+     * @return true se o diário foi apagado ou já não existia
+     */
+    public boolean apagarDiario(String chave, String particao) {
+        String diretorio = getDiretorioParticionado(chave);
+        if (diretorio == null) return false;
+        File arquivo = new File(diretorio, particao + ".jsonl");
+        if (!arquivo.exists() || arquivo.delete()) return true;
+        System.err.println("ERRO CRÍTICO ao apagar o diário " + arquivo.getPath());
+        return false;
+    }
+
+    /**
+     * Lista os diários (.jsonl) de uma entidade particionada.
+     *
+     * @param chave Chave da entidade particionada
+     * @return Nomes dos diários (sem a extensão), em ordem alfabética
+     */
+    public List<String> listarDiarios(String chave) {
+        String diretorio = getDiretorioParticionado(chave);
+        List<String> diarios = new ArrayList<>();
+        if (diretorio == null) return diarios;
+        File[] arquivos = new File(diretorio).listFiles((dir, nome) -> nome.endsWith(".jsonl"));
+        if (arquivos != null) {
+            for (File arquivo : arquivos) {
+                String nome = arquivo.getName();
+                diarios.add(nome.substring(0, nome.length() - ".jsonl".length()));
+            }
+        }
+        Collections.sort(diarios);
+        return diarios;
+    }
+
+    // --- MÉTODOS PARA O ARQUIVO HISTÓRICO (COMPACTADO) ---
+
+    /**
+     * Grava dados históricos em data/arquivo/&lt;chave&gt;/&lt;particao&gt;.json.gz,
+     * compactados com GZIP. Depois de gravado, o arquivo é marcado como somente
+     * leitura; regravar a mesma partição (ao arquivar mais registros do mesmo
+     * período) substitui o arquivo inteiro.
+     *
+     * @param <T> Tipo dos dados
+     * @param chave Chave da entidade (ex: "agenda")
+     * @param particao Período arquivado (ex: "2025-06")
+     * @param dados Dados a arquivar
+     * @return true se o arquivo foi gravado com sucesso
+     */
+    public <T> boolean salvarArquivoHistorico(String chave, String particao, T dados) {
+        File dir = new File(new File(diretorioDeDados, ARQUIVO_DIRECTORY), chave);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        File arquivo = new File(dir, particao + ".json.gz");
+        File temporario = new File(dir, particao + ".json.gz.tmp");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(temporario)), StandardCharsets.UTF_8)) {
+            gson.toJson(dados, writer);
+        } catch (IOException e) {
+            System.err.println("ERRO CRÍTICO ao arquivar " + arquivo.getPath() + ": " + e.getMessage());
+            temporario.delete();
+            return false;
+        }
+        // Só substitui o arquivo anterior depois que o novo foi gravado por completo
+        if (arquivo.exists()) {
+            arquivo.setWritable(true);
+            arquivo.delete();
+        }
+        if (!temporario.renameTo(arquivo)) {
+            System.err.println("ERRO CRÍTICO ao renomear o arquivo histórico " + temporario.getPath());
+            return false;
+        }
+        arquivo.setReadOnly();
+        return true;
+    }
+
+    /**
+     * Lê um arquivo histórico compactado.
+     *
+     * @param <T> Tipo do objeto a ser retornado
+     * @param chave Chave da entidade
+     * @param particao Período arquivado
+     * @param tipo Tipo genérico para deserialização
+     * @return Dados lidos ou null se o arquivo não existir ou não puder ser lido
+     */
+    public <T> T carregarArquivoHistorico(String chave, String particao, Type tipo) {
+        File arquivo = new File(new File(new File(diretorioDeDados, ARQUIVO_DIRECTORY), chave), particao + ".json.gz");
+        if (!arquivo.exists()) {
+            return null;
+        }
+        try (Reader reader = new InputStreamReader(new GZIPInputStream(new FileInputStream(arquivo)), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, tipo);
+        } catch (IOException | JsonSyntaxException e) {
+            System.err.println("[DIAGNÓSTICO] ERRO ao ler o arquivo histórico " + arquivo.getPath() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lista os períodos já arquivados de uma entidade.
+     *
+     * @param chave Chave da entidade
+     * @return Nomes das partições arquivadas, em ordem alfabética
+     */
+    public List<String> listarArquivosHistoricos(String chave) {
+        File dir = new File(new File(diretorioDeDados, ARQUIVO_DIRECTORY), chave);
+        List<String> particoes = new ArrayList<>();
+        File[] arquivos = dir.listFiles((d, nome) -> nome.endsWith(".json.gz"));
+        if (arquivos != null) {
+            for (File arquivo : arquivos) {
+                String nome = arquivo.getName();
+                particoes.add(nome.substring(0, nome.length() - ".json.gz".length()));
+            }
+        }
+        Collections.sort(particoes);
+        return particoes;
+    }
+
+    /**
+     * Retorna o diretório associado a uma entidade particionada.
+     *
+     * @param chave Chave da entidade
+     * @return Caminho do diretório ou null se não registrado
+     */
+    private String getDiretorioParticionado(String chave) {
+        String diretorio = diretoriosParticionados.get(chave);
+        if (diretorio == null) {
+            System.err.println("ERRO: Nenhuma entidade particionada registrada para a chave: " + chave);
+        }
+        return diretorio;
+    }
 }
@@ -0,0 +1,178 @@
+package com.mycompany.oficina;
+
+import com.mycompany.oficina.agendamento.AgendaOficina;
+import com.mycompany.oficina.agendamento.Agendamento;
+import com.mycompany.oficina.agendamento.TipoServico;
+import com.mycompany.oficina.entidades.Carro;
+import com.mycompany.oficina.entidades.Cliente;
+import com.mycompany.oficina.entidades.Elevador;
+import com.mycompany.oficina.entidades.Funcionario;
+import com.mycompany.oficina.persistencia.PersistenciaJson;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga da agenda: vários atendentes tentando reservar, ao mesmo
+ * tempo, os mesmos horários de um dia.
+ * <p>
+ * Todas as threads esperam um sinal comum e disparam juntas muitas reservas
+ * sobre os poucos horários de um dia vago. O teste confirma que cada horário
+ * foi reservado por exatamente uma tentativa (nenhuma reserva dupla e nenhuma
+ * reserva aceita e perdida) e que, quando várias threads cancelam o mesmo
+ * agendamento, só uma delas consegue.
+ * <p>
+ * Roda sobre um diretório de dados temporário, apagado ao final; os dados da
+ * oficina não são lidos nem alterados. Termina com código 1 se alguma
+ * verificação falhar.
+ */
+public class TesteDeConcorrenciaAgenda {
+
+    private static final int THREADS = 16;
+    private static final int TENTATIVAS = 2000;
+    private static final int[] HORAS = {8, 9, 10, 11, 14, 15, 16, 17};
+
+    public static void main(String[] args) throws InterruptedException, IOException {
+        Path dados = Files.createTempDirectory("oficina-teste-agenda");
+        List<String> falhas;
+        try {
+            falhas = executar(new PersistenciaJson(dados.toString()));
+        } finally {
+            apagar(dados);
+        }
+        if (falhas.isEmpty()) {
+            System.out.println("OK: nenhuma reserva dupla.");
+        } else {
+            falhas.forEach(falha -> System.err.println("FALHA: " + falha));
+            System.exit(1);
+        }
+    }
+
+    private static List<String> executar(PersistenciaJson persistencia) throws InterruptedException {
+        AgendaOficina agenda = new AgendaOficina(persistencia);
+        LocalDate dia = encontrarDiaVago(agenda);
+        System.out.println("--- Teste de concorrência da agenda em " + dia + " ---");
+
+        Funcionario mecanico = new Funcionario("teste", "Mecanico", "Mecânico de Teste", "000.000.000-00", "", "", "");
+        Set<Agendamento> aceitos = ConcurrentHashMap.newKeySet();
+        AtomicInteger tentativas = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch largada = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    largada.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int n;
+                while ((n = tentativas.getAndIncrement()) < TENTATIVAS) {
+                    int hora = HORAS[ThreadLocalRandom.current().nextInt(HORAS.length)];
+                    Agendamento agendamento = criarAgendamento(n, mecanico, dia.atTime(hora, 0));
+                    if (agenda.agendar(agendamento)) {
+                        aceitos.add(agendamento);
+                    }
+                }
+            });
+        }
+        largada.countDown();
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+
+        List<String> falhas = new ArrayList<>();
+        Agendamento[] horarios = agenda.getHorariosDoDia(dia);
+        Set<Agendamento> ocupados = new HashSet<>();
+        for (Agendamento horario : horarios) {
+            if (horario == null) {
+                falhas.add("Horário ficou vago apesar das " + TENTATIVAS + " tentativas.");
+            } else {
+                ocupados.add(horario);
+            }
+        }
+        if (aceitos.size() != agenda.getTotalDeHorarios()) {
+            falhas.add("Reservas aceitas: " + aceitos.size() + " (esperado " + agenda.getTotalDeHorarios() + ").");
+        }
+        if (!ocupados.equals(aceitos)) {
+            falhas.add("As reservas aceitas não são as que ocupam os horários.");
+        }
+
+        // Várias threads cancelando o mesmo agendamento: só uma pode conseguir
+        if (!ocupados.isEmpty()) {
+            Agendamento alvo = ocupados.iterator().next();
+            AtomicInteger cancelamentos = new AtomicInteger();
+            ExecutorService canceladores = Executors.newFixedThreadPool(THREADS);
+            CountDownLatch sinal = new CountDownLatch(1);
+            for (int t = 0; t < THREADS; t++) {
+                canceladores.execute(() -> {
+                    try {
+                        sinal.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    if (agenda.cancelarAgendamento(alvo)) {
+                        cancelamentos.incrementAndGet();
+                    }
+                });
+            }
+            sinal.countDown();
+            canceladores.shutdown();
+            canceladores.awaitTermination(1, TimeUnit.MINUTES);
+            if (cancelamentos.get() != 1) {
+                falhas.add("Cancelamentos simultâneos aceitos: " + cancelamentos.get() + " (esperado 1).");
+            }
+            ocupados.remove(alvo);
+        }
+
+        System.out.println("Tentativas: " + TENTATIVAS + " | Threads: " + THREADS + " | Reservas aceitas: " + aceitos.size());
+        return falhas;
+    }
+
+    private static void apagar(Path diretorio) throws IOException {
+        try (Stream<Path> caminhos = Files.walk(diretorio)) {
+            caminhos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    // Primeiro dia útil, a partir de um ano à frente, sem nenhum horário ocupado
+    private static LocalDate encontrarDiaVago(AgendaOficina agenda) {
+        LocalDate dia = LocalDate.now().plusYears(1);
+        while (true) {
+            if (dia.getDayOfWeek() != DayOfWeek.SATURDAY && dia.getDayOfWeek() != DayOfWeek.SUNDAY
+                    && Arrays.stream(agenda.getHorariosDoDia(dia)).allMatch(Objects::isNull)) {
+                return dia;
+            }
+            dia = dia.plusDays(1);
+        }
+    }
+
+    private static Agendamento criarAgendamento(int n, Funcionario mecanico, LocalDateTime dataHora) {
+        String cpf = String.format("999.%03d.%03d-00", n / 1000, n % 1000);
+        Cliente cliente = new Cliente("Cliente de Teste " + n, cpf, "", "", "");
+        Carro carro = new Carro(cliente.getNome(), cpf, "Teste", "Teste", "TST" + n, "CHASSI" + n);
+        TipoServico tipo = TipoServico.values()[n % TipoServico.values().length];
+        return new Agendamento(cliente, carro, mecanico, tipo, Elevador.getElevadores()[0], dataHora);
+    }
+}